@@ -0,0 +1,40 @@
+package com.udea.demonmap.config;
+
+import com.udea.demonmap.controller.NetworkScanController;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Precalentamiento del camino de escaneo en el perfil fast-startup.
+ *
+ * Con inicialización diferida el puerto se abre antes, pero el primer escaneo
+ * pagaría la creación del controlador, el servicio, el pool y el escáner. Al
+ * quedar lista la aplicación se crean en segundo plano; si llega una petición
+ * mientras tanto, espera en el registro de singletons al bean en construcción
+ * en lugar de crearlo de nuevo.
+ */
+@Slf4j
+@Component
+@Profile("fast-startup")
+public class FastStartupWarmup implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        Thread warmup = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                event.getApplicationContext().getBean(NetworkScanController.class);
+                log.info("Camino de escaneo inicializado en segundo plano en {} ms",
+                        (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                // El primer escaneo lo volverá a intentar y reportará el error
+                log.warn("No se pudo precalentar el camino de escaneo: {}", e.getMessage());
+            }
+        }, "startup-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+}
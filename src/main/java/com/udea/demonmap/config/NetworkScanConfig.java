@@ -5,9 +5,18 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Configuración del sistema de escaneo de red.
  * 
@@ -15,6 +24,25 @@ import jakarta.validation.constraints.Min;
  * - Tamaño del pool de threads
  * - Timeouts de escaneo
  * - Número de puertos a escanear
+ * - Control de admisión (cola acotada y concurrencia por tipo de escaneo)
+ * - Grabación con Java Flight Recorder
+ * - Planificación de bloques según el historial de escaneos
+ * - Perfil de puertos aprendido por host
+ * - Reparto justo del pool entre clases de prioridad y clientes
+ * - Manejo de hosts rezagados en escaneos completos
+ * - Escaneo de un host repartido en tramos de puertos paralelos
+ * - Reglas de alerta evaluadas sobre cada dispositivo escaneado
+ * - Timing de nmap derivado de la latencia medida por subred
+ * - Journal de progreso para reanudar escaneos completos interrumpidos
+ * - Derrame a disco de los resultados de escaneos completos grandes
+ * - Importación de archivos de salida de nmap existentes
+ * - Sondeo UDP propio con tasa controlada
+ * - Modo coordinador/worker para repartir escaneos entre instancias
+ * - Snapshots ordenados por IP de los escaneos completos, para compararlos
+ * - Agregados por subred y servicio mantenidos con cada host escaneado
+ * - Monitoreo periódico de disponibilidad de los hosts conocidos
+ * - Descubrimiento en paralelo por todas las interfaces locales
+ * - Ajuste en caliente del pool, el timeout por host y los puertos
  */
 @Data
 @Validated
@@ -22,16 +50,22 @@ import jakarta.validation.constraints.Min;
 @ConfigurationProperties(prefix = "network.scan")
 public class NetworkScanConfig {
     
+    /*
+     * threadPoolSize, hostTimeoutSeconds y topPorts se pueden cambiar en caliente
+     * (ScanTuningService): son volatile para que los threads de escaneo lean el
+     * valor nuevo en la siguiente tarea.
+     */
+    
     /**
      * Tamaño del pool de threads
      */
     @Min(value = 1, message = "Thread pool size debe ser al menos 1")
     @Max(value = 100, message = "Thread pool size no debe exceder 100")
-    private int threadPoolSize = 20;
+    private volatile int threadPoolSize = 20;
 
     @Min(value = 5, message = "Host timeout debe ser al menos 5 segundos")
     @Max(value = 300, message = "Host timeout no debe exceder 300 segundos")
-    private int hostTimeoutSeconds = 30;
+    private volatile int hostTimeoutSeconds = 30;
     
     /**
      * Número de puertos más comunes a escanear por host.
@@ -42,5 +76,667 @@ public class NetworkScanConfig {
      */
     @Min(value = 1, message = "Top ports debe ser al menos 1")
     @Max(value = 1000, message = "Top ports no debe exceder 1000")
-    private int topPorts = 20;
+    private volatile int topPorts = 20;
+    
+    /**
+     * Control de admisión y descarte de carga.
+     */
+    @Valid
+    private Admission admission = new Admission();
+    
+    @Data
+    public static class Admission {
+        
+        /**
+         * Capacidad de la cola de tareas de escaneo por host.
+         * Al llenarse, quien envía tareas espera en lugar de crecer sin límite.
+         */
+        @Min(value = 10, message = "La cola debe admitir al menos 10 hosts")
+        @Max(value = 100000, message = "La cola no debe exceder 100000 hosts")
+        private int maxQueuedHosts = 5000;
+        
+        @Min(value = 1, message = "Debe permitirse al menos 1 escaneo completo concurrente")
+        @Max(value = 100, message = "Escaneos completos concurrentes no debe exceder 100")
+        private int maxConcurrentFullScans = 4;
+        
+        @Min(value = 1, message = "Debe permitirse al menos 1 escaneo rápido concurrente")
+        @Max(value = 100, message = "Escaneos rápidos concurrentes no debe exceder 100")
+        private int maxConcurrentQuickScans = 8;
+        
+        @Min(value = 1, message = "Debe permitirse al menos 1 escaneo de host concurrente")
+        @Max(value = 500, message = "Escaneos de host concurrentes no debe exceder 500")
+        private int maxConcurrentHostScans = 20;
+        
+        /**
+         * Porcentaje de ocupación de la cola a partir del cual se rechazan
+         * nuevos escaneos completos y el health check reporta saturación.
+         */
+        @Min(value = 10, message = "El umbral de saturación debe ser al menos 10%")
+        @Max(value = 100, message = "El umbral de saturación no debe exceder 100%")
+        private int saturationThresholdPercent = 80;
+    }
+    
+    /**
+     * Grabación continua con Java Flight Recorder.
+     */
+    @Valid
+    private Jfr jfr = new Jfr();
+    
+    @Data
+    public static class Jfr {
+        
+        private boolean enabled = false;
+        
+        @Min(value = 1, message = "La antigüedad máxima debe ser al menos 1 minuto")
+        @Max(value = 10080, message = "La antigüedad máxima no debe exceder 7 días")
+        private int maxAgeMinutes = 360;
+        
+        @Min(value = 16, message = "El tamaño máximo debe ser al menos 16 MB")
+        @Max(value = 10240, message = "El tamaño máximo no debe exceder 10240 MB")
+        private int maxSizeMb = 256;
+        
+        private String dumpFile = "demonmap.jfr";
+    }
+    
+    /**
+     * Orden de descubrimiento por bloques según el historial de escaneos.
+     */
+    @Valid
+    private Planner planner = new Planner();
+    
+    @Data
+    public static class Planner {
+        
+        private boolean enabled = true;
+        
+        /**
+         * Prefijo de los bloques en que se divide un rango grande (24 = bloques de 256 IPs).
+         */
+        @Min(value = 16, message = "Los bloques no deben ser mayores que /16")
+        @Max(value = 28, message = "Los bloques no deben ser menores que /28")
+        private int chunkPrefixLength = 24;
+    }
+    
+    /**
+     * Perfil de puertos por host: primero se confirman los puertos vistos abiertos
+     * y el resto de los top N se barre en segundo plano.
+     */
+    @Valid
+    private PortProfile portProfile = new PortProfile();
+    
+    @Data
+    public static class PortProfile {
+        
+        private boolean enabled = true;
+        
+        @Min(value = 1, message = "El barrido debe tener al menos 1 thread")
+        @Max(value = 20, message = "El barrido no debe exceder 20 threads")
+        private int sweepThreads = 2;
+        
+        /**
+         * Barridos pendientes; al llenarse se descartan los nuevos hasta el siguiente escaneo.
+         */
+        @Min(value = 10, message = "La cola de barridos debe admitir al menos 10 hosts")
+        @Max(value = 100000, message = "La cola de barridos no debe exceder 100000 hosts")
+        private int sweepQueueCapacity = 1000;
+        
+        /**
+         * Tiempo mínimo entre barridos completos del mismo host.
+         */
+        @Min(value = 0, message = "El intervalo de barrido no puede ser negativo")
+        @Max(value = 10080, message = "El intervalo de barrido no debe exceder 7 días")
+        private int sweepIntervalMinutes = 60;
+        
+        /**
+         * Paquetes por segundo máximos del barrido en segundo plano (--max-rate de nmap).
+         */
+        @Min(value = 1, message = "El ritmo de barrido debe ser al menos 1 paquete por segundo")
+        @Max(value = 10000, message = "El ritmo de barrido no debe exceder 10000 paquetes por segundo")
+        private int sweepMaxRate = 50;
+        
+        /**
+         * Hosts con perfil recordados; al superarse se olvidan los que hace más tiempo no se escanean.
+         */
+        @Min(value = 100, message = "Deben recordarse al menos 100 perfiles de puertos")
+        @Max(value = 10000000, message = "Los perfiles de puertos no deben exceder 10000000 hosts")
+        private int maxHosts = 100000;
+    }
+    
+    /**
+     * Planificador del pool: encolamiento justo ponderado entre clases de
+     * prioridad (interactive, scheduled, bulk) y entre clientes.
+     */
+    @Valid
+    private Scheduler scheduler = new Scheduler();
+    
+    @Data
+    public static class Scheduler {
+        
+        @Min(value = 1, message = "El peso de la clase interactive debe ser al menos 1")
+        @Max(value = 1000, message = "El peso de la clase interactive no debe exceder 1000")
+        private int interactiveWeight = 16;
+        
+        @Min(value = 1, message = "El peso de la clase scheduled debe ser al menos 1")
+        @Max(value = 1000, message = "El peso de la clase scheduled no debe exceder 1000")
+        private int scheduledWeight = 4;
+        
+        @Min(value = 1, message = "El peso de la clase bulk debe ser al menos 1")
+        @Max(value = 1000, message = "El peso de la clase bulk no debe exceder 1000")
+        private int bulkWeight = 1;
+        
+        /**
+         * Máximo de hosts en escaneo simultáneo por cliente (0 = sin límite).
+         */
+        @Min(value = 0, message = "El cupo por cliente no puede ser negativo")
+        @Max(value = 100, message = "El cupo por cliente no debe exceder 100")
+        private int maxConcurrentPerClient = 0;
+        
+        /**
+         * Peso por cliente (header X-Client-Id); los clientes no listados pesan 1.
+         */
+        private Map<String, Integer> clientWeights = new HashMap<>();
+    }
+    
+    /**
+     * Hosts rezagados: los que siguen escaneándose más allá de un umbral basado
+     * en el percentil de duración de los hosts ya terminados del mismo escaneo
+     * se difieren a un sondeo barato de seguimiento.
+     */
+    @Valid
+    private Straggler straggler = new Straggler();
+    
+    @Data
+    public static class Straggler {
+        
+        private boolean enabled = true;
+        
+        /**
+         * Percentil de las duraciones ya observadas que sirve de base al umbral.
+         */
+        @Min(value = 50, message = "El percentil debe ser al menos 50")
+        @Max(value = 99, message = "El percentil no debe exceder 99")
+        private int percentile = 90;
+        
+        /**
+         * Umbral = percentil x multiplicador.
+         */
+        @DecimalMin(value = "1.0", message = "El multiplicador debe ser al menos 1.0")
+        @DecimalMax(value = "20.0", message = "El multiplicador no debe exceder 20.0")
+        private double multiplier = 3.0;
+        
+        /**
+         * Hosts terminados necesarios antes de considerar rezagados.
+         */
+        @Min(value = 1, message = "Se requiere al menos 1 muestra")
+        @Max(value = 1000, message = "Las muestras mínimas no deben exceder 1000")
+        private int minSamples = 5;
+        
+        /**
+         * Umbral mínimo, para no diferir hosts en redes donde todo responde muy rápido.
+         */
+        @Min(value = 1, message = "El umbral mínimo debe ser al menos 1 segundo")
+        @Max(value = 300, message = "El umbral mínimo no debe exceder 300 segundos")
+        private int minThresholdSeconds = 3;
+        
+        /**
+         * Puertos más comunes que sondea el seguimiento de un rezagado.
+         */
+        @Min(value = 1, message = "El seguimiento debe sondear al menos 1 puerto")
+        @Max(value = 100, message = "El seguimiento no debe sondear más de 100 puertos")
+        private int followUpTopPorts = 5;
+        
+        /**
+         * Threads del pool propio de los sondeos de seguimiento.
+         */
+        @Min(value = 1, message = "El seguimiento debe tener al menos 1 thread")
+        @Max(value = 20, message = "El seguimiento no debe exceder 20 threads")
+        private int followUpThreads = 2;
+        
+        /**
+         * Seguimientos en espera; con la cola llena el host no se difiere y se sigue
+         * esperando su escaneo original.
+         */
+        @Min(value = 10, message = "La cola de seguimientos debe admitir al menos 10 hosts")
+        @Max(value = 10000, message = "La cola de seguimientos no debe exceder 10000 hosts")
+        private int followUpQueueCapacity = 256;
+    }
+    
+    /**
+     * Escaneo de un host individual repartido en tramos de puertos.
+     */
+    @Valid
+    private SplitPort splitPort = new SplitPort();
+    
+    @Data
+    public static class SplitPort {
+        
+        private boolean enabled = true;
+        
+        /**
+         * Máximo de nmap simultáneos sobre el mismo host. Se usan menos si el pool está ocupado.
+         */
+        @Min(value = 1, message = "El paralelismo debe ser al menos 1")
+        @Max(value = 16, message = "El paralelismo no debe exceder 16")
+        private int parallelism = 4;
+        
+        /**
+         * Puertos mínimos por tramo; con listas cortas no compensa lanzar otro proceso.
+         */
+        @Min(value = 1, message = "Cada tramo debe tener al menos 1 puerto")
+        @Max(value = 1000, message = "Los puertos por tramo no deben exceder 1000")
+        private int minPortsPerSlice = 5;
+        
+        /**
+         * Paquetes por segundo contra el host, repartidos entre los tramos (--max-rate).
+         */
+        @Min(value = 10, message = "El presupuesto de paquetes debe ser al menos 10 por segundo")
+        @Max(value = 100000, message = "El presupuesto de paquetes no debe exceder 100000 por segundo")
+        private int maxRatePerHost = 1000;
+        
+        /**
+         * Archivo de servicios de nmap del que sale el orden de los top N puertos.
+         */
+        private String servicesFile = "/usr/share/nmap/nmap-services";
+    }
+    
+    /**
+     * Reglas de alerta y destinos de las coincidencias.
+     */
+    @Valid
+    private Alerts alerts = new Alerts();
+    
+    @Data
+    public static class Alerts {
+        
+        private boolean enabled = true;
+        
+        /**
+         * Reglas cargadas al iniciar: nombre → expresión.
+         */
+        private Map<String, String> rules = new LinkedHashMap<>();
+        
+        /**
+         * Coincidencias recientes que se conservan en memoria para GET /api/alerts/matches.
+         */
+        @Min(value = 1, message = "Se debe conservar al menos 1 coincidencia")
+        @Max(value = 100000, message = "Las coincidencias conservadas no deben exceder 100000")
+        private int recentMatches = 500;
+        
+        /**
+         * IPs que se recuerdan para new:host; al superarlo se olvidan las que hace más tiempo no aparecen.
+         */
+        @Min(value = 1000, message = "Se deben recordar al menos 1000 hosts")
+        @Max(value = 10000000, message = "Los hosts recordados no deben exceder 10000000")
+        private int maxSeenHosts = 200000;
+        
+        /**
+         * Archivo donde se agregan las IPs vistas por primera vez, para que
+         * new:host no se dispare de nuevo tras un reinicio (vacío = solo en memoria).
+         */
+        private String seenHostsFile = "alerts/seen-hosts.txt";
+        
+        /**
+         * Archivo JSON Lines donde se agregan las coincidencias (vacío = deshabilitado).
+         */
+        private String file;
+        
+        /**
+         * URL a la que se envía cada coincidencia con POST JSON (vacío = deshabilitado).
+         */
+        private String webhookUrl;
+        
+        @Min(value = 1, message = "El timeout del webhook debe ser al menos 1 segundo")
+        @Max(value = 60, message = "El timeout del webhook no debe exceder 60 segundos")
+        private int webhookTimeoutSeconds = 5;
+    }
+    
+    /**
+     * Timing de nmap por subred según la latencia medida en escaneos anteriores.
+     */
+    @Valid
+    private Timing timing = new Timing();
+    
+    @Data
+    public static class Timing {
+        
+        private boolean enabled = true;
+        
+        /**
+         * Prefijo de las subredes que comparten perfil (24 = una estimación por /24).
+         */
+        @Min(value = 8, message = "Las subredes de timing no deben ser mayores que /8")
+        @Max(value = 32, message = "Las subredes de timing no deben ser menores que /32")
+        private int subnetPrefixLength = 24;
+        
+        /**
+         * Mediciones necesarias antes de reemplazar el timing por defecto de la subred.
+         */
+        @Min(value = 1, message = "Se requiere al menos 1 medición")
+        @Max(value = 1000, message = "Las mediciones mínimas no deben exceder 1000")
+        private int minSamples = 3;
+        
+        /**
+         * Cotas de los timeouts de RTT que se pasan a nmap.
+         */
+        @Min(value = 5, message = "El timeout de RTT mínimo debe ser al menos 5 ms")
+        @Max(value = 1000, message = "El timeout de RTT mínimo no debe exceder 1000 ms")
+        private int minRttTimeoutMs = 25;
+        
+        @Min(value = 100, message = "El timeout de RTT máximo debe ser al menos 100 ms")
+        @Max(value = 10000, message = "El timeout de RTT máximo no debe exceder 10000 ms")
+        private int maxRttTimeoutMs = 3000;
+    }
+    
+    /**
+     * Journal de progreso de los escaneos completos: cada bloque descubierto y
+     * cada host escaneado se anota en disco para poder reanudar el escaneo si se
+     * interrumpe, sin repetir el trabajo ya hecho.
+     */
+    @Valid
+    private Checkpoint checkpoint = new Checkpoint();
+    
+    @Data
+    public static class Checkpoint {
+        private boolean enabled = true;
+        
+        /**
+         * Directorio de los journals; un archivo por escaneo en curso o interrumpido.
+         */
+        private String directory = "checkpoints";
+    }
+    
+    /**
+     * Derrame a disco de los escaneos completos de rangos con más direcciones que
+     * el umbral: pasado el umbral, los dispositivos terminados se escriben a un
+     * archivo temporal y la respuesta se serializa leyéndolo en secuencia.
+     */
+    @Valid
+    private Spill spill = new Spill();
+    
+    @Data
+    public static class Spill {
+        private boolean enabled = true;
+        
+        /**
+         * Dispositivos que se mantienen en memoria por escaneo.
+         */
+        @Min(value = 100, message = "El umbral de derrame debe ser al menos 100 dispositivos")
+        @Max(value = 1000000, message = "El umbral de derrame no debe exceder 1000000 dispositivos")
+        private int memoryThreshold = 4096;
+        
+        /**
+         * Directorio de los archivos temporales; vacío usa java.io.tmpdir.
+         */
+        private String directory = "";
+    }
+    
+    /**
+     * Snapshots de los escaneos completos terminados, guardados en disco con los
+     * hosts ordenados por IP para compararlos con un merge lineal.
+     */
+    @Valid
+    private Snapshots snapshots = new Snapshots();
+    
+    @Data
+    public static class Snapshots {
+        private boolean enabled = true;
+        
+        /**
+         * Directorio de los snapshots; dos archivos por escaneo (metadatos y hosts).
+         */
+        private String directory = "snapshots";
+        
+        /**
+         * Snapshots que se conservan; al superarlo se borra el más antiguo.
+         */
+        @Min(value = 2, message = "Se deben conservar al menos 2 snapshots")
+        @Max(value = 10000, message = "No se deben conservar más de 10000 snapshots")
+        private int maxSnapshots = 50;
+    }
+    
+    /**
+     * Agregados por /24, puerto y servicio que se actualizan con cada host
+     * escaneado, para tableros que los consultan con frecuencia.
+     */
+    @Valid
+    private Rollups rollups = new Rollups();
+    
+    @Data
+    public static class Rollups {
+        /**
+         * Servicios que se reportan en el ranking global y en el de cada subred.
+         */
+        @Min(value = 1, message = "Se debe reportar al menos 1 servicio")
+        @Max(value = 1000, message = "No se deben reportar más de 1000 servicios")
+        private int topServices = 10;
+    }
+    
+    /**
+     * Monitoreo de disponibilidad: los hosts conocidos se reparten en rondas
+     * a lo largo del intervalo y cada ronda los sondea con una sola invocación
+     * de nmap -sn. Deshabilitado por defecto: genera tráfico continuo.
+     */
+    @Valid
+    private Liveness liveness = new Liveness();
+    
+    @Data
+    public static class Liveness {
+        private boolean enabled = false;
+        
+        /**
+         * Cada cuánto se sondea cada host.
+         */
+        @Min(value = 1, message = "El intervalo de monitoreo debe ser al menos 1 segundo")
+        @Max(value = 86400, message = "El intervalo de monitoreo no debe exceder 86400 segundos")
+        private int intervalSeconds = 30;
+        
+        /**
+         * Rondas en que se reparten los hosts dentro de cada intervalo.
+         */
+        @Min(value = 1, message = "Debe haber al menos 1 ronda por intervalo")
+        @Max(value = 3600, message = "No debe haber más de 3600 rondas por intervalo")
+        private int roundsPerInterval = 10;
+        
+        /**
+         * Máximo de hosts por invocación de nmap. Con IPs dispersas cada una
+         * ocupa ~16 caracteres de la línea de comandos, que Linux limita a 128 KB.
+         */
+        @Min(value = 1, message = "El lote de monitoreo debe tener al menos 1 host")
+        @Max(value = 4096, message = "El lote de monitoreo no debe exceder 4096 hosts")
+        private int maxBatchSize = 4096;
+        
+        /**
+         * Sondeos fallidos seguidos para dar un host por caído; desde el
+         * primero se vuelve a sondear en la ronda siguiente.
+         */
+        @Min(value = 1, message = "Se necesita al menos 1 sondeo fallido para dar un host por caído")
+        @Max(value = 10, message = "No se deben exigir más de 10 sondeos fallidos")
+        private int downAfterMisses = 2;
+        
+        @Min(value = 1, message = "Se debe monitorear al menos 1 host")
+        @Max(value = 1000000, message = "No se deben monitorear más de 1000000 hosts")
+        private int maxHosts = 100000;
+        
+        /**
+         * Transiciones recientes que se conservan para /api/liveness/transitions.
+         */
+        @Min(value = 1, message = "Se debe conservar al menos 1 transición")
+        @Max(value = 100000, message = "No se deben conservar más de 100000 transiciones")
+        private int recentTransitions = 1000;
+    }
+    
+    /**
+     * Descubrimiento por interfaces: cada interfaz activa aporta su subred con
+     * el prefijo real y se descubre con nmap -e en paralelo con las demás.
+     */
+    @Valid
+    private Interfaces interfaces = new Interfaces();
+    
+    @Data
+    public static class Interfaces {
+        /**
+         * Una subred más ancha que este prefijo se reduce al bloque de ese
+         * tamaño que contiene la IP de la interfaz.
+         */
+        @Min(value = 8, message = "El prefijo mínimo de las subredes debe ser al menos /8")
+        @Max(value = 30, message = "El prefijo mínimo de las subredes no debe exceder /30")
+        private int minPrefixLength = 16;
+        
+        /**
+         * Interfaces a ignorar por prefijo de nombre (ej: docker, veth).
+         */
+        private List<String> excluded = new ArrayList<>();
+        
+        /**
+         * Interfaces que se descubren a la vez.
+         */
+        @Min(value = 1, message = "Se debe descubrir al menos 1 interfaz a la vez")
+        @Max(value = 64, message = "No se deben descubrir más de 64 interfaces a la vez")
+        private int parallelism = 8;
+    }
+    
+    /**
+     * Endpoint de ajuste en caliente del pool, el timeout por host y los
+     * puertos. Deshabilitado por defecto: cualquiera con acceso a la API
+     * podría cambiar la carga del servicio.
+     */
+    @Valid
+    private Tuning tuning = new Tuning();
+    
+    @Data
+    public static class Tuning {
+        
+        private boolean enabled = false;
+    }
+    
+    /**
+     * Importación de archivos -oX / -oG existentes: se leen varios archivos en
+     * paralelo y los hosts se entregan a los índices por lotes.
+     */
+    @Valid
+    private Imports imports = new Imports();
+    
+    @Data
+    public static class Imports {
+        /**
+         * Directorio raíz de los archivos importables; las rutas pedidas deben quedar dentro.
+         */
+        private String baseDirectory = "imports";
+        
+        @Min(value = 1, message = "Se requiere al menos 1 thread de importación")
+        @Max(value = 64, message = "Los threads de importación no deben exceder 64")
+        private int parallelism = 4;
+        
+        /**
+         * Dispositivos por lote entregado a los índices.
+         */
+        @Min(value = 1, message = "El lote de importación debe tener al menos 1 dispositivo")
+        @Max(value = 100000, message = "El lote de importación no debe exceder 100000 dispositivos")
+        private int batchSize = 1000;
+        
+        /**
+         * Tamaño desde el cual un archivo se lee mapeado en memoria.
+         */
+        @Min(value = 1, message = "El umbral de mapeo debe ser al menos 1 MB")
+        @Max(value = 65536, message = "El umbral de mapeo no debe exceder 65536 MB")
+        private int mmapThresholdMb = 16;
+    }
+    
+    /**
+     * Sondeo UDP en la JVM (DNS, NTP, SNMP, SSDP) que acompaña al escaneo TCP
+     * de cada host. Deshabilitado por defecto: agrega tráfico UDP a cada host.
+     */
+    @Valid
+    private Udp udp = new Udp();
+    
+    @Data
+    public static class Udp {
+        private boolean enabled = false;
+        
+        /**
+         * Datagramas por segundo, compartidos por todos los escaneos.
+         */
+        @Min(value = 1, message = "La tasa UDP debe ser al menos 1 sonda por segundo")
+        @Max(value = 100000, message = "La tasa UDP no debe exceder 100000 sondas por segundo")
+        private int ratePerSecond = 500;
+        
+        /**
+         * Espera por respuesta antes de reintentar.
+         */
+        @Min(value = 50, message = "El timeout UDP debe ser al menos 50 ms")
+        @Max(value = 30000, message = "El timeout UDP no debe exceder 30000 ms")
+        private int timeoutMs = 1000;
+        
+        @Min(value = 0, message = "Los reintentos UDP no pueden ser negativos")
+        @Max(value = 10, message = "Los reintentos UDP no deben exceder 10")
+        private int retries = 2;
+        
+        private String snmpCommunity = "public";
+    }
+    
+    /**
+     * Escaneo distribuido: un coordinador corta el rango en tramos y los
+     * entrega en préstamo (lease) a workers, otras instancias de esta misma
+     * aplicación que los piden por HTTP. Un tramo cuyo worker deja de enviar
+     * heartbeats vuelve a la cola y lo toma otro.
+     */
+    @Valid
+    private Cluster cluster = new Cluster();
+    
+    @Data
+    public static class Cluster {
+        /**
+         * Habilita en esta instancia los endpoints de coordinador (/api/cluster).
+         */
+        private boolean coordinatorEnabled = false;
+        
+        /**
+         * URL base del coordinador; si se define, esta instancia trabaja como worker.
+         */
+        private String coordinatorUrl;
+        
+        /**
+         * Nombre con el que se registra el worker; vacío usa host y pid.
+         */
+        private String workerName = "";
+        
+        /**
+         * Tramos que un worker escanea a la vez.
+         */
+        @Min(value = 1, message = "El worker debe tomar al menos 1 tramo a la vez")
+        @Max(value = 16, message = "El worker no debe tomar más de 16 tramos a la vez")
+        private int workerSlots = 2;
+        
+        /**
+         * Prefijo de los tramos en que el coordinador corta cada rango.
+         */
+        @Min(value = 16, message = "El prefijo de los tramos debe ser al menos /16")
+        @Max(value = 30, message = "El prefijo de los tramos no debe exceder /30")
+        private int chunkPrefixLength = 24;
+        
+        @Min(value = 100, message = "El intervalo de heartbeat debe ser al menos 100 ms")
+        @Max(value = 60000, message = "El intervalo de heartbeat no debe exceder 60000 ms")
+        private int heartbeatIntervalMs = 2000;
+        
+        /**
+         * Silencio tras el cual un worker se da por muerto y sus tramos se reasignan.
+         */
+        @Min(value = 500, message = "El vencimiento de los leases debe ser al menos 500 ms")
+        @Max(value = 600000, message = "El vencimiento de los leases no debe exceder 600000 ms")
+        private int leaseTimeoutMs = 10000;
+        
+        /**
+         * Espera máxima de un worker que pide un tramo y no hay ninguno pendiente.
+         */
+        @Min(value = 0, message = "La espera por tramos no puede ser negativa")
+        @Max(value = 60000, message = "La espera por tramos no debe exceder 60000 ms")
+        private int pollTimeoutMs = 5000;
+        
+        /**
+         * Intentos por tramo antes de darlo por fallido.
+         */
+        @Min(value = 1, message = "Se requiere al menos 1 intento por tramo")
+        @Max(value = 10, message = "Los intentos por tramo no deben exceder 10")
+        private int maxChunkAttempts = 3;
+    }
 }
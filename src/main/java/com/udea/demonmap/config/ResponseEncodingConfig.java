@@ -0,0 +1,61 @@
+package com.udea.demonmap.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Configuración de codificaciones de respuesta negociables.
+ *
+ * Además de JSON, los endpoints de escaneo pueden responder en CBOR
+ * (Accept: application/cbor) o Smile (Accept: application/x-jackson-smile),
+ * formatos binarios que no repiten los nombres de campo como texto.
+ * Los convertidores escriben directamente sobre el stream de salida,
+ * por lo que la compresión (gzip de Tomcat o {@link ZstdCompressionFilter})
+ * se aplica mientras se serializa, sin bufferizar el cuerpo completo.
+ */
+@Configuration
+public class ResponseEncodingConfig implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public ResponseEncodingConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    /**
+     * Reemplaza los convertidores CBOR y Smile por defecto de Spring MVC en su
+     * misma posición: esos se construyen con un ObjectMapper propio (fechas como
+     * arreglos) y, al ir antes en la lista, serían los elegidos para esos tipos.
+     * Los de reemplazo reutilizan la configuración de Jackson de Spring Boot.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        replaceOrAdd(converters, MappingJackson2CborHttpMessageConverter.class,
+                new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build()));
+        replaceOrAdd(converters, MappingJackson2SmileHttpMessageConverter.class,
+                new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.factory(new SmileFactory()).build()));
+    }
+
+    private static void replaceOrAdd(List<HttpMessageConverter<?>> converters,
+                                     Class<?> type, HttpMessageConverter<?> replacement) {
+        boolean replaced = false;
+        for (ListIterator<HttpMessageConverter<?>> it = converters.listIterator(); it.hasNext(); ) {
+            if (type.isInstance(it.next())) {
+                it.set(replacement);
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            converters.add(replacement);
+        }
+    }
+}
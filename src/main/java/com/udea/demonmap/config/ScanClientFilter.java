@@ -0,0 +1,62 @@
+package com.udea.demonmap.config;
+
+import com.udea.demonmap.service.ScanContext;
+import com.udea.demonmap.service.ScanPriority;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Identifica al cliente de cada petición de escaneo para el planificador.
+ *
+ * El cliente se toma del header X-Client-Id o, si no viene, de la IP remota.
+ * El header X-Scan-Priority (interactive, scheduled, bulk) permite a un cliente
+ * bajar la prioridad de sus escaneos; el servicio nunca la sube por encima de
+ * la que corresponde a la operación.
+ */
+@Component
+public class ScanClientFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_HEADER = "X-Client-Id";
+    public static final String PRIORITY_HEADER = "X-Scan-Priority";
+
+    private static final String API_PATH_PREFIX = "/api/network/";
+    private static final int MAX_CLIENT_ID_LENGTH = 64;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(API_PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String clientId = request.getHeader(CLIENT_HEADER);
+        if (clientId == null || clientId.isBlank()) {
+            clientId = request.getRemoteAddr();
+        } else if (clientId.length() > MAX_CLIENT_ID_LENGTH) {
+            clientId = clientId.substring(0, MAX_CLIENT_ID_LENGTH);
+        }
+
+        try (ScanContext.Scope scope = ScanContext.open(clientId, parsePriority(request.getHeader(PRIORITY_HEADER)))) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static ScanPriority parsePriority(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ScanPriority.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
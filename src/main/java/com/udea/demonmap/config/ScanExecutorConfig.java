@@ -0,0 +1,197 @@
+package com.udea.demonmap.config;
+
+import com.udea.demonmap.service.FairShareScanQueue;
+import com.udea.demonmap.service.ScanPriority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuración del pool de threads para el escaneo de hosts.
+ *
+ * La cola es una {@link FairShareScanQueue}: reparte los threads entre clases
+ * de prioridad y clientes en lugar de atender en orden de llegada. Los threads
+ * se arrancan de inmediato para que toda tarea pase por la cola y respete
+ * prioridades y cupos.
+ *
+ * A diferencia de Executors.newFixedThreadPool, la cola está acotada
+ * (network.scan.admission.max-queued-hosts): cuando se llena, el thread que
+ * envía tareas espera a que se libere espacio, de modo que la memoria no
+ * crece con la carga. El rechazo rápido ocurre antes, en ScanAdmissionControl.
+ *
+ * Los barridos de puertos en segundo plano usan un pool aparte y pequeño
+ * para no competir con los escaneos que esperan los clientes; lo mismo los
+ * sondeos de seguimiento de hosts rezagados, que no deben quedar detrás de
+ * los barridos, la
+ * importación de archivos de nmap, que es trabajo de CPU y disco, el
+ * descubrimiento por interfaces, una invocación de nmap por subred local, y
+ * la escritura de los snapshots, que no debe demorar la respuesta del escaneo.
+ */
+@Slf4j
+@Configuration
+public class ScanExecutorConfig {
+
+    /**
+     * Escaneos completos terminados que pueden esperar su snapshot; cada uno
+     * retiene sus dispositivos hasta escribirse.
+     */
+    private static final int SNAPSHOT_QUEUE_CAPACITY = 4;
+
+    @Bean(destroyMethod = "shutdownNow")
+    @Primary
+    public ThreadPoolExecutor scanExecutor(NetworkScanConfig scanConfig) {
+        int threads = scanConfig.getThreadPoolSize();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        NetworkScanConfig.Scheduler scheduler = scanConfig.getScheduler();
+        Map<ScanPriority, Integer> classWeights = new EnumMap<>(ScanPriority.class);
+        classWeights.put(ScanPriority.INTERACTIVE, scheduler.getInteractiveWeight());
+        classWeights.put(ScanPriority.SCHEDULED, scheduler.getScheduledWeight());
+        classWeights.put(ScanPriority.BULK, scheduler.getBulkWeight());
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new FairShareScanQueue(scanConfig.getAdmission().getMaxQueuedHosts(), classWeights,
+                        scheduler.getClientWeights(), scheduler.getMaxConcurrentPerClient()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "scan-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    // Contrapresión: esperar espacio en la cola en lugar de descartar la tarea
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("El pool de escaneo está detenido");
+                    }
+                    try {
+                        pool.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrumpido esperando espacio en la cola", e);
+                    }
+                });
+
+        executor.prestartAllCoreThreads();
+
+        log.info("Pool de escaneo creado con {} threads y cola de {} hosts (pesos por clase {}, cupo por cliente {})",
+                threads, scanConfig.getAdmission().getMaxQueuedHosts(), classWeights, scheduler.getMaxConcurrentPerClient());
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor portSweepExecutor(NetworkScanConfig scanConfig) {
+        NetworkScanConfig.PortProfile portProfile = scanConfig.getPortProfile();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                portProfile.getSweepThreads(), portProfile.getSweepThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(portProfile.getSweepQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "port-sweep-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                // Con la cola llena se rechaza; AdaptivePortScanner descarta el barrido y lo reintenta después
+                new ThreadPoolExecutor.AbortPolicy());
+
+        log.info("Pool de barrido de puertos creado con {} threads y cola de {} hosts",
+                portProfile.getSweepThreads(), portProfile.getSweepQueueCapacity());
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor followUpExecutor(NetworkScanConfig scanConfig) {
+        NetworkScanConfig.Straggler straggler = scanConfig.getStraggler();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                straggler.getFollowUpThreads(), straggler.getFollowUpThreads(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(straggler.getFollowUpQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "straggler-follow-up-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Con la cola llena se rechaza; el escaneo no difiere el host y espera su resultado original
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        log.info("Pool de seguimiento de rezagados creado con {} threads y cola de {} hosts",
+                straggler.getFollowUpThreads(), straggler.getFollowUpQueueCapacity());
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor importExecutor(NetworkScanConfig scanConfig) {
+        int threads = scanConfig.getImports().getParallelism();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        // Una tarea por archivo; la cola solo guarda rutas
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "nmap-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        log.info("Pool de importación creado con {} threads", threads);
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor discoveryExecutor(NetworkScanConfig scanConfig) {
+        int threads = scanConfig.getInterfaces().getParallelism();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        // Se usa de vez en cuando: los threads terminan si quedan ociosos
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "interface-discovery-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        log.info("Pool de descubrimiento por interfaces creado con {} threads", threads);
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor snapshotExecutor() {
+        // Un solo thread: los snapshots se escriben en el orden en que terminan los escaneos.
+        // Con la cola llena escribe el thread que terminó el escaneo, lo que frena a quien
+        // produce más escaneos de los que el disco alcanza a guardar.
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1, 1,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(SNAPSHOT_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "scan-snapshot");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
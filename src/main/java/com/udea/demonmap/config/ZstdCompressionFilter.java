@@ -0,0 +1,216 @@
+package com.udea.demonmap.config;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Filtro de compresión zstd para los endpoints de escaneo.
+ *
+ * Tomcat solo ofrece gzip (server.compression.*); cuando el cliente
+ * declara "Accept-Encoding: zstd" este filtro envuelve la salida en un
+ * {@link ZstdOutputStream} que comprime por bloques mientras Jackson escribe.
+ * Al fijar Content-Encoding, Tomcat no vuelve a comprimir la respuesta.
+ */
+@Component
+public class ZstdCompressionFilter extends OncePerRequestFilter {
+
+    private static final String ZSTD = "zstd";
+    private static final String SCAN_PATH_PREFIX = "/api/network/scan";
+
+    /**
+     * Nivel 3: el default de zstd, buen equilibrio entre CPU y tamaño.
+     */
+    private static final int COMPRESSION_LEVEL = 3;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(SCAN_PATH_PREFIX)
+                || !acceptsZstd(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ZstdResponseWrapper wrapper = new ZstdResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            wrapper.finish();
+        }
+    }
+
+    /**
+     * Verifica si el header Accept-Encoding incluye zstd con q distinto de 0.
+     */
+    static boolean acceptsZstd(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            if (!ZSTD.equals(parts[0].trim().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Respuesta que comprime el cuerpo con zstd de forma incremental.
+     */
+    private static class ZstdResponseWrapper extends HttpServletResponseWrapper {
+
+        private ZstdServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        ZstdResponseWrapper(HttpServletResponse response) {
+            super(response);
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, ZSTD);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() ya fue invocado en esta respuesta");
+            }
+            if (outputStream == null) {
+                outputStream = new ZstdServletOutputStream(getResponse().getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() ya fue invocado en esta respuesta");
+                }
+                outputStream = new ZstdServletOutputStream(getResponse().getOutputStream());
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, charset));
+            }
+            return writer;
+        }
+
+        // El tamaño comprimido es desconocido hasta terminar: se envía chunked
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (outputStream != null) {
+                outputStream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        /**
+         * Cierra el frame zstd. Si no se escribió cuerpo, se emite un frame vacío
+         * para que el Content-Encoding declarado siga siendo válido.
+         */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.close();
+            } else {
+                getOutputStream().close();
+            }
+        }
+    }
+
+    private static class ZstdServletOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream target;
+        private final ZstdOutputStream zstd;
+        private boolean closed;
+
+        ZstdServletOutputStream(ServletOutputStream target) throws IOException {
+            this.target = target;
+            this.zstd = new ZstdOutputStream(target, COMPRESSION_LEVEL);
+            // Un flush intermedio no debe cerrar el frame: se cierra una sola vez al final
+            this.zstd.setCloseFrameOnFlush(false);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            zstd.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            zstd.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            zstd.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                zstd.close();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.dto.AlertMatchDTO;
+import com.udea.demonmap.dto.AlertRuleDTO;
+import com.udea.demonmap.dto.AlertRuleRequestDTO;
+import com.udea.demonmap.entity.AlertMatch;
+import com.udea.demonmap.entity.AlertRule;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.service.AlertService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controlador REST para las reglas de alerta y sus coincidencias.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/alerts")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Alerts", description = "Reglas de alerta evaluadas sobre cada dispositivo escaneado")
+public class AlertController {
+
+    private final AlertService alertService;
+
+    @Operation(
+        summary = "Registrar regla de alerta",
+        description = "La expresión usa la sintaxis de /api/network/query más net:CIDR y new:host. " +
+                "Ejemplos: 'new:host AND port:23', 'net:10.0.5.0/24 AND vendor:\"Hewlett Packard\"'."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "Regla registrada",
+            content = @Content(schema = @Schema(implementation = AlertRuleDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Expresión de regla inválida"
+        )
+    })
+    @PostMapping("/rules")
+    public ResponseEntity<AlertRuleDTO> addRule(@Valid @RequestBody AlertRuleRequestDTO request) {
+        AlertRule rule = alertService.addRule(request.getName(), request.getExpression());
+        return ResponseEntity.status(HttpStatus.CREATED).body(toDTO(rule));
+    }
+
+    @Operation(summary = "Listar reglas de alerta")
+    @GetMapping("/rules")
+    public ResponseEntity<List<AlertRuleDTO>> getRules() {
+        return ResponseEntity.ok(alertService.getRules().stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    @Operation(summary = "Eliminar regla de alerta")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Regla eliminada"),
+        @ApiResponse(responseCode = "404", description = "La regla no existe")
+    })
+    @DeleteMapping("/rules/{id}")
+    public ResponseEntity<Void> removeRule(
+            @Parameter(description = "Id de la regla", example = "1")
+            @PathVariable long id
+    ) {
+        return alertService.removeRule(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+        summary = "Coincidencias recientes",
+        description = "Últimas coincidencias de reglas, las más recientes primero."
+    )
+    @GetMapping("/matches")
+    public ResponseEntity<List<AlertMatchDTO>> getMatches(
+            @Parameter(description = "Máximo de coincidencias a retornar", example = "100")
+            @RequestParam(defaultValue = "100")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = 100000, message = "El límite no debe exceder 100000")
+            int limit
+    ) {
+        return ResponseEntity.ok(alertService.getRecentMatches(limit).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    private AlertRuleDTO toDTO(AlertRule rule) {
+        return AlertRuleDTO.builder()
+                .id(rule.getId())
+                .name(rule.getName())
+                .expression(rule.getExpression())
+                .createdAt(rule.getCreatedAt())
+                .build();
+    }
+
+    private AlertMatchDTO toDTO(AlertMatch match) {
+        return AlertMatchDTO.builder()
+                .ruleId(match.getRuleId())
+                .ruleName(match.getRuleName())
+                .expression(match.getExpression())
+                .ipAddress(match.getDevice().getIpAddress())
+                .vendor(match.getDevice().getVendor())
+                .openPorts(match.getDevice().getOpenPorts() != null ?
+                        match.getDevice().getOpenPorts().stream()
+                                .map(Port::getPortNumber)
+                                .collect(Collectors.toList()) : List.of())
+                .matchedAt(match.getMatchedAt())
+                .build();
+    }
+}
@@ -0,0 +1,188 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.dto.ChunkLeaseDTO;
+import com.udea.demonmap.dto.ChunkResultDTO;
+import com.udea.demonmap.dto.ClusterWorkerDTO;
+import com.udea.demonmap.dto.WorkerRegistrationDTO;
+import com.udea.demonmap.entity.ClusterWorker;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.service.ScanCoordinator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controlador REST del protocolo entre el coordinador y sus workers. Solo
+ * existe en instancias con network.scan.cluster.coordinator-enabled=true.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/cluster")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "network.scan.cluster", name = "coordinator-enabled", havingValue = "true")
+@Tag(name = "Cluster", description = "Registro de workers y reparto de tramos de escaneos distribuidos")
+public class ClusterController {
+
+    private final ScanCoordinator scanCoordinator;
+    private final NetworkScanConfig scanConfig;
+
+    @Operation(
+        summary = "Registrar worker",
+        description = "Retorna el id del worker y los tiempos de heartbeat, vencimiento y espera de tramos."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "Worker registrado",
+            content = @Content(schema = @Schema(implementation = WorkerRegistrationDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Nombre o slots inválidos"
+        )
+    })
+    @PostMapping("/workers")
+    public ResponseEntity<WorkerRegistrationDTO> register(@Valid @RequestBody WorkerRegistrationDTO request) {
+        int slots = request.getSlots() != null ? request.getSlots() : 1;
+        String workerId = scanCoordinator.register(request.getName(), slots);
+        NetworkScanConfig.Cluster cluster = scanConfig.getCluster();
+        return ResponseEntity.status(HttpStatus.CREATED).body(WorkerRegistrationDTO.builder()
+                .workerId(workerId)
+                .name(request.getName())
+                .slots(slots)
+                .heartbeatIntervalMs(cluster.getHeartbeatIntervalMs())
+                .leaseTimeoutMs(cluster.getLeaseTimeoutMs())
+                .pollTimeoutMs(cluster.getPollTimeoutMs())
+                .build());
+    }
+
+    @Operation(summary = "Heartbeat de un worker", description = "Renueva el worker y todos sus leases.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Heartbeat registrado"),
+        @ApiResponse(responseCode = "404", description = "Worker desconocido o vencido; debe registrarse de nuevo")
+    })
+    @PostMapping("/workers/{workerId}/heartbeat")
+    public ResponseEntity<Void> heartbeat(
+            @Parameter(description = "Id del worker") @PathVariable String workerId
+    ) {
+        return scanCoordinator.heartbeat(workerId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+        summary = "Pedir un tramo",
+        description = "Long polling: si no hay tramos pendientes espera hasta network.scan.cluster.poll-timeout-ms."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Tramo prestado",
+            content = @Content(schema = @Schema(implementation = ChunkLeaseDTO.class))
+        ),
+        @ApiResponse(responseCode = "204", description = "No hay tramos pendientes"),
+        @ApiResponse(responseCode = "404", description = "Worker desconocido o vencido; debe registrarse de nuevo")
+    })
+    @PostMapping("/workers/{workerId}/lease")
+    public ResponseEntity<ChunkLeaseDTO> lease(
+            @Parameter(description = "Id del worker") @PathVariable String workerId
+    ) throws InterruptedException {
+        if (!scanCoordinator.heartbeat(workerId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return scanCoordinator.lease(workerId)
+                .map(lease -> ResponseEntity.ok(ChunkLeaseDTO.builder()
+                        .leaseId(lease.leaseId())
+                        .scanId(lease.scanId())
+                        .networkRange(lease.networkRange())
+                        .attempt(lease.attempt())
+                        .build()))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @Operation(
+        summary = "Entregar el resultado de un tramo",
+        description = "Con errorMessage el tramo se reintenta en otro lease hasta agotar sus intentos."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Resultado recibido"),
+        @ApiResponse(responseCode = "410", description = "El lease venció y el tramo fue reasignado")
+    })
+    @PostMapping("/leases/{leaseId}/result")
+    public ResponseEntity<Void> submitResult(
+            @Parameter(description = "Id del lease") @PathVariable String leaseId,
+            @RequestBody ChunkResultDTO result
+    ) {
+        boolean accepted;
+        if (result.getErrorMessage() != null) {
+            accepted = scanCoordinator.fail(leaseId, result.getErrorMessage());
+        } else {
+            accepted = scanCoordinator.complete(leaseId, ScanResult.builder()
+                    .devices(result.getDevices())
+                    .totalHostsScanned(result.getTotalHostsScanned())
+                    .deferredHosts(result.getDeferredHosts())
+                    .build());
+        }
+        return accepted ? ResponseEntity.noContent().build() : ResponseEntity.status(HttpStatus.GONE).build();
+    }
+
+    @Operation(
+        summary = "Devolver un tramo sin escanearlo",
+        description = "El worker está ocupado (admisión saturada o sin cupo de escaneos completos): el tramo " +
+                "vuelve a la cola sin contar como intento."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Tramo devuelto"),
+        @ApiResponse(responseCode = "410", description = "El lease venció y el tramo fue reasignado")
+    })
+    @PostMapping("/leases/{leaseId}/return")
+    public ResponseEntity<Void> returnLease(
+            @Parameter(description = "Id del lease") @PathVariable String leaseId
+    ) {
+        return scanCoordinator.returnLease(leaseId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.GONE).build();
+    }
+
+    @Operation(summary = "Listar workers", description = "Workers vivos con sus tramos prestados y contadores.")
+    @GetMapping("/workers")
+    public ResponseEntity<List<ClusterWorkerDTO>> getWorkers() {
+        return ResponseEntity.ok(scanCoordinator.getWorkers().stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    private ClusterWorkerDTO toDTO(ClusterWorker worker) {
+        return ClusterWorkerDTO.builder()
+                .workerId(worker.getWorkerId())
+                .name(worker.getName())
+                .slots(worker.getSlots())
+                .registeredAt(worker.getRegisteredAt())
+                .lastHeartbeat(worker.getLastHeartbeat())
+                .leasedRanges(worker.getLeasedRanges())
+                .chunksCompleted(worker.getChunksCompleted())
+                .chunksFailed(worker.getChunksFailed())
+                .devicesFound(worker.getDevicesFound())
+                .build();
+    }
+}
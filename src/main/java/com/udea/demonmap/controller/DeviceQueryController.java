@@ -0,0 +1,67 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.dto.DeviceQueryResultDTO;
+import com.udea.demonmap.service.DeviceIndexService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST para consultas sobre los últimos resultados de escaneo.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/network")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Device Query", description = "Consultas por puerto, servicio y vendor sobre los hosts escaneados")
+public class DeviceQueryController {
+
+    private final DeviceIndexService deviceIndexService;
+
+    @Operation(
+        summary = "Consultar dispositivos",
+        description = "Evalúa una expresión booleana sobre los índices de puertos, servicios y vendors. " +
+                "Ejemplo: 'port:3389 OR service:telnet', 'port:22 AND NOT vendor:cisco*'."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Consulta evaluada exitosamente",
+            content = @Content(schema = @Schema(implementation = DeviceQueryResultDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Expresión de consulta inválida"
+        )
+    })
+    @GetMapping("/query")
+    public ResponseEntity<DeviceQueryResultDTO> queryDevices(
+            @Parameter(description = "Expresión de consulta", example = "port:22 AND NOT vendor:cisco*")
+            @RequestParam
+            String q,
+
+            @Parameter(description = "Máximo de IPs a retornar", example = "1000")
+            @RequestParam(defaultValue = "1000")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = 100000, message = "El límite no debe exceder 100000")
+            int limit
+    ) {
+        log.info("Consultando índice de dispositivos: {}", q);
+        return ResponseEntity.ok(deviceIndexService.query(q, limit));
+    }
+}
@@ -0,0 +1,111 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.dto.ImportJobDTO;
+import com.udea.demonmap.dto.ImportRequestDTO;
+import com.udea.demonmap.entity.ImportJob;
+import com.udea.demonmap.service.NmapImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controlador REST para importar archivos de salida de nmap existentes.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/imports")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Imports", description = "Importación de archivos -oX / -oG de nmap a los índices de consulta")
+public class ImportController {
+
+    private final NmapImportService importService;
+
+    @Operation(
+        summary = "Importar archivos de nmap",
+        description = "Inicia en segundo plano la importación de archivos XML (-oX) o grepables (-oG), " +
+                "opcionalmente con gzip. Las rutas son relativas a network.scan.imports.base-directory; " +
+                "los directorios se recorren completos. El avance se consulta con GET /api/imports/{id}."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "202",
+            description = "Importación iniciada",
+            content = @Content(schema = @Schema(implementation = ImportJobDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Rutas inexistentes, fuera del directorio de importación o sin archivos importables"
+        )
+    })
+    @PostMapping
+    public ResponseEntity<ImportJobDTO> startImport(@Valid @RequestBody ImportRequestDTO request) {
+        ImportJob job = importService.startImport(request.getPaths());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(toDTO(job));
+    }
+
+    @Operation(
+        summary = "Avance de una importación",
+        description = "Archivos y bytes leídos, hosts importados y throughput en MB/s y hosts/s."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estado de la importación"),
+        @ApiResponse(responseCode = "404", description = "La importación no existe")
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> getImport(
+            @Parameter(description = "Id de la importación")
+            @PathVariable String id
+    ) {
+        return importService.getImport(id)
+                .map(job -> ResponseEntity.ok(toDTO(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Listar importaciones recientes")
+    @GetMapping
+    public ResponseEntity<List<ImportJobDTO>> getImports() {
+        return ResponseEntity.ok(importService.getImports().stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    private ImportJobDTO toDTO(ImportJob job) {
+        return ImportJobDTO.builder()
+                .id(job.getId())
+                .status(job.getStatus() != null ? job.getStatus().name() : "UNKNOWN")
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .totalFiles(job.getTotalFiles())
+                .completedFiles(job.getCompletedFiles())
+                .failedFiles(job.getFailedFiles())
+                .totalBytes(job.getTotalBytes())
+                .bytesRead(job.getBytesRead())
+                .hostsRead(job.getHostsRead())
+                .devicesImported(job.getDevicesImported())
+                .elapsedMs(job.getElapsedMs())
+                .megabytesPerSecond(job.getMegabytesPerSecond())
+                .hostsPerSecond(job.getHostsPerSecond())
+                .errors(job.getErrors())
+                .build();
+    }
+}
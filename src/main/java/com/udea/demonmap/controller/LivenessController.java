@@ -0,0 +1,86 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.dto.HostTransitionDTO;
+import com.udea.demonmap.dto.LivenessStatusDTO;
+import com.udea.demonmap.entity.HostTransition;
+import com.udea.demonmap.service.LivenessMonitor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controlador REST del monitoreo de disponibilidad. Solo existe en
+ * instancias con network.scan.liveness.enabled=true.
+ */
+@RestController
+@RequestMapping("/api/liveness")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnProperty(prefix = "network.scan.liveness", name = "enabled", havingValue = "true")
+@Tag(name = "Liveness", description = "Monitoreo periódico de disponibilidad de los hosts conocidos")
+public class LivenessController {
+
+    private final LivenessMonitor livenessMonitor;
+
+    @Operation(
+        summary = "Estado del monitoreo",
+        description = "Hosts monitoreados por estado y duración y atraso de la última ronda de sondeo."
+    )
+    @GetMapping
+    public ResponseEntity<LivenessStatusDTO> getStatus() {
+        return ResponseEntity.ok(livenessMonitor.getStatus());
+    }
+
+    @Operation(
+        summary = "Transiciones recientes",
+        description = "Cambios UP ↔ DOWN de los hosts monitoreados, de la más reciente a la más antigua " +
+                "(se conservan network.scan.liveness.recent-transitions)."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Transiciones recientes",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = HostTransitionDTO.class)))
+        )
+    })
+    @GetMapping("/transitions")
+    public ResponseEntity<List<HostTransitionDTO>> getTransitions(
+            @Parameter(description = "Máximo de transiciones a retornar", example = "100")
+            @RequestParam(defaultValue = "100")
+            @Min(value = 1, message = "El límite debe ser al menos 1")
+            @Max(value = 100000, message = "El límite no debe exceder 100000")
+            int limit
+    ) {
+        return ResponseEntity.ok(livenessMonitor.getRecentTransitions(limit).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    private HostTransitionDTO toDTO(HostTransition transition) {
+        return HostTransitionDTO.builder()
+                .ipAddress(transition.getIpAddress())
+                .previousState(transition.getPreviousState().name())
+                .state(transition.getState().name())
+                .changedAt(transition.getChangedAt())
+                .previousStateMs(transition.getPreviousStateMs())
+                .build();
+    }
+}
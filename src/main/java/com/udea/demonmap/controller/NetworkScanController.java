@@ -1,29 +1,50 @@
 package com.udea.demonmap.controller;
 
+import com.udea.demonmap.dto.BatchScanRequestDTO;
+import com.udea.demonmap.dto.BatchScanResultDTO;
+import com.udea.demonmap.dto.InterfaceDiscoveryResultDTO;
+import com.udea.demonmap.dto.LocalSubnetDTO;
 import com.udea.demonmap.dto.NetworkDeviceDTO;
 import com.udea.demonmap.dto.PortDTO;
+import com.udea.demonmap.dto.RangeSummaryDTO;
+import com.udea.demonmap.dto.ScanCheckpointDTO;
+import com.udea.demonmap.dto.ScanRequestDTO;
 import com.udea.demonmap.dto.ScanResultDTO;
+import com.udea.demonmap.entity.BatchScanResult;
+import com.udea.demonmap.entity.InterfaceDiscoveryResult;
+import com.udea.demonmap.entity.LocalSubnet;
 import com.udea.demonmap.entity.NetworkDevice;
 import com.udea.demonmap.entity.Port;
 import com.udea.demonmap.entity.ScanResult;
 import com.udea.demonmap.repository.ScanException;
 import com.udea.demonmap.service.NetworkScanService;
+import com.udea.demonmap.service.ScanAdmissionControl;
+import com.udea.demonmap.service.ScanCoordinator;
+import com.udea.demonmap.service.ScanType;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -40,6 +61,8 @@ import java.util.stream.Collectors;
 public class NetworkScanController {
     
     private final NetworkScanService networkScanService;
+    private final ScanAdmissionControl admissionControl;
+    private final ObjectProvider<ScanCoordinator> scanCoordinator;
     
     @Operation(
         summary = "Escanear red completa",
@@ -55,6 +78,10 @@ public class NetworkScanController {
             responseCode = "400",
             description = "Parámetros inválidos"
         ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Servicio saturado; reintentar tras el tiempo indicado en Retry-After"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Error interno durante el escaneo"
@@ -91,7 +118,7 @@ public class NetworkScanController {
                 result = networkScanService.performQuickScan(networkRange);
             }
             
-            ScanResultDTO dto = toDTO(result);
+            ScanResultDTO dto = toResponseDTO(result);
             return ResponseEntity.ok(dto);
             
         } catch (ScanException e) {
@@ -105,6 +132,166 @@ public class NetworkScanController {
         }
     }
     
+    @Operation(
+        summary = "Reanudar escaneo completo",
+        description = "Continúa un escaneo completo interrumpido a partir de su journal: solo descubre los " +
+                "bloques y escanea los hosts que faltaban, y suma los dispositivos ya encontrados."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Escaneo reanudado y completado exitosamente",
+            content = @Content(schema = @Schema(implementation = ScanResultDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No hay un escaneo interrumpido con ese id"
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Servicio saturado; reintentar tras el tiempo indicado en Retry-After"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Error durante el escaneo; el journal se conserva para reintentar"
+        )
+    })
+    @PostMapping("/scan/resume/{scanId}")
+    public ResponseEntity<ScanResultDTO> resumeScan(
+            @Parameter(description = "Id del escaneo interrumpido", example = "3f2b6c1e-8a4d-4f0e-9c57-1d2e3f4a5b6c")
+            @PathVariable
+            String scanId
+    ) {
+        try {
+            log.info("Reanudando escaneo completo {}", scanId);
+            return ResponseEntity.ok(toResponseDTO(networkScanService.resumeFullNetworkScan(scanId)));
+            
+        } catch (ScanException e) {
+            log.error("Error reanudando el escaneo {}: {}", scanId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ScanResultDTO.builder()
+                            .scanId(scanId)
+                            .status("FAILED")
+                            .errorMessage(e.getMessage())
+                            .build());
+        }
+    }
+    
+    @Operation(
+        summary = "Escaneo completo distribuido",
+        description = "Reparte el rango en tramos entre los workers registrados en esta instancia " +
+                "(network.scan.cluster.coordinator-enabled=true) y combina sus resultados. Los tramos de un " +
+                "worker que deja de responder se reasignan; un tramo que agota sus intentos deja el resultado PARTIAL."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Escaneo completado; PARTIAL si algún tramo quedó sin escanear",
+            content = @Content(schema = @Schema(implementation = ScanResultDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Rango inválido o la instancia no es coordinador"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Sin workers registrados o ningún tramo pudo escanearse"
+        )
+    })
+    @GetMapping("/scan/distributed")
+    public ResponseEntity<ScanResultDTO> scanDistributed(
+            @Parameter(description = "Rango de red en notación CIDR", example = "10.0.0.0/16")
+            @RequestParam
+            String networkRange
+    ) {
+        ScanCoordinator coordinator = scanCoordinator.getIfAvailable();
+        if (coordinator == null) {
+            throw new IllegalArgumentException(
+                    "El escaneo distribuido requiere network.scan.cluster.coordinator-enabled=true");
+        }
+        try {
+            log.info("Iniciando escaneo distribuido de la red: {}", networkRange);
+            return ResponseEntity.ok(toResponseDTO(coordinator.scan(networkRange)));
+            
+        } catch (ScanException e) {
+            log.error("Error durante el escaneo distribuido: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ScanResultDTO.builder()
+                            .status("FAILED")
+                            .errorMessage(e.getMessage())
+                            .networkRange(networkRange)
+                            .build());
+        }
+    }
+    
+    @Operation(
+        summary = "Listar escaneos interrumpidos",
+        description = "Retorna los escaneos completos con journal pendiente y su avance, para reanudarlos."
+    )
+    @GetMapping("/scan/checkpoints")
+    public ResponseEntity<List<ScanCheckpointDTO>> listCheckpoints() {
+        return ResponseEntity.ok(networkScanService.getInterruptedScans().stream()
+                .map(checkpoint -> ScanCheckpointDTO.builder()
+                        .scanId(checkpoint.getScanId())
+                        .networkRange(checkpoint.getNetworkRange())
+                        .startedAt(checkpoint.getStartedAt())
+                        .discoveredBlocks(checkpoint.getDiscoveredBlocks())
+                        .completedHosts(checkpoint.getCompletedHosts())
+                        .build())
+                .collect(Collectors.toList()));
+    }
+    
+    @Operation(
+        summary = "Escanear varios rangos en lote",
+        description = "Escanea una lista de rangos como una sola carga: une los rangos solapados, descubre " +
+                "todos los hosts en una única pasada y reparte el escaneo de puertos por turnos entre rangos. " +
+                "Retorna los dispositivos sin repetir y un resumen por rango."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Lote escaneado exitosamente",
+            content = @Content(schema = @Schema(implementation = BatchScanResultDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Rangos o tipos de escaneo inválidos"
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Servicio saturado; reintentar tras el tiempo indicado en Retry-After"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Error interno durante el escaneo"
+        )
+    })
+    @PostMapping("/scan/batch")
+    public ResponseEntity<BatchScanResultDTO> scanBatch(@Valid @RequestBody BatchScanRequestDTO request) {
+        Map<String, ScanType> scans = new LinkedHashMap<>();
+        for (ScanRequestDTO scan : request.getScans()) {
+            String networkRange = scan.getNetworkRange() == null || scan.getNetworkRange().isEmpty()
+                    ? networkScanService.detectLocalNetwork()
+                    : scan.getNetworkRange();
+            ScanType type = "full".equalsIgnoreCase(scan.getScanType()) ? ScanType.FULL : ScanType.QUICK;
+            scans.merge(networkRange, type, (current, other) -> current == ScanType.FULL ? current : other);
+        }
+        
+        try {
+            log.info("Iniciando escaneo por lotes de {} rangos", scans.size());
+            BatchScanResult result = networkScanService.performBatchScan(scans);
+            return ResponseEntity.ok(toBatchDTO(result));
+            
+        } catch (ScanException e) {
+            log.error("Error durante el escaneo por lotes: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(BatchScanResultDTO.builder()
+                            .status("FAILED")
+                            .errorMessage(e.getMessage())
+                            .build());
+        }
+    }
+    
     @Operation(
         summary = "Escanear host específico",
         description = "Realiza un escaneo detallado de un host específico, incluyendo detección de puertos y servicios."
@@ -119,6 +306,10 @@ public class NetworkScanController {
             responseCode = "400",
             description = "Dirección IP inválida"
         ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Demasiados escaneos de host en curso"
+        ),
         @ApiResponse(
             responseCode = "500",
             description = "Error durante el escaneo del host"
@@ -150,7 +341,8 @@ public class NetworkScanController {
     
     @Operation(
         summary = "Detectar red local",
-        description = "Detecta automáticamente el rango de red local del sistema."
+        description = "Detecta automáticamente el rango de red local del sistema: la subred de la primera " +
+                "interfaz activa con su prefijo real."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -169,21 +361,97 @@ public class NetworkScanController {
         return ResponseEntity.ok(response);
     }
     
+    @Operation(
+        summary = "Detectar subredes de todas las interfaces",
+        description = "Lista la subred IPv4 de cada interfaz activa con su prefijo real. Las más anchas que " +
+                "network.scan.interfaces.min-prefix-length se reducen al bloque que contiene la IP de la interfaz."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Subredes locales detectadas",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = LocalSubnetDTO.class)))
+        )
+    })
+    @GetMapping("/detect/interfaces")
+    public ResponseEntity<List<LocalSubnetDTO>> detectInterfaces() {
+        return ResponseEntity.ok(networkScanService.detectLocalSubnets().stream()
+                .map(subnet -> toSubnetDTO(subnet).build())
+                .collect(Collectors.toList()));
+    }
+    
+    @Operation(
+        summary = "Descubrir por todas las interfaces",
+        description = "Descubre los dispositivos activos de la subred de cada interfaz local, en paralelo y " +
+                "enviando los sondeos por la propia interfaz. Un equipo visto por varias interfaces se reporta " +
+                "una sola vez (misma MAC). Si falla alguna interfaz el resultado es PARTIAL."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Descubrimiento completado",
+            content = @Content(schema = @Schema(implementation = InterfaceDiscoveryResultDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "429",
+            description = "Demasiados escaneos rápidos en curso"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "No hay subredes locales o falló el descubrimiento en todas"
+        )
+    })
+    @GetMapping("/scan/interfaces")
+    public ResponseEntity<InterfaceDiscoveryResultDTO> scanInterfaces() {
+        try {
+            InterfaceDiscoveryResult result = networkScanService.performInterfaceDiscovery();
+            return ResponseEntity.ok(toDiscoveryDTO(result));
+            
+        } catch (ScanException e) {
+            log.error("Error durante el descubrimiento por interfaces: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(InterfaceDiscoveryResultDTO.builder()
+                            .status("FAILED")
+                            .errorMessage(e.getMessage())
+                            .build());
+        }
+    }
+    
     @Operation(
         summary = "Health check",
-        description = "Verifica que el servicio de escaneo está disponible y nmap está instalado."
+        description = "Reporta la saturación real del servicio: ocupación de la cola, threads activos, " +
+                "tasa de vaciado y escaneos en curso por tipo. Responde 503 cuando la cola supera el umbral."
     )
     @GetMapping("/health")
-    public ResponseEntity<Map<String, String>> healthCheck() {
-        Map<String, String> health = new HashMap<>();
-        health.put("status", "UP");
+    public ResponseEntity<Map<String, Object>> healthCheck() {
+        boolean saturated = admissionControl.isSaturated();
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", saturated ? "SATURATED" : "UP");
         health.put("service", "Network Scanner API");
-        health.put("message", "Servicio de escaneo de red operativo");
-        return ResponseEntity.ok(health);
+        health.put("message", saturated
+                ? "Servicio de escaneo saturado, se rechazan nuevos escaneos completos"
+                : "Servicio de escaneo de red operativo");
+        health.put("load", admissionControl.snapshot());
+        return ResponseEntity.status(saturated ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK)
+                .body(health);
     }
         
+    /**
+     * DTO de un resultado cuyos dispositivos se liberan al terminar la petición.
+     * La vista de {@link #toDeviceDTOs} los lee mientras se escribe la respuesta,
+     * después de que el método del controlador retorna, así que un resultado
+     * derramado a disco no puede cerrarse antes.
+     */
+    private ScanResultDTO toResponseDTO(ScanResult result) {
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                "scanResult@" + System.identityHashCode(result), result::releaseDevices,
+                RequestAttributes.SCOPE_REQUEST);
+        return toDTO(result);
+    }
+    
     private ScanResultDTO toDTO(ScanResult result) {
         return ScanResultDTO.builder()
+                .scanId(result.getScanId())
                 .networkRange(result.getNetworkRange())
                 .scanStartTime(result.getScanStartTime())
                 .scanEndTime(result.getScanEndTime())
@@ -192,13 +460,94 @@ public class NetworkScanController {
                 .activeHostsFound(result.getActiveHostsFound())
                 .status(result.getStatus() != null ? result.getStatus().name() : "UNKNOWN")
                 .errorMessage(result.getErrorMessage())
-                .devices(result.getDevices() != null ? 
-                        result.getDevices().stream()
-                                .map(this::toDeviceDTO)
-                                .collect(Collectors.toList()) : List.of())
+                .deferredHosts(result.getDeferredHosts())
+                .devices(result.getDevices() != null ? toDeviceDTOs(result.getDevices()) : List.of())
                 .build();
     }
     
+    /**
+     * Vista de los dispositivos como DTOs que convierte cada uno al leerlo, sin
+     * copiar la lista. Jackson la recorre en orden mientras escribe la respuesta,
+     * así que un resultado derramado a disco se serializa leyendo el archivo.
+     */
+    private List<NetworkDeviceDTO> toDeviceDTOs(List<NetworkDevice> devices) {
+        return new AbstractList<>() {
+            @Override
+            public NetworkDeviceDTO get(int index) {
+                return toDeviceDTO(devices.get(index));
+            }
+            
+            @Override
+            public int size() {
+                return devices.size();
+            }
+        };
+    }
+    
+    private BatchScanResultDTO toBatchDTO(BatchScanResult batch) {
+        ScanResult combined = batch.getCombined();
+        return BatchScanResultDTO.builder()
+                .scanStartTime(combined.getScanStartTime())
+                .scanEndTime(combined.getScanEndTime())
+                .durationMs(combined.getDurationMs())
+                .mergedRanges(batch.getMergedRanges())
+                .totalHostsScanned(combined.getTotalHostsScanned())
+                .activeHostsFound(combined.getActiveHostsFound())
+                .status(combined.getStatus() != null ? combined.getStatus().name() : "UNKNOWN")
+                .errorMessage(combined.getErrorMessage())
+                .deferredHosts(combined.getDeferredHosts())
+                .ranges(batch.getRangeResults().stream()
+                        .map(range -> RangeSummaryDTO.builder()
+                                .networkRange(range.getNetworkRange())
+                                .scanType(batch.getScanTypes().get(range.getNetworkRange()))
+                                .activeHostsFound(range.getActiveHostsFound())
+                                .openPortsFound(range.getDevices().stream()
+                                        .mapToInt(device -> device.getOpenPorts() != null ? device.getOpenPorts().size() : 0)
+                                        .sum())
+                                .ipAddresses(range.getDevices().stream()
+                                        .map(NetworkDevice::getIpAddress)
+                                        .collect(Collectors.toList()))
+                                .status(range.getStatus() != null ? range.getStatus().name() : "UNKNOWN")
+                                .build())
+                        .collect(Collectors.toList()))
+                .devices(combined.getDevices().stream()
+                        .map(this::toDeviceDTO)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+    
+    private InterfaceDiscoveryResultDTO toDiscoveryDTO(InterfaceDiscoveryResult discovery) {
+        ScanResult combined = discovery.getCombined();
+        List<LocalSubnetDTO> interfaces = new ArrayList<>();
+        for (int i = 0; i < discovery.getSubnets().size(); i++) {
+            ScanResult subnetResult = discovery.getSubnetResults().get(i);
+            interfaces.add(toSubnetDTO(discovery.getSubnets().get(i))
+                    .activeHostsFound(subnetResult.getActiveHostsFound())
+                    .status(subnetResult.getStatus() != null ? subnetResult.getStatus().name() : "UNKNOWN")
+                    .errorMessage(subnetResult.getErrorMessage())
+                    .build());
+        }
+        return InterfaceDiscoveryResultDTO.builder()
+                .scanStartTime(combined.getScanStartTime())
+                .scanEndTime(combined.getScanEndTime())
+                .durationMs(combined.getDurationMs())
+                .interfaces(interfaces)
+                .activeHostsFound(combined.getActiveHostsFound())
+                .duplicatesRemoved(discovery.getDuplicatesRemoved())
+                .devices(toDeviceDTOs(combined.getDevices()))
+                .status(combined.getStatus() != null ? combined.getStatus().name() : "UNKNOWN")
+                .errorMessage(combined.getErrorMessage())
+                .build();
+    }
+    
+    private LocalSubnetDTO.LocalSubnetDTOBuilder toSubnetDTO(LocalSubnet subnet) {
+        return LocalSubnetDTO.builder()
+                .interfaceName(subnet.getInterfaceName())
+                .ipAddress(subnet.getIpAddress())
+                .prefixLength(subnet.getPrefixLength())
+                .networkRange(subnet.getNetworkRange());
+    }
+    
     private NetworkDeviceDTO toDeviceDTO(NetworkDevice device) {
         return NetworkDeviceDTO.builder()
                 .ipAddress(device.getIpAddress())
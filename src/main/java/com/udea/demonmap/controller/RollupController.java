@@ -0,0 +1,88 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.dto.NetworkRollupDTO;
+import com.udea.demonmap.dto.SubnetRollupDTO;
+import com.udea.demonmap.service.NetworkRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Controlador REST de los agregados por subred, puerto y servicio.
+ */
+@RestController
+@RequestMapping("/api/rollups")
+@RequiredArgsConstructor
+@Tag(name = "Rollups", description = "Agregados de hosts vivos por subred, puerto y servicio para tableros")
+public class RollupController {
+
+    private final NetworkRollupService rollupService;
+
+    @Operation(
+        summary = "Obtener agregados",
+        description = "Hosts vivos y puertos abiertos por /24, histograma de puertos y ranking de servicios " +
+                "(network.scan.rollups.top-services). Se mantienen con cada host escaneado o importado y se " +
+                "sirven ya calculados. La versión va en el ETag: con If-None-Match responde 304 si nada cambió."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Agregados actuales",
+            content = @Content(schema = @Schema(implementation = NetworkRollupDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Sin cambios desde la versión del If-None-Match"
+        )
+    })
+    @GetMapping
+    public ResponseEntity<NetworkRollupDTO> getRollup(WebRequest request) {
+        NetworkRollupDTO rollup = rollupService.getRollup();
+        String eTag = "\"" + rollup.getVersion() + "\"";
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(rollup);
+    }
+
+    @Operation(
+        summary = "Obtener agregados de una subred",
+        description = "Hosts vivos, puertos abiertos y ranking de servicios de la /24 que contiene la dirección."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Agregados de la subred",
+            content = @Content(schema = @Schema(implementation = SubnetRollupDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Dirección inválida"
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "La subred no tiene hosts vivos"
+        )
+    })
+    @GetMapping("/subnet")
+    public ResponseEntity<SubnetRollupDTO> getSubnet(
+            @Parameter(description = "IP dentro de la subred o la subred en notación CIDR", example = "192.168.1.0/24")
+            @RequestParam
+            String address
+    ) {
+        return rollupService.getSubnet(address)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
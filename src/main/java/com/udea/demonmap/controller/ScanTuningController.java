@@ -0,0 +1,65 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.dto.ScanTuningDTO;
+import com.udea.demonmap.dto.ScanTuningRequestDTO;
+import com.udea.demonmap.service.ScanTuningService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST del ajuste en caliente de la configuración de escaneo.
+ * Solo existe en instancias con network.scan.tuning.enabled=true.
+ */
+@RestController
+@RequestMapping("/api/admin/tuning")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "network.scan.tuning", name = "enabled", havingValue = "true")
+@Tag(name = "Tuning", description = "Ajuste en caliente del pool de escaneo, el timeout por host y los puertos")
+public class ScanTuningController {
+
+    private final ScanTuningService tuningService;
+
+    @Operation(
+        summary = "Configuración vigente",
+        description = "Tamaño del pool, timeout por host y top de puertos vigentes, con los threads vivos, " +
+                "ocupados y los hosts en cola."
+    )
+    @GetMapping
+    public ResponseEntity<ScanTuningDTO> getTuning() {
+        return ResponseEntity.ok(tuningService.getTuning());
+    }
+
+    @Operation(
+        summary = "Ajustar en caliente",
+        description = "Cambia los valores indicados sin reiniciar ni cortar los escaneos en curso. El pool crece " +
+                "de inmediato y se reduce a medida que sus threads terminan el host actual; el timeout y los " +
+                "puertos aplican a las tareas nuevas. Los límites son los de network.scan.*."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Configuración aplicada",
+            content = @Content(schema = @Schema(implementation = ScanTuningDTO.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Algún valor fuera de sus límites; no se aplica ninguno"
+        )
+    })
+    @PatchMapping
+    public ResponseEntity<ScanTuningDTO> updateTuning(@RequestBody ScanTuningRequestDTO request) {
+        return ResponseEntity.ok(tuningService.update(request));
+    }
+}
@@ -0,0 +1,94 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.dto.ScanChangeDTO;
+import com.udea.demonmap.dto.ScanSnapshotDTO;
+import com.udea.demonmap.entity.ScanSnapshot;
+import com.udea.demonmap.service.ScanSnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Controlador REST para los snapshots de escaneos completos y su comparación.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/snapshots")
+@RequiredArgsConstructor
+@Tag(name = "Snapshots", description = "Escaneos completos guardados y cambios entre ellos")
+public class SnapshotController {
+
+    private final ScanSnapshotService snapshotService;
+
+    @Operation(
+        summary = "Listar snapshots",
+        description = "Escaneos completos guardados (network.scan.snapshots.*), del más antiguo al más reciente. " +
+                "El id es el scanId que retorna el escaneo."
+    )
+    @GetMapping
+    public ResponseEntity<List<ScanSnapshotDTO>> getSnapshots() {
+        return ResponseEntity.ok(snapshotService.listSnapshots().stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList()));
+    }
+
+    @Operation(
+        summary = "Comparar dos escaneos",
+        description = "Cambios de 'from' a 'to' en orden de IP: HOST_ADDED, HOST_REMOVED, PORT_OPENED, " +
+                "PORT_CLOSED, MAC_CHANGED, VENDOR_CHANGED y OS_CHANGED. Un host nuevo o desaparecido trae " +
+                "también sus puertos. Solo se comparan las direcciones que cubren ambos escaneos. La respuesta " +
+                "se escribe mientras se recorren los snapshots, sin cargarlos en memoria."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Cambios entre los escaneos",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ScanChangeDTO.class)))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Alguno de los snapshots no existe"
+        )
+    })
+    @GetMapping("/diff")
+    public ResponseEntity<Stream<ScanChangeDTO>> diff(
+            @Parameter(description = "Id del escaneo anterior", example = "3f2b6c1e-8a4d-4f0e-9c57-1d2e3f4a5b6c")
+            @RequestParam
+            String from,
+
+            @Parameter(description = "Id del escaneo nuevo", example = "9d8e7f6a-5b4c-4d3e-8f2a-1b0c9d8e7f6a")
+            @RequestParam
+            String to
+    ) {
+        log.info("Comparando escaneos {} y {}", from, to);
+        return ResponseEntity.ok(snapshotService.diff(from, to));
+    }
+
+    private ScanSnapshotDTO toDTO(ScanSnapshot snapshot) {
+        return ScanSnapshotDTO.builder()
+                .scanId(snapshot.getScanId())
+                .networkRange(snapshot.getNetworkRange())
+                .scanStartTime(snapshot.getScanStartTime())
+                .scanEndTime(snapshot.getScanEndTime())
+                .status(snapshot.getStatus())
+                .hostCount(snapshot.getHostCount())
+                .sizeBytes(snapshot.getSizeBytes())
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para una coincidencia de regla de alerta.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertMatchDTO {
+    private Long ruleId;
+    private String ruleName;
+    private String expression;
+    private String ipAddress;
+    private String vendor;
+    private List<Integer> openPorts;
+    private LocalDateTime matchedAt;
+}
@@ -0,0 +1,22 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO para una regla de alerta registrada.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertRuleDTO {
+    private Long id;
+    private String name;
+    private String expression;
+    private LocalDateTime createdAt;
+}
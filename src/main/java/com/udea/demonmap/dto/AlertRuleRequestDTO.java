@@ -0,0 +1,27 @@
+package com.udea.demonmap.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para registrar una regla de alerta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertRuleRequestDTO {
+    
+    @NotBlank(message = "El nombre de la regla es obligatorio")
+    @Size(max = 100, message = "El nombre no debe exceder 100 caracteres")
+    private String name;
+    
+    /**
+     * Expresión de la regla (ej: new:host AND port:23)
+     */
+    @NotBlank(message = "La expresión de la regla es obligatoria")
+    @Size(max = 2000, message = "La expresión no debe exceder 2000 caracteres")
+    private String expression;
+}
@@ -0,0 +1,27 @@
+package com.udea.demonmap.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para solicitudes de escaneo de varios rangos como una sola carga.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchScanRequestDTO {
+    
+    /**
+     * Rangos a escanear, cada uno con su tipo de escaneo.
+     */
+    @NotEmpty(message = "Debe indicarse al menos un rango")
+    @Size(max = 256, message = "Un lote no debe exceder 256 rangos")
+    private List<@Valid ScanRequestDTO> scans = new ArrayList<>();
+}
@@ -0,0 +1,31 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para el resultado combinado de un escaneo por lotes.
+ * Cada dispositivo aparece una sola vez aunque pertenezca a varios rangos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchScanResultDTO {
+    private LocalDateTime scanStartTime;
+    private LocalDateTime scanEndTime;
+    private Long durationMs;
+    private List<String> mergedRanges;
+    private Integer totalHostsScanned;
+    private Integer activeHostsFound;
+    private List<RangeSummaryDTO> ranges;
+    private List<NetworkDeviceDTO> devices;
+    private String status;
+    private String errorMessage;
+    private List<String> deferredHosts;
+}
@@ -0,0 +1,21 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de un tramo prestado a un worker. El lease sigue vigente mientras el
+ * worker envíe heartbeats; el resultado se entrega con su id.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkLeaseDTO {
+    private String leaseId;
+    private String scanId;
+    private String networkRange;
+    private Integer attempt;
+}
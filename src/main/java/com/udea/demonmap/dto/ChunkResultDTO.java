@@ -0,0 +1,29 @@
+package com.udea.demonmap.dto;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado del escaneo de un tramo, enviado por el worker al
+ * coordinador. Es un protocolo interno entre instancias de la misma versión,
+ * por eso los dispositivos viajan como entidades, sin conversión.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkResultDTO {
+    private List<NetworkDevice> devices;
+    private Integer totalHostsScanned;
+    private List<String> deferredHosts;
+
+    /**
+     * Motivo del fallo; si viene, el tramo se reintenta en otro lease
+     */
+    private String errorMessage;
+}
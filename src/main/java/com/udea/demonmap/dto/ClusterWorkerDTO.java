@@ -0,0 +1,28 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el estado de un worker registrado en el coordinador.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterWorkerDTO {
+    private String workerId;
+    private String name;
+    private Integer slots;
+    private LocalDateTime registeredAt;
+    private LocalDateTime lastHeartbeat;
+    private List<String> leasedRanges;
+    private Long chunksCompleted;
+    private Long chunksFailed;
+    private Long devicesFound;
+}
@@ -0,0 +1,23 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para el resultado de una consulta sobre el índice de dispositivos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceQueryResultDTO {
+    private String query;
+    private Integer totalMatches;
+    private List<String> ipAddresses;
+    private Integer indexedHosts;
+    private Long elapsedMicros;
+}
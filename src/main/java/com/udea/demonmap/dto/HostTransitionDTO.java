@@ -0,0 +1,23 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un cambio de estado de un host monitoreado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HostTransitionDTO {
+    private String ipAddress;
+    private String previousState;
+    private String state;
+    private LocalDateTime changedAt;
+    private Long previousStateMs;
+}
@@ -0,0 +1,34 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el avance y el throughput de una importación de archivos de nmap.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+    private String id;
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Integer totalFiles;
+    private Integer completedFiles;
+    private Integer failedFiles;
+    private Long totalBytes;
+    private Long bytesRead;
+    private Long hostsRead;
+    private Long devicesImported;
+    private Long elapsedMs;
+    private Double megabytesPerSecond;
+    private Double hostsPerSecond;
+    private List<String> errors;
+}
@@ -0,0 +1,27 @@
+package com.udea.demonmap.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para importar archivos de salida de nmap.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRequestDTO {
+
+    /**
+     * Archivos o directorios relativos al directorio de importación
+     * (network.scan.imports.base-directory). Los directorios se recorren
+     * buscando archivos .xml, .gnmap y sus versiones .gz.
+     */
+    @NotEmpty(message = "Debe indicar al menos un archivo o directorio")
+    @Size(max = 1000, message = "No se pueden indicar más de 1000 rutas")
+    private List<String> paths;
+}
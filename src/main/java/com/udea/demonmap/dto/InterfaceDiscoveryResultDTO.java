@@ -0,0 +1,29 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para el resultado del descubrimiento por todas las interfaces locales.
+ * Un dispositivo visto por varias interfaces aparece una sola vez.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterfaceDiscoveryResultDTO {
+    private LocalDateTime scanStartTime;
+    private LocalDateTime scanEndTime;
+    private Long durationMs;
+    private List<LocalSubnetDTO> interfaces;
+    private Integer activeHostsFound;
+    private Integer duplicatesRemoved;
+    private List<NetworkDeviceDTO> devices;
+    private String status;
+    private String errorMessage;
+}
@@ -0,0 +1,27 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el estado del monitoreo de disponibilidad.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LivenessStatusDTO {
+    private Integer monitoredHosts;
+    private Integer hostsUp;
+    private Integer hostsDown;
+    private Integer hostsUnknown;
+    private Integer intervalSeconds;
+    private Integer roundsPerInterval;
+    private Long roundsCompleted;
+    private Integer lastRoundHosts;
+    private Long lastRoundMs;
+    private Long lastRoundLagMs;
+    private Long transitions;
+}
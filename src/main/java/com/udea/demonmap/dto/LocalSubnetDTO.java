@@ -0,0 +1,25 @@
+package com.udea.demonmap.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de una subred local y, tras un descubrimiento, de su resultado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LocalSubnetDTO {
+    private String interfaceName;
+    private String ipAddress;
+    private Integer prefixLength;
+    private String networkRange;
+    private Integer activeHostsFound;
+    private String status;
+    private String errorMessage;
+}
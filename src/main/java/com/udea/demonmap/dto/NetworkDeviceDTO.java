@@ -22,5 +22,6 @@ public class NetworkDeviceDTO {
     private String operatingSystem;
     private String vendor;
     private List<PortDTO> openPorts;
+    /** Latencia en microsegundos */
     private Long responseTime;
 }
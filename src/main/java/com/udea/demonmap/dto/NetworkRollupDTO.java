@@ -0,0 +1,27 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con los agregados de todos los hosts vivos conocidos. La versión
+ * cambia con cada actualización y se usa como ETag.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetworkRollupDTO {
+    private Long version;
+    private LocalDateTime updatedAt;
+    private Integer liveHosts;
+    private Long openPorts;
+    private List<SubnetRollupDTO> subnets;
+    private List<PortCountDTO> ports;
+    private List<ServiceCountDTO> topServices;
+}
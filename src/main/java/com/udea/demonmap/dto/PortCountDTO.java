@@ -0,0 +1,19 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con la cantidad de hosts vivos que tienen abierto un puerto.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortCountDTO {
+    private Integer port;
+    private String protocol;
+    private Integer hosts;
+}
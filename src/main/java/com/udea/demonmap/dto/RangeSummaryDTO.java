@@ -0,0 +1,24 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resumen de un rango dentro de un escaneo por lotes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RangeSummaryDTO {
+    private String networkRange;
+    private String scanType;
+    private Integer activeHostsFound;
+    private Integer openPortsFound;
+    private List<String> ipAddresses;
+    private String status;
+}
@@ -0,0 +1,27 @@
+package com.udea.demonmap.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de un cambio entre dos escaneos. Solo se completan los campos del tipo
+ * de cambio: puerto, protocolo y servicio en PORT_OPENED / PORT_CLOSED, valor
+ * anterior y nuevo en MAC_CHANGED, VENDOR_CHANGED y OS_CHANGED.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScanChangeDTO {
+    private String change;
+    private String ipAddress;
+    private Integer port;
+    private String protocol;
+    private String service;
+    private String previous;
+    private String current;
+}
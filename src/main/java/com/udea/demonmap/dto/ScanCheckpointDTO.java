@@ -0,0 +1,23 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un escaneo completo interrumpido que puede reanudarse.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanCheckpointDTO {
+    private String scanId;
+    private String networkRange;
+    private LocalDateTime startedAt;
+    private Integer discoveredBlocks;
+    private Integer completedHosts;
+}
@@ -16,6 +16,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ScanResultDTO {
+    private String scanId;
     private String networkRange;
     private LocalDateTime scanStartTime;
     private LocalDateTime scanEndTime;
@@ -25,4 +26,5 @@ public class ScanResultDTO {
     private Integer activeHostsFound;
     private String status;
     private String errorMessage;
+    private List<String> deferredHosts;
 }
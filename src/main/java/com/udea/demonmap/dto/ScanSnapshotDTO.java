@@ -0,0 +1,25 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un escaneo completo guardado, comparable con /api/snapshots/diff.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanSnapshotDTO {
+    private String scanId;
+    private String networkRange;
+    private LocalDateTime scanStartTime;
+    private LocalDateTime scanEndTime;
+    private String status;
+    private Integer hostCount;
+    private Long sizeBytes;
+}
@@ -0,0 +1,28 @@
+package com.udea.demonmap.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con la configuración de escaneo vigente y el estado del pool.
+ * updatedAt se omite mientras no haya habido ajustes en caliente.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScanTuningDTO {
+    private Integer threadPoolSize;
+    private Integer hostTimeoutSeconds;
+    private Integer topPorts;
+    private Integer liveThreads;
+    private Integer activeThreads;
+    private Integer queuedHosts;
+    private LocalDateTime updatedAt;
+}
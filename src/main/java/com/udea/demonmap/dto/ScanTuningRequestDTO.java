@@ -0,0 +1,20 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para ajustar en caliente la configuración de escaneo. Los campos
+ * nulos conservan su valor actual; los límites son los de NetworkScanConfig.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanTuningRequestDTO {
+    private Integer threadPoolSize;
+    private Integer hostTimeoutSeconds;
+    private Integer topPorts;
+}
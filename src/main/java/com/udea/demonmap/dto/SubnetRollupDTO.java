@@ -0,0 +1,22 @@
+package com.udea.demonmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con los agregados de una subred /24.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubnetRollupDTO {
+    private String subnet;
+    private Integer liveHosts;
+    private Integer openPorts;
+    private List<ServiceCountDTO> topServices;
+}
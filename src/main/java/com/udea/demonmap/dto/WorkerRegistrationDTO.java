@@ -0,0 +1,35 @@
+package com.udea.demonmap.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO del registro de un worker en el coordinador: el worker envía su nombre
+ * y cuántos tramos toma a la vez, y recibe su id y los tiempos del protocolo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkerRegistrationDTO {
+
+    private String workerId;
+
+    @NotBlank(message = "El nombre del worker es obligatorio")
+    private String name;
+
+    @Min(value = 1, message = "El worker debe tomar al menos 1 tramo a la vez")
+    @Max(value = 16, message = "El worker no debe tomar más de 16 tramos a la vez")
+    private Integer slots;
+
+    private Integer heartbeatIntervalMs;
+
+    private Integer leaseTimeoutMs;
+
+    private Integer pollTimeoutMs;
+}
@@ -0,0 +1,28 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Coincidencia de una regla de alerta con un dispositivo recién escaneado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertMatch {
+
+    private Long ruleId;
+
+    private String ruleName;
+
+    private String expression;
+
+    private NetworkDevice device;
+
+    private LocalDateTime matchedAt;
+}
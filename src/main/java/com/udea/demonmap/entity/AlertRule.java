@@ -0,0 +1,29 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Regla de alerta definida por el usuario.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertRule {
+
+    private Long id;
+
+    private String name;
+
+    /**
+     * Expresión sobre los campos del dispositivo (ej: new:host AND port:23)
+     */
+    private String expression;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,45 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de un escaneo por lotes: el resultado combinado de todos los
+ * rangos más el resultado individual de cada rango solicitado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchScanResult {
+    
+    /**
+     * Resultado combinado, sin dispositivos repetidos.
+     */
+    private ScanResult combined;
+    
+    /**
+     * Rangos efectivamente escaneados tras unir los solapados.
+     */
+    @Builder.Default
+    private List<String> mergedRanges = new ArrayList<>();
+    
+    /**
+     * Resultado por rango, en el orden de la solicitud.
+     */
+    @Builder.Default
+    private List<ScanResult> rangeResults = new ArrayList<>();
+    
+    /**
+     * Tipo de escaneo aplicado a cada rango ("quick" o "full").
+     */
+    @Builder.Default
+    private Map<String, String> scanTypes = new LinkedHashMap<>();
+}
@@ -0,0 +1,42 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Foto del estado de un worker registrado en el coordinador.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterWorker {
+
+    private String workerId;
+
+    private String name;
+
+    private Integer slots;
+
+    private LocalDateTime registeredAt;
+
+    private LocalDateTime lastHeartbeat;
+
+    /**
+     * Tramos que tiene prestados en este momento
+     */
+    @Builder.Default
+    private List<String> leasedRanges = new ArrayList<>();
+
+    private Long chunksCompleted;
+
+    private Long chunksFailed;
+
+    private Long devicesFound;
+}
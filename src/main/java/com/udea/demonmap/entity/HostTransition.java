@@ -0,0 +1,36 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cambio de estado de un host monitoreado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HostTransition {
+
+    private String ipAddress;
+
+    private HostState previousState;
+
+    private HostState state;
+
+    private LocalDateTime changedAt;
+
+    /**
+     * Milisegundos que el host pasó en el estado anterior
+     */
+    private Long previousStateMs;
+
+    public enum HostState {
+        UP,     // Respondió al último sondeo
+        DOWN    // No respondió a los últimos sondeos seguidos
+    }
+}
@@ -0,0 +1,66 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estado de una importación de archivos de salida de nmap.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+
+    private String id;
+
+    private ImportStatus status;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private Integer totalFiles;
+
+    private Integer completedFiles;
+
+    private Integer failedFiles;
+
+    private Long totalBytes;
+
+    private Long bytesRead;
+
+    /**
+     * Hosts leídos de los archivos, activos o no
+     */
+    private Long hostsRead;
+
+    /**
+     * Hosts activos entregados a los índices
+     */
+    private Long devicesImported;
+
+    private Long elapsedMs;
+
+    private Double megabytesPerSecond;
+
+    private Double hostsPerSecond;
+
+    /**
+     * Archivos que no se pudieron importar, con el motivo
+     */
+    @Builder.Default
+    private List<String> errors = new ArrayList<>();
+
+    public enum ImportStatus {
+        RUNNING,    // Quedan archivos por leer
+        COMPLETED,  // Todos los archivos importados
+        PARTIAL     // Terminó con archivos que fallaron
+    }
+}
@@ -0,0 +1,42 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado del descubrimiento por todas las interfaces locales: el
+ * resultado combinado más el resultado de cada subred descubierta.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterfaceDiscoveryResult {
+    
+    /**
+     * Resultado combinado, sin dispositivos repetidos.
+     */
+    private ScanResult combined;
+    
+    /**
+     * Subredes descubiertas, en el orden de las interfaces.
+     */
+    @Builder.Default
+    private List<LocalSubnet> subnets = new ArrayList<>();
+    
+    /**
+     * Resultado por subred, en el mismo orden que subnets.
+     */
+    @Builder.Default
+    private List<ScanResult> subnetResults = new ArrayList<>();
+    
+    /**
+     * Dispositivos vistos por más de una interfaz (misma MAC) y descartados.
+     */
+    private int duplicatesRemoved;
+}
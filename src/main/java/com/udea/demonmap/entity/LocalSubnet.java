@@ -0,0 +1,37 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Subred IPv4 de una interfaz local, con el prefijo real de la interfaz
+ * (acotado a network.scan.interfaces.min-prefix-length).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocalSubnet {
+    
+    /**
+     * Nombre de la interfaz (ej: eth0).
+     */
+    private String interfaceName;
+    
+    /**
+     * Dirección IPv4 de la interfaz.
+     */
+    private String ipAddress;
+    
+    /**
+     * Prefijo planificado para el descubrimiento.
+     */
+    private int prefixLength;
+    
+    /**
+     * Subred en notación CIDR (ej: 10.0.0.0/22).
+     */
+    private String networkRange;
+}
@@ -33,8 +33,17 @@ public class NetworkDevice {
     @Builder.Default
     private List<Port> openPorts = new ArrayList<>();
     
+    /**
+     * Latencia reportada por nmap, en microsegundos
+     */
     private Long responseTime;
-    
+
+    /**
+     * Resultado parcial (sondeo de seguimiento de un host rezagado): sus
+     * puertos se suman a los ya conocidos del host en vez de reemplazarlos
+     */
+    private boolean partial;
+
     public void addPort(Port port) {
         if (this.openPorts == null) {
             this.openPorts = new ArrayList<>();
@@ -0,0 +1,34 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado guardado de un escaneo completo interrumpido, que puede reanudarse.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanCheckpoint {
+
+    private String scanId;
+
+    private String networkRange;
+
+    private LocalDateTime startedAt;
+
+    /**
+     * Bloques ya descubiertos (no se vuelven a sondear con -sn)
+     */
+    private Integer discoveredBlocks;
+
+    /**
+     * Hosts con escaneo de puertos terminado
+     */
+    private Integer completedHosts;
+}
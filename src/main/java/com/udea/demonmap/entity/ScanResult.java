@@ -1,5 +1,6 @@
 package com.udea.demonmap.entity;
 
+import com.udea.demonmap.util.SpillingDeviceList;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +19,11 @@ import java.util.List;
 @AllArgsConstructor
 public class ScanResult {
     
+    /**
+     * Id del journal del escaneo completo, para reanudarlo si se interrumpe
+     */
+    private String scanId;
+    
     private String networkRange;
     
     private LocalDateTime scanStartTime;
@@ -37,6 +43,13 @@ public class ScanResult {
     
     private String errorMessage;
     
+    /**
+     * Hosts rezagados que no entraron al resultado y reciben un sondeo de
+     * seguimiento publicado como actualización aparte.
+     */
+    @Builder.Default
+    private List<String> deferredHosts = new ArrayList<>();
+    
     public void addDevice(NetworkDevice device) {
         if (this.devices == null) {
             this.devices = new ArrayList<>();
@@ -44,6 +57,17 @@ public class ScanResult {
         this.devices.add(device);
     }
 
+    /**
+     * Libera el archivo en disco de un resultado derramado
+     * ({@link SpillingDeviceList}). Se llama una vez entregado el resultado;
+     * después solo quedan los dispositivos que estaban en memoria.
+     */
+    public void releaseDevices() {
+        if (devices instanceof SpillingDeviceList spilled) {
+            spilled.close();
+        }
+    }
+
     public void calculateDuration() {
         if (scanStartTime != null && scanEndTime != null) {
             this.durationMs = java.time.Duration.between(scanStartTime, scanEndTime).toMillis();
@@ -0,0 +1,47 @@
+package com.udea.demonmap.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metadatos de un escaneo completo guardado para compararlo con otros.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanSnapshot {
+
+    private String scanId;
+
+    private String networkRange;
+
+    private LocalDateTime scanStartTime;
+
+    private LocalDateTime scanEndTime;
+
+    private String status;
+
+    /**
+     * Hosts guardados (sin duplicados ni hosts con error)
+     */
+    private Integer hostCount;
+
+    /**
+     * Hosts rezagados del escaneo: no están en el archivo de hosts, pero
+     * tampoco desaparecieron de la red
+     */
+    @Builder.Default
+    private List<String> deferredHosts = new ArrayList<>();
+
+    /**
+     * Tamaño en disco de los hosts
+     */
+    private Long sizeBytes;
+}
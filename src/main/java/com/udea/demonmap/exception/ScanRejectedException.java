@@ -0,0 +1,19 @@
+package com.udea.demonmap.exception;
+
+/**
+ * Excepción lanzada cuando el servicio rechaza un escaneo por saturación.
+ * Se traduce en una respuesta 429 con el header Retry-After.
+ */
+public class ScanRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ScanRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,50 @@
+package com.udea.demonmap.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR por cada invocación de nmap sobre un host.
+ *
+ * Desglosa el tiempo en arranque del proceso, ejecución (lectura de salida
+ * hasta que nmap termina) y parseo, para distinguir esperas del sistema
+ * operativo de costo de CPU en la JVM.
+ */
+@Name("com.udea.demonmap.HostScan")
+@Label("Host Scan")
+@Category({"Demonmap", "Scanner"})
+@Description("Escaneo de puertos de un host con nmap")
+@StackTrace(false)
+public class HostScanEvent extends Event {
+
+    @Label("IP Address")
+    public String ipAddress;
+
+    @Label("Open Ports Found")
+    public int portsFound;
+
+    @Label("Exit Code")
+    public int exitCode;
+
+    @Label("Spawn Time")
+    @Description("Tiempo de ProcessBuilder.start()")
+    @Timespan(Timespan.NANOSECONDS)
+    public long spawnTime;
+
+    @Label("Execution Time")
+    @Description("Tiempo desde el arranque hasta que nmap termina")
+    @Timespan(Timespan.NANOSECONDS)
+    public long executionTime;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseTime;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
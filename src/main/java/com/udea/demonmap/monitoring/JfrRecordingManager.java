@@ -0,0 +1,78 @@
+package com.udea.demonmap.monitoring;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Grabación JFR continua con el perfil jfr/demonmap.jfc incluido en el jar.
+ *
+ * Se activa con network.scan.jfr.enabled=true. La grabación se mantiene en
+ * disco acotada por antigüedad y tamaño, y se vuelca a un archivo al detener
+ * la aplicación para analizarla con JDK Mission Control o "jfr print".
+ * Se crea al arrancar aun con inicialización diferida (perfil fast-startup),
+ * para que la grabación cubra también el primer escaneo.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "network.scan.jfr", name = "enabled", havingValue = "true")
+public class JfrRecordingManager {
+
+    private static final String SETTINGS_RESOURCE = "/jfr/demonmap.jfc";
+
+    private final NetworkScanConfig.Jfr jfrConfig;
+    private Recording recording;
+
+    public JfrRecordingManager(NetworkScanConfig scanConfig) {
+        this.jfrConfig = scanConfig.getJfr();
+    }
+
+    @PostConstruct
+    public void start() throws Exception {
+        Configuration settings;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream(SETTINGS_RESOURCE), StandardCharsets.UTF_8)) {
+            settings = Configuration.create(reader);
+        }
+
+        recording = new Recording(settings);
+        recording.setName("demonmap");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(jfrConfig.getMaxAgeMinutes()));
+        recording.setMaxSize(jfrConfig.getMaxSizeMb() * 1024L * 1024L);
+        recording.setDumpOnExit(true);
+        recording.setDestination(Path.of(jfrConfig.getDumpFile()));
+        recording.start();
+
+        log.info("Grabación JFR iniciada (máx {} min / {} MB), destino: {}",
+                jfrConfig.getMaxAgeMinutes(), jfrConfig.getMaxSizeMb(), jfrConfig.getDumpFile());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording == null) {
+            return;
+        }
+        // El hook de salida de JFR (dumpOnExit) puede haberla detenido primero
+        if (recording.getState() == RecordingState.RUNNING) {
+            // stop() escribe la grabación en el destino configurado
+            recording.stop();
+            log.info("Grabación JFR guardada en {}", jfrConfig.getDumpFile());
+        }
+        recording.close();
+    }
+}
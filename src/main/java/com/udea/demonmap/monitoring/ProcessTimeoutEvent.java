@@ -0,0 +1,27 @@
+package com.udea.demonmap.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR emitido cuando el escaneo de un host supera el timeout configurado.
+ */
+@Name("com.udea.demonmap.ProcessTimeout")
+@Label("Process Timeout")
+@Category({"Demonmap", "Scanner"})
+@Description("Escaneo de host abandonado por superar network.scan.host-timeout-seconds")
+@StackTrace(false)
+public class ProcessTimeoutEvent extends Event {
+
+    @Label("IP Address")
+    public String ipAddress;
+
+    @Label("Timeout")
+    @Timespan(Timespan.SECONDS)
+    public long timeout;
+}
@@ -0,0 +1,33 @@
+package com.udea.demonmap.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR con el tiempo que una tarea de escaneo de host esperó en la cola
+ * del pool, desde que se envía hasta que un thread la empieza a ejecutar.
+ * La duración del evento es el tiempo de espera.
+ */
+@Name("com.udea.demonmap.QueueWait")
+@Label("Queue Wait")
+@Category({"Demonmap", "Scheduler"})
+@Description("Espera en la cola del pool de escaneo")
+@StackTrace(false)
+public class QueueWaitEvent extends Event {
+
+    @Label("IP Address")
+    public String ipAddress;
+
+    @Label("Queued Tasks At Start")
+    public int queuedTasks;
+
+    @Label("Priority Class")
+    public String priority;
+
+    @Label("Client")
+    public String clientId;
+}
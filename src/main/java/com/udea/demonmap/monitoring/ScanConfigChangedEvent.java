@@ -0,0 +1,31 @@
+package com.udea.demonmap.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR emitido al ajustar en caliente la configuración de escaneo.
+ * Cada evento lleva los valores vigentes tras el cambio.
+ */
+@Name("com.udea.demonmap.ScanConfigChanged")
+@Label("Scan Config Changed")
+@Category({"Demonmap", "Scanner"})
+@Description("Cambio en caliente del pool, el timeout por host o los puertos a escanear")
+@StackTrace(false)
+public class ScanConfigChangedEvent extends Event {
+
+    @Label("Thread Pool Size")
+    public int threadPoolSize;
+
+    @Label("Host Timeout")
+    @Timespan(Timespan.SECONDS)
+    public long hostTimeout;
+
+    @Label("Top Ports")
+    public int topPorts;
+}
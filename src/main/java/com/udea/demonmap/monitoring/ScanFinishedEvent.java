@@ -0,0 +1,35 @@
+package com.udea.demonmap.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR con la duración total del escaneo de un rango de red.
+ * Se inicia junto con {@link ScanStartedEvent} y se confirma al terminar.
+ */
+@Name("com.udea.demonmap.ScanFinished")
+@Label("Scan Finished")
+@Category({"Demonmap", "Scan"})
+@Description("Fin del escaneo de un rango de red, con su duración")
+@StackTrace(false)
+public class ScanFinishedEvent extends Event {
+
+    @Label("Network Range")
+    public String networkRange;
+
+    @Label("Scan Type")
+    public String scanType;
+
+    @Label("Hosts Scanned")
+    public int hostsScanned;
+
+    @Label("Devices Found")
+    public int devicesFound;
+
+    @Label("Status")
+    public String status;
+}
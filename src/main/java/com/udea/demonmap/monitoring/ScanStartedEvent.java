@@ -0,0 +1,25 @@
+package com.udea.demonmap.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR emitido al iniciar el escaneo de un rango de red.
+ */
+@Name("com.udea.demonmap.ScanStarted")
+@Label("Scan Started")
+@Category({"Demonmap", "Scan"})
+@Description("Inicio del escaneo de un rango de red")
+@StackTrace(false)
+public class ScanStartedEvent extends Event {
+
+    @Label("Network Range")
+    public String networkRange;
+
+    @Label("Scan Type")
+    public String scanType;
+}
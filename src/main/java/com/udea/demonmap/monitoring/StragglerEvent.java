@@ -0,0 +1,35 @@
+package com.udea.demonmap.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR emitido cuando un host queda rezagado respecto al resto del
+ * escaneo y se difiere a un sondeo de seguimiento.
+ */
+@Name("com.udea.demonmap.Straggler")
+@Label("Straggler Host")
+@Category({"Demonmap", "Scanner"})
+@Description("Host diferido por superar el umbral percentil del escaneo en curso")
+@StackTrace(false)
+public class StragglerEvent extends Event {
+
+    @Label("IP Address")
+    public String ipAddress;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.MILLISECONDS)
+    public long elapsed;
+
+    @Label("Threshold")
+    @Timespan(Timespan.MILLISECONDS)
+    public long threshold;
+
+    @Label("Completed Samples")
+    public int samples;
+}
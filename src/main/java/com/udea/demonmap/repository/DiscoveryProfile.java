@@ -0,0 +1,34 @@
+package com.udea.demonmap.repository;
+
+/**
+ * Perfil de sondeo para el descubrimiento de hosts activos.
+ */
+public enum DiscoveryProfile {
+    
+    /**
+     * Descubrimiento estándar de nmap (-sn).
+     */
+    STANDARD("-sn"),
+    
+    /**
+     * Sondeo barato para bloques que históricamente no tienen hosts:
+     * sin resolución DNS, sin reintentos y con timing agresivo.
+     */
+    LIGHT("-sn -n --max-retries 0 -T5"),
+    
+    /**
+     * Sondeo de disponibilidad de hosts ya conocidos: sin resolución DNS,
+     * con los reintentos normales para no dar por caído un host lento.
+     */
+    LIVENESS("-sn -n -T4");
+    
+    private final String nmapArguments;
+    
+    DiscoveryProfile(String nmapArguments) {
+        this.nmapArguments = nmapArguments;
+    }
+    
+    public String getNmapArguments() {
+        return nmapArguments;
+    }
+}
@@ -19,6 +19,18 @@ public interface NetworkScanner {
      */
     ScanResult scanNetwork(String networkRange) throws ScanException;
     
+    /**
+     * Escanea un rango de red enviando los sondeos por una interfaz dada.
+     * 
+     * @param networkRange Rango de red (ej: 192.168.1.0/24)
+     * @param interfaceName Interfaz de salida (ej: eth1)
+     * @return ScanResult con los dispositivos encontrados
+     * @throws ScanException si hay un error durante el escaneo
+     */
+    default ScanResult scanNetwork(String networkRange, String interfaceName) throws ScanException {
+        return scanNetwork(networkRange);
+    }
+    
     /**
      * Escanea una IP específica con detección de puertos.
      * 
@@ -28,6 +40,29 @@ public interface NetworkScanner {
      */
     NetworkDevice scanHost(String ipAddress) throws ScanException;
     
+    /**
+     * Escanea una IP específica limitando los puertos sondeados.
+     * 
+     * @param ipAddress Dirección IP a escanear
+     * @param ports Puertos a sondear
+     * @return NetworkDevice con los puertos abiertos dentro de la selección
+     * @throws ScanException si hay un error durante el escaneo
+     */
+    default NetworkDevice scanHost(String ipAddress, PortSelection ports) throws ScanException {
+        return scanHost(ipAddress);
+    }
+    
+    /**
+     * Lista de los puertos TCP más comunes, en el orden en que el escáner los
+     * elegiría con --top-ports.
+     * 
+     * @param count Cantidad de puertos
+     * @return Puertos en orden de frecuencia, o lista vacía si el escáner no la conoce
+     */
+    default List<Integer> topPortList(int count) {
+        return List.of();
+    }
+    
     /**
      * Verifica si una IP está activa en la red.
      * 
@@ -44,4 +79,16 @@ public interface NetworkScanner {
      * @throws ScanException si hay un error durante el escaneo
      */
     List<String> getActiveHosts(String networkRange) throws ScanException;
+    
+    /**
+     * Obtiene la lista de hosts activos usando un perfil de sondeo específico.
+     * 
+     * @param networkRange Rango de red en notación CIDR (o varios separados por espacio)
+     * @param profile Perfil de sondeo de descubrimiento
+     * @return Lista de direcciones IP activas
+     * @throws ScanException si hay un error durante el escaneo
+     */
+    default List<String> getActiveHosts(String networkRange, DiscoveryProfile profile) throws ScanException {
+        return getActiveHosts(networkRange);
+    }
 }
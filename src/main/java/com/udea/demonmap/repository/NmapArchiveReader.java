@@ -0,0 +1,431 @@
+package com.udea.demonmap.repository;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.util.MappedFileInputStream;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Lector en streaming de archivos de salida de nmap ya existentes, en formato
+ * XML ({@code -oX}) o grepable ({@code -oG}), opcionalmente comprimidos con gzip.
+ *
+ * El formato se detecta por el contenido. Los archivos grandes se leen
+ * mapeados en memoria ({@link MappedFileInputStream}); el XML se recorre con
+ * StAX y el grepable línea por línea, de modo que cada host se entrega apenas
+ * se termina de leer y el archivo nunca se carga entero.
+ */
+@Slf4j
+public final class NmapArchiveReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern GREPABLE_PORT_SEPARATOR = Pattern.compile(",\\s(?=\\d+/)");
+
+    private static final XMLInputFactory XML_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        // Los archivos vienen de terceros: sin DTD ni entidades externas
+        XML_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    public enum Format {
+        XML,
+        GREPABLE
+    }
+
+    /**
+     * Resumen de un archivo leído.
+     */
+    public record Summary(Format format, String args, int hostsRead, int devicesFound) {
+    }
+
+    private NmapArchiveReader() {
+    }
+
+    /**
+     * Lee un archivo y entrega cada host activo.
+     *
+     * @param file Archivo -oX o -oG, con o sin gzip
+     * @param mmapThreshold Tamaño desde el cual el archivo se mapea en memoria
+     * @param devices Recibe cada host activo con sus puertos abiertos
+     * @param bytesRead Recibe los bytes del archivo consumidos, a medida que se leen
+     * @throws IOException si el archivo no se puede leer o no es salida de nmap
+     */
+    public static Summary read(Path file, long mmapThreshold, Consumer<NetworkDevice> devices,
+                               LongConsumer bytesRead) throws IOException {
+        try (InputStream raw = Files.size(file) >= mmapThreshold
+                     ? new MappedFileInputStream(file)
+                     : Files.newInputStream(file);
+             InputStream in = open(new CountingInputStream(raw, bytesRead))) {
+            Format format = detect(in);
+            return format == Format.XML
+                    ? readXml(in, devices)
+                    : readGrepable(in, devices);
+        }
+    }
+
+    /**
+     * @return Stream con mark/reset, descomprimido si el archivo empieza con la firma de gzip
+     */
+    private static InputStream open(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new BufferedInputStream(new GZIPInputStream(buffered, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return buffered;
+    }
+
+    /**
+     * Detecta el formato por el primer carácter significativo: '<' en XML y
+     * '#' o "Host:" en grepable.
+     */
+    private static Format detect(InputStream in) throws IOException {
+        in.mark(BUFFER_SIZE);
+        try {
+            int c;
+            do {
+                c = in.read();
+            } while (c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == 0xEF || c == 0xBB || c == 0xBF);
+            if (c == '<') {
+                return Format.XML;
+            }
+            if (c == '#' || c == 'H') {
+                return Format.GREPABLE;
+            }
+            throw new IOException("El archivo no es salida XML ni grepable de nmap");
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static Summary readXml(InputStream in, Consumer<NetworkDevice> devices) throws IOException {
+        String args = null;
+        int hostsRead = 0;
+        int devicesFound = 0;
+        XmlHost host = null;
+        Port port = null;
+        try {
+            XMLStreamReader reader = XML_FACTORY.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "nmaprun" -> args = reader.getAttributeValue(null, "args");
+                            case "host" -> host = new XmlHost();
+                            case "status" -> {
+                                if (host != null) {
+                                    host.status = reader.getAttributeValue(null, "state");
+                                }
+                            }
+                            case "address" -> {
+                                if (host != null) {
+                                    String type = reader.getAttributeValue(null, "addrtype");
+                                    if ("ipv4".equals(type)) {
+                                        host.ipAddress = reader.getAttributeValue(null, "addr");
+                                    } else if ("mac".equals(type)) {
+                                        host.macAddress = reader.getAttributeValue(null, "addr");
+                                        host.vendor = reader.getAttributeValue(null, "vendor");
+                                    }
+                                }
+                            }
+                            case "hostname" -> {
+                                if (host != null && host.hostname == null) {
+                                    host.hostname = reader.getAttributeValue(null, "name");
+                                }
+                            }
+                            case "port" -> {
+                                if (host != null) {
+                                    port = Port.builder()
+                                            .portNumber(parseInt(reader.getAttributeValue(null, "portid")))
+                                            .protocol(reader.getAttributeValue(null, "protocol"))
+                                            .build();
+                                }
+                            }
+                            case "state" -> {
+                                if (port != null) {
+                                    port.setState(reader.getAttributeValue(null, "state"));
+                                }
+                            }
+                            case "service" -> {
+                                if (port != null) {
+                                    port.setService(reader.getAttributeValue(null, "name"));
+                                    port.setVersion(version(reader.getAttributeValue(null, "product"),
+                                            reader.getAttributeValue(null, "version"),
+                                            reader.getAttributeValue(null, "extrainfo")));
+                                }
+                            }
+                            case "osmatch" -> {
+                                if (host != null && host.operatingSystem == null) {
+                                    host.operatingSystem = reader.getAttributeValue(null, "name");
+                                }
+                            }
+                            case "times" -> {
+                                if (host != null) {
+                                    host.srtt = parseLong(reader.getAttributeValue(null, "srtt"));
+                                }
+                            }
+                            default -> {
+                                // Elementos que no se importan
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("port".equals(name) && port != null) {
+                            if ("open".equals(port.getState()) && port.getPortNumber() != null) {
+                                host.ports.add(port);
+                            }
+                            port = null;
+                        } else if ("host".equals(name) && host != null) {
+                            hostsRead++;
+                            if (host.ipAddress != null && !"down".equals(host.status)) {
+                                devices.accept(host.toDevice());
+                                devicesFound++;
+                            }
+                            host = null;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            // Archivos cortados (nmap interrumpido): se conservan los hosts ya leídos
+            if (hostsRead == 0) {
+                throw new IOException("XML de nmap inválido: " + e.getMessage(), e);
+            }
+            log.warn("XML de nmap truncado tras {} hosts: {}", hostsRead, e.getMessage());
+        }
+        return new Summary(Format.XML, args, hostsRead, devicesFound);
+    }
+
+    /**
+     * Formato grepable: una línea por host y sección, con campos separados por
+     * tabuladores ({@code Host: 10.0.0.1 (nombre)\tPorts: 22/open/tcp//ssh//OpenSSH 8.2/}).
+     * Las líneas "Status" y "Ports" de un mismo host son consecutivas.
+     */
+    private static Summary readGrepable(InputStream in, Consumer<NetworkDevice> devices) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        String args = null;
+        int hostsRead = 0;
+        int devicesFound = 0;
+        GrepableHost host = null;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("#")) {
+                int as = line.indexOf(" as: ");
+                if (args == null && as >= 0) {
+                    args = line.substring(as + 5).trim();
+                }
+                continue;
+            }
+            if (!line.startsWith("Host: ")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            String[] hostField = fields[0].substring(6).split(" ", 2);
+            String ipAddress = hostField[0];
+
+            if (host == null || !host.ipAddress.equals(ipAddress)) {
+                if (host != null) {
+                    hostsRead++;
+                    if (host.up) {
+                        devices.accept(host.toDevice());
+                        devicesFound++;
+                    }
+                }
+                host = new GrepableHost(ipAddress);
+                if (hostField.length > 1) {
+                    String name = hostField[1].replace("(", "").replace(")", "").trim();
+                    host.hostname = name.isEmpty() ? null : name;
+                }
+            }
+
+            for (int i = 1; i < fields.length; i++) {
+                String field = fields[i];
+                if (field.startsWith("Status: ")) {
+                    host.up = field.startsWith("Status: Up");
+                } else if (field.startsWith("Ports: ")) {
+                    // Una línea de puertos implica que el host respondió
+                    host.up = true;
+                    parseGrepablePorts(field.substring(7), host.ports);
+                } else if (field.startsWith("OS: ")) {
+                    host.operatingSystem = field.substring(4).trim();
+                }
+            }
+        }
+        if (host != null) {
+            hostsRead++;
+            if (host.up) {
+                devices.accept(host.toDevice());
+                devicesFound++;
+            }
+        }
+        return new Summary(Format.GREPABLE, args, hostsRead, devicesFound);
+    }
+
+    /**
+     * Entradas {@code puerto/estado/protocolo/owner/servicio/rpc/versión/}
+     * separadas por coma; solo se importan los puertos abiertos.
+     */
+    private static void parseGrepablePorts(String field, List<Port> ports) {
+        for (String entry : GREPABLE_PORT_SEPARATOR.split(field)) {
+            String[] parts = entry.split("/", -1);
+            if (parts.length < 5 || !"open".equals(parts[1])) {
+                continue;
+            }
+            Integer portNumber = parseInt(parts[0].trim());
+            if (portNumber == null) {
+                continue;
+            }
+            ports.add(Port.builder()
+                    .portNumber(portNumber)
+                    .state(parts[1])
+                    .protocol(parts[2])
+                    .service(emptyToNull(parts[4]))
+                    .version(parts.length > 6 ? emptyToNull(parts[6]) : null)
+                    .build());
+        }
+    }
+
+    /**
+     * Versión como la muestra la salida normal de nmap: producto, versión e info extra.
+     */
+    private static String version(String product, String version, String extraInfo) {
+        StringBuilder text = new StringBuilder();
+        for (String part : new String[]{product, version}) {
+            if (part != null && !part.isBlank()) {
+                if (!text.isEmpty()) {
+                    text.append(' ');
+                }
+                text.append(part);
+            }
+        }
+        if (extraInfo != null && !extraInfo.isBlank()) {
+            text.append(text.isEmpty() ? "" : " ").append('(').append(extraInfo).append(')');
+        }
+        return text.isEmpty() ? null : text.toString();
+    }
+
+    private static Integer parseInt(String value) {
+        try {
+            return value != null ? Integer.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long parseLong(String value) {
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static final class XmlHost {
+        private String ipAddress;
+        private String macAddress;
+        private String vendor;
+        private String hostname;
+        private String status;
+        private String operatingSystem;
+        private Long srtt;
+        private final List<Port> ports = new ArrayList<>();
+
+        NetworkDevice toDevice() {
+            return NetworkDevice.builder()
+                    .ipAddress(ipAddress)
+                    .macAddress(macAddress)
+                    .vendor(vendor)
+                    .hostname(hostname)
+                    .status("up")
+                    .operatingSystem(operatingSystem)
+                    .responseTime(srtt)
+                    .openPorts(ports)
+                    .build();
+        }
+    }
+
+    private static final class GrepableHost {
+        private final String ipAddress;
+        private String hostname;
+        private String operatingSystem;
+        private boolean up;
+        private final List<Port> ports = new ArrayList<>();
+
+        GrepableHost(String ipAddress) {
+            this.ipAddress = ipAddress;
+        }
+
+        NetworkDevice toDevice() {
+            return NetworkDevice.builder()
+                    .ipAddress(ipAddress)
+                    .hostname(hostname)
+                    .status("up")
+                    .operatingSystem(operatingSystem)
+                    .openPorts(ports)
+                    .build();
+        }
+    }
+
+    /**
+     * Informa los bytes leídos del archivo (antes de descomprimir).
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final LongConsumer bytesRead;
+
+        CountingInputStream(InputStream in, LongConsumer bytesRead) {
+            super(in);
+            this.bytesRead = bytesRead;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead.accept(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                bytesRead.accept(count);
+            }
+            return count;
+        }
+    }
+}
@@ -2,18 +2,24 @@ package com.udea.demonmap.repository;
 
 import com.udea.demonmap.config.NetworkScanConfig;
 import com.udea.demonmap.entity.NetworkDevice;
-import com.udea.demonmap.entity.Port;
 import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.monitoring.HostScanEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Implementación del escáner de red usando nmap.
@@ -23,30 +29,41 @@ import java.util.regex.Pattern;
 public class NmapNetworkScanner implements NetworkScanner {
     
     private static final String NMAP_COMMAND = "nmap";
+    private static final Pattern INTERFACE_PATTERN = Pattern.compile("^[A-Za-z0-9._:@-]+$");
     
     private final NetworkScanConfig scanConfig;
+    private final SubnetTimingProfiles timingProfiles;
+    
+    /**
+     * Puertos TCP de nmap-services ordenados por frecuencia; se carga al primer uso.
+     */
+    private volatile List<Integer> rankedTcpPorts;
     
     /**
      * Constructor con inyección de configuración.
      * 
      * @param scanConfig Configuración desde application.properties
+     * @param timingProfiles Timing por subred según la latencia medida
      */
-    public NmapNetworkScanner(NetworkScanConfig scanConfig) {
+    public NmapNetworkScanner(NetworkScanConfig scanConfig, SubnetTimingProfiles timingProfiles) {
         this.scanConfig = scanConfig;
+        this.timingProfiles = timingProfiles;
         log.info("NmapNetworkScanner configurado para escanear top {} puertos",
                 scanConfig.getTopPorts());
     }
     
-    // Patrones regex para parsear salida de nmap
-    private static final Pattern IP_PATTERN = Pattern.compile("Nmap scan report for (?:([\\w.-]+) )?\\(?([0-9]+\\.[0-9]+\\.[0-9]+\\.[0-9]+)\\)?");
-    private static final Pattern MAC_PATTERN = Pattern.compile("MAC Address: ([0-9A-Fa-f:]+) \\(([^)]+)\\)");
-    private static final Pattern PORT_PATTERN = Pattern.compile("(\\d+)/(tcp|udp)\\s+(open|closed|filtered)\\s+([\\w-]+)(?:\\s+(.+))?");
-    private static final Pattern OS_PATTERN = Pattern.compile("OS details: (.+)");
-    private static final Pattern HOST_UP_PATTERN = Pattern.compile("Host is up");
-    
     @Override
     public ScanResult scanNetwork(String networkRange) throws ScanException {
-        log.info("Iniciando escaneo de red: {}", networkRange);
+        return scanNetwork(networkRange, null);
+    }
+    
+    @Override
+    public ScanResult scanNetwork(String networkRange, String interfaceName) throws ScanException {
+        // El nombre va a la línea de comandos de sh: solo se aceptan nombres de interfaz reales
+        if (interfaceName != null && !INTERFACE_PATTERN.matcher(interfaceName).matches()) {
+            throw new ScanException("Nombre de interfaz inválido: " + interfaceName);
+        }
+        log.info("Iniciando escaneo de red: {}{}", networkRange, interfaceName != null ? " por " + interfaceName : "");
         
         LocalDateTime startTime = LocalDateTime.now();
         ScanResult result = ScanResult.builder()
@@ -57,13 +74,16 @@ public class NmapNetworkScanner implements NetworkScanner {
         
         try {
             // Comando nmap para escaneo rápido de red
-            String command = String.format("%s -sn -PR %s", NMAP_COMMAND, networkRange);
+            String command = interfaceName != null
+                    ? String.format("%s -sn -PR -e %s %s", NMAP_COMMAND, interfaceName, networkRange)
+                    : String.format("%s -sn -PR %s", NMAP_COMMAND, networkRange);
             
             log.debug("Ejecutando comando: {}", command);
             List<String> output = executeCommand(command);
             
             // Parsear hosts activos con información básica
-            List<NetworkDevice> devices = parseQuickScanDevices(output);
+            List<NetworkDevice> devices = NmapOutputParser.parseQuickScanDevices(output);
+            devices.forEach(this::recordLatency);
             result.setDevices(devices);
             result.setTotalHostsScanned(devices.size());
             
@@ -88,18 +108,31 @@ public class NmapNetworkScanner implements NetworkScanner {
     
     @Override
     public NetworkDevice scanHost(String ipAddress) throws ScanException {
-        log.info("Escaneando host: {}", ipAddress);
+        return scanHost(ipAddress, PortSelection.top());
+    }
+    
+    @Override
+    public NetworkDevice scanHost(String ipAddress, PortSelection ports) throws ScanException {
+        log.info("Escaneando host: {} (puertos {})", ipAddress, ports);
+        
+        HostScanEvent event = new HostScanEvent();
+        event.begin();
+        event.ipAddress = ipAddress;
         
         try {
             // Comando configuración dinámica
-            String command = String.format("%s -sS --top-ports %d -T4 --host-timeout 20s --min-rate 100 %s", 
-                    NMAP_COMMAND, scanConfig.getTopPorts(), ipAddress);
+            String command = String.format("%s -sS %s %s", NMAP_COMMAND, portArguments(ipAddress, ports), ipAddress);
             
             log.debug("Ejecutando comando: {}", command);
-            List<String> output = executeCommand(command);
+            List<String> output = executeCommand(command, event);
             
             // Parsear resultado
-            NetworkDevice device = parseHostScan(output, ipAddress);
+            long parseStart = System.nanoTime();
+            NetworkDevice device = NmapOutputParser.parseHostScan(output, ipAddress);
+            event.parseTime = System.nanoTime() - parseStart;
+            recordLatency(device);
+            event.portsFound = device.getOpenPorts().size();
+            event.succeeded = true;
             
             log.info("Host {} escaneado. Puertos abiertos: {}", ipAddress, device.getOpenPorts().size());
             
@@ -108,21 +141,94 @@ public class NmapNetworkScanner implements NetworkScanner {
         } catch (Exception e) {
             log.error("Error al escanear host {}: {}", ipAddress, e.getMessage(), e);
             throw new ScanException("Error al escanear host " + ipAddress + ": " + e.getMessage(), e);
+        } finally {
+            event.commit();
         }
     }
     
+    /**
+     * Argumentos de puertos y timing de nmap según la selección.
+     * El barrido en segundo plano usa timing normal y un tope de paquetes por segundo;
+     * el seguimiento de rezagados, pocos puertos sin reintentos y timeout corto;
+     * cada tramo de un escaneo repartido, su parte del presupuesto de paquetes.
+     * Los escaneos en primer plano toman el timing de la subred del host, cuyo
+     * --host-timeout no pasa network.scan.host-timeout-seconds: un host que el
+     * servicio ya dio por vencido o difirió no sigue ocupando un nmap.
+     */
+    private String portArguments(String ipAddress, PortSelection ports) {
+        return switch (ports.getMode()) {
+            case TOP -> String.format("--top-ports %d %s", scanConfig.getTopPorts(), foregroundTiming(ipAddress));
+            case ONLY -> String.format("-p %s %s", ports.toNmapPortList(), foregroundTiming(ipAddress));
+            case TOP_EXCLUDING -> String.format("--top-ports %d --exclude-ports %s -T3 --host-timeout 60s --max-rate %d",
+                    scanConfig.getTopPorts(), ports.toNmapPortList(), scanConfig.getPortProfile().getSweepMaxRate());
+            case FAST -> String.format("--top-ports %d -T5 --max-retries 0 --host-timeout 5s", ports.getTopPorts());
+            case SLICE -> String.format("-p %s %s --max-rate %d", ports.toNmapPortList(),
+                    timingProfiles.timingArguments(ipAddress), ports.getMaxRate());
+        };
+    }
+    
+    private String foregroundTiming(String ipAddress) {
+        String timing = timingProfiles.timingArguments(ipAddress);
+        return timingProfiles.allowsMinRate(ipAddress) ? timing + " --min-rate 100" : timing;
+    }
+    
+    private void recordLatency(NetworkDevice device) {
+        if (device.getResponseTime() != null) {
+            timingProfiles.record(device.getIpAddress(), device.getResponseTime());
+        }
+    }
+    
+    /**
+     * Lee el orden de los top N puertos del mismo nmap-services que usa nmap
+     * para --top-ports (tercera columna: frecuencia con que el puerto aparece abierto).
+     */
+    @Override
+    public List<Integer> topPortList(int count) {
+        List<Integer> ranked = rankedTcpPorts;
+        if (ranked == null) {
+            ranked = loadRankedTcpPorts(Path.of(scanConfig.getSplitPort().getServicesFile()));
+            rankedTcpPorts = ranked;
+        }
+        return ranked.subList(0, Math.min(count, ranked.size()));
+    }
+    
+    private static List<Integer> loadRankedTcpPorts(Path servicesFile) {
+        record Entry(int port, double frequency) { }
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<String> lines = Files.lines(servicesFile, StandardCharsets.ISO_8859_1)) {
+            lines.forEach(line -> {
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    return;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length < 3 || !fields[1].endsWith("/tcp")) {
+                    return;
+                }
+                try {
+                    int port = Integer.parseInt(fields[1].substring(0, fields[1].indexOf('/')));
+                    entries.add(new Entry(port, Double.parseDouble(fields[2])));
+                } catch (NumberFormatException e) {
+                    // Línea con formato inesperado: se ignora
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("No se pudo leer {} ({}): el escaneo de hosts no se reparte por puertos",
+                    servicesFile, e.getMessage());
+            return List.of();
+        }
+        entries.sort(Comparator.comparingDouble(Entry::frequency).reversed());
+        List<Integer> ranked = entries.stream().map(Entry::port).toList();
+        log.info("{} puertos TCP cargados de {}", ranked.size(), servicesFile);
+        return ranked;
+    }
+    
     @Override
     public boolean isHostAlive(String ipAddress) {
         try {
             String command = String.format("%s -sn %s", NMAP_COMMAND, ipAddress);
             List<String> output = executeCommand(command);
             
-            for (String line : output) {
-                if (HOST_UP_PATTERN.matcher(line).find()) {
-                    return true;
-                }
-            }
-            return false;
+            return NmapOutputParser.isHostUp(output);
             
         } catch (Exception e) {
             log.warn("Error verificando host {}: {}", ipAddress, e.getMessage());
@@ -132,21 +238,33 @@ public class NmapNetworkScanner implements NetworkScanner {
     
     @Override
     public List<String> getActiveHosts(String networkRange) throws ScanException {
+        return getActiveHosts(networkRange, DiscoveryProfile.STANDARD);
+    }
+    
+    @Override
+    public List<String> getActiveHosts(String networkRange, DiscoveryProfile profile) throws ScanException {
         try {
-            String command = String.format("%s -sn %s", NMAP_COMMAND, networkRange);
+            String command = String.format("%s %s %s", NMAP_COMMAND, profile.getNmapArguments(), networkRange);
+            log.debug("Ejecutando comando: {}", command);
             List<String> output = executeCommand(command);
-            return parseActiveHosts(output);
+            return NmapOutputParser.parseActiveHosts(output);
             
         } catch (Exception e) {
             throw new ScanException("Error obteniendo hosts activos: " + e.getMessage(), e);
         }
     }
     
+    private List<String> executeCommand(String command) throws Exception {
+        return executeCommand(command, null);
+    }
+    
     /**
      * Ejecuta un comando del sistema y retorna la salida.
      * Compatible con Windows, Linux y macOS.
+     * 
+     * @param event Evento JFR donde registrar tiempos de arranque y ejecución (opcional)
      */
-    private List<String> executeCommand(String command) throws Exception {
+    private List<String> executeCommand(String command, HostScanEvent event) throws Exception {
         List<String> output = new ArrayList<>();
         
         ProcessBuilder processBuilder = new ProcessBuilder();
@@ -164,7 +282,9 @@ public class NmapNetworkScanner implements NetworkScanner {
         // Redirigir stderr a stdout para capturar toda la salida
         processBuilder.redirectErrorStream(true);
         
+        long spawnStart = System.nanoTime();
         Process process = processBuilder.start();
+        long spawnEnd = System.nanoTime();
         
         // Leer toda la salida (stdout + stderr combinados)
         try (BufferedReader reader = new BufferedReader(
@@ -178,6 +298,11 @@ public class NmapNetworkScanner implements NetworkScanner {
         }
         
         int exitCode = process.waitFor();
+        if (event != null) {
+            event.spawnTime = spawnEnd - spawnStart;
+            event.executionTime = System.nanoTime() - spawnEnd;
+            event.exitCode = exitCode;
+        }
         
         log.debug("Comando nmap completado con código: {}. Líneas de salida: {}", exitCode, output.size());
         
@@ -194,191 +319,4 @@ public class NmapNetworkScanner implements NetworkScanner {
         
         return output;
     }
-    
-    /**
-     * Parsea la salida de nmap para extraer IPs activas.
-     */
-    private List<String> parseActiveHosts(List<String> output) {
-        List<String> activeIps = new ArrayList<>();
-        
-        log.debug("Parseando {} líneas de salida de nmap", output.size());
-        
-        for (String line : output) {
-            log.trace("Procesando línea: {}", line);
-            
-            // Buscar patrones de IP en diferentes formatos
-            // Formato: "Nmap scan report for 192.168.1.1"
-            // Formato: "Host is up (0.0010s latency)."
-            if (line.contains("Nmap scan report for")) {
-                Matcher matcher = IP_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    String ip = matcher.group(2);
-                    if (ip != null && !ip.isEmpty()) {
-                        activeIps.add(ip);
-                        log.debug("IP activa encontrada: {}", ip);
-                    }
-                }
-            }
-        }
-        
-        log.info("Total de IPs activas parseadas: {}", activeIps.size());
-        return activeIps;
-    }
-    
-    /**
-     * Parsea la salida de nmap -sn para extraer dispositivos con información básica (IP, MAC, vendor).
-     */
-    private List<NetworkDevice> parseQuickScanDevices(List<String> output) {
-        List<NetworkDevice> devices = new ArrayList<>();
-        
-        log.debug("Parseando {} líneas de salida de nmap para dispositivos básicos", output.size());
-        
-        String currentIp = null;
-        String currentHostname = null;
-        
-        for (String line : output) {
-            log.trace("Procesando línea: {}", line);
-            
-            // Extraer IP y hostname
-            // Formato: "Nmap scan report for router.local (192.168.1.1)"
-            // Formato: "Nmap scan report for 192.168.1.1"
-            if (line.contains("Nmap scan report for")) {
-                Matcher matcher = IP_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    String hostname = matcher.group(1);
-                    String ip = matcher.group(2);
-                    
-                    if (ip != null && !ip.isEmpty()) {
-                        currentIp = ip;
-                        currentHostname = (hostname != null && !hostname.isEmpty()) ? hostname : null;
-                        log.debug("Dispositivo encontrado - IP: {}, Hostname: {}", currentIp, currentHostname);
-                    }
-                }
-            }
-            // Extraer MAC y vendor
-            // Formato: "MAC Address: AA:BB:CC:DD:EE:FF (Vendor Name)"
-            else if (line.contains("MAC Address:") && currentIp != null) {
-                Matcher macMatcher = MAC_PATTERN.matcher(line);
-                if (macMatcher.find()) {
-                    String mac = macMatcher.group(1);
-                    String vendor = macMatcher.group(2);
-                    
-                    // Crear dispositivo con la información disponible
-                    NetworkDevice device = NetworkDevice.builder()
-                            .ipAddress(currentIp)
-                            .hostname(currentHostname)
-                            .macAddress(mac)
-                            .vendor(vendor)
-                            .status("up")
-                            .openPorts(new ArrayList<>()) // No ports en quick scan
-                            .build();
-                    
-                    devices.add(device);
-                    log.debug("Dispositivo agregado: IP={}, MAC={}, Vendor={}", currentIp, mac, vendor);
-                    
-                    // Reset para el siguiente host
-                    currentIp = null;
-                    currentHostname = null;
-                }
-            }
-        }
-        
-        // Si quedan IPs sin MAC (localhost u otros casos), agregarlos sin MAC
-        if (currentIp != null) {
-            NetworkDevice device = NetworkDevice.builder()
-                    .ipAddress(currentIp)
-                    .hostname(currentHostname)
-                    .status("up")
-                    .openPorts(new ArrayList<>())
-                    .build();
-            devices.add(device);
-            log.debug("Dispositivo agregado sin MAC: IP={}, Hostname={}", currentIp, currentHostname);
-        }
-        
-        log.info("Total de dispositivos básicos parseados: {}", devices.size());
-        return devices;
-    }
-    
-    /**
-     * Parsea la salida detallada de nmap para un host específico.
-     */
-    private NetworkDevice parseHostScan(List<String> output, String ipAddress) {
-        NetworkDevice.NetworkDeviceBuilder deviceBuilder = NetworkDevice.builder()
-                .ipAddress(ipAddress)
-                .status("unknown")
-                .openPorts(new ArrayList<>());
-        
-        String currentHostname = null;
-        String currentMac = null;
-        String currentVendor = null;
-        String currentOs = null;
-        
-        for (String line : output) {
-            // Detectar hostname e IP
-            Matcher ipMatcher = IP_PATTERN.matcher(line);
-            if (ipMatcher.find()) {
-                currentHostname = ipMatcher.group(1);
-                if (line.contains("Host is up")) {
-                    deviceBuilder.status("up");
-                }
-            }
-            
-            // Detectar MAC y vendor
-            Matcher macMatcher = MAC_PATTERN.matcher(line);
-            if (macMatcher.find()) {
-                currentMac = macMatcher.group(1);
-                currentVendor = macMatcher.group(2);
-            }
-            
-            // Detectar OS
-            Matcher osMatcher = OS_PATTERN.matcher(line);
-            if (osMatcher.find()) {
-                currentOs = osMatcher.group(1);
-            }
-            
-            // Detectar puertos abiertos
-            Matcher portMatcher = PORT_PATTERN.matcher(line);
-            if (portMatcher.find()) {
-                Port port = Port.builder()
-                        .portNumber(Integer.parseInt(portMatcher.group(1)))
-                        .protocol(portMatcher.group(2))
-                        .state(portMatcher.group(3))
-                        .service(portMatcher.group(4))
-                        .version(portMatcher.group(5))
-                        .build();
-                
-                deviceBuilder.openPorts(new ArrayList<>());
-            }
-            
-            // Detectar estado del host
-            if (HOST_UP_PATTERN.matcher(line).find()) {
-                deviceBuilder.status("up");
-            }
-        }
-        
-        // Construir dispositivo y agregar puertos
-        NetworkDevice device = deviceBuilder
-                .hostname(currentHostname)
-                .macAddress(currentMac)
-                .vendor(currentVendor)
-                .operatingSystem(currentOs)
-                .build();
-        
-        // Agregar puertos parseados
-        for (String line : output) {
-            Matcher portMatcher = PORT_PATTERN.matcher(line);
-            if (portMatcher.find() && "open".equals(portMatcher.group(3))) {
-                Port port = Port.builder()
-                        .portNumber(Integer.parseInt(portMatcher.group(1)))
-                        .protocol(portMatcher.group(2))
-                        .state(portMatcher.group(3))
-                        .service(portMatcher.group(4))
-                        .version(portMatcher.group(5))
-                        .build();
-                device.addPort(port);
-            }
-        }
-        
-        return device;
-    }
 }
@@ -0,0 +1,260 @@
+package com.udea.demonmap.repository;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser de la salida en texto normal de nmap.
+ *
+ * Separado de NmapNetworkScanner para poder reutilizarlo con salida que no
+ * proviene de un proceso (por ejemplo, la de un simulador en pruebas de carga).
+ */
+@Slf4j
+final class NmapOutputParser {
+    
+    // Patrones regex para parsear salida de nmap
+    private static final Pattern IP_PATTERN = Pattern.compile("Nmap scan report for (?:([\\w.-]+) )?\\(?([0-9]+\\.[0-9]+\\.[0-9]+\\.[0-9]+)\\)?");
+    private static final Pattern MAC_PATTERN = Pattern.compile("MAC Address: ([0-9A-Fa-f:]+) \\(([^)]+)\\)");
+    private static final Pattern PORT_PATTERN = Pattern.compile("(\\d+)/(tcp|udp)\\s+(open|closed|filtered)\\s+([\\w-]+)(?:\\s+(.+))?");
+    private static final Pattern OS_PATTERN = Pattern.compile("OS details: (.+)");
+    private static final Pattern HOST_UP_PATTERN = Pattern.compile("Host is up");
+    private static final Pattern LATENCY_PATTERN = Pattern.compile("Host is up \\(([0-9.]+)s latency\\)");
+    
+    private NmapOutputParser() {
+    }
+    
+    /**
+     * Verifica si la salida de nmap reporta el host como activo.
+     */
+    static boolean isHostUp(List<String> output) {
+        for (String line : output) {
+            if (HOST_UP_PATTERN.matcher(line).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Parsea la salida de nmap para extraer IPs activas.
+     */
+    static List<String> parseActiveHosts(List<String> output) {
+        List<String> activeIps = new ArrayList<>();
+        
+        log.debug("Parseando {} líneas de salida de nmap", output.size());
+        
+        for (String line : output) {
+            log.trace("Procesando línea: {}", line);
+            
+            // Buscar patrones de IP en diferentes formatos
+            // Formato: "Nmap scan report for 192.168.1.1"
+            // Formato: "Host is up (0.0010s latency)."
+            if (line.contains("Nmap scan report for")) {
+                Matcher matcher = IP_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    String ip = matcher.group(2);
+                    if (ip != null && !ip.isEmpty()) {
+                        activeIps.add(ip);
+                        log.debug("IP activa encontrada: {}", ip);
+                    }
+                }
+            }
+        }
+        
+        log.info("Total de IPs activas parseadas: {}", activeIps.size());
+        return activeIps;
+    }
+    
+    /**
+     * Parsea la salida de nmap -sn para extraer dispositivos con información básica (IP, MAC, vendor).
+     */
+    static List<NetworkDevice> parseQuickScanDevices(List<String> output) {
+        List<NetworkDevice> devices = new ArrayList<>();
+        
+        log.debug("Parseando {} líneas de salida de nmap para dispositivos básicos", output.size());
+        
+        String currentIp = null;
+        String currentHostname = null;
+        Long currentLatency = null;
+        
+        for (String line : output) {
+            log.trace("Procesando línea: {}", line);
+            
+            // Extraer IP y hostname
+            // Formato: "Nmap scan report for router.local (192.168.1.1)"
+            // Formato: "Nmap scan report for 192.168.1.1"
+            if (line.contains("Nmap scan report for")) {
+                Matcher matcher = IP_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    String hostname = matcher.group(1);
+                    String ip = matcher.group(2);
+                    
+                    if (ip != null && !ip.isEmpty()) {
+                        currentIp = ip;
+                        currentHostname = (hostname != null && !hostname.isEmpty()) ? hostname : null;
+                        currentLatency = null;
+                        log.debug("Dispositivo encontrado - IP: {}, Hostname: {}", currentIp, currentHostname);
+                    }
+                }
+            }
+            // Formato: "Host is up (0.0010s latency)."
+            else if (line.contains("Host is up") && currentIp != null) {
+                currentLatency = parseLatency(line);
+            }
+            // Extraer MAC y vendor
+            // Formato: "MAC Address: AA:BB:CC:DD:EE:FF (Vendor Name)"
+            else if (line.contains("MAC Address:") && currentIp != null) {
+                Matcher macMatcher = MAC_PATTERN.matcher(line);
+                if (macMatcher.find()) {
+                    String mac = macMatcher.group(1);
+                    String vendor = macMatcher.group(2);
+                    
+                    // Crear dispositivo con la información disponible
+                    NetworkDevice device = NetworkDevice.builder()
+                            .ipAddress(currentIp)
+                            .hostname(currentHostname)
+                            .macAddress(mac)
+                            .vendor(vendor)
+                            .status("up")
+                            .responseTime(currentLatency)
+                            .openPorts(new ArrayList<>()) // No ports en quick scan
+                            .build();
+                    
+                    devices.add(device);
+                    log.debug("Dispositivo agregado: IP={}, MAC={}, Vendor={}", currentIp, mac, vendor);
+                    
+                    // Reset para el siguiente host
+                    currentIp = null;
+                    currentHostname = null;
+                    currentLatency = null;
+                }
+            }
+        }
+        
+        // Si quedan IPs sin MAC (localhost u otros casos), agregarlos sin MAC
+        if (currentIp != null) {
+            NetworkDevice device = NetworkDevice.builder()
+                    .ipAddress(currentIp)
+                    .hostname(currentHostname)
+                    .status("up")
+                    .responseTime(currentLatency)
+                    .openPorts(new ArrayList<>())
+                    .build();
+            devices.add(device);
+            log.debug("Dispositivo agregado sin MAC: IP={}, Hostname={}", currentIp, currentHostname);
+        }
+        
+        log.info("Total de dispositivos básicos parseados: {}", devices.size());
+        return devices;
+    }
+    
+    /**
+     * Parsea la salida detallada de nmap para un host específico.
+     */
+    static NetworkDevice parseHostScan(List<String> output, String ipAddress) {
+        NetworkDevice.NetworkDeviceBuilder deviceBuilder = NetworkDevice.builder()
+                .ipAddress(ipAddress)
+                .status("unknown")
+                .openPorts(new ArrayList<>());
+        
+        String currentHostname = null;
+        String currentMac = null;
+        String currentVendor = null;
+        String currentOs = null;
+        
+        for (String line : output) {
+            // Detectar hostname e IP
+            Matcher ipMatcher = IP_PATTERN.matcher(line);
+            if (ipMatcher.find()) {
+                currentHostname = ipMatcher.group(1);
+                if (line.contains("Host is up")) {
+                    deviceBuilder.status("up");
+                }
+            }
+            
+            // Detectar MAC y vendor
+            Matcher macMatcher = MAC_PATTERN.matcher(line);
+            if (macMatcher.find()) {
+                currentMac = macMatcher.group(1);
+                currentVendor = macMatcher.group(2);
+            }
+            
+            // Detectar OS
+            Matcher osMatcher = OS_PATTERN.matcher(line);
+            if (osMatcher.find()) {
+                currentOs = osMatcher.group(1);
+            }
+            
+            // Detectar puertos abiertos
+            Matcher portMatcher = PORT_PATTERN.matcher(line);
+            if (portMatcher.find()) {
+                Port port = Port.builder()
+                        .portNumber(Integer.parseInt(portMatcher.group(1)))
+                        .protocol(portMatcher.group(2))
+                        .state(portMatcher.group(3))
+                        .service(portMatcher.group(4))
+                        .version(portMatcher.group(5))
+                        .build();
+                
+                deviceBuilder.openPorts(new ArrayList<>());
+            }
+            
+            // Detectar estado del host y latencia
+            if (HOST_UP_PATTERN.matcher(line).find()) {
+                deviceBuilder.status("up");
+                Long latency = parseLatency(line);
+                if (latency != null) {
+                    deviceBuilder.responseTime(latency);
+                }
+            }
+        }
+        
+        // Construir dispositivo y agregar puertos
+        NetworkDevice device = deviceBuilder
+                .hostname(currentHostname)
+                .macAddress(currentMac)
+                .vendor(currentVendor)
+                .operatingSystem(currentOs)
+                .build();
+        
+        // Agregar puertos parseados
+        for (String line : output) {
+            Matcher portMatcher = PORT_PATTERN.matcher(line);
+            if (portMatcher.find() && "open".equals(portMatcher.group(3))) {
+                Port port = Port.builder()
+                        .portNumber(Integer.parseInt(portMatcher.group(1)))
+                        .protocol(portMatcher.group(2))
+                        .state(portMatcher.group(3))
+                        .service(portMatcher.group(4))
+                        .version(portMatcher.group(5))
+                        .build();
+                device.addPort(port);
+            }
+        }
+        
+        return device;
+    }
+    
+    /**
+     * Extrae la latencia de "Host is up (0.0010s latency)." en microsegundos.
+     * 
+     * @return Latencia en µs, o null si la línea no la trae
+     */
+    static Long parseLatency(String line) {
+        Matcher matcher = LATENCY_PATTERN.matcher(line);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Math.round(Double.parseDouble(matcher.group(1)) * 1_000_000);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.udea.demonmap.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Selección de puertos para el escaneo de un host.
+ */
+public final class PortSelection {
+    
+    public enum Mode {
+        /** Los top N puertos configurados */
+        TOP,
+        /** Solo los puertos indicados */
+        ONLY,
+        /** Los top N puertos salvo los indicados, a menor ritmo (barrido en segundo plano) */
+        TOP_EXCLUDING,
+        /** Pocos puertos con timing agresivo y sin reintentos (seguimiento de hosts rezagados) */
+        FAST,
+        /** Tramo de una lista de puertos, con tope de paquetes por segundo (escaneo repartido) */
+        SLICE
+    }
+    
+    private static final PortSelection TOP = new PortSelection(Mode.TOP, List.of(), 0, 0);
+    
+    private final Mode mode;
+    private final List<Integer> ports;
+    private final int topPorts;
+    private final int maxRate;
+    
+    private PortSelection(Mode mode, List<Integer> ports, int topPorts, int maxRate) {
+        this.mode = mode;
+        this.ports = ports;
+        this.topPorts = topPorts;
+        this.maxRate = maxRate;
+    }
+    
+    public static PortSelection top() {
+        return TOP;
+    }
+    
+    public static PortSelection only(Collection<Integer> ports) {
+        if (ports.isEmpty()) {
+            throw new IllegalArgumentException("La selección de puertos no puede estar vacía");
+        }
+        return new PortSelection(Mode.ONLY, List.copyOf(new TreeSet<>(ports)), 0, 0);
+    }
+    
+    public static PortSelection topExcluding(Collection<Integer> ports) {
+        return ports.isEmpty() ? TOP : new PortSelection(Mode.TOP_EXCLUDING, List.copyOf(new TreeSet<>(ports)), 0, 0);
+    }
+    
+    /**
+     * @param topPorts Cantidad de puertos más comunes a sondear
+     */
+    public static PortSelection fast(int topPorts) {
+        if (topPorts < 1) {
+            throw new IllegalArgumentException("Debe sondearse al menos 1 puerto");
+        }
+        return new PortSelection(Mode.FAST, List.of(), topPorts, 0);
+    }
+    
+    /**
+     * @param ports Puertos del tramo
+     * @param maxRate Tope de paquetes por segundo del tramo
+     */
+    public static PortSelection slice(Collection<Integer> ports, int maxRate) {
+        if (ports.isEmpty()) {
+            throw new IllegalArgumentException("La selección de puertos no puede estar vacía");
+        }
+        if (maxRate < 1) {
+            throw new IllegalArgumentException("El tope de paquetes por segundo debe ser positivo");
+        }
+        return new PortSelection(Mode.SLICE, List.copyOf(new TreeSet<>(ports)), 0, maxRate);
+    }
+    
+    public Mode getMode() {
+        return mode;
+    }
+    
+    /**
+     * @return Puertos incluidos (ONLY, SLICE) o excluidos (TOP_EXCLUDING), en orden ascendente
+     */
+    public List<Integer> getPorts() {
+        return ports;
+    }
+    
+    /**
+     * @return Cantidad de puertos más comunes a sondear (FAST)
+     */
+    public int getTopPorts() {
+        return topPorts;
+    }
+    
+    /**
+     * @return Tope de paquetes por segundo (SLICE)
+     */
+    public int getMaxRate() {
+        return maxRate;
+    }
+    
+    /**
+     * @return Lista de puertos en el formato de nmap (ej: 22,80,8443)
+     */
+    public String toNmapPortList() {
+        return ports.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+    
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case TOP -> "TOP";
+            case FAST -> "FAST[" + topPorts + "]";
+            case SLICE -> "SLICE[" + toNmapPortList() + " @" + maxRate + "pps]";
+            default -> mode + "[" + toNmapPortList() + "]";
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package com.udea.demonmap.repository;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.util.Ipv4Range;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latencia medida por subred y timing de nmap derivado de ella.
+ *
+ * Cada "Host is up (Xs latency)" alimenta la estimación de su subred con el
+ * mismo suavizado que TCP (RFC 6298): SRTT y RTTVAR. Con suficientes
+ * mediciones, los escaneos siguientes de la subred usan timeouts de RTT,
+ * reintentos y host timeout acordes: una LAN de sub-milisegundo termina antes
+ * y un sitio por VPN a 200 ms deja de agotar el timeout.
+ */
+@Slf4j
+@Component
+public class SubnetTimingProfiles {
+
+    private static final int DEFAULT_HOST_TIMEOUT_SECONDS = 20;
+    private static final long REFERENCE_RTO_MICROS = 100_000;
+    private static final long MIN_RATE_MAX_SRTT_MICROS = 50_000;
+
+    private final NetworkScanConfig scanConfig;
+    private final Map<Long, Estimate> estimates = new ConcurrentHashMap<>();
+
+    public SubnetTimingProfiles(NetworkScanConfig scanConfig) {
+        this.scanConfig = scanConfig;
+    }
+
+    /**
+     * SRTT y RTTVAR de una subred, en microsegundos. Se sincroniza sobre la instancia.
+     */
+    private static final class Estimate {
+        private double srtt;
+        private double rttvar;
+        private int samples;
+    }
+
+    /**
+     * Registra una medición de latencia.
+     *
+     * @param ipAddress Host medido
+     * @param rttMicros Latencia en microsegundos
+     */
+    public void record(String ipAddress, long rttMicros) {
+        if (rttMicros < 0) {
+            return;
+        }
+        Estimate estimate = estimates.computeIfAbsent(subnetOf(ipAddress), subnet -> new Estimate());
+        synchronized (estimate) {
+            if (estimate.samples == 0) {
+                estimate.srtt = rttMicros;
+                estimate.rttvar = rttMicros / 2.0;
+            } else {
+                estimate.rttvar = 0.75 * estimate.rttvar + 0.25 * Math.abs(estimate.srtt - rttMicros);
+                estimate.srtt = 0.875 * estimate.srtt + 0.125 * rttMicros;
+            }
+            estimate.samples++;
+        }
+    }
+
+    /**
+     * Argumentos de timing de nmap para escanear un host.
+     *
+     * @param ipAddress Host a escanear
+     * @return Opciones -T4 con timeouts de RTT, reintentos y host timeout de su subred,
+     *         o el timing por defecto si la subred aún no tiene mediciones suficientes
+     *         (no incluye --min-rate, ver {@link #allowsMinRate}). El host timeout
+     *         nunca pasa network.scan.host-timeout-seconds
+     */
+    public String timingArguments(String ipAddress) {
+        NetworkScanConfig.Timing timing = scanConfig.getTiming();
+        if (!timing.isEnabled()) {
+            return defaultTiming();
+        }
+        Estimate estimate = estimates.get(subnetOf(ipAddress));
+        if (estimate == null) {
+            return defaultTiming();
+        }
+        double srtt;
+        double rttvar;
+        synchronized (estimate) {
+            if (estimate.samples < timing.getMinSamples()) {
+                return defaultTiming();
+            }
+            srtt = estimate.srtt;
+            rttvar = estimate.rttvar;
+        }
+
+        long rto = Math.round(srtt + 4 * rttvar);
+        long initialRttMs = clamp(rto / 1_000, timing.getMinRttTimeoutMs(), timing.getMaxRttTimeoutMs());
+        // El máximo deja margen para picos aunque la subred sea muy rápida
+        long maxRttMs = clamp(4 * rto / 1_000, Math.max(initialRttMs, 4L * timing.getMinRttTimeoutMs()),
+                timing.getMaxRttTimeoutMs());
+        // En una LAN las pérdidas son raras; en enlaces lentos un reintento cuesta menos que perder el puerto
+        int retries = srtt < 10_000 ? 1 : srtt < 100_000 ? 2 : 4;
+        // El host timeout escala con el RTO, sin pasar el timeout por host del servicio
+        double scale = Math.max(0.5, Math.min(4.0, (double) rto / REFERENCE_RTO_MICROS));
+        long hostTimeoutSeconds = Math.min(Math.round(Math.ceil(DEFAULT_HOST_TIMEOUT_SECONDS * scale)),
+                scanConfig.getHostTimeoutSeconds());
+
+        String arguments = String.format("-T4 --initial-rtt-timeout %dms --max-rtt-timeout %dms --max-retries %d --host-timeout %ds",
+                initialRttMs, maxRttMs, retries, hostTimeoutSeconds);
+        log.debug("Timing de {} (SRTT {} µs, RTTVAR {} µs): {}", ipAddress, Math.round(srtt), Math.round(rttvar), arguments);
+        return arguments;
+    }
+
+    /**
+     * Timing por defecto, para subredes sin mediciones suficientes.
+     */
+    private String defaultTiming() {
+        return "-T4 --host-timeout " + Math.min(DEFAULT_HOST_TIMEOUT_SECONDS, scanConfig.getHostTimeoutSeconds()) + "s";
+    }
+
+    /**
+     * Un ritmo mínimo de paquetes solo se fuerza donde la red lo aguanta sin
+     * descartar: subredes sin medir (como antes) o con SRTT bajo.
+     */
+    public boolean allowsMinRate(String ipAddress) {
+        long srtt = smoothedRtt(ipAddress);
+        return !scanConfig.getTiming().isEnabled() || srtt < MIN_RATE_MAX_SRTT_MICROS;
+    }
+
+    /**
+     * @return Latencia suavizada de la subred del host en microsegundos, o -1 si no hay mediciones
+     */
+    public long smoothedRtt(String ipAddress) {
+        Estimate estimate = estimates.get(subnetOf(ipAddress));
+        if (estimate == null) {
+            return -1;
+        }
+        synchronized (estimate) {
+            return estimate.samples == 0 ? -1 : Math.round(estimate.srtt);
+        }
+    }
+
+    private long subnetOf(String ipAddress) {
+        int prefix = scanConfig.getTiming().getSubnetPrefixLength();
+        long mask = prefix == 0 ? 0 : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+        return Ipv4Range.toLong(ipAddress) & mask;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,203 @@
+package com.udea.demonmap.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sondas UDP con payload propio de cada protocolo.
+ *
+ * Un puerto UDP abierto no responde a un datagrama vacío: hay que enviarle
+ * una petición válida del protocolo. Cada sonda arma esa petición, reconoce
+ * si un datagrama recibido es una respuesta plausible y, cuando es barato,
+ * extrae la versión del servicio. Los nombres de servicio son los de
+ * nmap-services.
+ */
+public enum UdpProbe {
+
+    /**
+     * Consulta DNS estándar por los NS de la raíz.
+     */
+    DNS(53, "domain") {
+        @Override
+        byte[] payload(int transactionId, String snmpCommunity) {
+            return new byte[]{
+                    (byte) (transactionId >>> 8), (byte) transactionId,
+                    0x01, 0x00,             // Consulta estándar, recursión deseada
+                    0x00, 0x01,             // 1 pregunta
+                    0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+                    0x00,                   // Nombre raíz
+                    0x00, 0x02,             // Tipo NS
+                    0x00, 0x01              // Clase IN
+            };
+        }
+
+        @Override
+        boolean matches(ByteBuffer response, int transactionId) {
+            return response.remaining() >= 12
+                    && (response.getShort(response.position()) & 0xFFFF) == (transactionId & 0xFFFF)
+                    && (response.get(response.position() + 2) & 0x80) != 0;
+        }
+    },
+
+    /**
+     * Petición de cliente NTPv4 (modo 3).
+     */
+    NTP(123, "ntp") {
+        @Override
+        byte[] payload(int transactionId, String snmpCommunity) {
+            byte[] request = new byte[48];
+            request[0] = 0x23; // LI=0, VN=4, modo 3 (cliente)
+            return request;
+        }
+
+        @Override
+        boolean matches(ByteBuffer response, int transactionId) {
+            // Modo 4 (servidor)
+            return response.remaining() >= 48 && (response.get(response.position()) & 0x07) == 4;
+        }
+
+        @Override
+        String version(ByteBuffer response) {
+            int first = response.get(response.position());
+            int stratum = response.get(response.position() + 1) & 0xFF;
+            return "NTP v" + ((first >>> 3) & 0x07) + " (stratum " + stratum + ")";
+        }
+    },
+
+    /**
+     * GetRequest SNMPv2c de sysDescr.0.
+     */
+    SNMP(161, "snmp") {
+        @Override
+        byte[] payload(int transactionId, String snmpCommunity) {
+            byte[] varBind = tlv(0x30, concat(tlv(0x06, SYS_DESCR_OID), new byte[]{0x05, 0x00}));
+            byte[] pdu = tlv(0xA0, concat(
+                    tlv(0x02, new byte[]{(byte) (transactionId >>> 24), (byte) (transactionId >>> 16),
+                            (byte) (transactionId >>> 8), (byte) transactionId}),
+                    new byte[]{0x02, 0x01, 0x00},   // error-status
+                    new byte[]{0x02, 0x01, 0x00},   // error-index
+                    tlv(0x30, varBind)));
+            return tlv(0x30, concat(
+                    new byte[]{0x02, 0x01, 0x01},   // versión v2c
+                    tlv(0x04, snmpCommunity.getBytes(StandardCharsets.US_ASCII)),
+                    pdu));
+        }
+
+        @Override
+        boolean matches(ByteBuffer response, int transactionId) {
+            return response.remaining() > 2 && response.get(response.position()) == 0x30;
+        }
+    },
+
+    /**
+     * M-SEARCH de SSDP enviado directo al host (UPnP).
+     */
+    SSDP(1900, "upnp") {
+        @Override
+        byte[] payload(int transactionId, String snmpCommunity) {
+            return SSDP_SEARCH;
+        }
+
+        @Override
+        boolean matches(ByteBuffer response, int transactionId) {
+            return startsWith(response, "HTTP/");
+        }
+
+        @Override
+        String version(ByteBuffer response) {
+            String text = StandardCharsets.US_ASCII.decode(response.duplicate()).toString();
+            for (String line : text.split("\r\n")) {
+                if (line.regionMatches(true, 0, "SERVER:", 0, 7)) {
+                    String server = line.substring(7).trim();
+                    return server.isEmpty() ? null : server;
+                }
+            }
+            return null;
+        }
+    };
+
+    // 1.3.6.1.2.1.1.1.0
+    private static final byte[] SYS_DESCR_OID = {0x2B, 0x06, 0x01, 0x02, 0x01, 0x01, 0x01, 0x00};
+
+    private static final byte[] SSDP_SEARCH = ("M-SEARCH * HTTP/1.1\r\n"
+            + "HOST: 239.255.255.250:1900\r\n"
+            + "MAN: \"ssdp:discover\"\r\n"
+            + "MX: 1\r\n"
+            + "ST: ssdp:all\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    private final int defaultPort;
+    private final String service;
+
+    UdpProbe(int defaultPort, String service) {
+        this.defaultPort = defaultPort;
+        this.service = service;
+    }
+
+    public int getDefaultPort() {
+        return defaultPort;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * @param transactionId Id para reconocer la respuesta (si el protocolo lo tiene)
+     * @param snmpCommunity Comunidad SNMP a usar
+     * @return Datagrama a enviar
+     */
+    abstract byte[] payload(int transactionId, String snmpCommunity);
+
+    /**
+     * @return true si el datagrama es una respuesta plausible a la sonda
+     */
+    abstract boolean matches(ByteBuffer response, int transactionId);
+
+    /**
+     * @return Versión del servicio según la respuesta, o null si no se extrae
+     */
+    String version(ByteBuffer response) {
+        return null;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, String prefix) {
+        if (buffer.remaining() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer.get(buffer.position() + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Codifica un TLV BER con longitud en forma corta o larga.
+     */
+    private static byte[] tlv(int tag, byte[] value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length + 4);
+        out.write(tag);
+        if (value.length < 0x80) {
+            out.write(value.length);
+        } else if (value.length <= 0xFF) {
+            out.write(0x81);
+            out.write(value.length);
+        } else {
+            out.write(0x82);
+            out.write(value.length >>> 8);
+            out.write(value.length);
+        }
+        out.writeBytes(value);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
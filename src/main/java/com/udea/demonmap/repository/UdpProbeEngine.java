@@ -0,0 +1,335 @@
+package com.udea.demonmap.repository;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.util.TimerWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de sondeo UDP en la JVM, alternativa a {@code nmap -sU}.
+ *
+ * Un único thread de E/S atiende un DatagramChannel no bloqueante con un
+ * Selector: envía las sondas de {@link UdpProbe} a la tasa configurada
+ * (network.scan.udp.rate-per-second, compartida por todos los escaneos),
+ * asocia cada respuesta a su sonda por dirección y puerto de origen y usa una
+ * {@link TimerWheel} para los timeouts y reintentos. Un puerto se reporta
+ * abierto solo si respondió: sin respuesta no se distingue de uno filtrado,
+ * y los ICMP de puerto inalcanzable no llegan a un canal sin conectar.
+ *
+ * El arranque, la entrega de sondas y la limpieza del thread de E/S al
+ * detenerse se hacen con el lock de la instancia: una sonda se encola en un
+ * motor en marcha o arranca uno nuevo, y nunca queda en una cola que ya nadie
+ * atiende. Al detenerse, todas las sondas pendientes fallan.
+ */
+@Slf4j
+@Component
+public class UdpProbeEngine {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SLOTS = 512;
+    private static final int MAX_DATAGRAM = 65_507;
+    private static final int RECEIVE_BUFFER = 1 << 20;
+
+    private final NetworkScanConfig scanConfig;
+    private final ConcurrentLinkedQueue<Probe> submissions = new ConcurrentLinkedQueue<>();
+
+    // Se usan con el lock de la instancia; ioThread sigue asignado hasta que el thread termina su limpieza
+    private Selector selector;
+    private Thread ioThread;
+    private volatile boolean running;
+
+    public UdpProbeEngine(NetworkScanConfig scanConfig) {
+        this.scanConfig = scanConfig;
+    }
+
+    /**
+     * @return true si el sondeo UDP está habilitado
+     */
+    public boolean isEnabled() {
+        return scanConfig.getUdp().isEnabled();
+    }
+
+    /**
+     * Sondea los puertos por defecto de todas las sondas.
+     *
+     * @param ipAddress Host a sondear
+     * @return Futuro con los puertos UDP que respondieron
+     */
+    public CompletableFuture<List<Port>> probe(String ipAddress) {
+        List<CompletableFuture<Optional<Port>>> probes = new ArrayList<>();
+        for (UdpProbe probe : UdpProbe.values()) {
+            probes.add(probe(ipAddress, probe.getDefaultPort(), probe));
+        }
+        return CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new))
+                .thenApply(done -> probes.stream()
+                        .map(CompletableFuture::join)
+                        .flatMap(Optional::stream)
+                        .toList());
+    }
+
+    /**
+     * Envía una sonda a un puerto.
+     *
+     * @return Futuro con el puerto si respondió, o vacío si agotó los reintentos
+     */
+    public CompletableFuture<Optional<Port>> probe(String ipAddress, int port, UdpProbe probe) {
+        InetSocketAddress target;
+        try {
+            target = new InetSocketAddress(InetAddress.getByName(ipAddress), port);
+        } catch (UnknownHostException e) {
+            return CompletableFuture.failedFuture(new ScanException("Dirección inválida: " + ipAddress, e));
+        }
+        Probe pending = new Probe(target, probe, ThreadLocalRandom.current().nextInt());
+        synchronized (this) {
+            try {
+                ensureStarted();
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(new ScanException("No se pudo abrir el socket UDP: " + e.getMessage(), e));
+            }
+            submissions.add(pending);
+            selector.wakeup();
+        }
+        return pending.result;
+    }
+
+    /**
+     * Arranca el thread de E/S si no está en marcha. Si el anterior todavía se
+     * está deteniendo, espera a que termine su limpieza. Requiere el lock de la instancia.
+     */
+    private void ensureStarted() throws IOException {
+        try {
+            while (!running && ioThread != null) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido esperando que se detenga el motor UDP");
+        }
+        if (running) {
+            return;
+        }
+        Selector newSelector = Selector.open();
+        DatagramChannel channel;
+        try {
+            channel = DatagramChannel.open();
+            try {
+                channel.configureBlocking(false);
+                // Las respuestas llegan en ráfagas a tasas altas; un buffer chico las descarta
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, RECEIVE_BUFFER);
+                channel.bind(null);
+                channel.register(newSelector, SelectionKey.OP_READ);
+            } catch (IOException e) {
+                closeQuietly(channel);
+                throw e;
+            }
+        } catch (IOException e) {
+            closeQuietly(newSelector);
+            throw e;
+        }
+        selector = newSelector;
+        running = true;
+        ioThread = new Thread(() -> run(newSelector, channel), "udp-probe-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        log.info("Motor UDP escuchando en {} a {} sondas/s", channel.getLocalAddress(),
+                scanConfig.getUdp().getRatePerSecond());
+    }
+
+    /**
+     * Detiene el thread de E/S y espera hasta un segundo a que falle las
+     * sondas pendientes y cierre el socket.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        Thread stopping = ioThread;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        try {
+            // wait libera el lock para que el thread de E/S pueda hacer su limpieza
+            for (long remaining; ioThread == stopping && (remaining = deadline - System.nanoTime()) > 0; ) {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Bucle del thread de E/S: enviar lo que permite la tasa, leer respuestas y
+     * avanzar la rueda de timeouts. Todo el estado de sondas vive en este thread.
+     */
+    private void run(Selector selector, DatagramChannel channel) {
+        NetworkScanConfig.Udp udp = scanConfig.getUdp();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / udp.getRatePerSecond();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(udp.getTimeoutMs());
+
+        Map<SocketAddress, Deque<Probe>> inFlight = new HashMap<>();
+        Deque<Probe> sendQueue = new ArrayDeque<>();
+        TimerWheel<Probe> timers = new TimerWheel<>(WHEEL_SLOTS, TICK_NANOS, System.nanoTime());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+        long nextSend = System.nanoTime();
+
+        try {
+            while (running) {
+                for (Probe probe; (probe = submissions.poll()) != null; ) {
+                    sendQueue.add(probe);
+                }
+
+                long now = System.nanoTime();
+                // Tras un periodo ocioso no se acumula crédito para enviar en ráfaga
+                nextSend = Math.max(nextSend, now - intervalNanos);
+                while (!sendQueue.isEmpty() && now >= nextSend) {
+                    Probe probe = sendQueue.poll();
+                    if (send(channel, probe, udp.getSnmpCommunity())) {
+                        inFlight.computeIfAbsent(probe.target, key -> new ArrayDeque<>()).add(probe);
+                        probe.timeout = timers.schedule(probe, timeoutNanos, now);
+                    }
+                    nextSend += intervalNanos;
+                }
+
+                timers.advance(now, probe -> {
+                    removeInFlight(inFlight, probe);
+                    if (probe.attempts <= udp.getRetries()) {
+                        sendQueue.addFirst(probe);
+                    } else {
+                        probe.result.complete(Optional.empty());
+                    }
+                });
+
+                long waitNanos = timers.nanosUntilNextTick(now);
+                if (!sendQueue.isEmpty()) {
+                    long untilSend = Math.max(0, nextSend - now);
+                    waitNanos = waitNanos < 0 ? untilSend : Math.min(waitNanos, untilSend);
+                }
+                if (waitNanos < 0) {
+                    selector.select();
+                } else if (waitNanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+                    selector.selectNow();
+                } else {
+                    selector.select(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                }
+                selector.selectedKeys().clear();
+
+                SocketAddress from;
+                while ((from = channel.receive(buffer.clear())) != null) {
+                    buffer.flip();
+                    Deque<Probe> candidates = inFlight.get(from);
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (Probe probe : candidates) {
+                        if (probe.probe.matches(buffer, probe.transactionId)) {
+                            probe.timeout.cancel();
+                            removeInFlight(inFlight, probe);
+                            probe.result.complete(Optional.of(Port.builder()
+                                    .portNumber(probe.target.getPort())
+                                    .protocol("udp")
+                                    .state("open")
+                                    .service(probe.probe.getService())
+                                    .version(probe.probe.version(buffer))
+                                    .build()));
+                            break;
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("El motor UDP se detuvo: {}", e.getMessage(), e);
+        } finally {
+            ScanException stopped = new ScanException("El motor UDP se detuvo");
+            // Con el lock no entran sondas nuevas hasta que este motor quede limpio
+            synchronized (this) {
+                running = false;
+                closeQuietly(channel);
+                closeQuietly(selector);
+                sendQueue.forEach(probe -> probe.result.completeExceptionally(stopped));
+                sendQueue.clear();
+                inFlight.values().forEach(probes -> probes.forEach(probe -> probe.result.completeExceptionally(stopped)));
+                inFlight.clear();
+                for (Probe probe; (probe = submissions.poll()) != null; ) {
+                    probe.result.completeExceptionally(stopped);
+                }
+                ioThread = null;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return false si el datagrama no se pudo enviar (la sonda queda resuelta sin respuesta)
+     */
+    private static boolean send(DatagramChannel channel, Probe probe, String snmpCommunity) {
+        probe.attempts++;
+        try {
+            channel.send(ByteBuffer.wrap(probe.probe.payload(probe.transactionId, snmpCommunity)), probe.target);
+            return true;
+        } catch (IOException e) {
+            // Red inalcanzable y similares: no hay a quién reintentar
+            log.debug("No se pudo enviar sonda {} a {}: {}", probe.probe, probe.target, e.getMessage());
+            probe.result.complete(Optional.empty());
+            return false;
+        }
+    }
+
+    private static void removeInFlight(Map<SocketAddress, Deque<Probe>> inFlight, Probe probe) {
+        Deque<Probe> probes = inFlight.get(probe.target);
+        if (probes != null && probes.remove(probe) && probes.isEmpty()) {
+            inFlight.remove(probe.target);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.debug("Error cerrando el motor UDP: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sonda en curso. Solo el thread de E/S modifica sus campos.
+     */
+    private static final class Probe {
+        private final InetSocketAddress target;
+        private final UdpProbe probe;
+        private final int transactionId;
+        private final CompletableFuture<Optional<Port>> result = new CompletableFuture<>();
+        private int attempts;
+        private TimerWheel.Timeout<Probe> timeout;
+
+        Probe(InetSocketAddress target, UdpProbe probe, int transactionId) {
+            this.target = target;
+            this.probe = probe;
+            this.transactionId = transactionId;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.repository.NetworkScanner;
+import com.udea.demonmap.repository.PortSelection;
+import com.udea.demonmap.repository.ScanException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Escaneo de puertos guiado por el perfil aprendido de cada host.
+ *
+ * Si el host ya tiene puertos vistos abiertos, el escaneo en primer plano solo
+ * los confirma (nmap -p). Si el último barrido de los top N es más viejo que
+ * network.scan.port-profile.sweep-interval-minutes, el resto se barre después
+ * en un pool de baja prioridad y con ritmo limitado: mientras tanto la
+ * confirmación se entrega como resultado parcial y, al terminar el barrido,
+ * el host se notifica completo. Con la cola del barrido llena el barrido se
+ * hace en primer plano.
+ *
+ * El perfil aprende de todos los escaneos del host, no solo del barrido, y
+ * recuerda hasta network.scan.port-profile.max-hosts hosts: pasado el tope
+ * se olvidan los que hace más tiempo no se escanean.
+ */
+@Slf4j
+@Component
+public class AdaptivePortScanner {
+
+    private final NetworkScanner networkScanner;
+    private final NetworkScanConfig scanConfig;
+    private final ThreadPoolExecutor sweepExecutor;
+    // Perfiles en orden de acceso, acotados; se usa con su propio lock
+    private final Map<String, HostPorts> profiles;
+
+    public AdaptivePortScanner(NetworkScanner networkScanner, NetworkScanConfig scanConfig,
+                               @Qualifier("portSweepExecutor") ThreadPoolExecutor sweepExecutor) {
+        this.networkScanner = networkScanner;
+        this.scanConfig = scanConfig;
+        this.sweepExecutor = sweepExecutor;
+        int maxHosts = scanConfig.getPortProfile().getMaxHosts();
+        this.profiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HostPorts> eldest) {
+                return size() > maxHosts;
+            }
+        };
+    }
+
+    /**
+     * Perfil de puertos de un host. Los accesos se sincronizan sobre la instancia.
+     */
+    private static final class HostPorts {
+        private final Set<Integer> openPorts = new TreeSet<>();
+        private long lastSweepMillis;
+        private boolean sweepPending;
+    }
+
+    /**
+     * Escanea un host usando su perfil de puertos.
+     *
+     * @param ipAddress Dirección IP a escanear
+     * @param onSweepUpdate Recibe el dispositivo completo cuando termina el barrido en
+     *                      segundo plano de un resultado entregado como parcial
+     * @return Dispositivo con los top N, o con los puertos confirmados (parcial si
+     *         queda un barrido pendiente)
+     */
+    public NetworkDevice scan(String ipAddress, Consumer<NetworkDevice> onSweepUpdate) throws ScanException {
+        Set<Integer> known = knownOpenPorts(ipAddress);
+        if (!scanConfig.getPortProfile().isEnabled() || known.isEmpty()) {
+            return scanTopPorts(ipAddress);
+        }
+
+        PortSelection confirmation = PortSelection.only(known);
+        NetworkDevice confirmed = networkScanner.scanHost(ipAddress, confirmation);
+        HostPorts profile = learn(ipAddress, confirmation, confirmed);
+        if (profile == null) {
+            // El host no respondió: no hay nada que barrer
+            return confirmed;
+        }
+        log.debug("Host {}: {}/{} puertos conocidos confirmados", ipAddress,
+                confirmed.getOpenPorts().size(), known.size());
+
+        long intervalMillis = TimeUnit.MINUTES.toMillis(scanConfig.getPortProfile().getSweepIntervalMinutes());
+        Set<Integer> exclude;
+        synchronized (profile) {
+            if (!profile.sweepPending && System.currentTimeMillis() - profile.lastSweepMillis < intervalMillis) {
+                // Barrido reciente: los puertos confirmados son el estado completo del host
+                return confirmed;
+            }
+            if (profile.sweepPending) {
+                // El barrido en curso publicará el host completo
+                confirmed.setPartial(true);
+                return confirmed;
+            }
+            profile.sweepPending = true;
+            exclude = Set.copyOf(profile.openPorts);
+        }
+
+        NetworkDevice base = copyOf(confirmed, confirmed.getOpenPorts());
+        try {
+            sweepExecutor.execute(() -> {
+                try {
+                    onSweepUpdate.accept(sweep(ipAddress, profile, exclude, base));
+                } catch (ScanException | RuntimeException e) {
+                    log.warn("Error en el barrido de puertos de {}: {}", ipAddress, e.getMessage());
+                } finally {
+                    endSweep(profile);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Barrido de {} en primer plano, la cola está llena: {}", ipAddress, e.getMessage());
+            try {
+                return sweep(ipAddress, profile, exclude, base);
+            } catch (ScanException | RuntimeException sweepError) {
+                log.warn("Error en el barrido de puertos de {}: {}", ipAddress, sweepError.getMessage());
+                confirmed.setPartial(true);
+                return confirmed;
+            } finally {
+                endSweep(profile);
+            }
+        }
+        confirmed.setPartial(true);
+        return confirmed;
+    }
+
+    /**
+     * Escanea los top N puertos de un host y actualiza su perfil.
+     */
+    public NetworkDevice scanTopPorts(String ipAddress) throws ScanException {
+        PortSelection ports = PortSelection.top();
+        NetworkDevice device = networkScanner.scanHost(ipAddress, ports);
+        record(ipAddress, ports, device);
+        return device;
+    }
+
+    /**
+     * Actualiza el perfil con un escaneo hecho por fuera (los top N repartidos
+     * en tramos por {@link SplitPortScanner}, un sondeo de seguimiento, etc.).
+     * Los puertos abiertos se agregan; los sondeados explícitamente que no
+     * respondieron abiertos salen del perfil, y un escaneo de los top N cuenta
+     * como barrido. Los hosts que no respondieron no cambian el perfil.
+     *
+     * @param ports Puertos que sondeó el escaneo
+     */
+    public void record(String ipAddress, PortSelection ports, NetworkDevice device) {
+        learn(ipAddress, ports, device);
+    }
+
+    /**
+     * @return Puertos vistos abiertos en escaneos anteriores del host
+     */
+    public Set<Integer> knownOpenPorts(String ipAddress) {
+        HostPorts profile;
+        synchronized (profiles) {
+            profile = profiles.get(ipAddress);
+        }
+        if (profile == null) {
+            return Set.of();
+        }
+        synchronized (profile) {
+            return Set.copyOf(profile.openPorts);
+        }
+    }
+
+    /**
+     * @return El perfil actualizado, o null si el host no respondió
+     */
+    private HostPorts learn(String ipAddress, PortSelection ports, NetworkDevice device) {
+        if (!"up".equals(device.getStatus())) {
+            return null;
+        }
+        HostPorts profile;
+        synchronized (profiles) {
+            profile = profiles.computeIfAbsent(ipAddress, ip -> new HostPorts());
+        }
+        synchronized (profile) {
+            switch (ports.getMode()) {
+                case ONLY, SLICE -> profile.openPorts.removeAll(ports.getPorts());
+                case TOP -> profile.lastSweepMillis = System.currentTimeMillis();
+                default -> {
+                    // TOP_EXCLUDING y FAST no dicen nada de los puertos que no vieron abiertos
+                }
+            }
+            addOpenPorts(profile, device);
+        }
+        return profile;
+    }
+
+    /**
+     * Barre los top N salvo los ya conocidos y devuelve el host completo: los
+     * puertos de la confirmación más los nuevos.
+     */
+    private NetworkDevice sweep(String ipAddress, HostPorts profile, Set<Integer> exclude,
+                                NetworkDevice confirmed) throws ScanException {
+        PortSelection ports = PortSelection.topExcluding(exclude);
+        NetworkDevice swept = networkScanner.scanHost(ipAddress, ports);
+        List<Port> newPorts = new ArrayList<>();
+        synchronized (profile) {
+            for (Port port : swept.getOpenPorts()) {
+                if (port.getPortNumber() != null && profile.openPorts.add(port.getPortNumber())) {
+                    newPorts.add(port);
+                }
+            }
+            profile.lastSweepMillis = System.currentTimeMillis();
+        }
+        if (!newPorts.isEmpty()) {
+            log.info("Barrido de {}: {} puertos nuevos", ipAddress, newPorts.size());
+        }
+        List<Port> merged = new ArrayList<>(confirmed.getOpenPorts());
+        merged.addAll(newPorts);
+        return copyOf(confirmed, merged);
+    }
+
+    private static void endSweep(HostPorts profile) {
+        synchronized (profile) {
+            profile.sweepPending = false;
+        }
+    }
+
+    private static NetworkDevice copyOf(NetworkDevice device, List<Port> openPorts) {
+        return NetworkDevice.builder()
+                .ipAddress(device.getIpAddress())
+                .macAddress(device.getMacAddress())
+                .hostname(device.getHostname())
+                .status(device.getStatus())
+                .operatingSystem(device.getOperatingSystem())
+                .vendor(device.getVendor())
+                .responseTime(device.getResponseTime())
+                .openPorts(openPorts != null ? new ArrayList<>(openPorts) : new ArrayList<>())
+                .build();
+    }
+
+    private static void addOpenPorts(HostPorts profile, NetworkDevice device) {
+        if (device.getOpenPorts() == null) {
+            return;
+        }
+        for (Port port : device.getOpenPorts()) {
+            if (port.getPortNumber() != null) {
+                profile.openPorts.add(port.getPortNumber());
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.AlertRule;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.util.Ipv4Range;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reglas de alerta compiladas en índices por puerto, servicio y vendor.
+ *
+ * Cada regla se registra bajo los valores que un dispositivo debe tener para
+ * poder cumplirla ({@link DeviceQuery#anchors()}); las que no tienen ninguno
+ * (NOT, prefijos, net:, new:) se evalúan siempre. Así un dispositivo solo se
+ * compara con las reglas de sus puertos, servicios y vendor.
+ *
+ * Es inmutable: al cambiar las reglas se compila uno nuevo y se reemplaza, de
+ * modo que la evaluación no toma locks.
+ */
+final class AlertRuleMatcher {
+
+    private static final int MAX_PORT = 65535;
+
+    static final AlertRuleMatcher EMPTY = new AlertRuleMatcher(List.of());
+
+    /**
+     * Regla con su expresión ya parseada.
+     */
+    record CompiledRule(AlertRule rule, DeviceQuery query) {
+    }
+
+    private final CompiledRule[] rules;
+    private final int[][] byPort = new int[MAX_PORT + 1][];
+    private final Map<String, int[]> byService;
+    private final Map<String, int[]> byVendor;
+    private final int[] unanchored;
+
+    AlertRuleMatcher(List<CompiledRule> compiled) {
+        this.rules = compiled.toArray(new CompiledRule[0]);
+        Map<Integer, List<Integer>> ports = new HashMap<>();
+        Map<String, List<Integer>> services = new HashMap<>();
+        Map<String, List<Integer>> vendors = new HashMap<>();
+        List<Integer> always = new ArrayList<>();
+
+        for (int i = 0; i < rules.length; i++) {
+            Set<DeviceQuery.Anchor> anchors = rules[i].query().anchors();
+            if (anchors == null) {
+                always.add(i);
+                continue;
+            }
+            for (DeviceQuery.Anchor anchor : anchors) {
+                switch (anchor.field()) {
+                    case "port" -> ports.computeIfAbsent(Integer.parseInt(anchor.value()), key -> new ArrayList<>()).add(i);
+                    case "service" -> services.computeIfAbsent(anchor.value(), key -> new ArrayList<>()).add(i);
+                    case "vendor" -> vendors.computeIfAbsent(anchor.value(), key -> new ArrayList<>()).add(i);
+                    default -> throw new IllegalStateException("Campo de índice desconocido: " + anchor.field());
+                }
+            }
+        }
+
+        ports.forEach((port, ids) -> byPort[port] = toArray(ids));
+        this.byService = toArrays(services);
+        this.byVendor = toArrays(vendors);
+        this.unanchored = toArray(always);
+    }
+
+    /**
+     * @return Reglas que cumple el dispositivo, en orden de registro
+     */
+    List<AlertRule> match(DeviceView device) {
+        if (rules.length == 0) {
+            return List.of();
+        }
+        BitSet candidates = new BitSet(rules.length);
+        mark(candidates, unanchored);
+        for (int port : device.ports) {
+            mark(candidates, byPort[port]);
+        }
+        for (String service : device.services) {
+            mark(candidates, byService.get(service));
+        }
+        if (device.vendor != null) {
+            mark(candidates, byVendor.get(device.vendor));
+        }
+
+        List<AlertRule> matched = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (rules[i].query().matches(device)) {
+                matched.add(rules[i].rule());
+            }
+        }
+        return matched;
+    }
+
+    int size() {
+        return rules.length;
+    }
+
+    int unanchoredCount() {
+        return unanchored.length;
+    }
+
+    private static void mark(BitSet candidates, int[] ids) {
+        if (ids != null) {
+            for (int id : ids) {
+                candidates.set(id);
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> index) {
+        Map<String, int[]> arrays = new HashMap<>(index.size() * 2);
+        index.forEach((key, ids) -> arrays.put(key, toArray(ids)));
+        return arrays;
+    }
+
+    /**
+     * Campos de un dispositivo normalizados para evaluar reglas.
+     */
+    static final class DeviceView implements DeviceQuery.Subject {
+        private final int[] ports;
+        private final String[] services;
+        private final String vendor;
+        private final long address;
+        private final boolean newHost;
+
+        private DeviceView(int[] ports, String[] services, String vendor, long address, boolean newHost) {
+            this.ports = ports;
+            this.services = services;
+            this.vendor = vendor;
+            this.address = address;
+            this.newHost = newHost;
+        }
+
+        static DeviceView of(NetworkDevice device, boolean newHost) {
+            List<Port> openPorts = device.getOpenPorts() != null ? device.getOpenPorts() : List.of();
+            int[] ports = openPorts.stream()
+                    .map(Port::getPortNumber)
+                    .filter(port -> port != null && port >= 0 && port <= MAX_PORT)
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            Set<String> services = new LinkedHashSet<>();
+            for (Port port : openPorts) {
+                String service = normalize(port.getService());
+                if (service != null) {
+                    services.add(service);
+                }
+            }
+            long address;
+            try {
+                address = Ipv4Range.toLong(device.getIpAddress());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                address = -1;
+            }
+            return new DeviceView(ports, services.toArray(new String[0]), normalize(device.getVendor()), address, newHost);
+        }
+
+        @Override
+        public boolean hasPort(int portNumber) {
+            return Arrays.binarySearch(ports, portNumber) >= 0;
+        }
+
+        @Override
+        public boolean hasService(String service, boolean prefix) {
+            for (String candidate : services) {
+                if (prefix ? candidate.startsWith(service) : candidate.equals(service)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean vendorMatches(String expected, boolean prefix) {
+            return vendor != null && (prefix ? vendor.startsWith(expected) : vendor.equals(expected));
+        }
+
+        @Override
+        public boolean inNetwork(Ipv4Range range) {
+            return address >= 0 && range.contains(address);
+        }
+
+        @Override
+        public boolean isNewHost() {
+            return newHost;
+        }
+
+        private static String normalize(String value) {
+            return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.AlertMatch;
+import com.udea.demonmap.entity.AlertRule;
+
+import java.util.List;
+
+/**
+ * Interfaz del servicio de reglas de alerta sobre los dispositivos escaneados.
+ */
+public interface AlertService {
+
+    /**
+     * Registra una regla. Se evalúa contra cada dispositivo que termine de
+     * escanearse a partir de ahora.
+     *
+     * Sintaxis: la de las consultas ({@code port:23}, {@code service:telnet},
+     * {@code vendor:cisco*}, AND, OR, NOT, paréntesis) más {@code net:10.0.5.0/24}
+     * (IP dentro de la red) y {@code new:host} (IP nunca vista antes).
+     *
+     * @param name Nombre de la regla
+     * @param expression Expresión (ej: new:host AND port:23)
+     * @return Regla registrada con su id
+     * @throws IllegalArgumentException si la expresión no es válida
+     */
+    AlertRule addRule(String name, String expression);
+
+    /**
+     * @return true si la regla existía y se eliminó
+     */
+    boolean removeRule(long id);
+
+    /**
+     * @return Reglas registradas, en orden de registro
+     */
+    List<AlertRule> getRules();
+
+    /**
+     * @param limit Máximo de coincidencias a retornar
+     * @return Coincidencias más recientes primero
+     */
+    List<AlertMatch> getRecentMatches(int limit);
+}
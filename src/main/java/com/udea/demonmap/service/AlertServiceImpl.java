@@ -0,0 +1,313 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.AlertMatch;
+import com.udea.demonmap.entity.AlertRule;
+import com.udea.demonmap.entity.NetworkDevice;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evalúa las reglas de alerta a medida que llega cada dispositivo escaneado.
+ *
+ * Las reglas se compilan en un {@link AlertRuleMatcher} inmutable que se
+ * reemplaza al registrar o eliminar reglas; la evaluación en los threads del
+ * pool solo lee la referencia actual. Las coincidencias se guardan en un
+ * buffer acotado y se entregan a cada {@link AlertSink}.
+ *
+ * Las IPs vistas para {@code new:host} se recuerdan hasta
+ * network.scan.alerts.max-seen-hosts (pasado el tope se olvidan las que hace
+ * más tiempo no aparecen) y cada IP nueva se agrega a
+ * network.scan.alerts.seen-hosts-file, que se vuelve a cargar al iniciar: un
+ * reinicio no hace que toda la red cuente como nueva otra vez. Solo cuentan
+ * los hosts que respondieron.
+ */
+@Slf4j
+@Service
+public class AlertServiceImpl implements AlertService, ScanResultListener {
+
+    private final NetworkScanConfig scanConfig;
+    private final List<AlertSink> sinks;
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    // Reglas en orden de registro; se modifica con el lock de la instancia
+    private final Map<Long, AlertRuleMatcher.CompiledRule> rules = new LinkedHashMap<>();
+    private volatile AlertRuleMatcher matcher = AlertRuleMatcher.EMPTY;
+
+    // IPs vistas para new:host en orden de acceso: al superar el tope se olvidan las que hace más
+    // tiempo no aparecen, no los hosts estables que se ven en cada escaneo
+    private final Map<String, Boolean> seenHosts;
+    private final Path seenHostsFile;
+    // Se usa con el lock de seenHosts; null si no se persiste
+    private BufferedWriter seenHostsWriter;
+
+    private final Deque<AlertMatch> recentMatches = new ArrayDeque<>();
+
+    public AlertServiceImpl(NetworkScanConfig scanConfig, List<AlertSink> sinks) {
+        this.scanConfig = scanConfig;
+        this.sinks = sinks;
+        int maxSeenHosts = scanConfig.getAlerts().getMaxSeenHosts();
+        this.seenHosts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSeenHosts;
+            }
+        };
+        String file = scanConfig.getAlerts().getSeenHostsFile();
+        this.seenHostsFile = scanConfig.getAlerts().isEnabled() && file != null && !file.isBlank()
+                ? Path.of(file) : null;
+        loadSeenHosts();
+        synchronized (this) {
+            scanConfig.getAlerts().getRules().forEach(this::register);
+            recompile();
+        }
+        log.info("Motor de alertas con {} reglas y {} destinos", rules.size(), sinks.size());
+    }
+
+    @Override
+    public synchronized AlertRule addRule(String name, String expression) {
+        AlertRule rule = register(name, expression);
+        recompile();
+        return rule;
+    }
+
+    @Override
+    public synchronized boolean removeRule(long id) {
+        if (rules.remove(id) == null) {
+            return false;
+        }
+        recompile();
+        log.info("Regla de alerta {} eliminada", id);
+        return true;
+    }
+
+    @Override
+    public synchronized List<AlertRule> getRules() {
+        return rules.values().stream().map(AlertRuleMatcher.CompiledRule::rule).toList();
+    }
+
+    @Override
+    public List<AlertMatch> getRecentMatches(int limit) {
+        List<AlertMatch> matches = new ArrayList<>(Math.min(limit, scanConfig.getAlerts().getRecentMatches()));
+        synchronized (recentMatches) {
+            Iterator<AlertMatch> it = recentMatches.descendingIterator();
+            while (it.hasNext() && matches.size() < limit) {
+                matches.add(it.next());
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public void onDeviceScanned(NetworkDevice device) {
+        if (!scanConfig.getAlerts().isEnabled() || device == null || device.getIpAddress() == null) {
+            return;
+        }
+        if (device.isPartial()) {
+            // Con solo los puertos del seguimiento, reglas como "NOT port:22" coincidirían en falso;
+            // el host se evalúa cuando llega su escaneo completo
+            return;
+        }
+        if (!"up".equals(device.getStatus())) {
+            // Un host que no respondió no es un host nuevo ni se recuerda como visto
+            return;
+        }
+        boolean newHost = rememberHosts(List.of(device.getIpAddress()));
+        List<AlertRule> matched = matcher.match(AlertRuleMatcher.DeviceView.of(device, newHost));
+        if (matched.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (AlertRule rule : matched) {
+            AlertMatch match = AlertMatch.builder()
+                    .ruleId(rule.getId())
+                    .ruleName(rule.getName())
+                    .expression(rule.getExpression())
+                    .device(device)
+                    .matchedAt(now)
+                    .build();
+            remember(match);
+            for (AlertSink sink : sinks) {
+                try {
+                    sink.deliver(match);
+                } catch (RuntimeException e) {
+                    log.warn("Error entregando alerta {} a {}: {}", rule.getName(),
+                            sink.getClass().getSimpleName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Los hosts importados de archivos históricos no disparan alertas, pero
+     * cuentan como vistos para {@code new:host}.
+     */
+    @Override
+    public void onDevicesImported(List<NetworkDevice> devices) {
+        List<String> ipAddresses = new ArrayList<>(devices.size());
+        for (NetworkDevice device : devices) {
+            if (device != null && device.getIpAddress() != null && "up".equals(device.getStatus())) {
+                ipAddresses.add(device.getIpAddress());
+            }
+        }
+        rememberHosts(ipAddresses);
+    }
+
+    /**
+     * Cierra el archivo de hosts vistos y lo reescribe en orden de acceso, para
+     * que tras reiniciar se sigan olvidando primero los que hace más tiempo no aparecen.
+     */
+    @PreDestroy
+    public void close() {
+        synchronized (seenHosts) {
+            if (seenHostsWriter == null) {
+                return;
+            }
+            try {
+                seenHostsWriter.close();
+                rewriteSeenHosts();
+            } catch (IOException e) {
+                log.debug("No se pudo reescribir {}: {}", seenHostsFile, e.getMessage());
+            }
+            seenHostsWriter = null;
+        }
+    }
+
+    /**
+     * Marca las IPs como vistas y agrega al archivo las que no lo estaban,
+     * con un solo flush por lote.
+     *
+     * @return true si alguna IP no se había visto
+     */
+    private boolean rememberHosts(List<String> ipAddresses) {
+        boolean added = false;
+        synchronized (seenHosts) {
+            for (String ipAddress : ipAddresses) {
+                // get mueve la IP al final del orden de acceso
+                if (seenHosts.get(ipAddress) != null) {
+                    continue;
+                }
+                seenHosts.put(ipAddress, Boolean.TRUE);
+                added = true;
+                if (seenHostsWriter != null) {
+                    try {
+                        seenHostsWriter.write(ipAddress);
+                        seenHostsWriter.newLine();
+                    } catch (IOException e) {
+                        log.warn("No se pudo registrar el host visto {} en {}: {}", ipAddress, seenHostsFile, e.getMessage());
+                    }
+                }
+            }
+            if (added && seenHostsWriter != null) {
+                try {
+                    seenHostsWriter.flush();
+                } catch (IOException e) {
+                    log.warn("No se pudo registrar hosts vistos en {}: {}", seenHostsFile, e.getMessage());
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Carga las IPs vistas en ejecuciones anteriores y abre el archivo para
+     * agregar las nuevas. Si el archivo acumula líneas de más (IPs olvidadas
+     * por el tope y vistas de nuevo), se reescribe solo con las recordadas.
+     * Sin archivo utilizable las IPs se recuerdan solo en memoria.
+     */
+    private void loadSeenHosts() {
+        if (seenHostsFile == null) {
+            return;
+        }
+        try {
+            if (seenHostsFile.getParent() != null) {
+                Files.createDirectories(seenHostsFile.getParent());
+            }
+            long lines = 0;
+            if (Files.exists(seenHostsFile)) {
+                try (BufferedReader reader = Files.newBufferedReader(seenHostsFile, StandardCharsets.UTF_8)) {
+                    for (String line; (line = reader.readLine()) != null; ) {
+                        if (!line.isBlank()) {
+                            seenHosts.put(line.trim(), Boolean.TRUE);
+                            lines++;
+                        }
+                    }
+                }
+            }
+            if (lines > seenHosts.size()) {
+                rewriteSeenHosts();
+            }
+            seenHostsWriter = Files.newBufferedWriter(seenHostsFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.info("{} hosts vistos cargados de {}", seenHosts.size(), seenHostsFile);
+        } catch (IOException e) {
+            log.warn("No se pudieron cargar los hosts vistos de {}: {}; se recuerdan solo en memoria",
+                    seenHostsFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Reemplaza el archivo por las IPs recordadas, en orden de acceso. Requiere
+     * el lock de seenHosts (o estar en el constructor) y el writer cerrado.
+     */
+    private void rewriteSeenHosts() throws IOException {
+        Path compacted = seenHostsFile.resolveSibling(seenHostsFile.getFileName() + ".tmp");
+        Files.write(compacted, seenHosts.keySet(), StandardCharsets.UTF_8);
+        Files.move(compacted, seenHostsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Parsea y agrega una regla sin recompilar. Requiere el lock de la instancia.
+     */
+    private AlertRule register(String name, String expression) {
+        DeviceQuery query = DeviceQuery.parseRule(expression);
+        AlertRule rule = AlertRule.builder()
+                .id(nextId.getAndIncrement())
+                .name(name)
+                .expression(expression)
+                .createdAt(LocalDateTime.now())
+                .build();
+        rules.put(rule.getId(), new AlertRuleMatcher.CompiledRule(rule, query));
+        log.info("Regla de alerta {} '{}' registrada: {}", rule.getId(), name, expression);
+        return rule;
+    }
+
+    /**
+     * Compila las reglas actuales en un matcher nuevo. Requiere el lock de la instancia.
+     */
+    private void recompile() {
+        AlertRuleMatcher next = new AlertRuleMatcher(new ArrayList<>(rules.values()));
+        log.debug("Reglas de alerta compiladas: {} ({} sin índice)", next.size(), next.unanchoredCount());
+        matcher = next;
+    }
+
+    private void remember(AlertMatch match) {
+        int capacity = scanConfig.getAlerts().getRecentMatches();
+        synchronized (recentMatches) {
+            recentMatches.addLast(match);
+            while (recentMatches.size() > capacity) {
+                recentMatches.removeFirst();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.AlertMatch;
+
+/**
+ * Destino de las coincidencias de reglas de alerta.
+ *
+ * AlertServiceImpl entrega cada coincidencia a todos los beans que implementen
+ * esta interfaz, desde el thread del pool que terminó el host: las
+ * implementaciones deben ser thread-safe y no bloquear por mucho tiempo.
+ */
+public interface AlertSink {
+
+    /**
+     * @param match Regla cumplida y dispositivo que la cumplió
+     */
+    void deliver(AlertMatch match);
+}
@@ -0,0 +1,28 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.dto.DeviceQueryResultDTO;
+
+/**
+ * Interfaz del servicio de consultas sobre los últimos resultados de escaneo.
+ */
+public interface DeviceIndexService {
+
+    /**
+     * Evalúa una expresión booleana sobre los índices invertidos.
+     *
+     * Sintaxis: términos {@code port:22}, {@code service:telnet},
+     * {@code vendor:"Cisco Systems"} (se admite sufijo {@code *} en service y vendor),
+     * combinados con AND, OR, NOT y paréntesis.
+     *
+     * @param expression Expresión de consulta (ej: port:22 AND NOT vendor:cisco*)
+     * @param limit Máximo de IPs a retornar
+     * @return Resultado con el total de coincidencias y las IPs encontradas
+     * @throws IllegalArgumentException si la expresión no es válida
+     */
+    DeviceQueryResultDTO query(String expression, int limit);
+
+    /**
+     * @return Número de hosts presentes en el índice
+     */
+    int getIndexedHostCount();
+}
@@ -0,0 +1,370 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.dto.DeviceQueryResultDTO;
+import com.udea.demonmap.entity.HostTransition;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.util.Ipv4Range;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Índices invertidos sobre el último resultado conocido de cada host.
+ *
+ * Cada IP recibe un id denso (0..n-1) y cada índice es un BitSet sobre ese
+ * espacio: puerto → hosts, servicio → hosts y vendor → hosts. Los índices se
+ * actualizan de forma incremental cuando llega cada NetworkDevice, quitando
+ * primero las entradas que ese host tenía en su escaneo anterior. Un escaneo
+ * completo exitoso retira los hosts de su rango que ya no aparecieron, y el
+ * monitoreo de disponibilidad los que da por caídos; el id se conserva para
+ * cuando el host vuelva. Un resultado parcial (seguimiento de un rezagado)
+ * se suma a la entrada del host en vez de reemplazarla.
+ */
+@Slf4j
+@Service
+public class DeviceIndexServiceImpl implements DeviceIndexService, ScanResultListener, HostStateListener,
+        DeviceQuery.Postings {
+
+    private static final int MAX_PORT = 65535;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Espacio denso de ids de host
+    private final Map<String, Integer> hostIds = new HashMap<>();
+    private final List<String> ipById = new ArrayList<>();
+    private final BitSet allHosts = new BitSet();
+
+    // Índices invertidos (puertos indexados por número, sin boxing)
+    private final BitSet[] byPort = new BitSet[MAX_PORT + 1];
+    private final Map<String, BitSet> byService = new HashMap<>();
+    private final Map<String, BitSet> byVendor = new HashMap<>();
+
+    // Última entrada indexada de cada host, para poder retirarla al actualizar
+    private final List<int[]> portsById = new ArrayList<>();
+    private final List<String[]> servicesById = new ArrayList<>();
+    private final List<String> vendorById = new ArrayList<>();
+
+    @Override
+    public void onDeviceScanned(NetworkDevice device) {
+        if (device == null || device.getIpAddress() == null) {
+            return;
+        }
+        Entry entry = Entry.of(device);
+        lock.writeLock().lock();
+        try {
+            index(device.isPartial() ? mergeWithIndexed(entry) : entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa el lote completo tomando el lock de escritura una sola vez; la
+     * normalización de cada host se hace antes, fuera del lock.
+     */
+    @Override
+    public void onDevicesImported(List<NetworkDevice> devices) {
+        List<Entry> entries = new ArrayList<>(devices.size());
+        for (NetworkDevice device : devices) {
+            if (device != null && device.getIpAddress() != null) {
+                entries.add(Entry.of(device));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            entries.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.trace("Lote de {} hosts importados indexado", entries.size());
+    }
+
+    /**
+     * Retira los hosts del rango que no aparecieron en un escaneo completo
+     * exitoso (los rezagados siguen vivos: su resultado llega aparte).
+     */
+    @Override
+    public void onScanCompleted(ScanResult result) {
+        if (result.getStatus() != ScanResult.ScanStatus.SUCCESS || result.getDevices() == null) {
+            return;
+        }
+        Ipv4Range range = Ipv4Range.tryParse(result.getNetworkRange()).orElse(null);
+        if (range == null) {
+            return;
+        }
+        Set<String> seen = new HashSet<>();
+        for (NetworkDevice device : result.getDevices()) {
+            seen.add(device.getIpAddress());
+        }
+        if (result.getDeferredHosts() != null) {
+            seen.addAll(result.getDeferredHosts());
+        }
+
+        int removed = 0;
+        lock.writeLock().lock();
+        try {
+            for (int id = allHosts.nextSetBit(0); id >= 0; id = allHosts.nextSetBit(id + 1)) {
+                String ip = ipById.get(id);
+                if (!seen.contains(ip) && inRange(range, ip)) {
+                    remove(id);
+                    removed++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removed > 0) {
+            log.debug("{} hosts de {} retirados del índice", removed, result.getNetworkRange());
+        }
+    }
+
+    /**
+     * Un host caído deja de coincidir con las consultas; vuelve con sus puertos
+     * en el próximo escaneo.
+     */
+    @Override
+    public void onHostStateChanged(HostTransition transition) {
+        if (transition.getState() != HostTransition.HostState.DOWN) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer id = hostIds.get(transition.getIpAddress());
+            if (id != null && allHosts.get(id)) {
+                remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean inRange(Ipv4Range range, String ip) {
+        try {
+            return range.contains(ip);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Campos de un host ya normalizados para indexar.
+     */
+    private record Entry(String ipAddress, int[] ports, String[] services, String vendor) {
+        static Entry of(NetworkDevice device) {
+            return new Entry(device.getIpAddress(), openPortNumbers(device), serviceNames(device),
+                    normalize(device.getVendor()));
+        }
+    }
+
+    /**
+     * Suma un resultado parcial a la entrada indexada del host, si la hay:
+     * los puertos y servicios se unen y el vendor se conserva si no trae uno.
+     * Requiere el lock de escritura.
+     */
+    private Entry mergeWithIndexed(Entry entry) {
+        Integer id = hostIds.get(entry.ipAddress());
+        if (id == null || !allHosts.get(id)) {
+            return entry;
+        }
+        int[] ports = IntStream.concat(Arrays.stream(portsById.get(id)), Arrays.stream(entry.ports()))
+                .distinct()
+                .toArray();
+        Set<String> services = new LinkedHashSet<>(Arrays.asList(servicesById.get(id)));
+        services.addAll(Arrays.asList(entry.services()));
+        String vendor = entry.vendor() != null ? entry.vendor() : vendorById.get(id);
+        return new Entry(entry.ipAddress(), ports, services.toArray(new String[0]), vendor);
+    }
+
+    /**
+     * Reemplaza las entradas del host en los índices. Requiere el lock de escritura.
+     */
+    private void index(Entry entry) {
+        int[] ports = entry.ports();
+        String[] services = entry.services();
+        String vendor = entry.vendor();
+        int id = hostIds.computeIfAbsent(entry.ipAddress(), ip -> {
+            ipById.add(ip);
+            portsById.add(new int[0]);
+            servicesById.add(new String[0]);
+            vendorById.add(null);
+            return ipById.size() - 1;
+        });
+        unindex(id);
+
+        allHosts.set(id);
+        for (int port : ports) {
+            if (byPort[port] == null) {
+                byPort[port] = new BitSet();
+            }
+            byPort[port].set(id);
+        }
+        for (String service : services) {
+            byService.computeIfAbsent(service, key -> new BitSet()).set(id);
+        }
+        if (vendor != null) {
+            byVendor.computeIfAbsent(vendor, key -> new BitSet()).set(id);
+        }
+        portsById.set(id, ports);
+        servicesById.set(id, services);
+        vendorById.set(id, vendor);
+        log.trace("Host {} indexado con {} puertos abiertos", entry.ipAddress(), ports.length);
+    }
+
+    @Override
+    public DeviceQueryResultDTO query(String expression, int limit) {
+        DeviceQuery query = DeviceQuery.parse(expression);
+
+        long start = System.nanoTime();
+        List<String> ips = new ArrayList<>();
+        int total;
+        int indexed;
+        lock.readLock().lock();
+        try {
+            BitSet matches = query.evaluate(this);
+            total = matches.cardinality();
+            for (int id = matches.nextSetBit(0); id >= 0 && ips.size() < limit; id = matches.nextSetBit(id + 1)) {
+                ips.add(ipById.get(id));
+            }
+            indexed = allHosts.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        log.debug("Consulta '{}' evaluada en {} µs: {} coincidencias", expression, elapsedMicros, total);
+        return DeviceQueryResultDTO.builder()
+                .query(expression)
+                .totalMatches(total)
+                .ipAddresses(ips)
+                .indexedHosts(indexed)
+                .elapsedMicros(elapsedMicros)
+                .build();
+    }
+
+    @Override
+    public int getIndexedHostCount() {
+        lock.readLock().lock();
+        try {
+            return allHosts.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- DeviceQuery.Postings: se invocan con el read lock tomado ---
+
+    @Override
+    public BitSet allHosts() {
+        return (BitSet) allHosts.clone();
+    }
+
+    @Override
+    public BitSet port(int portNumber) {
+        BitSet hosts = byPort[portNumber];
+        return hosts != null ? (BitSet) hosts.clone() : new BitSet();
+    }
+
+    @Override
+    public BitSet service(String service, boolean prefix) {
+        return lookup(byService, service, prefix);
+    }
+
+    @Override
+    public BitSet vendor(String vendor, boolean prefix) {
+        return lookup(byVendor, vendor, prefix);
+    }
+
+    private BitSet lookup(Map<String, BitSet> index, String key, boolean prefix) {
+        if (!prefix) {
+            BitSet hosts = index.get(key);
+            return hosts != null ? (BitSet) hosts.clone() : new BitSet();
+        }
+        BitSet result = new BitSet();
+        index.forEach((value, hosts) -> {
+            if (value.startsWith(key)) {
+                result.or(hosts);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Retira el host de todos los índices. Requiere el write lock.
+     */
+    private void remove(int id) {
+        unindex(id);
+        allHosts.clear(id);
+        portsById.set(id, new int[0]);
+        servicesById.set(id, new String[0]);
+        vendorById.set(id, null);
+    }
+
+    /**
+     * Retira del índice la entrada anterior de un host. Requiere el write lock.
+     */
+    private void unindex(int id) {
+        for (int port : portsById.get(id)) {
+            byPort[port].clear(id);
+        }
+        for (String service : servicesById.get(id)) {
+            BitSet hosts = byService.get(service);
+            hosts.clear(id);
+            if (hosts.isEmpty()) {
+                byService.remove(service);
+            }
+        }
+        String vendor = vendorById.get(id);
+        if (vendor != null) {
+            BitSet hosts = byVendor.get(vendor);
+            hosts.clear(id);
+            if (hosts.isEmpty()) {
+                byVendor.remove(vendor);
+            }
+        }
+    }
+
+    private static int[] openPortNumbers(NetworkDevice device) {
+        if (device.getOpenPorts() == null) {
+            return new int[0];
+        }
+        return device.getOpenPorts().stream()
+                .map(Port::getPortNumber)
+                .filter(port -> port != null && port >= 0 && port <= MAX_PORT)
+                .mapToInt(Integer::intValue)
+                .distinct()
+                .toArray();
+    }
+
+    private static String[] serviceNames(NetworkDevice device) {
+        if (device.getOpenPorts() == null) {
+            return new String[0];
+        }
+        Set<String> services = new LinkedHashSet<>();
+        for (Port port : device.getOpenPorts()) {
+            String service = normalize(port.getService());
+            if (service != null) {
+                services.add(service);
+            }
+        }
+        return services.toArray(new String[0]);
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,453 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.util.Ipv4Range;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Expresión booleana compilada sobre los índices de dispositivos.
+ *
+ * Gramática (precedencia NOT > AND > OR):
+ * <pre>
+ *   expr   := and (OR and)*
+ *   and    := unary (AND? unary)*
+ *   unary  := NOT unary | '(' expr ')' | term
+ *   term   := (port|service|vendor) ':' valor
+ *           | net ':' cidr | new ':' host          (solo en reglas de alerta)
+ * </pre>
+ * La expresión se parsea una sola vez y se evalúa con operaciones de BitSet
+ * sobre los índices, o contra un solo dispositivo con {@link #matches}.
+ */
+abstract class DeviceQuery {
+
+    /**
+     * Vista de solo lectura de los índices que usa la evaluación.
+     */
+    interface Postings {
+        BitSet allHosts();
+        BitSet port(int portNumber);
+        BitSet service(String service, boolean prefix);
+        BitSet vendor(String vendor, boolean prefix);
+    }
+
+    /**
+     * Vista de un solo dispositivo, para evaluar reglas a medida que llegan resultados.
+     */
+    interface Subject {
+        boolean hasPort(int portNumber);
+        boolean hasService(String service, boolean prefix);
+        boolean vendorMatches(String vendor, boolean prefix);
+        boolean inNetwork(Ipv4Range range);
+        boolean isNewHost();
+    }
+
+    /**
+     * Valor de índice (port, service o vendor) que un dispositivo debe tener
+     * para que la expresión pueda cumplirse.
+     */
+    record Anchor(String field, String value) {
+    }
+
+    /**
+     * Evalúa la expresión. El BitSet retornado es nuevo y puede modificarse.
+     */
+    abstract BitSet evaluate(Postings postings);
+
+    /**
+     * Evalúa la expresión contra un dispositivo.
+     */
+    abstract boolean matches(Subject subject);
+
+    /**
+     * @return Valores tales que la expresión solo se cumple si el dispositivo tiene
+     *         al menos uno de ellos, o null si puede cumplirse sin ninguno (NOT, prefijos, net, new)
+     */
+    abstract Set<Anchor> anchors();
+
+    static DeviceQuery parse(String expression) {
+        return parse(expression, false);
+    }
+
+    /**
+     * Parsea una regla de alerta: admite además los términos net: y new:.
+     */
+    static DeviceQuery parseRule(String expression) {
+        return parse(expression, true);
+    }
+
+    private static DeviceQuery parse(String expression, boolean rule) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("La consulta no puede estar vacía");
+        }
+        Parser parser = new Parser(tokenize(expression), rule);
+        DeviceQuery query = parser.parseOr();
+        if (parser.hasNext()) {
+            throw new IllegalArgumentException("Token inesperado en la consulta: " + parser.peek());
+        }
+        return query;
+    }
+
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                StringBuilder token = new StringBuilder();
+                while (i < expression.length()) {
+                    c = expression.charAt(i);
+                    if (c == '"') {
+                        int end = expression.indexOf('"', i + 1);
+                        if (end < 0) {
+                            throw new IllegalArgumentException("Comillas sin cerrar en la consulta");
+                        }
+                        token.append(expression, i + 1, end);
+                        i = end + 1;
+                    } else if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                        break;
+                    } else {
+                        token.append(c);
+                        i++;
+                    }
+                }
+                tokens.add(token.toString());
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Parser {
+        private final List<String> tokens;
+        private final boolean rule;
+        private int position;
+
+        Parser(List<String> tokens, boolean rule) {
+            this.tokens = tokens;
+            this.rule = rule;
+        }
+
+        boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        String peek() {
+            return tokens.get(position);
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            if (hasNext() && keyword.equalsIgnoreCase(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        DeviceQuery parseOr() {
+            DeviceQuery left = parseAnd();
+            while (acceptKeyword("OR")) {
+                left = new Or(left, parseAnd());
+            }
+            return left;
+        }
+
+        DeviceQuery parseAnd() {
+            DeviceQuery left = parseUnary();
+            while (hasNext() && !")".equals(peek()) && !"OR".equalsIgnoreCase(peek())) {
+                acceptKeyword("AND");
+                left = new And(left, parseUnary());
+            }
+            return left;
+        }
+
+        DeviceQuery parseUnary() {
+            if (!hasNext()) {
+                throw new IllegalArgumentException("La consulta termina de forma inesperada");
+            }
+            if (acceptKeyword("NOT")) {
+                return new Not(parseUnary());
+            }
+            if ("(".equals(peek())) {
+                position++;
+                DeviceQuery inner = parseOr();
+                if (!hasNext() || !")".equals(peek())) {
+                    throw new IllegalArgumentException("Falta ')' en la consulta");
+                }
+                position++;
+                return inner;
+            }
+            return parseTerm(tokens.get(position++));
+        }
+
+        private DeviceQuery parseTerm(String token) {
+            int colon = token.indexOf(':');
+            if (colon <= 0 || colon == token.length() - 1) {
+                throw new IllegalArgumentException("Término inválido: '" + token
+                        + "'. Use port:N, service:nombre o vendor:nombre");
+            }
+            String field = token.substring(0, colon).toLowerCase(Locale.ROOT);
+            String value = token.substring(colon + 1).toLowerCase(Locale.ROOT);
+            boolean prefix = value.endsWith("*");
+            if (prefix) {
+                value = value.substring(0, value.length() - 1);
+            }
+            switch (field) {
+                case "port":
+                    try {
+                        int port = Integer.parseInt(value);
+                        if (port < 0 || port > 65535) {
+                            throw new NumberFormatException();
+                        }
+                        return new PortTerm(port);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Puerto inválido en la consulta: " + value);
+                    }
+                case "service":
+                    return new ServiceTerm(value, prefix);
+                case "vendor":
+                    return new VendorTerm(value, prefix);
+                case "net":
+                    requireRule(field);
+                    try {
+                        return new NetTerm(Ipv4Range.parse(value));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Red inválida en la regla: " + value);
+                    }
+                case "new":
+                    requireRule(field);
+                    if (!"host".equals(value)) {
+                        throw new IllegalArgumentException("Valor inválido para new: " + value + ". Use new:host");
+                    }
+                    return new NewHostTerm();
+                default:
+                    throw new IllegalArgumentException("Campo desconocido en la consulta: " + field);
+            }
+        }
+
+        private void requireRule(String field) {
+            if (!rule) {
+                throw new IllegalArgumentException("El campo " + field + " solo se admite en reglas de alerta");
+            }
+        }
+    }
+
+    private static final class PortTerm extends DeviceQuery {
+        private final int port;
+
+        PortTerm(int port) {
+            this.port = port;
+        }
+
+        @Override
+        BitSet evaluate(Postings postings) {
+            return postings.port(port);
+        }
+
+        @Override
+        boolean matches(Subject subject) {
+            return subject.hasPort(port);
+        }
+
+        @Override
+        Set<Anchor> anchors() {
+            return Set.of(new Anchor("port", String.valueOf(port)));
+        }
+    }
+
+    private static final class ServiceTerm extends DeviceQuery {
+        private final String service;
+        private final boolean prefix;
+
+        ServiceTerm(String service, boolean prefix) {
+            this.service = service;
+            this.prefix = prefix;
+        }
+
+        @Override
+        BitSet evaluate(Postings postings) {
+            return postings.service(service, prefix);
+        }
+
+        @Override
+        boolean matches(Subject subject) {
+            return subject.hasService(service, prefix);
+        }
+
+        @Override
+        Set<Anchor> anchors() {
+            return prefix ? null : Set.of(new Anchor("service", service));
+        }
+    }
+
+    private static final class VendorTerm extends DeviceQuery {
+        private final String vendor;
+        private final boolean prefix;
+
+        VendorTerm(String vendor, boolean prefix) {
+            this.vendor = vendor;
+            this.prefix = prefix;
+        }
+
+        @Override
+        BitSet evaluate(Postings postings) {
+            return postings.vendor(vendor, prefix);
+        }
+
+        @Override
+        boolean matches(Subject subject) {
+            return subject.vendorMatches(vendor, prefix);
+        }
+
+        @Override
+        Set<Anchor> anchors() {
+            return prefix ? null : Set.of(new Anchor("vendor", vendor));
+        }
+    }
+
+    private static final class NetTerm extends DeviceQuery {
+        private final Ipv4Range range;
+
+        NetTerm(Ipv4Range range) {
+            this.range = range;
+        }
+
+        @Override
+        BitSet evaluate(Postings postings) {
+            throw new IllegalStateException("net: solo se evalúa en reglas de alerta");
+        }
+
+        @Override
+        boolean matches(Subject subject) {
+            return subject.inNetwork(range);
+        }
+
+        @Override
+        Set<Anchor> anchors() {
+            return null;
+        }
+    }
+
+    private static final class NewHostTerm extends DeviceQuery {
+
+        @Override
+        BitSet evaluate(Postings postings) {
+            throw new IllegalStateException("new: solo se evalúa en reglas de alerta");
+        }
+
+        @Override
+        boolean matches(Subject subject) {
+            return subject.isNewHost();
+        }
+
+        @Override
+        Set<Anchor> anchors() {
+            return null;
+        }
+    }
+
+    private static final class And extends DeviceQuery {
+        private final DeviceQuery left;
+        private final DeviceQuery right;
+
+        And(DeviceQuery left, DeviceQuery right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        BitSet evaluate(Postings postings) {
+            BitSet result = left.evaluate(postings);
+            // "A AND NOT B" se resuelve con andNot sin materializar el complemento
+            if (right instanceof Not not) {
+                result.andNot(not.operand.evaluate(postings));
+            } else {
+                result.and(right.evaluate(postings));
+            }
+            return result;
+        }
+
+        @Override
+        boolean matches(Subject subject) {
+            return left.matches(subject) && right.matches(subject);
+        }
+
+        @Override
+        Set<Anchor> anchors() {
+            // Basta con los valores de un lado: se toma el más selectivo
+            Set<Anchor> leftAnchors = left.anchors();
+            Set<Anchor> rightAnchors = right.anchors();
+            if (leftAnchors == null || rightAnchors == null) {
+                return leftAnchors != null ? leftAnchors : rightAnchors;
+            }
+            return leftAnchors.size() <= rightAnchors.size() ? leftAnchors : rightAnchors;
+        }
+    }
+
+    private static final class Or extends DeviceQuery {
+        private final DeviceQuery left;
+        private final DeviceQuery right;
+
+        Or(DeviceQuery left, DeviceQuery right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        BitSet evaluate(Postings postings) {
+            BitSet result = left.evaluate(postings);
+            result.or(right.evaluate(postings));
+            return result;
+        }
+
+        @Override
+        boolean matches(Subject subject) {
+            return left.matches(subject) || right.matches(subject);
+        }
+
+        @Override
+        Set<Anchor> anchors() {
+            Set<Anchor> leftAnchors = left.anchors();
+            Set<Anchor> rightAnchors = right.anchors();
+            if (leftAnchors == null || rightAnchors == null) {
+                return null;
+            }
+            Set<Anchor> union = new HashSet<>(leftAnchors);
+            union.addAll(rightAnchors);
+            return union;
+        }
+    }
+
+    private static final class Not extends DeviceQuery {
+        private final DeviceQuery operand;
+
+        Not(DeviceQuery operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        BitSet evaluate(Postings postings) {
+            BitSet result = postings.allHosts();
+            result.andNot(operand.evaluate(postings));
+            return result;
+        }
+
+        @Override
+        boolean matches(Subject subject) {
+            return !operand.matches(subject);
+        }
+
+        @Override
+        Set<Anchor> anchors() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.udea.demonmap.service;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cola de trabajo del pool de escaneo con reparto justo entre clases y clientes.
+ *
+ * Reemplaza la cola FIFO del ThreadPoolExecutor. Cada tarea se etiqueta al
+ * encolarse con el cliente y la clase de prioridad del {@link ScanContext} del
+ * thread que la envía. Al despachar se aplica encolamiento justo ponderado
+ * (start-time fair queuing) en dos niveles: primero entre clases de prioridad
+ * según su peso y luego entre los clientes de la clase elegida según el peso de
+ * cada cliente. Un flujo que vuelve a tener tareas parte del tiempo virtual
+ * actual, así que no acumula crédito mientras estuvo inactivo: una consulta
+ * interactiva que llega detrás de un lote masivo se despacha en el siguiente
+ * turno, y el lote sigue usando toda la capacidad ociosa.
+ *
+ * Además limita las tareas en ejecución por cliente; los clientes en su cupo
+ * se saltan hasta que termine alguna de sus tareas.
+ */
+public class FairShareScanQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private final int capacity;
+    private final int maxRunningPerClient;
+    private final Map<String, Integer> clientWeights;
+    private final Map<ScanPriority, PriorityClass> classes = new EnumMap<>(ScanPriority.class);
+    private final Map<String, Integer> running = new HashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dispatchable = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int count;
+    private double virtualTime;
+
+    /**
+     * @param capacity Máximo de tareas en cola
+     * @param classWeights Peso de cada clase de prioridad
+     * @param clientWeights Peso por cliente (los no listados pesan 1)
+     * @param maxRunningPerClient Máximo de tareas en ejecución por cliente (0 = sin límite)
+     */
+    public FairShareScanQueue(int capacity, Map<ScanPriority, Integer> classWeights,
+                              Map<String, Integer> clientWeights, int maxRunningPerClient) {
+        this.capacity = capacity;
+        this.maxRunningPerClient = maxRunningPerClient;
+        this.clientWeights = Map.copyOf(clientWeights);
+        for (ScanPriority priority : ScanPriority.values()) {
+            classes.put(priority, new PriorityClass(classWeights.getOrDefault(priority, 1)));
+        }
+    }
+
+    private static final class Entry {
+        private final Runnable task;
+        private final String clientId;
+
+        Entry(Runnable task, String clientId) {
+            this.task = task;
+            this.clientId = clientId;
+        }
+    }
+
+    /**
+     * Tareas en cola de un cliente dentro de una clase.
+     */
+    private static final class Flow {
+        private final double weight;
+        private final ArrayDeque<Entry> tasks = new ArrayDeque<>();
+        private double startTag;
+
+        Flow(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final class PriorityClass {
+        private final double weight;
+        private final Map<String, Flow> flows = new LinkedHashMap<>();
+        private double startTag;
+        private double virtualTime;
+        private int queued;
+
+        PriorityClass(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    // ---- Encolado ----
+
+    @Override
+    public boolean offer(Runnable task) {
+        ScanContext context = ScanContext.current();
+        lock.lock();
+        try {
+            if (count >= capacity) {
+                return false;
+            }
+            enqueue(task, context);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        ScanContext context = ScanContext.current();
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                notFull.await();
+            }
+            enqueue(task, context);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        ScanContext context = ScanContext.current();
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(task, context);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(Runnable task, ScanContext context) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        PriorityClass priorityClass = classes.get(context.getPriority());
+        if (priorityClass.queued == 0) {
+            priorityClass.startTag = Math.max(priorityClass.startTag, virtualTime);
+        }
+        Flow flow = priorityClass.flows.computeIfAbsent(context.getClientId(),
+                client -> new Flow(clientWeights.getOrDefault(client, 1)));
+        if (flow.tasks.isEmpty()) {
+            flow.startTag = Math.max(flow.startTag, priorityClass.virtualTime);
+        }
+        flow.tasks.add(new Entry(task, context.getClientId()));
+        priorityClass.queued++;
+        count++;
+        dispatchable.signal();
+    }
+
+    // ---- Despacho ----
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            Entry entry = dispatch();
+            return entry != null ? wrap(entry) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            Entry entry;
+            while ((entry = dispatch()) == null) {
+                dispatchable.await();
+            }
+            return wrap(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            Entry entry;
+            while ((entry = dispatch()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = dispatchable.awaitNanos(nanos);
+            }
+            return wrap(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Elige la siguiente tarea: la clase con menor etiqueta de inicio que tenga
+     * algún cliente bajo su cupo y, dentro de ella, el cliente con menor etiqueta.
+     * Debe llamarse con el lock tomado.
+     */
+    private Entry dispatch() {
+        PriorityClass bestClass = null;
+        Map.Entry<String, Flow> bestFlow = null;
+        // En empate gana la clase de mayor prioridad (orden del enum)
+        for (PriorityClass priorityClass : classes.values()) {
+            if (priorityClass.queued == 0 || (bestClass != null && priorityClass.startTag >= bestClass.startTag)) {
+                continue;
+            }
+            Map.Entry<String, Flow> flow = eligibleFlow(priorityClass);
+            if (flow != null) {
+                bestClass = priorityClass;
+                bestFlow = flow;
+            }
+        }
+        if (bestClass == null) {
+            return null;
+        }
+
+        virtualTime = bestClass.startTag;
+        bestClass.startTag += 1.0 / bestClass.weight;
+        Flow flow = bestFlow.getValue();
+        bestClass.virtualTime = flow.startTag;
+        flow.startTag += 1.0 / flow.weight;
+
+        Entry entry = flow.tasks.poll();
+        if (flow.tasks.isEmpty()) {
+            bestClass.flows.remove(bestFlow.getKey());
+        }
+        bestClass.queued--;
+        count--;
+        running.merge(entry.clientId, 1, Integer::sum);
+        notFull.signal();
+        return entry;
+    }
+
+    private Map.Entry<String, Flow> eligibleFlow(PriorityClass priorityClass) {
+        Map.Entry<String, Flow> best = null;
+        for (Map.Entry<String, Flow> candidate : priorityClass.flows.entrySet()) {
+            if (maxRunningPerClient > 0 && running.getOrDefault(candidate.getKey(), 0) >= maxRunningPerClient) {
+                continue;
+            }
+            if (best == null || candidate.getValue().startTag < best.getValue().startTag) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Envuelve la tarea para liberar el cupo del cliente al terminar.
+     */
+    private Runnable wrap(Entry entry) {
+        return () -> {
+            try {
+                entry.task.run();
+            } finally {
+                release(entry.clientId);
+            }
+        };
+    }
+
+    private void release(String clientId) {
+        lock.lock();
+        try {
+            running.computeIfPresent(clientId, (client, tasks) -> tasks > 1 ? tasks - 1 : null);
+            if (maxRunningPerClient > 0) {
+                dispatchable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- Consulta y vaciado ----
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Primera tarea en cola sin aplicar la política de despacho.
+     */
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            for (PriorityClass priorityClass : classes.values()) {
+                for (Flow flow : priorityClass.flows.values()) {
+                    if (!flow.tasks.isEmpty()) {
+                        return flow.tasks.peek().task;
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object task) {
+        lock.lock();
+        try {
+            for (PriorityClass priorityClass : classes.values()) {
+                Iterator<Map.Entry<String, Flow>> flows = priorityClass.flows.entrySet().iterator();
+                while (flows.hasNext()) {
+                    Flow flow = flows.next().getValue();
+                    if (flow.tasks.removeIf(entry -> entry.task.equals(task))) {
+                        if (flow.tasks.isEmpty()) {
+                            flows.remove();
+                        }
+                        priorityClass.queued--;
+                        count--;
+                        notFull.signal();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retira tareas sin ejecutarlas (por ejemplo en shutdownNow), sin aplicar
+     * la política de despacho ni consumir cupos.
+     */
+    @Override
+    public int drainTo(Collection<? super Runnable> target, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            for (PriorityClass priorityClass : classes.values()) {
+                Iterator<Flow> flows = priorityClass.flows.values().iterator();
+                while (flows.hasNext() && drained < maxElements) {
+                    Flow flow = flows.next();
+                    while (!flow.tasks.isEmpty() && drained < maxElements) {
+                        target.add(flow.tasks.poll().task);
+                        priorityClass.queued--;
+                        count--;
+                        drained++;
+                    }
+                    if (flow.tasks.isEmpty()) {
+                        flows.remove();
+                    }
+                }
+            }
+            if (drained > 0) {
+                notFull.signalAll();
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        drainTo(new ArrayList<>());
+    }
+
+    /**
+     * @return Copia de las tareas en cola; no admite remove
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        lock.lock();
+        try {
+            List<Runnable> snapshot = new ArrayList<>(count);
+            for (PriorityClass priorityClass : classes.values()) {
+                for (Flow flow : priorityClass.flows.values()) {
+                    flow.tasks.forEach(entry -> snapshot.add(entry.task));
+                }
+            }
+            return Collections.unmodifiableList(snapshot).iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estado del planificador, usado por el health check.
+     */
+    public Map<String, Object> snapshot() {
+        lock.lock();
+        try {
+            Map<String, Integer> queuedByClass = new LinkedHashMap<>();
+            Map<String, Integer> queuedByClient = new HashMap<>();
+            classes.forEach((priority, priorityClass) -> {
+                queuedByClass.put(priority.name().toLowerCase(), priorityClass.queued);
+                priorityClass.flows.forEach((client, flow) ->
+                        queuedByClient.merge(client, flow.tasks.size(), Integer::sum));
+            });
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("queuedByClass", queuedByClass);
+            state.put("queuedByClient", queuedByClient);
+            state.put("runningByClient", new HashMap<>(running));
+            state.put("maxRunningPerClient", maxRunningPerClient);
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
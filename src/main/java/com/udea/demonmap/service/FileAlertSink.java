@@ -0,0 +1,65 @@
+package com.udea.demonmap.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.AlertMatch;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Agrega cada coincidencia como una línea JSON al archivo
+ * network.scan.alerts.file.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "network.scan.alerts", name = "file")
+public class FileAlertSink implements AlertSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final BufferedWriter writer;
+
+    public FileAlertSink(NetworkScanConfig scanConfig, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.file = Path.of(scanConfig.getAlerts().getFile());
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log.info("Coincidencias de alertas se agregan a {}", file);
+    }
+
+    @Override
+    public void deliver(AlertMatch match) {
+        try {
+            String line = objectMapper.writeValueAsString(match);
+            synchronized (writer) {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar la alerta {}: {}", match.getRuleName(), e.getMessage());
+        } catch (IOException e) {
+            log.warn("No se pudo escribir la alerta en {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.HostTransition;
+
+/**
+ * Observador de los cambios de estado de los hosts monitoreados.
+ *
+ * LivenessMonitor notifica a todos los beans que implementen esta interfaz
+ * desde su único thread, al terminar cada ronda de sondeo: las
+ * implementaciones no deben bloquear por mucho tiempo.
+ */
+public interface HostStateListener {
+
+    /**
+     * @param transition Host, estado anterior y nuevo
+     */
+    void onHostStateChanged(HostTransition transition);
+}
@@ -0,0 +1,198 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.util.Ipv4Range;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro de escaneos completos en curso indexado por intervalos de direcciones.
+ *
+ * Cada escaneo registra solo los tramos que realmente va a sondear, por lo que
+ * los intervalos del registro son disjuntos y se guardan en un TreeMap por
+ * dirección inicial. Un escaneo nuevo que se solapa con otros en curso se
+ * suscribe a los resultados por host de esos escaneos para la parte común y
+ * solo lanza nmap sobre el resto no cubierto.
+ */
+@Slf4j
+@Component
+public class InFlightScanRegistry {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Intervalos disjuntos en curso: inicio del tramo -> tramo y escaneo dueño
+    private final NavigableMap<Long, Segment> inFlight = new TreeMap<>();
+
+    /**
+     * Registra un escaneo sobre el rango solicitado.
+     *
+     * @param requested Rango solicitado
+     * @return Registro con los tramos propios y las suscripciones a escaneos en curso
+     */
+    public Registration register(Ipv4Range requested) {
+        return register(requested, true);
+    }
+
+    /**
+     * Registra un escaneo sobre el rango solicitado.
+     *
+     * @param requested Rango solicitado
+     * @param shared false si otros escaneos no deben suscribirse a sus hosts: sus
+     *               tramos no entran al registro y no retiene los resultados publicados
+     * @return Registro con los tramos propios y las suscripciones a escaneos en curso
+     */
+    public synchronized Registration register(Ipv4Range requested, boolean shared) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        List<Ipv4Range> covered = new ArrayList<>();
+
+        Long floor = inFlight.floorKey(requested.getStart());
+        Long from = floor != null ? floor : requested.getStart();
+        for (Segment segment : inFlight.subMap(from, true, requested.getEnd(), true).values()) {
+            segment.range.intersect(requested).ifPresent(overlap -> {
+                subscriptions.add(new Subscription(overlap, segment.owner));
+                covered.add(overlap);
+            });
+        }
+
+        List<Ipv4Range> remainder = requested.subtract(covered);
+        Owner owner = new Owner(sequence.incrementAndGet(), remainder);
+        if (shared) {
+            for (Ipv4Range range : remainder) {
+                inFlight.put(range.getStart(), new Segment(range, owner));
+            }
+        }
+
+        if (!subscriptions.isEmpty()) {
+            log.info("Escaneo #{} de {} reutiliza {} tramo(s) en curso; tramos propios: {}",
+                    owner.id, requested, subscriptions.size(), remainder);
+        }
+        return new Registration(this, owner, shared, remainder, subscriptions);
+    }
+
+    private synchronized void release(Owner owner) {
+        for (Ipv4Range range : owner.segments) {
+            Segment segment = inFlight.get(range.getStart());
+            if (segment != null && segment.owner == owner) {
+                inFlight.remove(range.getStart());
+            }
+        }
+    }
+
+    private record Segment(Ipv4Range range, Owner owner) {
+    }
+
+    /**
+     * Escaneo dueño de uno o más tramos del registro.
+     */
+    private static final class Owner {
+        private final long id;
+        private final List<Ipv4Range> segments;
+        // Se completa cuando el dueño termina el descubrimiento y envía sus hosts al pool
+        private final CompletableFuture<Map<String, CompletableFuture<NetworkDevice>>> hosts =
+                new CompletableFuture<>();
+
+        Owner(long id, List<Ipv4Range> segments) {
+            this.id = id;
+            this.segments = segments;
+        }
+    }
+
+    /**
+     * Suscripción a los hosts de otro escaneo dentro de un tramo solapado.
+     */
+    public static final class Subscription {
+        private final Ipv4Range overlap;
+        private final Owner owner;
+
+        private Subscription(Ipv4Range overlap, Owner owner) {
+            this.overlap = overlap;
+            this.owner = owner;
+        }
+
+        public Ipv4Range getOverlap() {
+            return overlap;
+        }
+
+        /**
+         * Espera a que el escaneo dueño publique sus hosts y retorna los futuros
+         * de los que caen dentro del tramo solapado.
+         */
+        public CompletableFuture<Map<String, CompletableFuture<NetworkDevice>>> sharedHosts() {
+            return owner.hosts.thenApply(all -> {
+                Map<String, CompletableFuture<NetworkDevice>> shared = new LinkedHashMap<>();
+                all.forEach((ip, future) -> {
+                    if (overlap.contains(ip)) {
+                        shared.put(ip, future);
+                    }
+                });
+                return shared;
+            });
+        }
+    }
+
+    /**
+     * Registro de un escaneo. Debe cerrarse al terminar para liberar sus tramos.
+     */
+    public static final class Registration implements AutoCloseable {
+        private final InFlightScanRegistry registry;
+        private final Owner owner;
+        private final boolean shared;
+        private final List<Ipv4Range> ownSegments;
+        private final List<Subscription> subscriptions;
+
+        private Registration(InFlightScanRegistry registry, Owner owner, boolean shared,
+                             List<Ipv4Range> ownSegments, List<Subscription> subscriptions) {
+            this.registry = registry;
+            this.owner = owner;
+            this.shared = shared;
+            this.ownSegments = Collections.unmodifiableList(ownSegments);
+            this.subscriptions = Collections.unmodifiableList(subscriptions);
+        }
+
+        /**
+         * @return Tramos que este escaneo debe sondear por sí mismo
+         */
+        public List<Ipv4Range> getOwnSegments() {
+            return ownSegments;
+        }
+
+        /**
+         * @return Suscripciones a escaneos en curso que cubren parte del rango
+         */
+        public List<Subscription> getSubscriptions() {
+            return subscriptions;
+        }
+
+        /**
+         * Publica los hosts propios para que otros escaneos puedan suscribirse.
+         */
+        public void publishHosts(Map<String, CompletableFuture<NetworkDevice>> hosts) {
+            owner.hosts.complete(shared ? Collections.unmodifiableMap(hosts) : Map.of());
+        }
+
+        /**
+         * Indica a los suscriptores que el descubrimiento de este escaneo falló.
+         */
+        public void fail(Throwable cause) {
+            owner.hosts.completeExceptionally(cause);
+        }
+
+        @Override
+        public void close() {
+            registry.release(owner);
+            // Si el dueño nunca publicó, los suscriptores no deben quedar bloqueados
+            owner.hosts.completeExceptionally(
+                    new IllegalStateException("El escaneo #" + owner.id + " terminó sin publicar hosts"));
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.dto.LivenessStatusDTO;
+import com.udea.demonmap.entity.HostTransition;
+import com.udea.demonmap.entity.HostTransition.HostState;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.repository.DiscoveryProfile;
+import com.udea.demonmap.repository.NetworkScanner;
+import com.udea.demonmap.repository.ScanException;
+import com.udea.demonmap.util.IntIntHashMap;
+import com.udea.demonmap.util.Ipv4Range;
+import com.udea.demonmap.util.TimerWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monitoreo de disponibilidad de los hosts conocidos.
+ *
+ * Los hosts se conocen al escanearlos o importarlos y se reparten por id en
+ * network.scan.liveness.rounds-per-interval rondas, programadas en una
+ * {@link TimerWheel} a lo largo del intervalo. Cada ronda sondea todos sus
+ * hosts con una sola invocación de nmap -sn por lote de max-batch-size
+ * (las IPs contiguas se pasan como bloques CIDR), en lugar de un proceso por
+ * host. Un host que no responde se vuelve a sondear en la ronda siguiente y
+ * pasa a DOWN tras down-after-misses fallos seguidos; las transiciones UP ↔
+ * DOWN se guardan en un buffer acotado y se entregan a cada
+ * {@link HostStateListener}.
+ *
+ * El estado de cada host vive en arreglos primitivos indexados por un id
+ * denso (dirección, estado, fallos, instante del último cambio), así que
+ * 100k hosts ocupan unos pocos MB y una ronda sin cambios no crea objetos
+ * por host más allá de la salida de nmap.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "network.scan.liveness", name = "enabled", havingValue = "true")
+public class LivenessMonitor implements ScanResultListener, ApplicationListener<ApplicationReadyEvent> {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte UP = 1;
+    private static final byte DOWN = 2;
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int WHEEL_SLOTS = 512;
+
+    private final NetworkScanner networkScanner;
+    private final NetworkScanConfig.Liveness liveness;
+    private final List<HostStateListener> listeners;
+
+    private final Object lock = new Object();
+
+    // Estado por host, indexado por id denso
+    private final IntIntHashMap hostIds = new IntIntHashMap(1024);
+    private int[] hostAddress = new int[1024];
+    private byte[] hostState = new byte[1024];
+    private byte[] hostMisses = new byte[1024];
+    private long[] hostChangedAt = new long[1024];
+    private int[] hostLastRound = new int[1024];
+    private boolean[] hostSuspect = new boolean[1024];
+    private int hostCount;
+    private int hostsUp;
+    private int hostsDown;
+    private boolean capacityWarned;
+
+    // Hosts a sondear en la ronda siguiente, sin esperar a la suya
+    private int[] suspects = new int[64];
+    private int suspectCount;
+    private int round;
+
+    // Direcciones de la ronda en curso; solo las usa el thread del monitor
+    private long[] targets = new long[1024];
+
+    private final Deque<HostTransition> recentTransitions = new ArrayDeque<>();
+
+    private volatile long roundsCompleted;
+    private volatile int lastRoundHosts;
+    private volatile long lastRoundMs;
+    private volatile long lastRoundLagMs;
+    private volatile long transitions;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public LivenessMonitor(NetworkScanner networkScanner, NetworkScanConfig scanConfig,
+                           List<HostStateListener> listeners) {
+        this.networkScanner = networkScanner;
+        this.liveness = scanConfig.getLiveness();
+        this.listeners = listeners;
+    }
+
+    /**
+     * Arranca con la aplicación lista, como el resto de los trabajos en segundo plano.
+     */
+    @Override
+    public synchronized void onApplicationEvent(ApplicationReadyEvent event) {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "liveness-monitor");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Monitoreo de disponibilidad cada {} s en {} rondas, lotes de hasta {} hosts",
+                liveness.getIntervalSeconds(), liveness.getRoundsPerInterval(), liveness.getMaxBatchSize());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Un host recién escaneado que respondió está vivo. Si estaba caído no se
+     * cambia acá: se adelanta su sondeo a la próxima ronda, que es la que
+     * emite las transiciones. Un host que no respondió (estado "unknown" de un
+     * escaneo de host individual) no se registra: de lo contrario entraría
+     * como UP y el primer sondeo lo daría por caído.
+     */
+    @Override
+    public void onDeviceScanned(NetworkDevice device) {
+        if (device == null || !"up".equals(device.getStatus())) {
+            return;
+        }
+        synchronized (lock) {
+            register(device, true);
+        }
+    }
+
+    /**
+     * Los hosts importados pueden venir de archivos viejos: entran sin estado
+     * y el primer sondeo decide.
+     */
+    @Override
+    public void onDevicesImported(List<NetworkDevice> devices) {
+        synchronized (lock) {
+            devices.forEach(device -> register(device, false));
+        }
+    }
+
+    public LivenessStatusDTO getStatus() {
+        int monitored;
+        int up;
+        int down;
+        synchronized (lock) {
+            monitored = hostCount;
+            up = hostsUp;
+            down = hostsDown;
+        }
+        return LivenessStatusDTO.builder()
+                .monitoredHosts(monitored)
+                .hostsUp(up)
+                .hostsDown(down)
+                .hostsUnknown(monitored - up - down)
+                .intervalSeconds(liveness.getIntervalSeconds())
+                .roundsPerInterval(liveness.getRoundsPerInterval())
+                .roundsCompleted(roundsCompleted)
+                .lastRoundHosts(lastRoundHosts)
+                .lastRoundMs(lastRoundMs)
+                .lastRoundLagMs(lastRoundLagMs)
+                .transitions(transitions)
+                .build();
+    }
+
+    /**
+     * @return Transiciones más recientes primero
+     */
+    public List<HostTransition> getRecentTransitions(int limit) {
+        List<HostTransition> recent = new ArrayList<>(Math.min(limit, liveness.getRecentTransitions()));
+        synchronized (recentTransitions) {
+            Iterator<HostTransition> it = recentTransitions.descendingIterator();
+            while (it.hasNext() && recent.size() < limit) {
+                recent.add(it.next());
+            }
+        }
+        return recent;
+    }
+
+    private void run() {
+        int rounds = liveness.getRoundsPerInterval();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(liveness.getIntervalSeconds());
+        long start = System.nanoTime();
+        TimerWheel<Integer> wheel = new TimerWheel<>(WHEEL_SLOTS, TICK_NANOS, start);
+        long[] dueAt = new long[rounds];
+        for (int bucket = 0; bucket < rounds; bucket++) {
+            dueAt[bucket] = start + intervalNanos * bucket / rounds;
+            wheel.schedule(bucket, dueAt[bucket] - start, start);
+        }
+
+        List<Integer> due = new ArrayList<>();
+        while (running) {
+            long now = System.nanoTime();
+            wheel.advance(now, due::add);
+            if (due.isEmpty()) {
+                long wait = wheel.nanosUntilNextTick(now);
+                if (!sleep(wait)) {
+                    return;
+                }
+                continue;
+            }
+            long lagNanos = now - due.stream().mapToLong(bucket -> dueAt[bucket]).min().orElse(now);
+            try {
+                probeRound(due, rounds, lagNanos);
+            } catch (RuntimeException e) {
+                log.warn("Error en la ronda de monitoreo: {}", e.getMessage());
+            }
+            long after = System.nanoTime();
+            for (int bucket : due) {
+                // Una ronda atrasada más de un intervalo no intenta recuperar las perdidas
+                dueAt[bucket] = Math.max(dueAt[bucket] + intervalNanos, after);
+                wheel.schedule(bucket, dueAt[bucket] - after, after);
+            }
+            due.clear();
+        }
+    }
+
+    /**
+     * Sondea los hosts de las rondas vencidas más los sospechosos pendientes.
+     */
+    private void probeRound(List<Integer> buckets, int rounds, long lagNanos) {
+        long[] targets;
+        int count = 0;
+        synchronized (lock) {
+            round++;
+            if (this.targets.length < hostCount + suspectCount) {
+                this.targets = new long[Math.max(hostCount + suspectCount, this.targets.length * 2)];
+            }
+            targets = this.targets;
+            for (int bucket : buckets) {
+                for (int id = bucket; id < hostCount; id += rounds) {
+                    hostLastRound[id] = round;
+                    targets[count++] = Integer.toUnsignedLong(hostAddress[id]);
+                }
+            }
+            for (int i = 0; i < suspectCount; i++) {
+                int id = suspects[i];
+                hostSuspect[id] = false;
+                if (hostLastRound[id] != round) {
+                    hostLastRound[id] = round;
+                    targets[count++] = Integer.toUnsignedLong(hostAddress[id]);
+                }
+            }
+            suspectCount = 0;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        // En orden de dirección las IPs contiguas se juntan en bloques CIDR
+        Arrays.sort(targets, 0, count);
+        List<HostTransition> changes = new ArrayList<>();
+        for (int from = 0; from < count; from += liveness.getMaxBatchSize()) {
+            int to = Math.min(count, from + liveness.getMaxBatchSize());
+            boolean[] alive = new boolean[to - from];
+            try {
+                for (String ip : networkScanner.getActiveHosts(toTargets(targets, from, to), DiscoveryProfile.LIVENESS)) {
+                    int index = Arrays.binarySearch(targets, from, to, Ipv4Range.toLong(ip));
+                    if (index >= 0) {
+                        alive[index - from] = true;
+                    }
+                }
+            } catch (ScanException | IllegalArgumentException e) {
+                // Sin respuesta de nmap no se sabe nada de estos hosts: no cuenta como fallo
+                log.warn("No se pudo sondear un lote de {} hosts: {}", to - from, e.getMessage());
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            synchronized (lock) {
+                for (int i = from; i < to; i++) {
+                    int id = hostIds.get((int) targets[i]);
+                    if (id >= 0) {
+                        apply(id, alive[i - from], now, changes);
+                    }
+                }
+            }
+        }
+
+        lastRoundHosts = count;
+        lastRoundMs = (System.nanoTime() - start) / 1_000_000;
+        lastRoundLagMs = lagNanos / 1_000_000;
+        roundsCompleted++;
+        log.debug("Ronda de monitoreo: {} hosts en {} ms, {} cambios", count, lastRoundMs, changes.size());
+        changes.forEach(this::publish);
+    }
+
+    /**
+     * Registra el resultado de un sondeo. Requiere el lock.
+     */
+    private void apply(int id, boolean alive, long now, List<HostTransition> changes) {
+        if (alive) {
+            hostMisses[id] = 0;
+            if (hostState[id] != UP) {
+                changeState(id, UP, now, changes);
+            }
+            return;
+        }
+        if (hostMisses[id] < Byte.MAX_VALUE) {
+            hostMisses[id]++;
+        }
+        if (hostState[id] == DOWN) {
+            return;
+        }
+        if (hostMisses[id] >= liveness.getDownAfterMisses()) {
+            changeState(id, DOWN, now, changes);
+        } else {
+            suspect(id);
+        }
+    }
+
+    /**
+     * Cambia el estado del host; pasar desde UNKNOWN no es una transición. Requiere el lock.
+     */
+    private void changeState(int id, byte state, long now, List<HostTransition> changes) {
+        byte previous = hostState[id];
+        if (previous == UP) {
+            hostsUp--;
+        } else if (previous == DOWN) {
+            hostsDown--;
+        }
+        if (state == UP) {
+            hostsUp++;
+        } else {
+            hostsDown++;
+        }
+        hostState[id] = state;
+        if (previous != UNKNOWN && changes != null) {
+            changes.add(HostTransition.builder()
+                    .ipAddress(Ipv4Range.toIp(Integer.toUnsignedLong(hostAddress[id])))
+                    .previousState(toHostState(previous))
+                    .state(toHostState(state))
+                    .changedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()))
+                    .previousStateMs(now - hostChangedAt[id])
+                    .build());
+        }
+        hostChangedAt[id] = now;
+    }
+
+    /**
+     * Agrega el host si no se conocía. Requiere el lock.
+     */
+    private void register(NetworkDevice device, boolean seenUp) {
+        if (device == null || device.getIpAddress() == null) {
+            return;
+        }
+        int address;
+        try {
+            address = (int) Ipv4Range.toLong(device.getIpAddress());
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        int id = hostIds.get(address);
+        if (id < 0) {
+            if (hostCount >= liveness.getMaxHosts()) {
+                if (!capacityWarned) {
+                    capacityWarned = true;
+                    log.warn("Monitoreo de disponibilidad lleno ({} hosts): los hosts nuevos no se monitorean",
+                            hostCount);
+                }
+                return;
+            }
+            id = addHost(address);
+            if (seenUp) {
+                changeState(id, UP, System.currentTimeMillis(), null);
+            }
+        } else if (seenUp) {
+            if (hostState[id] == UP) {
+                hostMisses[id] = 0;
+            } else {
+                suspect(id);
+            }
+        }
+    }
+
+    private int addHost(int address) {
+        int id = hostCount++;
+        if (id == hostAddress.length) {
+            int capacity = id * 2;
+            hostAddress = Arrays.copyOf(hostAddress, capacity);
+            hostState = Arrays.copyOf(hostState, capacity);
+            hostMisses = Arrays.copyOf(hostMisses, capacity);
+            hostChangedAt = Arrays.copyOf(hostChangedAt, capacity);
+            hostLastRound = Arrays.copyOf(hostLastRound, capacity);
+            hostSuspect = Arrays.copyOf(hostSuspect, capacity);
+        }
+        hostIds.put(address, id);
+        hostAddress[id] = address;
+        hostChangedAt[id] = System.currentTimeMillis();
+        return id;
+    }
+
+    /**
+     * Adelanta el sondeo del host a la próxima ronda. Requiere el lock.
+     */
+    private void suspect(int id) {
+        if (hostSuspect[id]) {
+            return;
+        }
+        hostSuspect[id] = true;
+        if (suspectCount == suspects.length) {
+            suspects = Arrays.copyOf(suspects, suspectCount * 2);
+        }
+        suspects[suspectCount++] = id;
+    }
+
+    private void publish(HostTransition transition) {
+        transitions++;
+        log.info("Host {}: {} → {} (tras {} ms)", transition.getIpAddress(), transition.getPreviousState(),
+                transition.getState(), transition.getPreviousStateMs());
+        synchronized (recentTransitions) {
+            recentTransitions.addLast(transition);
+            while (recentTransitions.size() > liveness.getRecentTransitions()) {
+                recentTransitions.removeFirst();
+            }
+        }
+        for (HostStateListener listener : listeners) {
+            try {
+                listener.onHostStateChanged(transition);
+            } catch (RuntimeException e) {
+                log.warn("Error notificando cambio de {} a {}: {}", transition.getIpAddress(),
+                        listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Destinos de nmap para un tramo ordenado: las IPs contiguas se juntan en rangos.
+     */
+    private static String toTargets(long[] addresses, int from, int to) {
+        List<Ipv4Range> ranges = new ArrayList<>();
+        long start = addresses[from];
+        long end = start;
+        for (int i = from + 1; i < to; i++) {
+            if (addresses[i] != end + 1) {
+                ranges.add(new Ipv4Range(start, end));
+                start = addresses[i];
+            }
+            end = addresses[i];
+        }
+        ranges.add(new Ipv4Range(start, end));
+        return Ipv4Range.toNmapTargets(ranges);
+    }
+
+    private static HostState toHostState(byte state) {
+        return state == UP ? HostState.UP : HostState.DOWN;
+    }
+
+    /**
+     * @return false si el thread fue interrumpido
+     */
+    private static boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(Math.max(TimeUnit.MILLISECONDS.toNanos(1), nanos));
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
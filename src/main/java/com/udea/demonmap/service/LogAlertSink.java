@@ -0,0 +1,24 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.AlertMatch;
+import com.udea.demonmap.entity.Port;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Escribe cada coincidencia en el log de la aplicación.
+ */
+@Slf4j
+@Component
+public class LogAlertSink implements AlertSink {
+
+    @Override
+    public void deliver(AlertMatch match) {
+        List<Integer> ports = match.getDevice().getOpenPorts() == null ? List.of()
+                : match.getDevice().getOpenPorts().stream().map(Port::getPortNumber).toList();
+        log.warn("ALERTA [{}] {}: host {} (vendor {}, puertos {})", match.getRuleName(), match.getExpression(),
+                match.getDevice().getIpAddress(), match.getDevice().getVendor(), ports);
+    }
+}
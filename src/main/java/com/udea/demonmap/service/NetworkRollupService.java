@@ -0,0 +1,29 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.dto.NetworkRollupDTO;
+import com.udea.demonmap.dto.SubnetRollupDTO;
+
+import java.util.Optional;
+
+/**
+ * Interfaz de los agregados por subred, puerto y servicio de los hosts vivos.
+ */
+public interface NetworkRollupService {
+
+    /**
+     * Retorna los agregados materializados. Mientras no cambie ningún host se
+     * retorna la misma instancia sin recalcular nada.
+     *
+     * @return Agregados globales, por /24, por puerto y por servicio
+     */
+    NetworkRollupDTO getRollup();
+
+    /**
+     * Agregados de la /24 que contiene una dirección.
+     *
+     * @param address IP dentro de la subred o la subred en notación CIDR
+     * @return Agregados de la subred, vacío si no tiene hosts vivos
+     * @throws IllegalArgumentException si la dirección no es válida
+     */
+    Optional<SubnetRollupDTO> getSubnet(String address);
+}
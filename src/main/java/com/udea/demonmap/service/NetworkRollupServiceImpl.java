@@ -0,0 +1,480 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.dto.NetworkRollupDTO;
+import com.udea.demonmap.dto.PortCountDTO;
+import com.udea.demonmap.dto.ServiceCountDTO;
+import com.udea.demonmap.dto.SubnetRollupDTO;
+import com.udea.demonmap.entity.HostTransition;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.util.IntIntHashMap;
+import com.udea.demonmap.util.Ipv4Range;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Agregados materializados de los hosts vivos: hosts y puertos abiertos por
+ * /24, histograma de puertos y ranking de servicios, global y por subred.
+ *
+ * Los contadores son arreglos de int indexados por ids densos (host, subred,
+ * servicio) o directamente por puerto, y se ajustan con cada NetworkDevice
+ * que llega: primero se descuenta lo que el host aportaba en su escaneo
+ * anterior y luego se suma lo nuevo (un resultado parcial, el seguimiento de
+ * un rezagado, solo suma a lo que el host ya tenía). Un escaneo completo
+ * exitoso da de baja los hosts de su rango que ya no aparecieron, y el
+ * monitoreo de disponibilidad los que da por caídos. La vista que se sirve se arma
+ * una sola vez por versión, así que consultarla sin cambios de por medio es
+ * O(1) sin importar cuántos hosts haya.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NetworkRollupServiceImpl implements NetworkRollupService, ScanResultListener, HostStateListener {
+
+    private static final int MAX_PORT = 65535;
+    private static final int UDP_FLAG = 1 << 16;
+    private static final int[] NONE = new int[0];
+
+    private final NetworkScanConfig scanConfig;
+
+    private final Object lock = new Object();
+
+    // Hosts: IP → id denso; hostPorts[id] == null significa que el host no está vivo
+    private final IntIntHashMap hostIds = new IntIntHashMap(1024);
+    private int[] hostAddress = new int[1024];
+    private int[] hostSubnet = new int[1024];
+    private int[][] hostPorts = new int[1024][];
+    private int[][] hostServices = new int[1024][];
+    private int hostCount;
+
+    // Subredes: prefijo /24 → id denso
+    private final IntIntHashMap subnetIds = new IntIntHashMap(64);
+    private int[] subnetPrefix = new int[64];
+    private int[] subnetHosts = new int[64];
+    private int[] subnetPorts = new int[64];
+    private int[][] subnetServices = new int[64][];
+    private int subnetCount;
+
+    // Servicios: nombre → id denso
+    private final Map<String, Integer> serviceIds = new HashMap<>();
+    private final List<String> serviceNames = new ArrayList<>();
+    private int[] serviceHosts = new int[32];
+
+    // Hosts por puerto; los UDP van desplazados en UDP_FLAG
+    private final int[] portHosts = new int[2 * UDP_FLAG];
+    private int liveHosts;
+    private long openPorts;
+    private LocalDateTime updatedAt;
+
+    // Arranca en el reloj para que un ETag de antes de reiniciar no coincida con la vista nueva
+    private volatile long version = System.currentTimeMillis();
+    private volatile NetworkRollupDTO view;
+
+    @Override
+    public void onDeviceScanned(NetworkDevice device) {
+        // Un host caído o sin respuesta ("unknown") no cuenta como vivo
+        if (device == null || !"up".equals(device.getStatus())) {
+            return;
+        }
+        Entry entry = Entry.of(device);
+        if (entry == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (update(device.isPartial() ? mergeWithLive(entry) : entry)) {
+                changed();
+            }
+        }
+    }
+
+    /**
+     * Aplica el lote completo con una sola toma del lock y un solo cambio de
+     * versión; la normalización de cada host se hace antes, fuera del lock.
+     */
+    @Override
+    public void onDevicesImported(List<NetworkDevice> devices) {
+        List<Entry> entries = new ArrayList<>(devices.size());
+        for (NetworkDevice device : devices) {
+            Entry entry = Entry.of(device);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        synchronized (lock) {
+            boolean changed = false;
+            for (Entry entry : entries) {
+                changed |= update(entry);
+            }
+            if (changed) {
+                changed();
+            }
+        }
+    }
+
+    /**
+     * Da de baja los hosts del rango que no aparecieron en un escaneo completo
+     * exitoso (los rezagados siguen vivos: su resultado llega aparte).
+     */
+    @Override
+    public void onScanCompleted(ScanResult result) {
+        if (result.getStatus() != ScanResult.ScanStatus.SUCCESS || result.getDevices() == null) {
+            return;
+        }
+        Ipv4Range range = Ipv4Range.tryParse(result.getNetworkRange()).orElse(null);
+        if (range == null) {
+            return;
+        }
+        IntIntHashMap seen = new IntIntHashMap(Math.max(16, result.getDevices().size()));
+        for (NetworkDevice device : result.getDevices()) {
+            markSeen(seen, device.getIpAddress());
+        }
+        if (result.getDeferredHosts() != null) {
+            result.getDeferredHosts().forEach(ip -> markSeen(seen, ip));
+        }
+
+        int removed = 0;
+        synchronized (lock) {
+            for (int id = 0; id < hostCount; id++) {
+                int address = hostAddress[id];
+                if (hostPorts[id] != null && range.contains(Integer.toUnsignedLong(address)) && seen.get(address) < 0) {
+                    remove(id);
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                changed();
+            }
+        }
+        if (removed > 0) {
+            log.debug("{} hosts de {} ya no están activos en los agregados", removed, result.getNetworkRange());
+        }
+    }
+
+    /**
+     * Un host caído deja de contar; vuelve con sus puertos en el próximo escaneo.
+     */
+    @Override
+    public void onHostStateChanged(HostTransition transition) {
+        if (transition.getState() != HostTransition.HostState.DOWN) {
+            return;
+        }
+        int address = (int) Ipv4Range.toLong(transition.getIpAddress());
+        synchronized (lock) {
+            int id = hostIds.get(address);
+            if (id >= 0 && hostPorts[id] != null) {
+                remove(id);
+                changed();
+            }
+        }
+    }
+
+    @Override
+    public NetworkRollupDTO getRollup() {
+        NetworkRollupDTO current = view;
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+        synchronized (lock) {
+            if (view == null || view.getVersion() != version) {
+                long start = System.nanoTime();
+                view = buildView();
+                log.trace("Agregados versión {} armados en {} µs", version, (System.nanoTime() - start) / 1_000);
+            }
+            return view;
+        }
+    }
+
+    @Override
+    public Optional<SubnetRollupDTO> getSubnet(String address) {
+        if (address == null) {
+            throw new IllegalArgumentException("La dirección es obligatoria");
+        }
+        int slash = address.indexOf('/');
+        int prefix = (int) (Ipv4Range.toLong(slash >= 0 ? address.substring(0, slash) : address) >>> 8);
+        synchronized (lock) {
+            int subnet = subnetIds.get(prefix);
+            if (subnet < 0 || subnetHosts[subnet] == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(toSubnetDTO(subnet, scanConfig.getRollups().getTopServices()));
+        }
+    }
+
+    /**
+     * Puertos y servicios de un host, normalizados y ordenados para poder
+     * compararlos con su entrada anterior.
+     */
+    private record Entry(int address, int[] ports, String[] services) {
+        static Entry of(NetworkDevice device) {
+            if (device == null || device.getIpAddress() == null) {
+                return null;
+            }
+            int address;
+            try {
+                address = (int) Ipv4Range.toLong(device.getIpAddress());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            if (device.getOpenPorts() == null || device.getOpenPorts().isEmpty()) {
+                return new Entry(address, NONE, new String[0]);
+            }
+            int[] ports = new int[device.getOpenPorts().size()];
+            int count = 0;
+            Set<String> services = new TreeSet<>();
+            for (Port port : device.getOpenPorts()) {
+                Integer number = port.getPortNumber();
+                if (number == null || number < 0 || number > MAX_PORT) {
+                    continue;
+                }
+                ports[count++] = "udp".equalsIgnoreCase(port.getProtocol()) ? number | UDP_FLAG : number;
+                String service = port.getService();
+                if (service != null && !service.isBlank()) {
+                    services.add(service.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            int[] distinct = Arrays.stream(ports, 0, count).sorted().distinct().toArray();
+            return new Entry(address, distinct, services.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Suma un resultado parcial (seguimiento de un rezagado) a la contribución
+     * del host si está vivo, en vez de reemplazarla. Requiere el lock.
+     */
+    private Entry mergeWithLive(Entry entry) {
+        int id = hostIds.get(entry.address());
+        if (id < 0 || hostPorts[id] == null) {
+            return entry;
+        }
+        int[] ports = IntStream.concat(Arrays.stream(hostPorts[id]), Arrays.stream(entry.ports()))
+                .sorted()
+                .distinct()
+                .toArray();
+        Set<String> services = new TreeSet<>(Arrays.asList(entry.services()));
+        for (int service : hostServices[id]) {
+            services.add(serviceNames.get(service));
+        }
+        return new Entry(entry.address(), ports, services.toArray(new String[0]));
+    }
+
+    /**
+     * Reemplaza la contribución del host. Requiere el lock.
+     *
+     * @return false si el host ya estaba vivo con los mismos puertos y servicios
+     */
+    private boolean update(Entry entry) {
+        int id = hostIds.get(entry.address());
+        if (id < 0) {
+            id = addHost(entry.address());
+        }
+        int[] services = serviceIdsOf(entry.services());
+        if (hostPorts[id] != null && Arrays.equals(hostPorts[id], entry.ports())
+                && Arrays.equals(hostServices[id], services)) {
+            return false;
+        }
+        remove(id);
+
+        int subnet = hostSubnet[id];
+        int[] ports = entry.ports();
+        hostPorts[id] = ports;
+        hostServices[id] = services;
+        liveHosts++;
+        openPorts += ports.length;
+        subnetHosts[subnet]++;
+        subnetPorts[subnet] += ports.length;
+        for (int port : ports) {
+            portHosts[port]++;
+        }
+        int[] perSubnet = subnetServices[subnet];
+        if (services.length > 0 && perSubnet.length <= services[services.length - 1]) {
+            perSubnet = Arrays.copyOf(perSubnet, serviceNames.size());
+            subnetServices[subnet] = perSubnet;
+        }
+        for (int service : services) {
+            serviceHosts[service]++;
+            perSubnet[service]++;
+        }
+        return true;
+    }
+
+    /**
+     * Descuenta la contribución del host y lo deja como no vivo. Requiere el lock.
+     */
+    private void remove(int id) {
+        int[] ports = hostPorts[id];
+        if (ports == null) {
+            return;
+        }
+        int subnet = hostSubnet[id];
+        liveHosts--;
+        openPorts -= ports.length;
+        subnetHosts[subnet]--;
+        subnetPorts[subnet] -= ports.length;
+        for (int port : ports) {
+            portHosts[port]--;
+        }
+        for (int service : hostServices[id]) {
+            serviceHosts[service]--;
+            subnetServices[subnet][service]--;
+        }
+        hostPorts[id] = null;
+        hostServices[id] = null;
+    }
+
+    private int addHost(int address) {
+        int id = hostCount++;
+        if (id == hostAddress.length) {
+            int capacity = id * 2;
+            hostAddress = Arrays.copyOf(hostAddress, capacity);
+            hostSubnet = Arrays.copyOf(hostSubnet, capacity);
+            hostPorts = Arrays.copyOf(hostPorts, capacity);
+            hostServices = Arrays.copyOf(hostServices, capacity);
+        }
+        hostIds.put(address, id);
+        hostAddress[id] = address;
+        hostSubnet[id] = subnetOf(address >>> 8);
+        return id;
+    }
+
+    private int subnetOf(int prefix) {
+        int id = subnetIds.get(prefix);
+        if (id >= 0) {
+            return id;
+        }
+        id = subnetCount++;
+        if (id == subnetPrefix.length) {
+            int capacity = id * 2;
+            subnetPrefix = Arrays.copyOf(subnetPrefix, capacity);
+            subnetHosts = Arrays.copyOf(subnetHosts, capacity);
+            subnetPorts = Arrays.copyOf(subnetPorts, capacity);
+            subnetServices = Arrays.copyOf(subnetServices, capacity);
+        }
+        subnetIds.put(prefix, id);
+        subnetPrefix[id] = prefix;
+        subnetServices[id] = NONE;
+        return id;
+    }
+
+    /**
+     * Ids de servicio ordenados, registrando los nombres nuevos. Requiere el lock.
+     */
+    private int[] serviceIdsOf(String[] names) {
+        if (names.length == 0) {
+            return NONE;
+        }
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = serviceIds.computeIfAbsent(names[i], name -> {
+                serviceNames.add(name);
+                if (serviceNames.size() > serviceHosts.length) {
+                    serviceHosts = Arrays.copyOf(serviceHosts, serviceHosts.length * 2);
+                }
+                return serviceNames.size() - 1;
+            });
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private void changed() {
+        updatedAt = LocalDateTime.now();
+        version++;
+    }
+
+    /**
+     * Arma la vista de la versión actual. Requiere el lock; el costo depende
+     * de la cantidad de subredes, puertos y servicios distintos, no de hosts.
+     */
+    private NetworkRollupDTO buildView() {
+        int topServices = scanConfig.getRollups().getTopServices();
+
+        Integer[] subnetOrder = new Integer[subnetCount];
+        int live = 0;
+        for (int id = 0; id < subnetCount; id++) {
+            if (subnetHosts[id] > 0) {
+                subnetOrder[live++] = id;
+            }
+        }
+        Arrays.sort(subnetOrder, 0, live, (a, b) -> Integer.compare(subnetPrefix[a], subnetPrefix[b]));
+        List<SubnetRollupDTO> subnets = new ArrayList<>(live);
+        for (int i = 0; i < live; i++) {
+            subnets.add(toSubnetDTO(subnetOrder[i], topServices));
+        }
+
+        List<PortCountDTO> ports = new ArrayList<>();
+        for (int port = 0; port <= MAX_PORT; port++) {
+            addPort(ports, port, "tcp", portHosts[port]);
+            addPort(ports, port, "udp", portHosts[port | UDP_FLAG]);
+        }
+
+        return NetworkRollupDTO.builder()
+                .version(version)
+                .updatedAt(updatedAt)
+                .liveHosts(liveHosts)
+                .openPorts(openPorts)
+                .subnets(List.copyOf(subnets))
+                .ports(List.copyOf(ports))
+                .topServices(topServices(serviceHosts, topServices))
+                .build();
+    }
+
+    private static void addPort(List<PortCountDTO> ports, int port, String protocol, int hosts) {
+        if (hosts > 0) {
+            ports.add(PortCountDTO.builder().port(port).protocol(protocol).hosts(hosts).build());
+        }
+    }
+
+    private SubnetRollupDTO toSubnetDTO(int subnet, int topServices) {
+        return SubnetRollupDTO.builder()
+                .subnet(Ipv4Range.toIp(Integer.toUnsignedLong(subnetPrefix[subnet]) << 8) + "/24")
+                .liveHosts(subnetHosts[subnet])
+                .openPorts(subnetPorts[subnet])
+                .topServices(topServices(subnetServices[subnet], topServices))
+                .build();
+    }
+
+    /**
+     * Los servicios con más hosts, de mayor a menor y por nombre en caso de empate.
+     */
+    private List<ServiceCountDTO> topServices(int[] counts, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < counts.length && id < serviceNames.size(); id++) {
+            if (counts[id] > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> counts[a] != counts[b]
+                ? Integer.compare(counts[b], counts[a])
+                : serviceNames.get(a).compareTo(serviceNames.get(b)));
+        return ids.stream()
+                .limit(limit)
+                .map(id -> ServiceCountDTO.builder().service(serviceNames.get(id)).hosts(counts[id]).build())
+                .toList();
+    }
+
+    private static void markSeen(IntIntHashMap seen, String ipAddress) {
+        if (ipAddress == null) {
+            return;
+        }
+        try {
+            seen.put((int) Ipv4Range.toLong(ipAddress), 0);
+        } catch (IllegalArgumentException e) {
+            // Una dirección inválida no puede coincidir con un host conocido
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.udea.demonmap.service;
 
+import com.udea.demonmap.entity.BatchScanResult;
+import com.udea.demonmap.entity.InterfaceDiscoveryResult;
+import com.udea.demonmap.entity.LocalSubnet;
 import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanCheckpoint;
 import com.udea.demonmap.entity.ScanResult;
 import com.udea.demonmap.repository.ScanException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -18,9 +23,39 @@ public interface NetworkScanService {
      * @param networkRange Rango de red  (ej: 192.168.1.0/24)
      * @return ScanResult con todos los dispositivos y sus puertos
      * @throws ScanException si hay un error durante el escaneo
+     * @throws com.udea.demonmap.exception.ScanRejectedException si el servicio está saturado
      */
     ScanResult performFullNetworkScan(String networkRange) throws ScanException;
     
+    /**
+     * Escanea un tramo prestado por el coordinador de un escaneo distribuido.
+     * Es un escaneo completo con prioridad de lote y sin journal: si el worker
+     * cae, el coordinador reasigna el tramo en lugar de reanudarlo.
+     *
+     * @param networkRange Tramo a escanear en notación CIDR
+     * @return ScanResult con los dispositivos del tramo
+     * @throws ScanException si hay un error durante el escaneo
+     * @throws com.udea.demonmap.exception.ScanRejectedException si el servicio está saturado
+     */
+    ScanResult performChunkScan(String networkRange) throws ScanException;
+    
+    /**
+     * Reanuda un escaneo completo interrumpido a partir de su journal: no vuelve
+     * a descubrir los bloques ya sondeados ni a escanear los hosts terminados,
+     * y suma sus resultados guardados.
+     *
+     * @param scanId Id del escaneo (ScanResult.scanId o mensaje de error del escaneo original)
+     * @return ScanResult con los dispositivos de ambas ejecuciones
+     * @throws ScanException si hay un error durante el escaneo (el journal se conserva)
+     * @throws IllegalArgumentException si no hay un escaneo interrumpido con ese id
+     */
+    ScanResult resumeFullNetworkScan(String scanId) throws ScanException;
+    
+    /**
+     * @return Escaneos completos interrumpidos que pueden reanudarse
+     */
+    List<ScanCheckpoint> getInterruptedScans();
+    
     /**
      * Realiza un escaneo rápido de la red (solo detecta dispositivos activos).
      * 
@@ -29,6 +64,18 @@ public interface NetworkScanService {
      * @throws ScanException si hay un error durante el escaneo
      */
     ScanResult performQuickScan(String networkRange) throws ScanException;
+    
+    /**
+     * Escanea varios rangos como una sola carga: los rangos solapados se unen,
+     * el descubrimiento se hace en una única pasada y el escaneo de puertos se
+     * reparte por turnos entre los rangos.
+     * 
+     * @param scans Tipo de escaneo (QUICK o FULL) por rango CIDR, en orden de la solicitud
+     * @return Resultado combinado y resultado por rango
+     * @throws ScanException si hay un error durante el escaneo
+     * @throws IllegalArgumentException si algún rango no es un CIDR válido
+     */
+    BatchScanResult performBatchScan(Map<String, ScanType> scans) throws ScanException;
 
     /**
      * Escanea un host específico.
@@ -40,9 +87,28 @@ public interface NetworkScanService {
     NetworkDevice scanSingleHost(String ipAddress) throws ScanException;
     
     /**
-     * Detecta automáticamente el rango de red local.
+     * Detecta automáticamente el rango de red local: la subred real de la
+     * primera interfaz activa.
      * 
      * @return String con el rango de red en notación CIDR
      */
     String detectLocalNetwork();
+    
+    /**
+     * Subredes IPv4 de todas las interfaces activas, con el prefijo real de
+     * cada interfaz. Las subredes contenidas en otra ya listada se omiten.
+     * 
+     * @return Subredes en el orden de las interfaces
+     */
+    List<LocalSubnet> detectLocalSubnets();
+    
+    /**
+     * Descubre los dispositivos activos de todas las subredes locales en
+     * paralelo, cada una por su interfaz. Un dispositivo visto por varias
+     * interfaces se reporta una sola vez.
+     * 
+     * @return Resultado combinado y resultado por subred
+     * @throws ScanException si no hay subredes locales o fallan todas
+     */
+    InterfaceDiscoveryResult performInterfaceDiscovery() throws ScanException;
 }
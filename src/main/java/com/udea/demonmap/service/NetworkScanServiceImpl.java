@@ -1,20 +1,55 @@
 package com.udea.demonmap.service;
 
 import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.BatchScanResult;
+import com.udea.demonmap.entity.InterfaceDiscoveryResult;
+import com.udea.demonmap.entity.LocalSubnet;
 import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.entity.ScanCheckpoint;
 import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.monitoring.ProcessTimeoutEvent;
+import com.udea.demonmap.monitoring.QueueWaitEvent;
+import com.udea.demonmap.monitoring.ScanFinishedEvent;
+import com.udea.demonmap.monitoring.ScanStartedEvent;
+import com.udea.demonmap.monitoring.StragglerEvent;
 import com.udea.demonmap.repository.NetworkScanner;
+import com.udea.demonmap.repository.PortSelection;
 import com.udea.demonmap.repository.ScanException;
+import com.udea.demonmap.repository.UdpProbeEngine;
+import com.udea.demonmap.util.Ipv4Range;
+import com.udea.demonmap.util.SpillingDeviceList;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.net.InetAddress;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementación del servicio de escaneo de red con concurrencia.
@@ -28,19 +63,66 @@ public class NetworkScanServiceImpl implements NetworkScanService {
     private final NetworkScanner networkScanner;
     private final NetworkScanConfig scanConfig;
     private final ExecutorService executorService;
+    private final List<ScanResultListener> scanResultListeners;
+    private final InFlightScanRegistry inFlightScanRegistry;
+    private final ScanAdmissionControl admissionControl;
+    private final ScanPlanner scanPlanner;
+    private final AdaptivePortScanner adaptivePortScanner;
+    private final SplitPortScanner splitPortScanner;
+    private final ScanJournal scanJournal;
+    private final UdpProbeEngine udpProbeEngine;
+    private final ExecutorService discoveryExecutor;
+    private final ThreadPoolExecutor followUpExecutor;
+    
+    /**
+     * Intervalo para revisar hosts rezagados mientras no termina ninguno.
+     */
+    private static final long STRAGGLER_CHECK_MILLIS = 200;
     
     /**
      * Constructor con inyección de dependencias.
      * 
      * @param networkScanner Implementación del escáner (NmapNetworkScanner)
      * @param scanConfig Configuración desde application.properties
+     * @param scanResultListeners Observadores notificados por cada host escaneado
+     * @param inFlightScanRegistry Registro de escaneos en curso para deduplicar rangos solapados
+     * @param scanExecutor Pool de threads con cola acotada (ScanExecutorConfig)
+     * @param admissionControl Control de admisión por tipo de escaneo
+     * @param scanPlanner Orden de descubrimiento por bloques según el historial
+     * @param adaptivePortScanner Escaneo de puertos guiado por el perfil de cada host
+     * @param splitPortScanner Escaneo de un host repartido en tramos de puertos paralelos
+     * @param scanJournal Journal del progreso de los escaneos completos
+     * @param udpProbeEngine Sondeo UDP propio que acompaña al escaneo TCP
+     * @param discoveryExecutor Pool del descubrimiento en paralelo por interfaces
+     * @param followUpExecutor Pool de baja prioridad de los sondeos de seguimiento de rezagados
      */
-    public NetworkScanServiceImpl(NetworkScanner networkScanner, NetworkScanConfig scanConfig) {
+    public NetworkScanServiceImpl(NetworkScanner networkScanner, NetworkScanConfig scanConfig,
+                                  List<ScanResultListener> scanResultListeners,
+                                  InFlightScanRegistry inFlightScanRegistry,
+                                  ExecutorService scanExecutor,
+                                  ScanAdmissionControl admissionControl,
+                                  ScanPlanner scanPlanner,
+                                  AdaptivePortScanner adaptivePortScanner,
+                                  SplitPortScanner splitPortScanner,
+                                  ScanJournal scanJournal,
+                                  UdpProbeEngine udpProbeEngine,
+                                  @Qualifier("discoveryExecutor") ExecutorService discoveryExecutor,
+                                  @Qualifier("followUpExecutor") ThreadPoolExecutor followUpExecutor) {
         this.networkScanner = networkScanner;
         this.scanConfig = scanConfig;
+        this.scanResultListeners = scanResultListeners;
+        this.inFlightScanRegistry = inFlightScanRegistry;
+        this.admissionControl = admissionControl;
+        this.scanPlanner = scanPlanner;
+        this.adaptivePortScanner = adaptivePortScanner;
+        this.splitPortScanner = splitPortScanner;
+        this.scanJournal = scanJournal;
+        this.udpProbeEngine = udpProbeEngine;
+        this.discoveryExecutor = discoveryExecutor;
+        this.followUpExecutor = followUpExecutor;
 
         // Pool threads - Propiedad: network.scan.thread-pool-size
-        this.executorService = Executors.newFixedThreadPool(scanConfig.getThreadPoolSize());
+        this.executorService = scanExecutor;
         
         log.info("NetworkScanService inicializado con {} threads", scanConfig.getThreadPoolSize());
         log.info("Timeout por host: {} segundos", scanConfig.getHostTimeoutSeconds());
@@ -49,17 +131,127 @@ public class NetworkScanServiceImpl implements NetworkScanService {
     
     @Override
     public ScanResult performFullNetworkScan(String networkRange) throws ScanException {
+        try (ScanAdmissionControl.Permit permit = admissionControl.admit(ScanType.FULL);
+             ScanContext.Scope scope = ScanContext.withPriority(ScanPriority.SCHEDULED)) {
+            return recordScan(ScanType.FULL, networkRange,
+                    () -> runFullNetworkScan(networkRange, startCheckpoint(networkRange)));
+        }
+    }
+    
+    @Override
+    public ScanResult performChunkScan(String networkRange) throws ScanException {
+        try (ScanAdmissionControl.Permit permit = admissionControl.admit(ScanType.FULL);
+             ScanContext.Scope scope = ScanContext.withPriority(ScanPriority.BULK)) {
+            return recordScan(ScanType.FULL, networkRange, () -> runFullNetworkScan(networkRange, null));
+        }
+    }
+    
+    @Override
+    public ScanResult resumeFullNetworkScan(String scanId) throws ScanException {
+        try (ScanAdmissionControl.Permit permit = admissionControl.admit(ScanType.FULL);
+             ScanContext.Scope scope = ScanContext.withPriority(ScanPriority.SCHEDULED)) {
+            ScanJournal.Checkpoint checkpoint;
+            try {
+                checkpoint = scanJournal.resume(scanId);
+            } catch (IOException e) {
+                throw new ScanException("No se pudo leer el journal del escaneo " + scanId + ": " + e.getMessage(), e);
+            }
+            return recordScan(ScanType.FULL, checkpoint.getNetworkRange(),
+                    () -> runFullNetworkScan(checkpoint.getNetworkRange(), checkpoint));
+        }
+    }
+    
+    @Override
+    public List<ScanCheckpoint> getInterruptedScans() {
+        return scanJournal.listInterrupted();
+    }
+    
+    /**
+     * Abre el journal de un escaneo completo nuevo. Los rangos con sintaxis
+     * propia de nmap no se registran; sin journal el escaneo sigue igual.
+     */
+    private ScanJournal.Checkpoint startCheckpoint(String networkRange) {
+        if (!scanJournal.isEnabled() || Ipv4Range.tryParse(networkRange).isEmpty()) {
+            return null;
+        }
+        try {
+            return scanJournal.start(networkRange);
+        } catch (IOException e) {
+            log.warn("No se pudo crear el journal de {} ({}): el escaneo no será reanudable",
+                    networkRange, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * @return Directorio de los archivos de derrame (java.io.tmpdir si no se configura)
+     */
+    private Path spillDirectory() {
+        String directory = scanConfig.getSpill().getDirectory();
+        return Path.of(directory == null || directory.isBlank() ? System.getProperty("java.io.tmpdir") : directory);
+    }
+    
+    /**
+     * @param checkpoint Journal del escaneo (null si no se registra). Si viene de
+     *                   una ejecución anterior, se omiten los bloques ya descubiertos
+     *                   y los hosts ya escaneados, y sus resultados se suman al final.
+     */
+    private ScanResult runFullNetworkScan(String networkRange, ScanJournal.Checkpoint checkpoint) throws ScanException {
         log.info("Iniciando escaneo completo de red: {}", networkRange);
         
         LocalDateTime startTime = LocalDateTime.now();
         
+        // Rangos con sintaxis propia de nmap (ej: 10.0.0.1-50) no participan de la deduplicación
+        Ipv4Range range = Ipv4Range.tryParse(networkRange).orElse(null);
+        NetworkScanConfig.Spill spill = scanConfig.getSpill();
+        boolean spillToDisk = spill.isEnabled() && range != null && range.size() > spill.getMemoryThreshold();
+        // Un escaneo que derrama a disco no publica sus hosts: el registro los retendría en memoria
+        InFlightScanRegistry.Registration registration = range != null
+                ? inFlightScanRegistry.register(range, !spillToDisk)
+                : null;
+        List<NetworkDevice> devices = null;
+        
         try {
-            // Paso 1: Detectar hosts activos
-            log.debug("Paso 1: Detectando hosts activos...");
-            List<String> activeHosts = networkScanner.getActiveHosts(networkRange);
-            log.info("Hosts activos detectados: {}", activeHosts.size());
+            Map<String, NetworkDevice> restored = checkpoint != null ? checkpoint.getCompletedDevices() : Map.of();
             
-            if (activeHosts.isEmpty()) {
+            // Paso 1 y 2: Descubrir por bloques (primero los que tuvieron hosts) y enviar
+            // cada host al pool apenas se descubre su bloque
+            Map<String, CompletableFuture<NetworkDevice>> hostScans;
+            if (registration != null) {
+                hostScans = new LinkedHashMap<>();
+                List<Ipv4Range> segments = registration.getOwnSegments();
+                if (checkpoint != null && !checkpoint.getDiscoveredBlocks().isEmpty()) {
+                    // Reanudación: los hosts ya descubiertos van directo al escaneo de puertos
+                    // y solo se descubren los bloques que faltan
+                    List<Ipv4Range> discovered = Ipv4Range.merge(checkpoint.getDiscoveredBlocks());
+                    List<Ipv4Range> ownSegments = segments;
+                    hostScans.putAll(submitHostScans(checkpoint.getPendingHosts().stream()
+                            .filter(ip -> ownSegments.stream().anyMatch(segment -> segment.contains(ip)))
+                            .collect(Collectors.toList())));
+                    segments = segments.stream()
+                            .flatMap(segment -> segment.subtract(discovered).stream())
+                            .collect(Collectors.toList());
+                }
+                hostScans.putAll(discoverAndSubmit(segments, checkpoint));
+            } else {
+                hostScans = new LinkedHashMap<>(submitHostScans(networkScanner.getActiveHosts(networkRange)));
+            }
+            log.info("Hosts activos detectados: {}", hostScans.size() + restored.size());
+            
+            if (registration != null) {
+                registration.publishHosts(new LinkedHashMap<>(hostScans));
+                // Paso 3: Sumar los hosts de escaneos en curso que cubren parte del rango
+                hostScans.putAll(collectSharedHosts(registration));
+            }
+            hostScans.keySet().removeAll(restored.keySet());
+            if (checkpoint != null) {
+                hostScans.values().forEach(future -> future.thenAccept(checkpoint::recordHost));
+            }
+            
+            if (hostScans.isEmpty() && restored.isEmpty()) {
+                if (checkpoint != null) {
+                    checkpoint.complete();
+                }
                 log.warn("No se encontraron hosts activos en la red {}", networkRange);
                 return ScanResult.builder()
                         .networkRange(networkRange)
@@ -72,31 +264,51 @@ public class NetworkScanServiceImpl implements NetworkScanService {
                         .build();
             }
             
-            // Paso 2: Escanear cada host en paralelo para obtener puertos
-            log.debug("Paso 2: Escaneando puertos de {} hosts en paralelo...", activeHosts.size());
-            List<NetworkDevice> devices = scanHostsConcurrently(activeHosts);
+            int submitted = hostScans.size();
+            devices = spillToDisk
+                    ? new SpillingDeviceList(spill.getMemoryThreshold(), spillDirectory())
+                    : new ArrayList<>();
+            devices.addAll(restored.values());
+            CollectedHosts collected = collectDevices(hostScans, devices);
+            if (devices instanceof SpillingDeviceList spillList && spillList.getSpilledCount() > 0) {
+                log.info("Resultado de {}: {} dispositivos en memoria y {} en disco", networkRange,
+                        spillList.size() - spillList.getSpilledCount(), spillList.getSpilledCount());
+            }
+            if (checkpoint != null) {
+                checkpoint.complete();
+            }
             
             LocalDateTime endTime = LocalDateTime.now();
             
             ScanResult result = ScanResult.builder()
+                    .scanId(checkpoint != null ? checkpoint.getScanId() : null)
                     .networkRange(networkRange)
                     .scanStartTime(startTime)
                     .scanEndTime(endTime)
-                    .totalHostsScanned(activeHosts.size())
+                    .totalHostsScanned(submitted + restored.size())
                     .activeHostsFound(devices.size())
                     .devices(devices)
+                    .deferredHosts(collected.deferredHosts)
                     .status(ScanResult.ScanStatus.SUCCESS)
                     .build();
             
             result.calculateDuration();
             
-            log.info("Escaneo completo finalizado. Duración: {} ms, Dispositivos: {}", 
-                    result.getDurationMs(), devices.size());
+            log.info("Escaneo completo finalizado. Duración: {} ms, Dispositivos: {} ({} de una ejecución anterior), Hosts diferidos: {}", 
+                    result.getDurationMs(), devices.size(), restored.size(), collected.deferredHosts.size());
             
+            publishScanCompleted(result);
             return result;
             
         } catch (Exception e) {
             log.error("Error durante el escaneo completo: {}", e.getMessage(), e);
+            if (registration != null) {
+                registration.fail(e);
+            }
+            if (devices instanceof SpillingDeviceList spillList) {
+                // El resultado parcial no se entrega: su archivo de derrame se borra ya
+                spillList.close();
+            }
             
             ScanResult result = ScanResult.builder()
                     .networkRange(networkRange)
@@ -108,108 +320,827 @@ public class NetworkScanServiceImpl implements NetworkScanService {
                     .build();
             
             result.calculateDuration();
+            if (checkpoint != null) {
+                throw new ScanException("Error en escaneo completo (reanudable con id " + checkpoint.getScanId()
+                        + "): " + e.getMessage(), e);
+            }
             throw new ScanException("Error en escaneo completo: " + e.getMessage(), e);
+        } finally {
+            if (checkpoint != null) {
+                // Sin complete() el journal queda en disco para reanudar
+                checkpoint.close();
+            }
+            if (registration != null) {
+                registration.close();
+            }
         }
     }
     
     @Override
     public ScanResult performQuickScan(String networkRange) throws ScanException {
-        log.info("Iniciando escaneo rápido de red: {}", networkRange);
-        return networkScanner.scanNetwork(networkRange);
+        try (ScanAdmissionControl.Permit permit = admissionControl.admit(ScanType.QUICK)) {
+            log.info("Iniciando escaneo rápido de red: {}", networkRange);
+            return recordScan(ScanType.QUICK, networkRange, () -> networkScanner.scanNetwork(networkRange));
+        }
+    }
+    
+    @Override
+    public BatchScanResult performBatchScan(Map<String, ScanType> scans) throws ScanException {
+        if (scans.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicarse al menos un rango");
+        }
+        // Rangos en orden de la solicitud; si un rango se repite, el escaneo completo prevalece
+        Map<Ipv4Range, ScanType> requested = new LinkedHashMap<>();
+        scans.forEach((networkRange, type) -> {
+            if (type == ScanType.HOST) {
+                throw new IllegalArgumentException("Tipo de escaneo no soportado en lotes: " + type);
+            }
+            requested.merge(Ipv4Range.parse(networkRange), type,
+                    (current, other) -> current == ScanType.FULL ? current : other);
+        });
+        
+        ScanType admissionType = requested.containsValue(ScanType.FULL) ? ScanType.FULL : ScanType.QUICK;
+        String label = requested.keySet().stream().map(Ipv4Range::toString).collect(Collectors.joining(" "));
+        try (ScanAdmissionControl.Permit permit = admissionControl.admit(admissionType);
+             ScanContext.Scope scope = ScanContext.withPriority(ScanPriority.BULK)) {
+            log.info("Iniciando escaneo por lotes de {} rangos", requested.size());
+            return recordScan(admissionType, label, () -> runBatchScan(requested), BatchScanResult::getCombined);
+        }
+    }
+    
+    private BatchScanResult runBatchScan(Map<Ipv4Range, ScanType> requested) throws ScanException {
+        LocalDateTime startTime = LocalDateTime.now();
+        
+        List<Ipv4Range> fullRanges = new ArrayList<>();
+        List<Ipv4Range> quickRanges = new ArrayList<>();
+        requested.forEach((range, type) -> (type == ScanType.FULL ? fullRanges : quickRanges).add(range));
+        
+        // Los tramos rápidos ya cubiertos por un rango completo no se descubren dos veces
+        List<Ipv4Range> fullMerged = Ipv4Range.merge(fullRanges);
+        List<Ipv4Range> discoveryTargets = new ArrayList<>();
+        for (Ipv4Range quick : Ipv4Range.merge(quickRanges)) {
+            discoveryTargets.addAll(quick.subtract(fullMerged));
+        }
+        
+        List<InFlightScanRegistry.Registration> registrations = new ArrayList<>();
+        try {
+            for (Ipv4Range range : fullMerged) {
+                InFlightScanRegistry.Registration registration = inFlightScanRegistry.register(range);
+                registrations.add(registration);
+                discoveryTargets.addAll(registration.getOwnSegments());
+            }
+            discoveryTargets = Ipv4Range.merge(discoveryTargets);
+            
+            // Paso 1: Un solo descubrimiento para todos los rangos del lote
+            Map<String, NetworkDevice> discovered = new LinkedHashMap<>();
+            if (!discoveryTargets.isEmpty()) {
+                for (NetworkDevice device : networkScanner.scanNetwork(Ipv4Range.toNmapTargets(discoveryTargets)).getDevices()) {
+                    discovered.put(device.getIpAddress(), device);
+                }
+            }
+            log.info("Lote: {} hosts activos en {} tramos descubiertos", discovered.size(), discoveryTargets.size());
+            
+            // Paso 2: Escaneo de puertos alternando entre rangos para que ninguno espere a los demás
+            List<String> portScanOrder = interleaveByRange(discovered.keySet(), fullRanges);
+            Map<String, CompletableFuture<NetworkDevice>> hostScans = new LinkedHashMap<>(submitHostScans(portScanOrder));
+            for (InFlightScanRegistry.Registration registration : registrations) {
+                registration.publishHosts(new LinkedHashMap<>(hostScans));
+            }
+            for (InFlightScanRegistry.Registration registration : registrations) {
+                hostScans.putAll(collectSharedHosts(registration));
+            }
+            
+            // Dispositivos ordenados por IP; el escaneo de puertos prevalece sobre el descubrimiento
+            CollectedHosts collected = collectDevices(hostScans, new ArrayList<>());
+            NavigableMap<Long, NetworkDevice> scanned = byAddress(collected.devices);
+            NavigableMap<Long, NetworkDevice> all = byAddress(discovered.values());
+            all.putAll(scanned);
+            
+            // Paso 3: Resultado por rango solicitado
+            LocalDateTime endTime = LocalDateTime.now();
+            BatchScanResult batch = BatchScanResult.builder()
+                    .mergedRanges(Ipv4Range.merge(new ArrayList<>(requested.keySet())).stream()
+                            .flatMap(range -> range.toCidrBlocks().stream())
+                            .collect(Collectors.toList()))
+                    .build();
+            for (Map.Entry<Ipv4Range, ScanType> entry : requested.entrySet()) {
+                Ipv4Range range = entry.getKey();
+                NavigableMap<Long, NetworkDevice> source = entry.getValue() == ScanType.FULL ? scanned : all;
+                List<NetworkDevice> devices = new ArrayList<>(source.subMap(range.getStart(), true, range.getEnd(), true).values());
+                ScanResult rangeResult = ScanResult.builder()
+                        .networkRange(range.toString())
+                        .scanStartTime(startTime)
+                        .scanEndTime(endTime)
+                        .totalHostsScanned(devices.size())
+                        .activeHostsFound(devices.size())
+                        .devices(devices)
+                        .deferredHosts(collected.deferredHosts.stream().filter(range::contains).collect(Collectors.toList()))
+                        .status(ScanResult.ScanStatus.SUCCESS)
+                        .build();
+                rangeResult.calculateDuration();
+                batch.getRangeResults().add(rangeResult);
+                batch.getScanTypes().put(range.toString(), entry.getValue().name().toLowerCase());
+                if (entry.getValue() == ScanType.FULL) {
+                    publishScanCompleted(rangeResult);
+                }
+            }
+            
+            ScanResult combined = ScanResult.builder()
+                    .networkRange(String.join(" ", batch.getMergedRanges()))
+                    .scanStartTime(startTime)
+                    .scanEndTime(endTime)
+                    .totalHostsScanned(all.size())
+                    .activeHostsFound(all.size())
+                    .devices(new ArrayList<>(all.values()))
+                    .deferredHosts(collected.deferredHosts)
+                    .status(ScanResult.ScanStatus.SUCCESS)
+                    .build();
+            combined.calculateDuration();
+            batch.setCombined(combined);
+            
+            log.info("Escaneo por lotes finalizado. Duración: {} ms, Dispositivos: {}, Hosts con puertos escaneados: {}",
+                    combined.getDurationMs(), all.size(), scanned.size());
+            return batch;
+            
+        } catch (Exception e) {
+            log.error("Error durante el escaneo por lotes: {}", e.getMessage(), e);
+            registrations.forEach(registration -> registration.fail(e));
+            throw new ScanException("Error en escaneo por lotes: " + e.getMessage(), e);
+        } finally {
+            registrations.forEach(InFlightScanRegistry.Registration::close);
+        }
     }
     
     @Override
     public NetworkDevice scanSingleHost(String ipAddress) throws ScanException {
-        log.info("Escaneando host individual: {}", ipAddress);
-        return networkScanner.scanHost(ipAddress);
+        CompletableFuture<NetworkDevice> scan = null;
+        try (ScanAdmissionControl.Permit permit = admissionControl.admit(ScanType.HOST);
+             ScanContext.Scope scope = ScanContext.withPriority(ScanPriority.INTERACTIVE)) {
+            log.info("Escaneando host individual: {}", ipAddress);
+            // Pasa por el pool con prioridad interactiva: se adelanta a los hosts de escaneos completos en cola.
+            // El escaneo detallado siempre cubre los top N, repartidos en tramos si hay threads libres
+            CompletableFuture<List<Port>> udpPorts = probeUdp(ipAddress);
+            scan = splitPortScanner.scan(ipAddress);
+            NetworkDevice device = scan.get(scanConfig.getHostTimeoutSeconds(), TimeUnit.SECONDS);
+            adaptivePortScanner.record(ipAddress, PortSelection.top(), device);
+            withUdpPorts(device, udpPorts);
+            // Un host que no respondió vuelve con estado "unknown": se informa, pero no se publica como vivo
+            if ("up".equals(device.getStatus())) {
+                publishDevice(device);
+            }
+            return device;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ScanException scanException) {
+                throw scanException;
+            }
+            throw new ScanException("Error al escanear host " + ipAddress + ": " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new ScanException("Timeout escaneando host " + ipAddress + " tras "
+                    + scanConfig.getHostTimeoutSeconds() + " segundos", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScanException("Escaneo de host " + ipAddress + " interrumpido", e);
+        } finally {
+            // Sin respuesta que entregar, los tramos que siguen en cola no ocupan threads del pool
+            if (scan != null && !scan.isDone()) {
+                scan.cancel(false);
+            }
+        }
     }
     
     @Override
     public String detectLocalNetwork() {
+        List<LocalSubnet> subnets = detectLocalSubnets();
+        if (subnets.isEmpty()) {
+            // Default si no se detecta
+            log.warn("No se pudo detectar la red local, usando default: 192.168.1.0/24");
+            return "192.168.1.0/24";
+        }
+        String networkRange = subnets.get(0).getNetworkRange();
+        log.info("Red local detectada: {}", networkRange);
+        return networkRange;
+    }
+    
+    @Override
+    public List<LocalSubnet> detectLocalSubnets() {
+        NetworkScanConfig.Interfaces config = scanConfig.getInterfaces();
+        List<LocalSubnet> candidates = new ArrayList<>();
         try {
             Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-            
-            while (interfaces.hasMoreElements()) {
+            while (interfaces != null && interfaces.hasMoreElements()) {
                 NetworkInterface networkInterface = interfaces.nextElement();
                 
-                // Ignorar interfaces inactivas o loopback
-                if (networkInterface.isLoopback() || !networkInterface.isUp()) {
+                // Ignorar interfaces inactivas, loopback o excluidas por configuración
+                if (networkInterface.isLoopback() || !networkInterface.isUp()
+                        || isExcluded(networkInterface.getName(), config.getExcluded())) {
                     continue;
                 }
                 
-                Enumeration<InetAddress> addresses = networkInterface.getInetAddresses();
-                while (addresses.hasMoreElements()) {
-                    InetAddress address = addresses.nextElement();
-                    
-                    // Solo IPv4
-                    if (address.getAddress().length == 4) {
-                        String ip = address.getHostAddress();
-                        // Convertir a notación CIDR (asumiendo /24 para simplificar)
-                        String networkPrefix = ip.substring(0, ip.lastIndexOf('.')) + ".0/24";
-                        log.info("Red local detectada: {}", networkPrefix);
-                        return networkPrefix;
+                for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                    // Solo IPv4; /31 y /32 no tienen vecinos que descubrir
+                    if (!(interfaceAddress.getAddress() instanceof Inet4Address)
+                            || interfaceAddress.getNetworkPrefixLength() >= 31) {
+                        continue;
+                    }
+                    String ip = interfaceAddress.getAddress().getHostAddress();
+                    int prefixLength = interfaceAddress.getNetworkPrefixLength();
+                    int planned = Math.max(prefixLength, config.getMinPrefixLength());
+                    if (planned != prefixLength) {
+                        log.warn("Subred /{} de {} más ancha que /{}: se descubre solo el bloque de {}",
+                                prefixLength, networkInterface.getName(), planned, ip);
                     }
+                    candidates.add(LocalSubnet.builder()
+                            .interfaceName(networkInterface.getName())
+                            .ipAddress(ip)
+                            .prefixLength(planned)
+                            .networkRange(Ipv4Range.parse(ip + "/" + planned).toString())
+                            .build());
                 }
             }
-            
-            // Default si no se detecta
-            log.warn("No se pudo detectar la red local, usando default: 192.168.1.0/24");
-            return "192.168.1.0/24";
-            
         } catch (Exception e) {
-            log.error("Error detectando red local: {}", e.getMessage(), e);
-            return "192.168.1.0/24";
+            log.error("Error detectando subredes locales: {}", e.getMessage(), e);
+        }
+        
+        // Las subredes contenidas en otra más ancha (o repetidas en varias interfaces) sobran
+        List<LocalSubnet> widestFirst = new ArrayList<>(candidates);
+        widestFirst.sort(Comparator.comparingInt(LocalSubnet::getPrefixLength));
+        List<Ipv4Range> kept = new ArrayList<>();
+        Set<LocalSubnet> redundant = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (LocalSubnet subnet : widestFirst) {
+            Ipv4Range range = Ipv4Range.parse(subnet.getNetworkRange());
+            if (kept.stream().anyMatch(wider -> wider.contains(range.getStart()) && wider.contains(range.getEnd()))) {
+                log.debug("Subred {} de {} ya cubierta por otra interfaz", range, subnet.getInterfaceName());
+                redundant.add(subnet);
+            } else {
+                kept.add(range);
+            }
+        }
+        candidates.removeIf(redundant::contains);
+        return candidates;
+    }
+    
+    private static boolean isExcluded(String interfaceName, List<String> excludedPrefixes) {
+        return excludedPrefixes.stream()
+                .map(String::trim)
+                .anyMatch(prefix -> !prefix.isEmpty() && interfaceName.startsWith(prefix));
+    }
+    
+    @Override
+    public InterfaceDiscoveryResult performInterfaceDiscovery() throws ScanException {
+        List<LocalSubnet> subnets = detectLocalSubnets();
+        if (subnets.isEmpty()) {
+            throw new ScanException("No se detectaron subredes IPv4 en las interfaces locales");
+        }
+        String label = subnets.stream().map(LocalSubnet::getNetworkRange).collect(Collectors.joining(" "));
+        try (ScanAdmissionControl.Permit permit = admissionControl.admit(ScanType.QUICK)) {
+            log.info("Iniciando descubrimiento por {} interfaces: {}", subnets.size(), label);
+            return recordScan(ScanType.QUICK, label, () -> runInterfaceDiscovery(subnets),
+                    InterfaceDiscoveryResult::getCombined);
+        }
+    }
+    
+    private InterfaceDiscoveryResult runInterfaceDiscovery(List<LocalSubnet> subnets) throws ScanException {
+        LocalDateTime startTime = LocalDateTime.now();
+        
+        // Un descubrimiento por interfaz, todos a la vez
+        List<CompletableFuture<ScanResult>> discoveries = subnets.stream()
+                .map(subnet -> CompletableFuture.supplyAsync(() -> discoverSubnet(subnet), discoveryExecutor))
+                .collect(Collectors.toList());
+        List<ScanResult> subnetResults = new ArrayList<>();
+        try {
+            for (CompletableFuture<ScanResult> discovery : discoveries) {
+                subnetResults.add(discovery.get());
+            }
+        } catch (InterruptedException e) {
+            discoveries.forEach(discovery -> discovery.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ScanException("Descubrimiento por interfaces interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new ScanException("Error en el descubrimiento por interfaces: " + e.getCause().getMessage(), e.getCause());
+        }
+        
+        // Un mismo equipo alcanzable por dos interfaces se reporta una vez (por MAC, o por IP si no hay MAC)
+        Map<String, NetworkDevice> unique = new LinkedHashMap<>();
+        int duplicatesRemoved = 0;
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < subnets.size(); i++) {
+            ScanResult result = subnetResults.get(i);
+            if (result.getStatus() == ScanResult.ScanStatus.FAILED) {
+                LocalSubnet subnet = subnets.get(i);
+                errors.add(subnet.getInterfaceName() + " (" + subnet.getNetworkRange() + "): " + result.getErrorMessage());
+                continue;
+            }
+            for (NetworkDevice device : result.getDevices()) {
+                String key = device.getMacAddress() != null && !device.getMacAddress().isEmpty()
+                        ? device.getMacAddress().toUpperCase()
+                        : device.getIpAddress();
+                if (unique.putIfAbsent(key, device) != null) {
+                    duplicatesRemoved++;
+                }
+            }
+        }
+        if (errors.size() == subnets.size()) {
+            throw new ScanException("Falló el descubrimiento en todas las interfaces: " + String.join("; ", errors));
+        }
+        
+        List<NetworkDevice> devices = new ArrayList<>(byAddress(unique.values()).values());
+        ScanResult combined = ScanResult.builder()
+                .networkRange(subnets.stream().map(LocalSubnet::getNetworkRange).collect(Collectors.joining(" ")))
+                .scanStartTime(startTime)
+                .scanEndTime(LocalDateTime.now())
+                .totalHostsScanned(devices.size())
+                .activeHostsFound(devices.size())
+                .devices(devices)
+                .status(errors.isEmpty() ? ScanResult.ScanStatus.SUCCESS : ScanResult.ScanStatus.PARTIAL)
+                .errorMessage(errors.isEmpty() ? null : String.join("; ", errors))
+                .build();
+        combined.calculateDuration();
+        log.info("Descubrimiento por interfaces completado: {} hosts activos, {} duplicados descartados",
+                devices.size(), duplicatesRemoved);
+        
+        return InterfaceDiscoveryResult.builder()
+                .combined(combined)
+                .subnets(subnets)
+                .subnetResults(subnetResults)
+                .duplicatesRemoved(duplicatesRemoved)
+                .build();
+    }
+    
+    /**
+     * Descubre una subred por su interfaz. Un fallo no aborta las demás
+     * subredes: se retorna como resultado FAILED.
+     */
+    private ScanResult discoverSubnet(LocalSubnet subnet) {
+        try {
+            return networkScanner.scanNetwork(subnet.getNetworkRange(), subnet.getInterfaceName());
+        } catch (ScanException e) {
+            log.warn("Falló el descubrimiento de {} por {}: {}",
+                    subnet.getNetworkRange(), subnet.getInterfaceName(), e.getMessage());
+            return ScanResult.builder()
+                    .networkRange(subnet.getNetworkRange())
+                    .totalHostsScanned(0)
+                    .activeHostsFound(0)
+                    .status(ScanResult.ScanStatus.FAILED)
+                    .errorMessage(e.getMessage())
+                    .build();
         }
     }
     
     /**
-     * Escanea múltiples hosts de forma concurrente usando ExecutorService.
+     * Envía el escaneo de múltiples hosts al ExecutorService.
      * Implementa el patrón de concurrencia para mejorar el rendimiento.
      * 
      * @param ipAddresses Lista de IPs a escanear
-     * @return Lista de dispositivos escaneados
+     * @return Futuro del dispositivo escaneado por cada IP
      */
-    private List<NetworkDevice> scanHostsConcurrently(List<String> ipAddresses) {
+    private Map<String, CompletableFuture<NetworkDevice>> submitHostScans(List<String> ipAddresses) {
         log.debug("Escaneando {} hosts concurrentemente con pool de {} threads", 
                 ipAddresses.size(), scanConfig.getThreadPoolSize());
         
-        List<Future<NetworkDevice>> futures = new ArrayList<>();
+        Map<String, CompletableFuture<NetworkDevice>> futures = new LinkedHashMap<>();
         
         // Crear tareas para cada host
+        ScanContext context = ScanContext.current();
         for (String ip : ipAddresses) {
-            Future<NetworkDevice> future = executorService.submit(() -> {
+            QueueWaitEvent queueWait = new QueueWaitEvent();
+            queueWait.begin();
+            HostScanFuture future = new HostScanFuture();
+            executorService.execute(() -> {
+                future.startNanos = System.nanoTime();
+                queueWait.end();
+                if (queueWait.shouldCommit()) {
+                    queueWait.ipAddress = ip;
+                    queueWait.queuedTasks = queuedTasks();
+                    queueWait.priority = context.getPriority().name();
+                    queueWait.clientId = context.getClientId();
+                    queueWait.commit();
+                }
                 try {
                     log.trace("Escaneando host: {}", ip);
-                    return networkScanner.scanHost(ip);
+                    // Las sondas UDP corren en el thread de E/S mientras nmap escanea TCP
+                    CompletableFuture<List<Port>> udpPorts = probeUdp(ip);
+                    // Confirma primero los puertos conocidos; el resto se barre en segundo plano y el
+                    // host completo se publica de nuevo, con sus puertos UDP, cuando termina el barrido
+                    NetworkDevice device = adaptivePortScanner.scan(ip, swept -> {
+                        withUdpPorts(swept, udpPorts);
+                        publishDevice(swept);
+                    });
+                    withUdpPorts(device, udpPorts);
+                    // Notificar apenas termina el host, sin esperar al resto del rango
+                    publishDevice(device);
+                    future.complete(device);
                 } catch (ScanException e) {
                     log.warn("Error escaneando host {}: {}", ip, e.getMessage());
                     // Retornar dispositivo básico en caso de error
-                    return NetworkDevice.builder()
+                    future.complete(NetworkDevice.builder()
                             .ipAddress(ip)
                             .status("error")
                             .openPorts(new ArrayList<>())
-                            .build();
+                            .build());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
                 }
             });
-            futures.add(future);
+            futures.put(ip, future);
+        }
+        return futures;
+    }
+    
+    /**
+     * Inicia el sondeo UDP de un host si está habilitado.
+     */
+    private CompletableFuture<List<Port>> probeUdp(String ipAddress) {
+        return udpProbeEngine.isEnabled()
+                ? udpProbeEngine.probe(ipAddress)
+                : CompletableFuture.completedFuture(List.of());
+    }
+    
+    /**
+     * Agrega al dispositivo los puertos UDP que respondieron. Un fallo del
+     * sondeo UDP no invalida el escaneo TCP del host.
+     */
+    private void withUdpPorts(NetworkDevice device, CompletableFuture<List<Port>> udpPorts) {
+        try {
+            List<Port> ports = udpPorts.get(scanConfig.getHostTimeoutSeconds(), TimeUnit.SECONDS);
+            if (ports.isEmpty() || "error".equals(device.getStatus())) {
+                return;
+            }
+            List<Port> merged = new ArrayList<>(device.getOpenPorts() != null ? device.getOpenPorts() : List.of());
+            merged.addAll(ports);
+            device.setOpenPorts(merged);
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Sondeo UDP de {} sin resultado: {}", device.getIpAddress(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Descubre los tramos en el orden del plan y envía los hosts de cada bloque
+     * al pool sin esperar al resto, de modo que los bloques con más hosts
+     * conocidos empiezan a escanearse primero.
+     *
+     * @param segments Tramos a descubrir
+     * @param checkpoint Journal donde se registra cada bloque descubierto (opcional)
+     * @return Futuro del dispositivo escaneado por cada IP, en orden de envío
+     */
+    private Map<String, CompletableFuture<NetworkDevice>> discoverAndSubmit(List<Ipv4Range> segments,
+            ScanJournal.Checkpoint checkpoint) throws ScanException {
+        Map<String, CompletableFuture<NetworkDevice>> hostScans = new LinkedHashMap<>();
+        for (ScanPlanner.ScanChunk chunk : scanPlanner.plan(segments)) {
+            List<String> discovered = networkScanner.getActiveHosts(chunk.toNmapTargets(), chunk.getDiscoveryProfile());
+            if (checkpoint != null) {
+                checkpoint.recordDiscovered(chunk.getRanges(), discovered);
+            }
+            // Los hosts que ya estaban activos antes van primero dentro del grupo de bloques
+            List<String> ordered = new ArrayList<>(discovered.size());
+            Set<String> pending = new LinkedHashSet<>(discovered);
+            for (String known : chunk.getKnownAliveHosts()) {
+                if (pending.remove(known)) {
+                    ordered.add(known);
+                }
+            }
+            ordered.addAll(pending);
+            log.debug("Bloques {} ({}): {} hosts activos", chunk.toNmapTargets(), chunk.getPriority(), ordered.size());
+            hostScans.putAll(submitHostScans(ordered));
+        }
+        return hostScans;
+    }
+    
+    /**
+     * Obtiene los futuros de los hosts que otros escaneos en curso ya están
+     * sondeando dentro del rango. Si el escaneo dueño falla en su descubrimiento,
+     * el tramo solapado se escanea localmente.
+     */
+    private Map<String, CompletableFuture<NetworkDevice>> collectSharedHosts(
+            InFlightScanRegistry.Registration registration) throws ScanException, InterruptedException {
+        Map<String, CompletableFuture<NetworkDevice>> shared = new LinkedHashMap<>();
+        for (InFlightScanRegistry.Subscription subscription : registration.getSubscriptions()) {
+            try {
+                shared.putAll(subscription.sharedHosts().get());
+            } catch (ExecutionException e) {
+                log.warn("Escaneo compartido de {} no disponible ({}), se escanea localmente",
+                        subscription.getOverlap(), e.getCause().getMessage());
+                List<String> hosts = networkScanner.getActiveHosts(
+                        Ipv4Range.toNmapTargets(List.of(subscription.getOverlap())));
+                shared.putAll(submitHostScans(hosts));
+            }
+        }
+        if (!shared.isEmpty()) {
+            log.info("{} hosts reutilizados de escaneos en curso", shared.size());
         }
+        return shared;
+    }
+    
+    /**
+     * Recolecta los resultados de los escaneos por host.
+     * 
+     * A medida que terminan hosts se calcula un umbral con el percentil de sus
+     * duraciones (network.scan.straggler.*). Un host que sigue en ejecución más
+     * allá del umbral se da por rezagado: el resultado sale sin él y se lanza un
+     * sondeo barato de seguimiento que se publica a los observadores.
+     * 
+     * Con un {@link SpillingDeviceList} como destino los dispositivos se agregan
+     * a medida que terminan y el mapa de futuros se vacía, de modo que ningún
+     * resultado queda retenido en memoria fuera de la lista; con otra lista se
+     * agregan al final en el orden de envío.
+     * 
+     * @param futures Futuro del dispositivo por cada IP
+     * @param devices Lista a la que se agregan los dispositivos escaneados
+     * @return Dispositivos escaneados (la misma lista) y hosts diferidos
+     */
+    private CollectedHosts collectDevices(Map<String, CompletableFuture<NetworkDevice>> futures,
+                                          List<NetworkDevice> devices) {
+        NetworkScanConfig.Straggler straggler = scanConfig.getStraggler();
+        // ⚡ TIMEOUT CONFIGURABLE desde application.properties
+        // Propiedad: network.scan.host-timeout-seconds
+        long hostTimeoutNanos = TimeUnit.SECONDS.toNanos(scanConfig.getHostTimeoutSeconds());
+        long minThresholdNanos = TimeUnit.SECONDS.toNanos(straggler.getMinThresholdSeconds());
+        long collectStart = System.nanoTime();
+        
+        BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+        futures.forEach((ip, future) -> future.whenComplete((device, error) -> completed.offer(ip)));
         
-        // Recolectar resultados
-        List<NetworkDevice> devices = new ArrayList<>();
-        for (Future<NetworkDevice> future : futures) {
+        Map<String, CompletableFuture<NetworkDevice>> pending = new LinkedHashMap<>(futures);
+        boolean streaming = devices instanceof SpillingDeviceList;
+        if (streaming) {
+            futures.clear();
+        }
+        Map<String, NetworkDevice> results = new HashMap<>();
+        List<String> deferred = new ArrayList<>();
+        long[] durations = new long[pending.size()];
+        int samples = 0;
+        long threshold = Long.MAX_VALUE;
+        
+        while (!pending.isEmpty()) {
+            String ip;
             try {
-                // ⚡ TIMEOUT CONFIGURABLE desde application.properties
-                // Propiedad: network.scan.host-timeout-seconds
-                NetworkDevice device = future.get(scanConfig.getHostTimeoutSeconds(), TimeUnit.SECONDS);
-                if (device != null && !"error".equals(device.getStatus())) {
-                    devices.add(device);
+                ip = completed.poll(STRAGGLER_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Recolección interrumpida con {} hosts pendientes", pending.size());
+                break;
+            }
+            
+            boolean newSamples = false;
+            long now = System.nanoTime();
+            for (; ip != null; ip = completed.poll()) {
+                CompletableFuture<NetworkDevice> future = pending.remove(ip);
+                if (future == null) {
+                    continue;
+                }
+                try {
+                    NetworkDevice device = future.join();
+                    if (device != null && !"error".equals(device.getStatus())) {
+                        if (streaming) {
+                            devices.add(device);
+                        } else {
+                            results.put(ip, device);
+                        }
+                    }
+                } catch (CompletionException | CancellationException e) {
+                    log.error("Error obteniendo resultado de escaneo: {}", e.getMessage());
+                }
+                long elapsed = runningNanos(future, now, collectStart);
+                if (elapsed >= 0) {
+                    durations[samples++] = elapsed;
+                    newSamples = true;
+                }
+            }
+            
+            if (straggler.isEnabled() && newSamples && samples >= straggler.getMinSamples()) {
+                long base = percentile(durations, samples, straggler.getPercentile());
+                threshold = Math.max(minThresholdNanos, (long) (base * straggler.getMultiplier()));
+            }
+            
+            Iterator<Map.Entry<String, CompletableFuture<NetworkDevice>>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CompletableFuture<NetworkDevice>> entry = it.next();
+                long elapsed = runningNanos(entry.getValue(), now, collectStart);
+                if (elapsed < 0) {
+                    continue; // Aún en cola
+                }
+                if (elapsed >= hostTimeoutNanos) {
+                    log.error("Timeout escaneando host {} tras {} segundos", entry.getKey(), scanConfig.getHostTimeoutSeconds());
+                    ProcessTimeoutEvent timeoutEvent = new ProcessTimeoutEvent();
+                    timeoutEvent.ipAddress = entry.getKey();
+                    timeoutEvent.timeout = scanConfig.getHostTimeoutSeconds();
+                    timeoutEvent.commit();
+                    it.remove();
+                } else if (elapsed >= threshold && scheduleFollowUp(entry.getKey(), entry.getValue())) {
+                    log.info("Host {} rezagado ({} ms, umbral {} ms): se difiere a un sondeo de seguimiento",
+                            entry.getKey(), elapsed / 1_000_000, threshold / 1_000_000);
+                    StragglerEvent event = new StragglerEvent();
+                    event.ipAddress = entry.getKey();
+                    event.elapsed = elapsed / 1_000_000;
+                    event.threshold = threshold / 1_000_000;
+                    event.samples = samples;
+                    event.commit();
+                    deferred.add(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        
+        futures.keySet().forEach(ip -> {
+            NetworkDevice device = results.get(ip);
+            if (device != null) {
+                devices.add(device);
+            }
+        });
+        log.debug("Escaneo concurrente completado. Dispositivos válidos: {}, diferidos: {}", devices.size(), deferred.size());
+        return new CollectedHosts(devices, deferred);
+    }
+    
+    /**
+     * Sondeo barato de un host rezagado. Su resultado se publica como
+     * actualización, salvo que el escaneo original haya terminado bien antes.
+     * 
+     * Corre en su propio pool y no en el de escaneo, donde el escaneo original
+     * del host sigue ocupando su thread. Solo ve unos pocos puertos, así que se
+     * publica como parcial: los observadores lo suman a lo que ya conocían del
+     * host en vez de reemplazar su último escaneo completo.
+     * 
+     * El escaneo original no se cancela (nmap no se puede interrumpir a mitad
+     * de la salida), pero corre con --host-timeout igual a
+     * network.scan.host-timeout-seconds: los dos se solapan a lo sumo hasta
+     * ese tope. Si el original termina, se publica como cualquier host.
+     *
+     * @return false si el pool de seguimiento está lleno: el host no se difiere
+     */
+    private boolean scheduleFollowUp(String ip, CompletableFuture<NetworkDevice> original) {
+        PortSelection probe = PortSelection.fast(scanConfig.getStraggler().getFollowUpTopPorts());
+        try {
+            followUpExecutor.execute(() -> {
+                try {
+                    NetworkDevice device = networkScanner.scanHost(ip, probe);
+                    adaptivePortScanner.record(ip, probe, device);
+                    NetworkDevice finished = original.getNow(null);
+                    if (finished != null && !"error".equals(finished.getStatus())) {
+                        return;
+                    }
+                    device.setPartial(true);
+                    publishDevice(device);
+                } catch (ScanException e) {
+                    log.warn("Sondeo de seguimiento de {} falló: {}", ip, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Pool de seguimiento lleno, se sigue esperando el escaneo de {}: {}", ip, e.getMessage());
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * @return Tiempo que lleva ejecutándose el escaneo del host, o -1 si sigue en cola.
+     *         Para futuros ajenos (escaneos compartidos) se mide desde el inicio de la recolección.
+     */
+    private static long runningNanos(CompletableFuture<NetworkDevice> future, long now, long collectStart) {
+        if (future instanceof HostScanFuture hostScan) {
+            long start = hostScan.startNanos;
+            return start == 0 ? -1 : now - start;
+        }
+        return now - collectStart;
+    }
+    
+    private static long percentile(long[] values, int count, int percentile) {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, index)];
+    }
+    
+    /**
+     * Futuro del escaneo de un host que conoce cuándo empezó a ejecutarse.
+     */
+    private static final class HostScanFuture extends CompletableFuture<NetworkDevice> {
+        private volatile long startNanos;
+    }
+    
+    private static final class CollectedHosts {
+        private final List<NetworkDevice> devices;
+        private final List<String> deferredHosts;
+        
+        CollectedHosts(List<NetworkDevice> devices, List<String> deferredHosts) {
+            this.devices = devices;
+            this.deferredHosts = deferredHosts;
+        }
+    }
+    
+    /**
+     * Ordena los hosts para el escaneo de puertos tomando uno de cada rango por turno.
+     * Cada host se asigna al primer rango de la solicitud que lo contiene.
+     * 
+     * @param hosts Hosts descubiertos
+     * @param ranges Rangos con escaneo completo, en orden de la solicitud
+     * @return Hosts intercalados entre rangos
+     */
+    private static List<String> interleaveByRange(Collection<String> hosts, List<Ipv4Range> ranges) {
+        List<Deque<String>> queues = new ArrayList<>();
+        ranges.forEach(range -> queues.add(new ArrayDeque<>()));
+        for (String host : hosts) {
+            long address = Ipv4Range.toLong(host);
+            for (int i = 0; i < ranges.size(); i++) {
+                if (ranges.get(i).contains(address)) {
+                    queues.get(i).add(host);
+                    break;
                 }
-            } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                log.error("Error obteniendo resultado de escaneo: {}", e.getMessage());
             }
         }
         
-        log.debug("Escaneo concurrente completado. Dispositivos válidos: {}", devices.size());
-        return devices;
+        List<String> ordered = new ArrayList<>();
+        boolean pending = true;
+        while (pending) {
+            pending = false;
+            for (Deque<String> queue : queues) {
+                String host = queue.poll();
+                if (host != null) {
+                    ordered.add(host);
+                    pending = true;
+                }
+            }
+        }
+        return ordered;
+    }
+    
+    private static NavigableMap<Long, NetworkDevice> byAddress(Collection<NetworkDevice> devices) {
+        NavigableMap<Long, NetworkDevice> sorted = new TreeMap<>();
+        for (NetworkDevice device : devices) {
+            sorted.put(Ipv4Range.toLong(device.getIpAddress()), device);
+        }
+        return sorted;
+    }
+    
+    /**
+     * Ejecuta un escaneo de rango emitiendo los eventos JFR de inicio y fin.
+     */
+    private ScanResult recordScan(ScanType type, String networkRange, ScanAction<ScanResult> action) throws ScanException {
+        return recordScan(type, networkRange, action, result -> result);
+    }
+    
+    /**
+     * Igual que {@link #recordScan(ScanType, String, ScanAction)} para acciones cuyo
+     * resultado contiene un ScanResult resumen (por ejemplo, un lote).
+     */
+    private <T> T recordScan(ScanType type, String networkRange, ScanAction<T> action,
+                             Function<T, ScanResult> summary) throws ScanException {
+        ScanStartedEvent started = new ScanStartedEvent();
+        started.networkRange = networkRange;
+        started.scanType = type.name();
+        started.commit();
+        
+        ScanFinishedEvent finished = new ScanFinishedEvent();
+        finished.begin();
+        finished.networkRange = networkRange;
+        finished.scanType = type.name();
+        try {
+            T value = action.run();
+            ScanResult result = summary.apply(value);
+            finished.hostsScanned = result.getTotalHostsScanned() != null ? result.getTotalHostsScanned() : 0;
+            finished.devicesFound = result.getDevices() != null ? result.getDevices().size() : 0;
+            finished.status = result.getStatus() != null ? result.getStatus().name() : null;
+            return value;
+        } catch (ScanException e) {
+            finished.status = ScanResult.ScanStatus.FAILED.name();
+            throw e;
+        } finally {
+            finished.commit();
+        }
+    }
+    
+    private int queuedTasks() {
+        return executorService instanceof ThreadPoolExecutor pool ? pool.getQueue().size() : -1;
+    }
+    
+    @FunctionalInterface
+    private interface ScanAction<T> {
+        T run() throws ScanException;
+    }
+    
+    /**
+     * Notifica a los observadores un host recién escaneado.
+     * Un fallo en un observador no debe interrumpir el escaneo.
+     */
+    private void publishDevice(NetworkDevice device) {
+        for (ScanResultListener listener : scanResultListeners) {
+            try {
+                listener.onDeviceScanned(device);
+            } catch (RuntimeException e) {
+                log.warn("Error notificando host {} a {}: {}", device.getIpAddress(),
+                        listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+    
+    private void publishScanCompleted(ScanResult result) {
+        for (ScanResultListener listener : scanResultListeners) {
+            try {
+                listener.onScanCompleted(result);
+            } catch (RuntimeException e) {
+                log.warn("Error notificando fin de escaneo a {}: {}",
+                        listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
     }
 }
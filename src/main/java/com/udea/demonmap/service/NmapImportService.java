@@ -0,0 +1,34 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.ImportJob;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interfaz del servicio de importación de archivos de salida de nmap
+ * existentes (-oX y -oG), para consultarlos junto a los escaneos del servicio.
+ */
+public interface NmapImportService {
+
+    /**
+     * Inicia la importación en segundo plano. Los archivos se leen en paralelo
+     * y los hosts activos se entregan por lotes a los índices y al historial.
+     *
+     * @param paths Archivos o directorios relativos al directorio de importación
+     * @return Estado inicial de la importación
+     * @throws IllegalArgumentException si una ruta sale del directorio de importación,
+     *                                  no existe o no contiene archivos importables
+     */
+    ImportJob startImport(List<String> paths);
+
+    /**
+     * @return Estado actual de la importación, o vacío si no existe
+     */
+    Optional<ImportJob> getImport(String id);
+
+    /**
+     * @return Importaciones recientes, las más nuevas primero
+     */
+    List<ImportJob> getImports();
+}
@@ -0,0 +1,302 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.ImportJob;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.repository.NmapArchiveReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Importación en paralelo de archivos de salida de nmap.
+ *
+ * Cada archivo es una tarea del pool de importación; los más grandes se
+ * envían primero para que el último en terminar no sea uno grande que empezó
+ * tarde. Cada tarea lee su archivo en streaming con {@link NmapArchiveReader}
+ * y entrega los hosts a los {@link ScanResultListener} en lotes
+ * (network.scan.imports.batch-size), de modo que los índices toman su lock
+ * una vez por lote y no por host.
+ */
+@Slf4j
+@Service
+public class NmapImportServiceImpl implements NmapImportService {
+
+    private static final int MAX_RETAINED_JOBS = 50;
+    private static final int MAX_ERRORS = 100;
+    private static final Set<String> EXTENSIONS = Set.of(".xml", ".gnmap", ".xml.gz", ".gnmap.gz");
+
+    private final NetworkScanConfig scanConfig;
+    private final ExecutorService importExecutor;
+    private final List<ScanResultListener> scanResultListeners;
+
+    // Importaciones recientes en orden de inicio; se accede con el lock del mapa
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public NmapImportServiceImpl(NetworkScanConfig scanConfig,
+                                 @Qualifier("importExecutor") ExecutorService importExecutor,
+                                 List<ScanResultListener> scanResultListeners) {
+        this.scanConfig = scanConfig;
+        this.importExecutor = importExecutor;
+        this.scanResultListeners = scanResultListeners;
+    }
+
+    @Override
+    public ImportJob startImport(List<String> paths) {
+        List<Path> files = resolveFiles(paths);
+        long totalBytes = 0;
+        for (Path file : files) {
+            totalBytes += sizeOf(file);
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), files.size(), totalBytes);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            Iterator<Job> oldest = jobs.values().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && oldest.hasNext()) {
+                if (oldest.next().isFinished()) {
+                    oldest.remove();
+                }
+            }
+        }
+
+        log.info("Importación {}: {} archivos, {} MB", job.id, files.size(), totalBytes / (1024 * 1024));
+        for (Path file : files) {
+            importExecutor.execute(() -> importFile(job, file));
+        }
+        return job.snapshot();
+    }
+
+    @Override
+    public Optional<ImportJob> getImport(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id)).map(Job::snapshot);
+        }
+    }
+
+    @Override
+    public List<ImportJob> getImports() {
+        List<ImportJob> snapshots = new ArrayList<>();
+        synchronized (jobs) {
+            jobs.values().forEach(job -> snapshots.add(job.snapshot()));
+        }
+        Collections.reverse(snapshots);
+        return snapshots;
+    }
+
+    private void importFile(Job job, Path file) {
+        long mmapThreshold = scanConfig.getImports().getMmapThresholdMb() * 1024L * 1024L;
+        int batchSize = scanConfig.getImports().getBatchSize();
+        List<NetworkDevice> batch = new ArrayList<>(batchSize);
+        try {
+            NmapArchiveReader.Summary summary = NmapArchiveReader.read(file, mmapThreshold, device -> {
+                batch.add(device);
+                if (batch.size() >= batchSize) {
+                    publish(job, batch);
+                    batch.clear();
+                }
+            }, job.bytesRead::add);
+            publish(job, batch);
+            job.hostsRead.add(summary.hostsRead());
+            job.completedFiles.incrementAndGet();
+            log.debug("Importado {} ({}, {} hosts activos de {}){}", file, summary.format(), summary.devicesFound(),
+                    summary.hostsRead(), summary.args() != null ? ": " + summary.args() : "");
+        } catch (IOException | RuntimeException e) {
+            // Los lotes ya entregados quedan en los índices
+            publish(job, batch);
+            job.fail(file, e);
+            log.warn("No se pudo importar {}: {}", file, e.getMessage());
+        } finally {
+            if (job.fileDone()) {
+                ImportJob finished = job.snapshot();
+                log.info("Importación {} terminada: {} archivos ({} con error), {} hosts activos en {} ms "
+                                + "({} MB/s, {} hosts/s)",
+                        job.id, finished.getCompletedFiles(), finished.getFailedFiles(), finished.getDevicesImported(),
+                        finished.getElapsedMs(), finished.getMegabytesPerSecond(), finished.getHostsPerSecond());
+            }
+        }
+    }
+
+    /**
+     * Entrega un lote a los observadores. Un fallo en uno no detiene la importación.
+     */
+    private void publish(Job job, List<NetworkDevice> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<NetworkDevice> devices = List.copyOf(batch);
+        for (ScanResultListener listener : scanResultListeners) {
+            try {
+                listener.onDevicesImported(devices);
+            } catch (RuntimeException e) {
+                log.warn("Error entregando lote importado a {}: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        job.devicesImported.add(devices.size());
+    }
+
+    /**
+     * Resuelve las rutas pedidas dentro del directorio de importación y expande
+     * los directorios. Los archivos se ordenan de mayor a menor tamaño.
+     */
+    private List<Path> resolveFiles(List<String> paths) {
+        Path base;
+        try {
+            base = Path.of(scanConfig.getImports().getBaseDirectory()).toRealPath();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("El directorio de importación no existe: "
+                    + scanConfig.getImports().getBaseDirectory());
+        }
+
+        Set<Path> files = new LinkedHashSet<>();
+        for (String requested : paths) {
+            Path path;
+            try {
+                path = base.resolve(requested).toRealPath();
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalArgumentException("No existe la ruta de importación: " + requested);
+            }
+            if (!path.startsWith(base)) {
+                throw new IllegalArgumentException("La ruta " + requested + " está fuera del directorio de importación");
+            }
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(Files::isRegularFile)
+                            .filter(NmapImportServiceImpl::isImportable)
+                            .forEach(files::add);
+                } catch (IOException | UncheckedIOException e) {
+                    throw new IllegalArgumentException("No se pudo recorrer " + requested + ": " + e.getMessage());
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No se encontraron archivos .xml o .gnmap para importar");
+        }
+        return files.stream()
+                .sorted(Comparator.comparingLong(NmapImportServiceImpl::sizeOf).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isImportable(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Contadores de una importación en curso, actualizados por los threads del pool.
+     */
+    private static final class Job {
+        private final String id;
+        private final int totalFiles;
+        private final long totalBytes;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger completedFiles = new AtomicInteger();
+        private final AtomicInteger failedFiles = new AtomicInteger();
+        private final AtomicInteger pendingFiles;
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder hostsRead = new LongAdder();
+        private final LongAdder devicesImported = new LongAdder();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile long finishNanos;
+        private volatile LocalDateTime finishedAt;
+
+        Job(String id, int totalFiles, long totalBytes) {
+            this.id = id;
+            this.totalFiles = totalFiles;
+            this.totalBytes = totalBytes;
+            this.pendingFiles = new AtomicInteger(totalFiles);
+        }
+
+        void fail(Path file, Exception e) {
+            failedFiles.incrementAndGet();
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(file.getFileName() + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * @return true si era el último archivo pendiente
+         */
+        boolean fileDone() {
+            if (pendingFiles.decrementAndGet() == 0) {
+                finishNanos = System.nanoTime();
+                finishedAt = LocalDateTime.now();
+                return true;
+            }
+            return false;
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        ImportJob snapshot() {
+            long end = isFinished() ? finishNanos : System.nanoTime();
+            double seconds = Math.max(1e-9, (end - startNanos) / 1e9);
+            long bytes = bytesRead.sum();
+            long devices = devicesImported.sum();
+            ImportJob.ImportStatus status = !isFinished() ? ImportJob.ImportStatus.RUNNING
+                    : failedFiles.get() > 0 ? ImportJob.ImportStatus.PARTIAL
+                    : ImportJob.ImportStatus.COMPLETED;
+            List<String> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = new ArrayList<>(errors);
+            }
+            return ImportJob.builder()
+                    .id(id)
+                    .status(status)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .totalFiles(totalFiles)
+                    .completedFiles(completedFiles.get())
+                    .failedFiles(failedFiles.get())
+                    .totalBytes(totalBytes)
+                    .bytesRead(bytes)
+                    .hostsRead(hostsRead.sum())
+                    .devicesImported(devices)
+                    .elapsedMs((end - startNanos) / 1_000_000)
+                    .megabytesPerSecond(round(bytes / (1024.0 * 1024.0) / seconds))
+                    .hostsPerSecond(round(devices / seconds))
+                    .errors(errorsCopy)
+                    .build();
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10) / 10.0;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.exception.ScanRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Control de admisión para los escaneos de la API.
+ *
+ * Limita la concurrencia por tipo de escaneo con semáforos no bloqueantes y
+ * rechaza nuevos escaneos completos cuando la cola del pool supera el umbral
+ * de saturación. El Retry-After sugerido se calcula con la tasa de vaciado de
+ * la cola, medida a partir de las tareas completadas por el pool.
+ */
+@Slf4j
+@Component
+public class ScanAdmissionControl {
+
+    private static final long MIN_RETRY_AFTER_SECONDS = 1;
+    private static final long MAX_RETRY_AFTER_SECONDS = 300;
+
+    /**
+     * Peso de la muestra más reciente en el promedio móvil de la tasa de vaciado.
+     */
+    private static final double DRAIN_RATE_ALPHA = 0.3;
+    private static final long DRAIN_SAMPLE_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final NetworkScanConfig scanConfig;
+    private final ThreadPoolExecutor scanExecutor;
+    private final Map<ScanType, Semaphore> permits = new EnumMap<>(ScanType.class);
+    private final Map<ScanType, Integer> limits = new EnumMap<>(ScanType.class);
+
+    // Estado de la medición de la tasa de vaciado (protegido por this)
+    private long lastSampleNanos = System.nanoTime();
+    private long lastCompletedTasks;
+    private double drainRatePerSecond;
+
+    public ScanAdmissionControl(NetworkScanConfig scanConfig, ThreadPoolExecutor scanExecutor) {
+        this.scanConfig = scanConfig;
+        this.scanExecutor = scanExecutor;
+
+        NetworkScanConfig.Admission admission = scanConfig.getAdmission();
+        limits.put(ScanType.FULL, admission.getMaxConcurrentFullScans());
+        limits.put(ScanType.QUICK, admission.getMaxConcurrentQuickScans());
+        limits.put(ScanType.HOST, admission.getMaxConcurrentHostScans());
+        limits.forEach((type, limit) -> permits.put(type, new Semaphore(limit)));
+
+        log.info("Control de admisión: límites por tipo {}, umbral de saturación {}%",
+                limits, admission.getSaturationThresholdPercent());
+    }
+
+    /**
+     * Admite un escaneo o lo rechaza de inmediato.
+     *
+     * @param type Tipo de escaneo solicitado
+     * @return Permiso que debe cerrarse al terminar el escaneo
+     * @throws ScanRejectedException si se alcanzó el límite del tipo o la cola está saturada
+     */
+    public Permit admit(ScanType type) {
+        // Los escaneos completos son los que llenan la cola del pool
+        if (type == ScanType.FULL && isSaturated()) {
+            long retryAfter = estimateRetryAfterSeconds();
+            log.warn("Escaneo {} rechazado: cola saturada ({} en cola), Retry-After {}s",
+                    type, scanExecutor.getQueue().size(), retryAfter);
+            throw new ScanRejectedException("Servicio saturado: la cola de escaneo supera el "
+                    + scanConfig.getAdmission().getSaturationThresholdPercent() + "% de su capacidad", retryAfter);
+        }
+
+        Semaphore semaphore = permits.get(type);
+        if (!semaphore.tryAcquire()) {
+            long retryAfter = estimateRetryAfterSeconds();
+            log.warn("Escaneo {} rechazado: {} escaneos de este tipo en curso, Retry-After {}s",
+                    type, limits.get(type), retryAfter);
+            throw new ScanRejectedException("Se alcanzó el máximo de " + limits.get(type)
+                    + " escaneos '" + type.name().toLowerCase() + "' concurrentes", retryAfter);
+        }
+        return new Permit(semaphore);
+    }
+
+    /**
+     * @return true si la ocupación de la cola supera el umbral configurado
+     */
+    public boolean isSaturated() {
+        return queueUtilizationPercent() >= scanConfig.getAdmission().getSaturationThresholdPercent();
+    }
+
+    /**
+     * Estado de carga actual, usado por el health check. Incluye los valores
+     * vigentes de la configuración ajustable en caliente.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("activeThreads", scanExecutor.getActiveCount());
+        state.put("poolSize", scanExecutor.getMaximumPoolSize());
+        state.put("liveThreads", scanExecutor.getPoolSize());
+        state.put("hostTimeoutSeconds", scanConfig.getHostTimeoutSeconds());
+        state.put("topPorts", scanConfig.getTopPorts());
+        state.put("queuedHosts", scanExecutor.getQueue().size());
+        state.put("queueCapacity", queueCapacity());
+        state.put("queueUtilizationPercent", queueUtilizationPercent());
+        state.put("drainRatePerSecond", Math.round(currentDrainRate() * 100) / 100.0);
+
+        Map<String, String> inFlight = new LinkedHashMap<>();
+        limits.forEach((type, limit) ->
+                inFlight.put(type.name().toLowerCase(), (limit - permits.get(type).availablePermits()) + "/" + limit));
+        state.put("scansInFlight", inFlight);
+        if (scanExecutor.getQueue() instanceof FairShareScanQueue scheduler) {
+            state.put("scheduler", scheduler.snapshot());
+        }
+        return state;
+    }
+
+    /**
+     * Tiempo estimado para vaciar la cola actual con la tasa de vaciado medida.
+     * Si aún no hay mediciones se usa el timeout por host como estimación.
+     */
+    long estimateRetryAfterSeconds() {
+        double rate = currentDrainRate();
+        int backlog = scanExecutor.getQueue().size() + scanExecutor.getActiveCount();
+        long seconds = rate > 0
+                ? (long) Math.ceil(backlog / rate)
+                : scanConfig.getHostTimeoutSeconds();
+        return Math.max(MIN_RETRY_AFTER_SECONDS, Math.min(MAX_RETRY_AFTER_SECONDS, seconds));
+    }
+
+    private int queueCapacity() {
+        return scanExecutor.getQueue().size() + scanExecutor.getQueue().remainingCapacity();
+    }
+
+    private int queueUtilizationPercent() {
+        int capacity = queueCapacity();
+        return capacity == 0 ? 0 : (int) (scanExecutor.getQueue().size() * 100L / capacity);
+    }
+
+    /**
+     * Actualiza (como mucho una vez por segundo) el promedio móvil exponencial
+     * de tareas completadas por segundo y lo retorna.
+     */
+    private synchronized double currentDrainRate() {
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed >= DRAIN_SAMPLE_INTERVAL_NANOS) {
+            long completed = scanExecutor.getCompletedTaskCount();
+            double sample = (completed - lastCompletedTasks) * 1_000_000_000.0 / elapsed;
+            drainRatePerSecond = drainRatePerSecond == 0
+                    ? sample
+                    : DRAIN_RATE_ALPHA * sample + (1 - DRAIN_RATE_ALPHA) * drainRatePerSecond;
+            lastCompletedTasks = completed;
+            lastSampleNanos = now;
+        }
+        return drainRatePerSecond;
+    }
+
+    /**
+     * Permiso de ejecución de un escaneo admitido.
+     */
+    public static final class Permit implements AutoCloseable {
+        private final Semaphore semaphore;
+        private boolean released;
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.udea.demonmap.service;
+
+/**
+ * Tipos de cambio que reporta la comparación de dos escaneos.
+ */
+public enum ScanChangeType {
+    HOST_ADDED,      // Host activo solo en el escaneo nuevo
+    HOST_REMOVED,    // Host activo solo en el escaneo anterior
+    PORT_OPENED,
+    PORT_CLOSED,
+    MAC_CHANGED,
+    VENDOR_CHANGED,
+    OS_CHANGED
+}
@@ -0,0 +1,96 @@
+package com.udea.demonmap.service;
+
+/**
+ * Cliente y clase de prioridad de la petición en curso.
+ *
+ * Se guarda en un ThreadLocal del thread que atiende la petición: el filtro
+ * ScanClientFilter lo abre con lo que declara el cliente y el servicio fija la
+ * prioridad propia de cada operación. FairShareScanQueue lo lee al encolar
+ * cada tarea, de modo que las tareas de un escaneo heredan cliente y prioridad.
+ */
+public final class ScanContext {
+
+    public static final String ANONYMOUS_CLIENT = "anonymous";
+
+    private static final ThreadLocal<ScanContext> CURRENT = new ThreadLocal<>();
+    private static final ScanContext DEFAULT = new ScanContext(ANONYMOUS_CLIENT, null, ScanPriority.SCHEDULED);
+
+    private final String clientId;
+    private final ScanPriority requestedPriority;
+    private final ScanPriority priority;
+
+    private ScanContext(String clientId, ScanPriority requestedPriority, ScanPriority priority) {
+        this.clientId = clientId;
+        this.requestedPriority = requestedPriority;
+        this.priority = priority;
+    }
+
+    /**
+     * @return Contexto del thread actual, o uno anónimo con prioridad SCHEDULED
+     */
+    public static ScanContext current() {
+        ScanContext context = CURRENT.get();
+        return context != null ? context : DEFAULT;
+    }
+
+    /**
+     * Abre el contexto de una petición.
+     *
+     * @param clientId Identificador del cliente
+     * @param requestedPriority Prioridad pedida por el cliente (opcional)
+     */
+    public static Scope open(String clientId, ScanPriority requestedPriority) {
+        String client = clientId == null || clientId.isBlank() ? ANONYMOUS_CLIENT : clientId;
+        return enter(new ScanContext(client, requestedPriority,
+                requestedPriority != null ? requestedPriority : ScanPriority.SCHEDULED));
+    }
+
+    /**
+     * Fija la prioridad de una operación. El cliente solo puede pedir una
+     * prioridad menor que la propia de la operación, nunca una mayor.
+     *
+     * @param operationPriority Prioridad que corresponde a la operación
+     */
+    public static Scope withPriority(ScanPriority operationPriority) {
+        ScanContext current = current();
+        ScanPriority requested = current.requestedPriority;
+        ScanPriority effective = requested != null && requested.ordinal() > operationPriority.ordinal()
+                ? requested
+                : operationPriority;
+        return enter(new ScanContext(current.clientId, requested, effective));
+    }
+
+    private static Scope enter(ScanContext context) {
+        ScanContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return new Scope(previous);
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public ScanPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Alcance de un contexto; al cerrarse restaura el anterior.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final ScanContext previous;
+
+        private Scope(ScanContext previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
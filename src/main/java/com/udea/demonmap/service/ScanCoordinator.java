@@ -0,0 +1,508 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.ClusterWorker;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.repository.ScanException;
+import com.udea.demonmap.util.Ipv4Range;
+import com.udea.demonmap.util.SpillingDeviceList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Coordinador de escaneos distribuidos.
+ *
+ * Corta cada rango en tramos alineados (network.scan.cluster.chunk-prefix-length)
+ * y los presta a los workers que los piden: el reparto es por demanda, así
+ * que un worker más rápido o menos cargado simplemente pide más seguido. Los
+ * leases de un worker vencen juntos cuando deja de enviar heartbeats por más
+ * de network.scan.cluster.lease-timeout-ms; sus tramos vuelven al frente de la
+ * cola. Un tramo que falla se reintenta hasta max-chunk-attempts veces y
+ * después el escaneo termina PARTIAL con el tramo informado; un tramo que el
+ * worker devuelve por estar ocupado vuelve a la cola sin gastar un intento.
+ *
+ * Los dispositivos de cada tramo se suman al resultado a medida que llegan
+ * (derramando a disco en rangos grandes, como un escaneo completo local) y se
+ * entregan a los {@link ScanResultListener} como lote: las alertas se evalúan
+ * en el worker que escaneó el host.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "network.scan.cluster", name = "coordinator-enabled", havingValue = "true")
+public class ScanCoordinator {
+
+    /**
+     * Intervalo para revisar workers vencidos mientras un escaneo espera.
+     */
+    private static final long REAP_INTERVAL_MILLIS = 200;
+
+    /**
+     * Tramos fallidos que se detallan en el mensaje de error del resultado.
+     */
+    private static final int MAX_REPORTED_FAILURES = 10;
+
+    private final NetworkScanConfig scanConfig;
+    private final List<ScanResultListener> scanResultListeners;
+
+    private final Map<String, Worker> workers = new LinkedHashMap<>();
+    private final Map<String, Lease> leases = new HashMap<>();
+    private final Deque<Chunk> pending = new ArrayDeque<>();
+
+    public ScanCoordinator(NetworkScanConfig scanConfig, List<ScanResultListener> scanResultListeners) {
+        this.scanConfig = scanConfig;
+        this.scanResultListeners = scanResultListeners;
+        log.info("Coordinador de escaneo distribuido habilitado: tramos /{}, leases de {} ms",
+                scanConfig.getCluster().getChunkPrefixLength(), scanConfig.getCluster().getLeaseTimeoutMs());
+    }
+
+    /**
+     * Tramo prestado a un worker.
+     */
+    public record ChunkLease(String leaseId, String scanId, String networkRange, int attempt) {
+    }
+
+    /**
+     * Registra un worker.
+     *
+     * @return Id del worker, a usar en heartbeats y pedidos de tramos
+     */
+    public synchronized String register(String name, int slots) {
+        Worker worker = new Worker(UUID.randomUUID().toString(), name, slots);
+        workers.put(worker.id, worker);
+        log.info("Worker registrado: {} ({}, {} tramos a la vez)", worker.id, name, slots);
+        notifyAll();
+        return worker.id;
+    }
+
+    /**
+     * Renueva el worker y todos sus leases.
+     *
+     * @return false si el worker no está registrado (venció o el coordinador se reinició)
+     */
+    public synchronized boolean heartbeat(String workerId) {
+        long now = System.nanoTime();
+        reapExpired(now);
+        Worker worker = workers.get(workerId);
+        if (worker == null) {
+            return false;
+        }
+        worker.lastSeenNanos = now;
+        worker.lastHeartbeat = LocalDateTime.now();
+        return true;
+    }
+
+    /**
+     * Presta el próximo tramo pendiente. Si no hay ninguno espera hasta
+     * network.scan.cluster.poll-timeout-ms a que aparezca uno.
+     *
+     * @return Tramo prestado, o vacío si no hubo trabajo o el worker no está registrado
+     */
+    public synchronized Optional<ChunkLease> lease(String workerId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(scanConfig.getCluster().getPollTimeoutMs());
+        while (true) {
+            long now = System.nanoTime();
+            reapExpired(now);
+            Worker worker = workers.get(workerId);
+            if (worker == null) {
+                return Optional.empty();
+            }
+            // Pedir trabajo también cuenta como señal de vida
+            worker.lastSeenNanos = now;
+            Chunk chunk = pending.poll();
+            if (chunk != null) {
+                chunk.attempts++;
+                Lease lease = new Lease(UUID.randomUUID().toString(), chunk, worker);
+                leases.put(lease.id, lease);
+                worker.leases.add(lease);
+                return Optional.of(new ChunkLease(lease.id, chunk.job.id, chunk.range.toString(), chunk.attempts));
+            }
+            long remaining = deadline - now;
+            if (remaining <= 0) {
+                return Optional.empty();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    /**
+     * Recibe el resultado de un tramo. Si el tramo ya se había completado por
+     * otro lease, el resultado se descarta.
+     *
+     * @return false si el lease no existe (venció y el tramo se reasignó)
+     */
+    public boolean complete(String leaseId, ScanResult chunkResult) {
+        Lease lease;
+        synchronized (this) {
+            lease = leases.remove(leaseId);
+            if (lease == null) {
+                return false;
+            }
+            lease.worker.leases.remove(lease);
+            if (lease.chunk.done || lease.chunk.job.finished) {
+                return true;
+            }
+            lease.chunk.done = true;
+        }
+
+        // Agregar y notificar fuera del monitor: un derrame a disco no frena a los demás workers
+        List<NetworkDevice> devices = chunkResult.getDevices() != null ? chunkResult.getDevices() : List.of();
+        Job job = lease.chunk.job;
+        if (!job.addDevices(devices)) {
+            log.debug("Resultado del tramo {} descartado: el escaneo {} ya terminó", lease.chunk.range, job.id);
+            return true;
+        }
+        publishDevices(devices);
+
+        synchronized (this) {
+            job.totalHostsScanned += chunkResult.getTotalHostsScanned() != null ? chunkResult.getTotalHostsScanned() : 0;
+            if (chunkResult.getDeferredHosts() != null) {
+                job.deferredHosts.addAll(chunkResult.getDeferredHosts());
+            }
+            lease.worker.chunksCompleted++;
+            lease.worker.devicesFound += devices.size();
+            job.remaining--;
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Registra el fallo de un tramo y lo devuelve a la cola si le quedan intentos.
+     *
+     * @return false si el lease no existe
+     */
+    public synchronized boolean fail(String leaseId, String reason) {
+        Lease lease = leases.remove(leaseId);
+        if (lease == null) {
+            return false;
+        }
+        lease.worker.leases.remove(lease);
+        lease.worker.chunksFailed++;
+        log.warn("Tramo {} falló en el worker {} (intento {}): {}",
+                lease.chunk.range, lease.worker.name, lease.chunk.attempts, reason);
+        retryOrFail(lease.chunk, reason);
+        return true;
+    }
+
+    /**
+     * Devuelve un tramo que el worker no pudo empezar por estar ocupado. No es
+     * un fallo: el intento no se cuenta y el tramo vuelve al frente de la cola
+     * para que lo tome otro worker (o el mismo cuando se libere).
+     *
+     * @return false si el lease no existe
+     */
+    public synchronized boolean returnLease(String leaseId) {
+        Lease lease = leases.remove(leaseId);
+        if (lease == null) {
+            return false;
+        }
+        lease.worker.leases.remove(lease);
+        Chunk chunk = lease.chunk;
+        chunk.attempts--;
+        if (!chunk.done && !chunk.job.finished) {
+            pending.addFirst(chunk);
+            notifyAll();
+        }
+        log.debug("Worker {} devolvió el tramo {} por estar ocupado", lease.worker.name, chunk.range);
+        return true;
+    }
+
+    /**
+     * Escanea un rango repartiéndolo entre los workers registrados y espera
+     * a que terminen todos los tramos.
+     *
+     * @param networkRange Rango en notación CIDR
+     * @return Resultado combinado; PARTIAL si algún tramo agotó sus intentos
+     * @throws ScanException si no hay workers o ningún tramo pudo escanearse
+     * @throws IllegalArgumentException si el rango no es un CIDR válido
+     */
+    public ScanResult scan(String networkRange) throws ScanException {
+        Ipv4Range range = Ipv4Range.parse(networkRange);
+        NetworkScanConfig.Spill spill = scanConfig.getSpill();
+        List<NetworkDevice> devices = spill.isEnabled() && range.size() > spill.getMemoryThreshold()
+                ? new SpillingDeviceList(spill.getMemoryThreshold(), spillDirectory())
+                : Collections.synchronizedList(new ArrayList<>());
+        Job job = new Job(UUID.randomUUID().toString(), devices);
+        LocalDateTime startTime = LocalDateTime.now();
+
+        List<Ipv4Range> blocks = range.split(scanConfig.getCluster().getChunkPrefixLength());
+        int workerCount;
+        synchronized (this) {
+            reapExpired(System.nanoTime());
+            if (workers.isEmpty()) {
+                job.release();
+                throw new ScanException("No hay workers registrados en el coordinador");
+            }
+            workerCount = workers.size();
+            for (Ipv4Range block : blocks) {
+                pending.add(new Chunk(job, block));
+            }
+            job.remaining = blocks.size();
+            notifyAll();
+        }
+        log.info("Escaneo distribuido {} de {}: {} tramos entre {} workers",
+                job.id, networkRange, blocks.size(), workerCount);
+
+        try {
+            synchronized (this) {
+                while (job.remaining > 0) {
+                    wait(REAP_INTERVAL_MILLIS);
+                    reapExpired(System.nanoTime());
+                    if (workers.isEmpty()) {
+                        failPending(job, "no quedan workers registrados");
+                    }
+                }
+                job.finished = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                job.finished = true;
+                pending.removeIf(chunk -> chunk.job == job);
+            }
+            job.release();
+            throw new ScanException("Escaneo distribuido de " + networkRange + " interrumpido", e);
+        }
+
+        List<String> failed = job.failedChunks;
+        if (failed.size() == blocks.size()) {
+            job.release();
+            throw new ScanException("Escaneo distribuido de " + networkRange + " fallido: " + summarize(failed));
+        }
+        ScanResult result = ScanResult.builder()
+                .scanId(job.id)
+                .networkRange(networkRange)
+                .scanStartTime(startTime)
+                .scanEndTime(LocalDateTime.now())
+                .totalHostsScanned(job.totalHostsScanned)
+                .activeHostsFound(devices.size())
+                .devices(devices)
+                .deferredHosts(new ArrayList<>(job.deferredHosts))
+                .status(failed.isEmpty() ? ScanResult.ScanStatus.SUCCESS : ScanResult.ScanStatus.PARTIAL)
+                .errorMessage(failed.isEmpty() ? null
+                        : failed.size() + " de " + blocks.size() + " tramos sin escanear: " + summarize(failed))
+                .build();
+        result.calculateDuration();
+
+        log.info("Escaneo distribuido {} finalizado. Duración: {} ms, Dispositivos: {}, Tramos fallidos: {}",
+                job.id, result.getDurationMs(), devices.size(), failed.size());
+        publishScanCompleted(result);
+        return result;
+    }
+
+    /**
+     * @return Foto de los workers registrados
+     */
+    public synchronized List<ClusterWorker> getWorkers() {
+        reapExpired(System.nanoTime());
+        return workers.values().stream()
+                .map(worker -> ClusterWorker.builder()
+                        .workerId(worker.id)
+                        .name(worker.name)
+                        .slots(worker.slots)
+                        .registeredAt(worker.registeredAt)
+                        .lastHeartbeat(worker.lastHeartbeat)
+                        .leasedRanges(worker.leases.stream()
+                                .map(lease -> lease.chunk.range.toString())
+                                .collect(Collectors.toList()))
+                        .chunksCompleted(worker.chunksCompleted)
+                        .chunksFailed(worker.chunksFailed)
+                        .devicesFound(worker.devicesFound)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Da de baja a los workers sin heartbeat y devuelve sus tramos a la cola.
+     */
+    private void reapExpired(long now) {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(scanConfig.getCluster().getLeaseTimeoutMs());
+        Iterator<Worker> it = workers.values().iterator();
+        while (it.hasNext()) {
+            Worker worker = it.next();
+            if (now - worker.lastSeenNanos <= timeoutNanos) {
+                continue;
+            }
+            it.remove();
+            log.warn("Worker {} ({}) sin heartbeat por más de {} ms: se reasignan {} tramos",
+                    worker.id, worker.name, scanConfig.getCluster().getLeaseTimeoutMs(), worker.leases.size());
+            for (Lease lease : worker.leases) {
+                leases.remove(lease.id);
+                retryOrFail(lease.chunk, "el worker " + worker.name + " dejó de responder");
+            }
+            worker.leases.clear();
+        }
+    }
+
+    private void retryOrFail(Chunk chunk, String reason) {
+        if (chunk.done || chunk.job.finished) {
+            return;
+        }
+        if (chunk.attempts >= scanConfig.getCluster().getMaxChunkAttempts()) {
+            failChunk(chunk, reason);
+        } else {
+            pending.addFirst(chunk);
+        }
+        notifyAll();
+    }
+
+    private void failPending(Job job, String reason) {
+        Iterator<Chunk> it = pending.iterator();
+        while (it.hasNext()) {
+            Chunk chunk = it.next();
+            if (chunk.job == job) {
+                it.remove();
+                failChunk(chunk, reason);
+            }
+        }
+    }
+
+    private void failChunk(Chunk chunk, String reason) {
+        chunk.done = true;
+        chunk.job.failedChunks.add(chunk.range + " (" + reason + ")");
+        chunk.job.remaining--;
+    }
+
+    private static String summarize(List<String> failed) {
+        String shown = failed.stream().limit(MAX_REPORTED_FAILURES).collect(Collectors.joining(", "));
+        return failed.size() > MAX_REPORTED_FAILURES ? shown + ", ..." : shown;
+    }
+
+    /**
+     * @return Directorio de los archivos de derrame (java.io.tmpdir si no se configura)
+     */
+    private Path spillDirectory() {
+        String directory = scanConfig.getSpill().getDirectory();
+        return Path.of(directory == null || directory.isBlank() ? System.getProperty("java.io.tmpdir") : directory);
+    }
+
+    private void publishDevices(List<NetworkDevice> devices) {
+        if (devices.isEmpty()) {
+            return;
+        }
+        for (ScanResultListener listener : scanResultListeners) {
+            try {
+                listener.onDevicesImported(devices);
+            } catch (RuntimeException e) {
+                log.warn("Error notificando {} hosts a {}: {}", devices.size(),
+                        listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private void publishScanCompleted(ScanResult result) {
+        for (ScanResultListener listener : scanResultListeners) {
+            try {
+                listener.onScanCompleted(result);
+            } catch (RuntimeException e) {
+                log.warn("Error notificando fin de escaneo a {}: {}",
+                        listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private static final class Worker {
+        private final String id;
+        private final String name;
+        private final int slots;
+        private final LocalDateTime registeredAt = LocalDateTime.now();
+        private final Set<Lease> leases = new LinkedHashSet<>();
+        private long lastSeenNanos = System.nanoTime();
+        private LocalDateTime lastHeartbeat = registeredAt;
+        private long chunksCompleted;
+        private long chunksFailed;
+        private long devicesFound;
+
+        Worker(String id, String name, int slots) {
+            this.id = id;
+            this.name = name;
+            this.slots = slots;
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final List<NetworkDevice> devices;
+        private final List<String> deferredHosts = new ArrayList<>();
+        private final List<String> failedChunks = new ArrayList<>();
+        private int remaining;
+        private int totalHostsScanned;
+        private boolean finished;
+        // Con el lock del job, no el del coordinador
+        private boolean released;
+
+        Job(String id, List<NetworkDevice> devices) {
+            this.id = id;
+            this.devices = devices;
+        }
+
+        /**
+         * Suma los dispositivos de un tramo, salvo que el escaneo ya haya
+         * liberado su lista.
+         *
+         * @return false si el resultado llegó tarde y se descartó
+         */
+        synchronized boolean addDevices(List<NetworkDevice> chunkDevices) {
+            if (released) {
+                return false;
+            }
+            devices.addAll(chunkDevices);
+            return true;
+        }
+
+        /**
+         * Borra el archivo de derrame de un escaneo que no entrega resultado.
+         * Los tramos que terminen después se descartan.
+         */
+        synchronized void release() {
+            released = true;
+            if (devices instanceof SpillingDeviceList spilled) {
+                spilled.close();
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private final Job job;
+        private final Ipv4Range range;
+        private int attempts;
+        private boolean done;
+
+        Chunk(Job job, Ipv4Range range) {
+            this.job = job;
+            this.range = range;
+        }
+    }
+
+    private static final class Lease {
+        private final String id;
+        private final Chunk chunk;
+        private final Worker worker;
+
+        Lease(String id, Chunk chunk, Worker worker) {
+            this.id = id;
+            this.chunk = chunk;
+            this.worker = worker;
+        }
+    }
+}
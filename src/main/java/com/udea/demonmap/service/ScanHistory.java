@@ -0,0 +1,152 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.util.Ipv4Range;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historial de actividad por bloque /24 construido a partir de escaneos anteriores.
+ *
+ * Por cada bloque guarda un mapa de 256 bits con los hosts vistos activos,
+ * cuántas veces se escaneó completo y cuántos hosts tuvo en el último escaneo.
+ * El planificador lo usa para priorizar bloques densos y degradar los vacíos.
+ */
+@Component
+public class ScanHistory implements ScanResultListener {
+
+    private static final int BLOCK_SHIFT = 8;            // bloques /24
+    private static final long MAX_BLOCKS_PER_RESULT = 65_536; // hasta una /8 por resultado
+
+    private final Map<Long, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * Estado de un bloque /24. Los accesos se sincronizan sobre la instancia.
+     */
+    private static final class Block {
+        private final long[] seenAlive = new long[4];
+        private int completedScans;
+        private int lastAliveCount;
+    }
+
+    @Override
+    public void onDeviceScanned(NetworkDevice device) {
+        if (device == null || device.getIpAddress() == null || "error".equals(device.getStatus())) {
+            return;
+        }
+        long address;
+        try {
+            address = Ipv4Range.toLong(device.getIpAddress());
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        Block block = blocks.computeIfAbsent(address >>> BLOCK_SHIFT, key -> new Block());
+        int host = (int) (address & 0xFF);
+        synchronized (block) {
+            block.seenAlive[host >>> 6] |= 1L << host;
+        }
+    }
+
+    @Override
+    public void onScanCompleted(ScanResult result) {
+        Ipv4Range range = Ipv4Range.tryParse(result.getNetworkRange()).orElse(null);
+        if (range == null) {
+            return;
+        }
+        long firstBlock = range.getStart() >>> BLOCK_SHIFT;
+        long lastBlock = range.getEnd() >>> BLOCK_SHIFT;
+        if (lastBlock - firstBlock + 1 > MAX_BLOCKS_PER_RESULT) {
+            return;
+        }
+
+        // Hosts activos encontrados por bloque en este escaneo
+        Map<Long, Integer> aliveByBlock = new HashMap<>();
+        if (result.getDevices() != null) {
+            for (NetworkDevice device : result.getDevices()) {
+                Ipv4Range.tryParse(device.getIpAddress()).ifPresent(ip ->
+                        aliveByBlock.merge(ip.getStart() >>> BLOCK_SHIFT, 1, Integer::sum));
+            }
+        }
+
+        for (long blockId = firstBlock; blockId <= lastBlock; blockId++) {
+            // Solo cuentan como escaneo completo los bloques cubiertos enteros
+            long blockStart = blockId << BLOCK_SHIFT;
+            if (blockStart < range.getStart() || blockStart + 255 > range.getEnd()) {
+                continue;
+            }
+            Block block = blocks.computeIfAbsent(blockId, key -> new Block());
+            synchronized (block) {
+                block.completedScans++;
+                block.lastAliveCount = aliveByBlock.getOrDefault(blockId, 0);
+            }
+        }
+    }
+
+    /**
+     * @return Hosts del rango que alguna vez se vieron activos, en orden numérico
+     */
+    public List<String> knownAliveHosts(Ipv4Range range) {
+        List<String> hosts = new ArrayList<>();
+        forEachBlock(range, (blockId, block) -> {
+            long blockStart = blockId << BLOCK_SHIFT;
+            for (int word = 0; word < 4; word++) {
+                long bits = block.seenAlive[word];
+                while (bits != 0) {
+                    int host = word * 64 + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    long address = blockStart + host;
+                    if (range.contains(address)) {
+                        hosts.add(Ipv4Range.toIp(address));
+                    }
+                }
+            }
+        });
+        return hosts;
+    }
+
+    /**
+     * @return true si todos los bloques del rango se escanearon al menos una vez
+     *         y en su último escaneo no tenían hosts ni se han visto hosts activos
+     */
+    public boolean isHistoricallyEmpty(Ipv4Range range) {
+        long firstBlock = range.getStart() >>> BLOCK_SHIFT;
+        long lastBlock = range.getEnd() >>> BLOCK_SHIFT;
+        for (long blockId = firstBlock; blockId <= lastBlock; blockId++) {
+            Block block = blocks.get(blockId);
+            if (block == null) {
+                return false;
+            }
+            synchronized (block) {
+                if (block.completedScans == 0 || block.lastAliveCount > 0
+                        || (block.seenAlive[0] | block.seenAlive[1] | block.seenAlive[2] | block.seenAlive[3]) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void forEachBlock(Ipv4Range range, BlockVisitor visitor) {
+        long firstBlock = range.getStart() >>> BLOCK_SHIFT;
+        long lastBlock = range.getEnd() >>> BLOCK_SHIFT;
+        for (long blockId = firstBlock; blockId <= lastBlock; blockId++) {
+            Block block = blocks.get(blockId);
+            if (block != null) {
+                synchronized (block) {
+                    visitor.visit(blockId, block);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockVisitor {
+        void visit(long blockId, Block block);
+    }
+}
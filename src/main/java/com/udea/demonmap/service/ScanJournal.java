@@ -0,0 +1,352 @@
+package com.udea.demonmap.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanCheckpoint;
+import com.udea.demonmap.util.Ipv4Range;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Journal en disco del progreso de los escaneos completos.
+ *
+ * Cada escaneo escribe un archivo JSON Lines ({@code <id>.journal}) con un
+ * registro por bloque descubierto (bloques y hosts activos) y uno por host
+ * escaneado. Si el servicio se reinicia o el escaneo falla, el archivo queda
+ * y el escaneo se puede reanudar por id: los bloques descubiertos no se
+ * vuelven a sondear y los hosts terminados no se vuelven a escanear. Al
+ * terminar bien, el archivo se borra.
+ */
+@Slf4j
+@Component
+public class ScanJournal {
+
+    private static final String SUFFIX = ".journal";
+    private static final Pattern SCAN_ID = Pattern.compile("[0-9a-f-]{36}");
+
+    private final NetworkScanConfig scanConfig;
+    private final ObjectMapper objectMapper;
+    private final Set<String> activeScans = ConcurrentHashMap.newKeySet();
+
+    public ScanJournal(NetworkScanConfig scanConfig, ObjectMapper objectMapper) {
+        this.scanConfig = scanConfig;
+        this.objectMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    /**
+     * Registro del journal. Solo se completan los campos del tipo correspondiente.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static final class Entry {
+        static final String START = "start";
+        static final String DISCOVERED = "discovered";
+        static final String HOST = "host";
+
+        private String type;
+        private String networkRange;
+        private LocalDateTime time;
+        private List<String> blocks;
+        private List<String> hosts;
+        private NetworkDevice device;
+    }
+
+    /**
+     * @return true si el journal está habilitado
+     */
+    public boolean isEnabled() {
+        return scanConfig.getCheckpoint().isEnabled();
+    }
+
+    /**
+     * Crea el journal de un escaneo nuevo.
+     *
+     * @param networkRange Rango CIDR del escaneo
+     */
+    public Checkpoint start(String networkRange) throws IOException {
+        String scanId = UUID.randomUUID().toString();
+        activeScans.add(scanId);
+        Checkpoint checkpoint = new Checkpoint(scanId, networkRange, file(scanId), List.of(), Map.of(), Map.of());
+        try {
+            checkpoint.append(new Entry(Entry.START, networkRange, LocalDateTime.now(), null, null, null), true);
+        } catch (IOException | RuntimeException e) {
+            // Sin registro de inicio no es reanudable: se libera el id y se borra lo que se haya creado
+            checkpoint.complete();
+            throw e;
+        }
+        log.info("Escaneo {} de {} con journal en {}", scanId, networkRange, checkpoint.file);
+        return checkpoint;
+    }
+
+    /**
+     * Abre el journal de un escaneo interrumpido para continuarlo.
+     *
+     * @param scanId Id del escaneo
+     * @throws IllegalArgumentException si no existe o ya se está reanudando
+     */
+    public Checkpoint resume(String scanId) throws IOException {
+        if (scanId == null || !SCAN_ID.matcher(scanId).matches() || !Files.exists(file(scanId))) {
+            throw new IllegalArgumentException("No hay un escaneo interrumpido con id " + scanId);
+        }
+        if (!activeScans.add(scanId)) {
+            throw new IllegalArgumentException("El escaneo " + scanId + " ya está en curso");
+        }
+        try {
+            Replay replay = replay(file(scanId));
+            log.info("Reanudando escaneo {} de {}: {} bloques descubiertos, {} hosts terminados",
+                    scanId, replay.networkRange, replay.discoveredBlocks.size(), replay.devices.size());
+            return new Checkpoint(scanId, replay.networkRange, file(scanId),
+                    replay.discoveredBlocks, replay.discoveredHosts, replay.devices);
+        } catch (IOException | RuntimeException e) {
+            activeScans.remove(scanId);
+            throw e;
+        }
+    }
+
+    /**
+     * @return Escaneos con journal en disco que no están en curso
+     */
+    public List<ScanCheckpoint> listInterrupted() {
+        Path directory = Path.of(scanConfig.getCheckpoint().getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<ScanCheckpoint> interrupted = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String scanId = name.substring(0, name.length() - SUFFIX.length());
+                if (activeScans.contains(scanId)) {
+                    continue;
+                }
+                try {
+                    Replay replay = replay(file);
+                    interrupted.add(ScanCheckpoint.builder()
+                            .scanId(scanId)
+                            .networkRange(replay.networkRange)
+                            .startedAt(replay.startedAt)
+                            .discoveredBlocks(replay.discoveredBlocks.size())
+                            .completedHosts(replay.devices.size())
+                            .build());
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn("Journal ilegible {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo listar {}: {}", directory, e.getMessage());
+        }
+        return interrupted;
+    }
+
+    private Path file(String scanId) {
+        return Path.of(scanConfig.getCheckpoint().getDirectory(), scanId + SUFFIX);
+    }
+
+    private static final class Replay {
+        private String networkRange;
+        private LocalDateTime startedAt;
+        private final List<Ipv4Range> discoveredBlocks = new ArrayList<>();
+        private final Map<String, List<String>> discoveredHosts = new LinkedHashMap<>();
+        private final Map<String, NetworkDevice> devices = new LinkedHashMap<>();
+    }
+
+    private Replay replay(Path file) throws IOException {
+        Replay replay = new Replay();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry;
+                try {
+                    entry = objectMapper.readValue(line, Entry.class);
+                } catch (JsonProcessingException e) {
+                    // Última línea cortada por una caída a mitad de escritura
+                    log.debug("Línea de journal descartada en {}: {}", file, e.getOriginalMessage());
+                    continue;
+                }
+                switch (entry.getType()) {
+                    case Entry.START -> {
+                        replay.networkRange = entry.getNetworkRange();
+                        replay.startedAt = entry.getTime();
+                    }
+                    case Entry.DISCOVERED -> {
+                        String key = String.join(" ", entry.getBlocks());
+                        for (String block : entry.getBlocks()) {
+                            replay.discoveredBlocks.add(Ipv4Range.parse(block));
+                        }
+                        replay.discoveredHosts.put(key, entry.getHosts());
+                    }
+                    case Entry.HOST -> replay.devices.put(entry.getDevice().getIpAddress(), entry.getDevice());
+                    default -> log.debug("Registro de journal desconocido: {}", entry.getType());
+                }
+            }
+        }
+        if (replay.networkRange == null) {
+            throw new IllegalArgumentException("Journal sin registro de inicio: " + file);
+        }
+        return replay;
+    }
+
+    /**
+     * Journal abierto de un escaneo. Los registros llegan desde varios threads
+     * del pool; la escritura se sincroniza sobre la instancia.
+     */
+    public final class Checkpoint implements AutoCloseable {
+        private final String scanId;
+        private final String networkRange;
+        private final Path file;
+        private final List<Ipv4Range> discoveredBlocks;
+        private final List<String> pendingHosts;
+        private final Map<String, NetworkDevice> completedDevices;
+        private FileOutputStream output;
+        private BufferedWriter writer;
+        private boolean closed;
+
+        private Checkpoint(String scanId, String networkRange, Path file, List<Ipv4Range> discoveredBlocks,
+                           Map<String, List<String>> discoveredHosts, Map<String, NetworkDevice> completedDevices) {
+            this.scanId = scanId;
+            this.networkRange = networkRange;
+            this.file = file;
+            this.discoveredBlocks = List.copyOf(discoveredBlocks);
+            this.completedDevices = Collections.unmodifiableMap(new LinkedHashMap<>(completedDevices));
+            Set<String> pending = new LinkedHashSet<>();
+            discoveredHosts.values().forEach(pending::addAll);
+            pending.removeAll(completedDevices.keySet());
+            this.pendingHosts = List.copyOf(pending);
+        }
+
+        public String getScanId() {
+            return scanId;
+        }
+
+        public String getNetworkRange() {
+            return networkRange;
+        }
+
+        /**
+         * @return Bloques ya descubiertos en una ejecución anterior
+         */
+        public List<Ipv4Range> getDiscoveredBlocks() {
+            return discoveredBlocks;
+        }
+
+        /**
+         * @return Hosts descubiertos en una ejecución anterior cuyo escaneo de puertos no terminó
+         */
+        public List<String> getPendingHosts() {
+            return pendingHosts;
+        }
+
+        /**
+         * @return Dispositivos ya escaneados en una ejecución anterior, por IP
+         */
+        public Map<String, NetworkDevice> getCompletedDevices() {
+            return completedDevices;
+        }
+
+        /**
+         * Registra los hosts activos de un bloque ya descubierto. Se fuerza a disco.
+         */
+        public void recordDiscovered(List<Ipv4Range> blocks, List<String> hosts) {
+            List<String> cidrs = new ArrayList<>();
+            blocks.forEach(block -> cidrs.addAll(block.toCidrBlocks()));
+            appendQuietly(new Entry(Entry.DISCOVERED, null, LocalDateTime.now(), cidrs, List.copyOf(hosts), null), true);
+        }
+
+        /**
+         * Registra un host escaneado. Los hosts con error no se registran y se reintentan al reanudar.
+         */
+        public void recordHost(NetworkDevice device) {
+            if (device == null || "error".equals(device.getStatus())) {
+                return;
+            }
+            appendQuietly(new Entry(Entry.HOST, null, null, null, null, device), false);
+        }
+
+        /**
+         * Escaneo terminado: se cierra y borra el journal.
+         */
+        public void complete() {
+            close();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el journal {}: {}", file, e.getMessage());
+            }
+        }
+
+        /**
+         * Cierra el journal sin borrarlo; el escaneo queda reanudable.
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    if (writer != null) {
+                        writer.close();
+                    }
+                } catch (IOException e) {
+                    log.warn("Error cerrando el journal {}: {}", file, e.getMessage());
+                }
+            }
+            activeScans.remove(scanId);
+        }
+
+        private void appendQuietly(Entry entry, boolean sync) {
+            try {
+                append(entry, sync);
+            } catch (IOException e) {
+                // Perder un registro solo cuesta repetir ese trabajo al reanudar
+                log.warn("No se pudo escribir en el journal {}: {}", file, e.getMessage());
+            }
+        }
+
+        private synchronized void append(Entry entry, boolean sync) throws IOException {
+            if (closed) {
+                return;
+            }
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                output = new FileOutputStream(file.toFile(), true);
+                writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            }
+            writer.write(objectMapper.writeValueAsString(entry));
+            writer.newLine();
+            writer.flush();
+            if (sync) {
+                output.getChannel().force(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.repository.DiscoveryProfile;
+import com.udea.demonmap.util.Ipv4Range;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Divide los rangos grandes en bloques y los ordena según el historial.
+ *
+ * Orden resultante:
+ * 1. Bloques con hosts vistos activos, de más a menos denso
+ * 2. Bloques sin historial
+ * 3. Bloques que estuvieron vacíos, con el perfil de descubrimiento liviano
+ *
+ * Los bloques de cada grupo se descubren de a {@link #MAX_BLOCKS_PER_BATCH}
+ * por invocación de nmap: un proceso por bloque costaría más en arranques que
+ * lo que adelanta el primer host.
+ */
+@Slf4j
+@Component
+public class ScanPlanner {
+
+    /**
+     * Máximo de bloques que se descubren en una misma invocación.
+     */
+    private static final int MAX_BLOCKS_PER_BATCH = 16;
+
+    private final ScanHistory scanHistory;
+    private final NetworkScanConfig scanConfig;
+
+    public ScanPlanner(ScanHistory scanHistory, NetworkScanConfig scanConfig) {
+        this.scanHistory = scanHistory;
+        this.scanConfig = scanConfig;
+    }
+
+    public enum Priority { HOT, UNKNOWN, COLD }
+
+    /**
+     * Grupo de destinos que se descubre con una sola invocación.
+     */
+    public static final class ScanChunk {
+        private final List<Ipv4Range> ranges;
+        private final Priority priority;
+        private final List<String> knownAliveHosts;
+
+        private ScanChunk(List<Ipv4Range> ranges, Priority priority, List<String> knownAliveHosts) {
+            this.ranges = List.copyOf(ranges);
+            this.priority = priority;
+            this.knownAliveHosts = List.copyOf(knownAliveHosts);
+        }
+
+        public List<Ipv4Range> getRanges() {
+            return ranges;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return Hosts del bloque vistos activos en escaneos anteriores
+         */
+        public List<String> getKnownAliveHosts() {
+            return knownAliveHosts;
+        }
+
+        public DiscoveryProfile getDiscoveryProfile() {
+            return priority == Priority.COLD ? DiscoveryProfile.LIGHT : DiscoveryProfile.STANDARD;
+        }
+
+        public String toNmapTargets() {
+            return Ipv4Range.toNmapTargets(ranges);
+        }
+    }
+
+    /**
+     * Planifica el descubrimiento de los tramos indicados.
+     *
+     * @param segments Tramos disjuntos a descubrir
+     * @return Bloques en el orden en que deben descubrirse
+     */
+    public List<ScanChunk> plan(List<Ipv4Range> segments) {
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+        NetworkScanConfig.Planner planner = scanConfig.getPlanner();
+        if (!planner.isEnabled()) {
+            return List.of(new ScanChunk(segments, Priority.UNKNOWN, List.of()));
+        }
+
+        List<ScanChunk> hot = new ArrayList<>();
+        List<Ipv4Range> unknown = new ArrayList<>();
+        List<Ipv4Range> cold = new ArrayList<>();
+        for (Ipv4Range block : split(segments, planner.getChunkPrefixLength())) {
+            List<String> knownAlive = scanHistory.knownAliveHosts(block);
+            if (!knownAlive.isEmpty()) {
+                hot.add(new ScanChunk(List.of(block), Priority.HOT, knownAlive));
+            } else if (scanHistory.isHistoricallyEmpty(block)) {
+                cold.add(block);
+            } else {
+                unknown.add(block);
+            }
+        }
+        hot.sort(Comparator.comparingInt((ScanChunk chunk) -> chunk.getKnownAliveHosts().size()).reversed());
+
+        List<ScanChunk> chunks = new ArrayList<>(batchHot(hot));
+        chunks.addAll(batch(unknown, Priority.UNKNOWN));
+        chunks.addAll(batch(cold, Priority.COLD));
+        log.debug("Plan de descubrimiento: {} bloques con hosts conocidos, {} sin historial, {} vacíos",
+                hot.size(), unknown.size(), cold.size());
+        return chunks;
+    }
+
+    /**
+     * Corta los tramos en los límites de los bloques alineados al prefijo.
+     */
+    private static List<Ipv4Range> split(List<Ipv4Range> segments, int prefixLength) {
+        List<Ipv4Range> blocks = new ArrayList<>();
+        for (Ipv4Range segment : segments) {
+            blocks.addAll(segment.split(prefixLength));
+        }
+        return blocks;
+    }
+
+    /**
+     * Agrupa los bloques con hosts conocidos en el orden recibido; dentro de
+     * cada grupo los hosts conocidos quedan en el orden de sus bloques.
+     */
+    private static List<ScanChunk> batchHot(List<ScanChunk> blocks) {
+        List<ScanChunk> chunks = new ArrayList<>();
+        for (int from = 0; from < blocks.size(); from += MAX_BLOCKS_PER_BATCH) {
+            List<Ipv4Range> ranges = new ArrayList<>();
+            List<String> knownAlive = new ArrayList<>();
+            for (ScanChunk block : blocks.subList(from, Math.min(blocks.size(), from + MAX_BLOCKS_PER_BATCH))) {
+                ranges.addAll(block.getRanges());
+                knownAlive.addAll(block.getKnownAliveHosts());
+            }
+            chunks.add(new ScanChunk(Ipv4Range.merge(ranges), Priority.HOT, knownAlive));
+        }
+        return chunks;
+    }
+
+    private static List<ScanChunk> batch(List<Ipv4Range> blocks, Priority priority) {
+        List<ScanChunk> chunks = new ArrayList<>();
+        for (int from = 0; from < blocks.size(); from += MAX_BLOCKS_PER_BATCH) {
+            List<Ipv4Range> group = blocks.subList(from, Math.min(blocks.size(), from + MAX_BLOCKS_PER_BATCH));
+            chunks.add(new ScanChunk(Ipv4Range.merge(group), priority, List.of()));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,10 @@
+package com.udea.demonmap.service;
+
+/**
+ * Clases de prioridad del planificador de escaneos, de mayor a menor.
+ */
+public enum ScanPriority {
+    INTERACTIVE,  // Consultas de un host desde la UI
+    SCHEDULED,    // Escaneos completos de un rango
+    BULK          // Lotes de rangos y cargas masivas
+}
@@ -0,0 +1,47 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanResult;
+
+import java.util.List;
+
+/**
+ * Observador de resultados de escaneo.
+ *
+ * NetworkScanServiceImpl notifica a todos los beans que implementen esta
+ * interfaz a medida que cada host termina de escanearse, lo que permite
+ * mantener índices y agregados de forma incremental sin esperar el
+ * resultado completo.
+ */
+public interface ScanResultListener {
+
+    /**
+     * Se invoca cuando un host termina su escaneo de puertos (escaneo completo
+     * o de host individual). Puede llamarse concurrentemente desde los
+     * threads del pool, por lo que las implementaciones deben ser thread-safe.
+     *
+     * @param device Dispositivo con su lista de puertos abiertos
+     */
+    void onDeviceScanned(NetworkDevice device);
+
+    /**
+     * Se invoca cuando finaliza un escaneo completo de red.
+     *
+     * @param result Resultado consolidado del escaneo
+     */
+    default void onScanCompleted(ScanResult result) {
+    }
+
+    /**
+     * Se invoca con lotes de dispositivos importados de archivos de nmap
+     * existentes o recibidos de los workers de un escaneo distribuido (las
+     * alertas de estos ya se evaluaron en el worker). Puede llamarse
+     * concurrentemente. Por defecto cada dispositivo
+     * se trata como un host recién escaneado.
+     *
+     * @param devices Lote de dispositivos importados
+     */
+    default void onDevicesImported(List<NetworkDevice> devices) {
+        devices.forEach(this::onDeviceScanned);
+    }
+}
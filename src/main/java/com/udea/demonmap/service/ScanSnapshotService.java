@@ -0,0 +1,33 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.dto.ScanChangeDTO;
+import com.udea.demonmap.entity.ScanSnapshot;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Interfaz del servicio de snapshots de escaneos completos y su comparación.
+ */
+public interface ScanSnapshotService {
+
+    /**
+     * @return Snapshots guardados, del más antiguo al más reciente
+     */
+    List<ScanSnapshot> listSnapshots();
+
+    /**
+     * Compara dos snapshots recorriendo ambos en orden de IP, sin cargarlos en
+     * memoria. Un host fuera del rango del otro snapshot no se reporta: el otro
+     * escaneo no lo cubrió.
+     *
+     * Los cambios se producen a medida que se consume el stream, que debe
+     * cerrarse para liberar los archivos (Jackson lo cierra al serializarlo).
+     *
+     * @param fromScanId Escaneo anterior
+     * @param toScanId Escaneo nuevo
+     * @return Cambios en orden de IP
+     * @throws IllegalArgumentException si alguno de los snapshots no existe
+     */
+    Stream<ScanChangeDTO> diff(String fromScanId, String toScanId);
+}
@@ -0,0 +1,617 @@
+package com.udea.demonmap.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.dto.ScanChangeDTO;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.entity.ScanSnapshot;
+import com.udea.demonmap.util.Ipv4Range;
+import com.udea.demonmap.util.SpillingDeviceList;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Snapshots en disco de los escaneos completos terminados.
+ *
+ * Cada snapshot son dos archivos: {@code <id>.hosts} con los dispositivos en
+ * Smile ordenados por IP como entero, y {@code <id>.json} con los metadatos,
+ * que se escribe al final y marca el snapshot como completo. Ordenar al
+ * guardar hace que comparar dos escaneos sea un único merge lineal que lee
+ * ambos archivos en secuencia: la memoria no depende del tamaño de la red.
+ *
+ * El orden se obtiene con un sort externo: tramos de hasta
+ * network.scan.spill.memory-threshold dispositivos se ordenan en memoria y,
+ * si hay más de uno, se escriben a archivos temporales y se mezclan. La
+ * escritura corre en snapshotExecutor para no demorar la respuesta del
+ * escaneo; el snapshot se puede comparar cuando aparece en el listado.
+ *
+ * Los hosts rezagados de un escaneo no están en su archivo de hosts, pero se
+ * guardan en los metadatos: el merge no los reporta como desaparecidos en ese
+ * escaneo ni como nuevos en el siguiente.
+ */
+@Slf4j
+@Service
+public class ScanSnapshotServiceImpl implements ScanSnapshotService, ScanResultListener {
+
+    private static final String HOSTS_SUFFIX = ".hosts";
+    private static final String METADATA_SUFFIX = ".json";
+    private static final Pattern SCAN_ID = Pattern.compile("[0-9a-f-]{36}");
+    private static final ObjectMapper SMILE = new ObjectMapper(new SmileFactory())
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final NetworkScanConfig scanConfig;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService snapshotExecutor;
+
+    // Orden de escritura: el primero es el más antiguo. Se sincroniza sobre la instancia.
+    private final Map<String, ScanSnapshot> snapshots = new LinkedHashMap<>();
+
+    public ScanSnapshotServiceImpl(NetworkScanConfig scanConfig, ObjectMapper objectMapper,
+                                   @Qualifier("snapshotExecutor") ExecutorService snapshotExecutor) {
+        this.scanConfig = scanConfig;
+        this.objectMapper = objectMapper;
+        this.snapshotExecutor = snapshotExecutor;
+    }
+
+    /**
+     * Carga los snapshots de ejecuciones anteriores. Un archivo de hosts sin
+     * metadatos es una escritura cortada y se borra.
+     */
+    @PostConstruct
+    public synchronized void load() {
+        Path directory = directory();
+        if (!scanConfig.getSnapshots().isEnabled() || !Files.isDirectory(directory)) {
+            return;
+        }
+        List<ScanSnapshot> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + METADATA_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    ScanSnapshot snapshot = objectMapper.readValue(file.toFile(), ScanSnapshot.class);
+                    if (Files.exists(hostsFile(snapshot.getScanId()))) {
+                        found.add(snapshot);
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn("Snapshot ilegible {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo listar {}: {}", directory, e.getMessage());
+            return;
+        }
+        found.sort(Comparator.comparing(ScanSnapshot::getScanEndTime, Comparator.nullsFirst(Comparator.naturalOrder())));
+        found.forEach(snapshot -> snapshots.put(snapshot.getScanId(), snapshot));
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + HOSTS_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!snapshots.containsKey(name.substring(0, name.length() - HOSTS_SUFFIX.length()))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("No se pudieron limpiar snapshots incompletos: {}", e.getMessage());
+        }
+        log.info("{} snapshots de escaneos cargados de {}", snapshots.size(), directory);
+    }
+
+    @Override
+    public void onDeviceScanned(NetworkDevice device) {
+        // Los snapshots se toman del resultado completo
+    }
+
+    /**
+     * Encola el guardado del escaneo terminado. Si no trae id (escaneo sin
+     * journal) se le asigna uno ya, para que la respuesta lo incluya y el
+     * cliente pueda referirse a él en la comparación.
+     */
+    @Override
+    public void onScanCompleted(ScanResult result) {
+        if (!scanConfig.getSnapshots().isEnabled() || result.getDevices() == null
+                || result.getStatus() == ScanResult.ScanStatus.FAILED) {
+            return;
+        }
+        if (result.getScanId() == null) {
+            result.setScanId(UUID.randomUUID().toString());
+        }
+        String scanId = result.getScanId();
+        synchronized (this) {
+            if (snapshots.containsKey(scanId)) {
+                return;
+            }
+        }
+        // Un resultado derramado a disco se libera al terminar la respuesta: se retiene hasta escribirlo
+        List<NetworkDevice> devices = result.getDevices() instanceof SpillingDeviceList spilled
+                ? spilled.retain()
+                : result.getDevices();
+        snapshotExecutor.execute(() -> {
+            try {
+                save(scanId, result, devices);
+            } finally {
+                if (devices instanceof SpillingDeviceList spilled) {
+                    spilled.close();
+                }
+            }
+        });
+    }
+
+    private void save(String scanId, ScanResult result, List<NetworkDevice> devices) {
+        try {
+            long start = System.nanoTime();
+            ScanSnapshot snapshot = write(scanId, result, devices);
+            log.info("Snapshot {} de {}: {} hosts en {} ms", scanId, result.getNetworkRange(),
+                    snapshot.getHostCount(), (System.nanoTime() - start) / 1_000_000);
+            List<String> evicted = new ArrayList<>();
+            synchronized (this) {
+                snapshots.put(scanId, snapshot);
+                Iterator<String> oldest = snapshots.keySet().iterator();
+                while (snapshots.size() > scanConfig.getSnapshots().getMaxSnapshots()) {
+                    evicted.add(oldest.next());
+                    oldest.remove();
+                }
+            }
+            evicted.forEach(this::delete);
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo guardar el snapshot del escaneo {}: {}", scanId, e.getMessage());
+            delete(scanId);
+        }
+    }
+
+    @Override
+    public synchronized List<ScanSnapshot> listSnapshots() {
+        return new ArrayList<>(snapshots.values());
+    }
+
+    @Override
+    public Stream<ScanChangeDTO> diff(String fromScanId, String toScanId) {
+        ScanSnapshot from = require(fromScanId);
+        ScanSnapshot to = require(toScanId);
+        HostReader previous = null;
+        try {
+            previous = new HostReader(hostsFile(from.getScanId()));
+            HostReader current = new HostReader(hostsFile(to.getScanId()));
+            DiffIterator changes = new DiffIterator(previous, current,
+                    Ipv4Range.tryParse(from.getNetworkRange()).orElse(null),
+                    Ipv4Range.tryParse(to.getNetworkRange()).orElse(null),
+                    addresses(from.getDeferredHosts()), addresses(to.getDeferredHosts()));
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(changes,
+                            Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(changes::close);
+        } catch (IOException e) {
+            if (previous != null) {
+                previous.close();
+            }
+            // El snapshot se borró por retención entre la consulta y la apertura
+            throw new IllegalArgumentException("No se pudo leer el snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized ScanSnapshot require(String scanId) {
+        ScanSnapshot snapshot = scanId != null ? snapshots.get(scanId) : null;
+        if (snapshot == null) {
+            throw new IllegalArgumentException("No hay un snapshot del escaneo " + scanId);
+        }
+        return snapshot;
+    }
+
+    private ScanSnapshot write(String scanId, ScanResult result, List<NetworkDevice> devices) throws IOException {
+        Path directory = directory();
+        Files.createDirectories(directory);
+        Path hosts = hostsFile(scanId);
+        int hostCount = writeSorted(devices, hosts, directory);
+        ScanSnapshot snapshot = ScanSnapshot.builder()
+                .scanId(scanId)
+                .networkRange(result.getNetworkRange())
+                .scanStartTime(result.getScanStartTime())
+                .scanEndTime(result.getScanEndTime())
+                .status(result.getStatus() != null ? result.getStatus().name() : null)
+                .hostCount(hostCount)
+                .deferredHosts(result.getDeferredHosts() != null ? result.getDeferredHosts() : new ArrayList<>())
+                .sizeBytes(Files.size(hosts))
+                .build();
+        Path temporary = directory.resolve(scanId + METADATA_SUFFIX + ".tmp");
+        objectMapper.writeValue(temporary.toFile(), snapshot);
+        Files.move(temporary, metadataFile(scanId), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return snapshot;
+    }
+
+    /**
+     * Escribe los dispositivos ordenados por IP.
+     *
+     * @return Hosts escritos
+     */
+    private int writeSorted(List<NetworkDevice> devices, Path target, Path directory) throws IOException {
+        int runSize = scanConfig.getSpill().getMemoryThreshold();
+        List<Keyed> buffer = new ArrayList<>(Math.min(runSize, devices.size()));
+        List<Path> runs = new ArrayList<>();
+        try {
+            for (NetworkDevice device : devices) {
+                long address = addressOf(device);
+                if (address < 0) {
+                    continue;
+                }
+                buffer.add(new Keyed(address, device));
+                if (buffer.size() == runSize) {
+                    runs.add(writeRun(buffer, Files.createTempFile(directory, "snapshot-", ".run")));
+                }
+            }
+            if (runs.isEmpty()) {
+                buffer.sort(Comparator.comparingLong(Keyed::address));
+                try (HostWriter writer = new HostWriter(target)) {
+                    for (Keyed keyed : buffer) {
+                        writer.write(keyed.address(), keyed.device());
+                    }
+                    return writer.count;
+                }
+            }
+            if (!buffer.isEmpty()) {
+                runs.add(writeRun(buffer, Files.createTempFile(directory, "snapshot-", ".run")));
+            }
+            return merge(runs, target);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    private static Path writeRun(List<Keyed> buffer, Path run) throws IOException {
+        buffer.sort(Comparator.comparingLong(Keyed::address));
+        try (HostWriter writer = new HostWriter(run)) {
+            for (Keyed keyed : buffer) {
+                writer.write(keyed.address(), keyed.device());
+            }
+        }
+        buffer.clear();
+        return run;
+    }
+
+    /**
+     * Mezcla los tramos ordenados en el archivo final.
+     */
+    private static int merge(List<Path> runs, Path target) throws IOException {
+        PriorityQueue<HostReader> heads = new PriorityQueue<>(Comparator.comparingLong(HostReader::address));
+        try (HostWriter writer = new HostWriter(target)) {
+            for (Path run : runs) {
+                HostReader reader = new HostReader(run);
+                if (reader.hasHost()) {
+                    heads.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            while (!heads.isEmpty()) {
+                HostReader reader = heads.poll();
+                writer.write(reader.address(), reader.device());
+                if (reader.advance()) {
+                    heads.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            return writer.count;
+        } finally {
+            heads.forEach(HostReader::close);
+        }
+    }
+
+    private void delete(String scanId) {
+        try {
+            // Sin metadatos el snapshot deja de existir aunque falle el borrado de los hosts
+            Files.deleteIfExists(metadataFile(scanId));
+            Files.deleteIfExists(hostsFile(scanId));
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el snapshot {}: {}", scanId, e.getMessage());
+        }
+    }
+
+    private Path directory() {
+        return Path.of(scanConfig.getSnapshots().getDirectory());
+    }
+
+    private Path hostsFile(String scanId) {
+        if (!SCAN_ID.matcher(scanId).matches()) {
+            throw new IllegalArgumentException("Id de escaneo inválido: " + scanId);
+        }
+        return directory().resolve(scanId + HOSTS_SUFFIX);
+    }
+
+    private Path metadataFile(String scanId) {
+        return directory().resolve(scanId + METADATA_SUFFIX);
+    }
+
+    /**
+     * @return IP como entero, o -1 si el dispositivo no se guarda (sin IP o con error)
+     */
+    private static long addressOf(NetworkDevice device) {
+        if (device == null || device.getIpAddress() == null || "error".equals(device.getStatus())) {
+            return -1;
+        }
+        try {
+            return Ipv4Range.toLong(device.getIpAddress());
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return IPs como enteros, sin las que no son IPv4 válidas
+     */
+    private static Set<Long> addresses(List<String> ips) {
+        if (ips == null || ips.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> addresses = new HashSet<>();
+        for (String ip : ips) {
+            try {
+                addresses.add(Ipv4Range.toLong(ip));
+            } catch (IllegalArgumentException e) {
+                // No puede coincidir con ningún host guardado
+            }
+        }
+        return addresses;
+    }
+
+    private record Keyed(long address, NetworkDevice device) {
+    }
+
+    /**
+     * Escritor de hosts en orden. Descarta una IP repetida (se conserva la primera).
+     */
+    private static final class HostWriter implements Closeable {
+        private final SequenceWriter writer;
+        private long last = -1;
+        private int count;
+
+        HostWriter(Path file) throws IOException {
+            this.writer = SMILE.writerFor(NetworkDevice.class)
+                    .writeValues(new BufferedOutputStream(Files.newOutputStream(file)));
+        }
+
+        void write(long address, NetworkDevice device) throws IOException {
+            if (address == last) {
+                return;
+            }
+            writer.write(device);
+            last = address;
+            count++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Lector secuencial de un archivo de hosts con el host actual a la vista.
+     */
+    private static final class HostReader implements Closeable {
+        private final MappingIterator<NetworkDevice> iterator;
+        private NetworkDevice device;
+        private long address;
+
+        HostReader(Path file) throws IOException {
+            this.iterator = SMILE.readerFor(NetworkDevice.class)
+                    .readValues(new BufferedInputStream(Files.newInputStream(file)));
+            advance();
+        }
+
+        boolean hasHost() {
+            return device != null;
+        }
+
+        long address() {
+            return address;
+        }
+
+        NetworkDevice device() {
+            return device;
+        }
+
+        /**
+         * @return false al llegar al final del archivo
+         */
+        boolean advance() {
+            device = iterator.hasNext() ? iterator.next() : null;
+            address = device != null ? Ipv4Range.toLong(device.getIpAddress()) : Long.MAX_VALUE;
+            return device != null;
+        }
+
+        @Override
+        public void close() {
+            try {
+                iterator.close();
+            } catch (IOException ignored) {
+                // Solo lectura: no hay nada que perder
+            }
+        }
+    }
+
+    /**
+     * Merge de dos snapshots ordenados que produce los cambios de a un host.
+     * Un host que falta en un lado porque ese escaneo lo difirió no cuenta
+     * como agregado ni quitado.
+     */
+    private static final class DiffIterator implements Iterator<ScanChangeDTO>, Closeable {
+        private final HostReader previous;
+        private final HostReader current;
+        private final Ipv4Range previousRange;
+        private final Ipv4Range currentRange;
+        private final Set<Long> previousDeferred;
+        private final Set<Long> currentDeferred;
+        private final Deque<ScanChangeDTO> pending = new ArrayDeque<>();
+
+        DiffIterator(HostReader previous, HostReader current, Ipv4Range previousRange, Ipv4Range currentRange,
+                     Set<Long> previousDeferred, Set<Long> currentDeferred) {
+            this.previous = previous;
+            this.current = current;
+            this.previousRange = previousRange;
+            this.currentRange = currentRange;
+            this.previousDeferred = previousDeferred;
+            this.currentDeferred = currentDeferred;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty() && (previous.hasHost() || current.hasHost())) {
+                if (previous.address() < current.address()) {
+                    if (covered(currentRange, previous.address()) && !currentDeferred.contains(previous.address())) {
+                        hostChange(ScanChangeType.HOST_REMOVED, ScanChangeType.PORT_CLOSED, previous.device());
+                    }
+                    previous.advance();
+                } else if (previous.address() > current.address()) {
+                    if (covered(previousRange, current.address()) && !previousDeferred.contains(current.address())) {
+                        hostChange(ScanChangeType.HOST_ADDED, ScanChangeType.PORT_OPENED, current.device());
+                    }
+                    current.advance();
+                } else {
+                    compare(previous.device(), current.device());
+                    previous.advance();
+                    current.advance();
+                }
+            }
+            if (pending.isEmpty()) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public ScanChangeDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+
+        @Override
+        public void close() {
+            previous.close();
+            current.close();
+        }
+
+        /**
+         * Un rango que no es CIDR (sintaxis propia de nmap) se considera que cubre todo.
+         */
+        private static boolean covered(Ipv4Range range, long address) {
+            return range == null || range.contains(address);
+        }
+
+        private void hostChange(ScanChangeType hostChange, ScanChangeType portChange, NetworkDevice device) {
+            pending.add(ScanChangeDTO.builder()
+                    .change(hostChange.name())
+                    .ipAddress(device.getIpAddress())
+                    .build());
+            for (Port port : sortedPorts(device)) {
+                pending.add(portChange(portChange, device.getIpAddress(), port));
+            }
+        }
+
+        private void compare(NetworkDevice before, NetworkDevice after) {
+            String ip = after.getIpAddress();
+            attributeChange(ScanChangeType.MAC_CHANGED, ip, before.getMacAddress(), after.getMacAddress());
+            attributeChange(ScanChangeType.VENDOR_CHANGED, ip, before.getVendor(), after.getVendor());
+            attributeChange(ScanChangeType.OS_CHANGED, ip, before.getOperatingSystem(), after.getOperatingSystem());
+
+            // Merge de los puertos ordenados por protocolo y número
+            List<Port> closed = sortedPorts(before);
+            List<Port> opened = sortedPorts(after);
+            int i = 0;
+            int j = 0;
+            while (i < closed.size() || j < opened.size()) {
+                int cmp = i == closed.size() ? 1
+                        : j == opened.size() ? -1
+                        : Integer.compare(portKey(closed.get(i)), portKey(opened.get(j)));
+                if (cmp < 0) {
+                    pending.add(portChange(ScanChangeType.PORT_CLOSED, ip, closed.get(i++)));
+                } else if (cmp > 0) {
+                    pending.add(portChange(ScanChangeType.PORT_OPENED, ip, opened.get(j++)));
+                } else {
+                    i++;
+                    j++;
+                }
+            }
+        }
+
+        private void attributeChange(ScanChangeType change, String ip, String before, String after) {
+            if (!Objects.equals(before, after)) {
+                pending.add(ScanChangeDTO.builder()
+                        .change(change.name())
+                        .ipAddress(ip)
+                        .previous(before)
+                        .current(after)
+                        .build());
+            }
+        }
+
+        private static ScanChangeDTO portChange(ScanChangeType change, String ip, Port port) {
+            return ScanChangeDTO.builder()
+                    .change(change.name())
+                    .ipAddress(ip)
+                    .port(port.getPortNumber())
+                    .protocol(port.getProtocol())
+                    .service(port.getService())
+                    .build();
+        }
+
+        private static List<Port> sortedPorts(NetworkDevice device) {
+            if (device.getOpenPorts() == null || device.getOpenPorts().isEmpty()) {
+                return List.of();
+            }
+            List<Port> ports = new ArrayList<>();
+            for (Port port : device.getOpenPorts()) {
+                if (port.getPortNumber() != null) {
+                    ports.add(port);
+                }
+            }
+            ports.sort(Comparator.comparingInt(DiffIterator::portKey));
+            return ports;
+        }
+
+        /**
+         * Protocolo en los bits altos: tcp/80 y udp/80 son puertos distintos.
+         */
+        private static int portKey(Port port) {
+            return ("udp".equalsIgnoreCase(port.getProtocol()) ? 1 << 16 : 0) | port.getPortNumber();
+        }
+    }
+}
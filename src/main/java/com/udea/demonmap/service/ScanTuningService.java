@@ -0,0 +1,26 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.dto.ScanTuningDTO;
+import com.udea.demonmap.dto.ScanTuningRequestDTO;
+
+/**
+ * Interfaz del ajuste en caliente de la configuración de escaneo.
+ */
+public interface ScanTuningService {
+
+    /**
+     * @return Configuración vigente y estado del pool de escaneo
+     */
+    ScanTuningDTO getTuning();
+
+    /**
+     * Aplica los valores indicados sin interrumpir los escaneos en curso: el
+     * pool crece o se reduce a medida que sus threads terminan la tarea
+     * actual, y el timeout y los puertos valen para las tareas nuevas.
+     *
+     * @param changes Valores a cambiar; los nulos se conservan
+     * @return Configuración vigente tras el cambio
+     * @throws IllegalArgumentException si algún valor está fuera de los límites de NetworkScanConfig
+     */
+    ScanTuningDTO update(ScanTuningRequestDTO changes);
+}
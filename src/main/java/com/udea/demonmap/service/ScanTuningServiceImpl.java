@@ -0,0 +1,115 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.dto.ScanTuningDTO;
+import com.udea.demonmap.dto.ScanTuningRequestDTO;
+import com.udea.demonmap.monitoring.ScanConfigChangedEvent;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Ajuste en caliente del tamaño del pool de escaneo, el timeout por host y
+ * los puertos a escanear.
+ *
+ * Los valores nuevos se validan contra las mismas anotaciones @Min/@Max de
+ * NetworkScanConfig y se escriben en ella: el resto del servicio ya la lee en
+ * cada tarea, así que no hay copias que sincronizar. El pool se redimensiona
+ * con setCorePoolSize/setMaximumPoolSize; al reducirlo, los threads sobrantes
+ * terminan al acabar su host actual.
+ */
+@Slf4j
+@Service
+public class ScanTuningServiceImpl implements ScanTuningService {
+
+    private final NetworkScanConfig scanConfig;
+    private final ThreadPoolExecutor scanExecutor;
+    private final Validator validator;
+
+    private volatile LocalDateTime updatedAt;
+
+    public ScanTuningServiceImpl(NetworkScanConfig scanConfig,
+                                 ThreadPoolExecutor scanExecutor,
+                                 Validator validator) {
+        this.scanConfig = scanConfig;
+        this.scanExecutor = scanExecutor;
+        this.validator = validator;
+    }
+
+    @Override
+    public ScanTuningDTO getTuning() {
+        return ScanTuningDTO.builder()
+                .threadPoolSize(scanConfig.getThreadPoolSize())
+                .hostTimeoutSeconds(scanConfig.getHostTimeoutSeconds())
+                .topPorts(scanConfig.getTopPorts())
+                .liveThreads(scanExecutor.getPoolSize())
+                .activeThreads(scanExecutor.getActiveCount())
+                .queuedHosts(scanExecutor.getQueue().size())
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    @Override
+    public synchronized ScanTuningDTO update(ScanTuningRequestDTO changes) {
+        // Todo o nada: si un valor es inválido no se aplica ninguno
+        List<String> errors = new ArrayList<>();
+        validate("threadPoolSize", changes.getThreadPoolSize(), errors);
+        validate("hostTimeoutSeconds", changes.getHostTimeoutSeconds(), errors);
+        validate("topPorts", changes.getTopPorts(), errors);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+
+        if (changes.getThreadPoolSize() != null && changes.getThreadPoolSize() != scanConfig.getThreadPoolSize()) {
+            resizePool(changes.getThreadPoolSize());
+            scanConfig.setThreadPoolSize(changes.getThreadPoolSize());
+        }
+        if (changes.getHostTimeoutSeconds() != null) {
+            scanConfig.setHostTimeoutSeconds(changes.getHostTimeoutSeconds());
+        }
+        if (changes.getTopPorts() != null) {
+            scanConfig.setTopPorts(changes.getTopPorts());
+        }
+        updatedAt = LocalDateTime.now();
+
+        log.info("Configuración de escaneo ajustada en caliente: {} threads, timeout por host {} s, top {} puertos",
+                scanConfig.getThreadPoolSize(), scanConfig.getHostTimeoutSeconds(), scanConfig.getTopPorts());
+        ScanConfigChangedEvent event = new ScanConfigChangedEvent();
+        event.threadPoolSize = scanConfig.getThreadPoolSize();
+        event.hostTimeout = scanConfig.getHostTimeoutSeconds();
+        event.topPorts = scanConfig.getTopPorts();
+        event.commit();
+        return getTuning();
+    }
+
+    private void validate(String property, Integer value, List<String> errors) {
+        if (value == null) {
+            return;
+        }
+        for (ConstraintViolation<NetworkScanConfig> violation
+                : validator.validateValue(NetworkScanConfig.class, property, value)) {
+            errors.add(violation.getMessage());
+        }
+    }
+
+    /**
+     * El orden importa: el core no puede superar al máximo ni al revés.
+     */
+    private void resizePool(int threads) {
+        if (threads > scanExecutor.getMaximumPoolSize()) {
+            scanExecutor.setMaximumPoolSize(threads);
+            scanExecutor.setCorePoolSize(threads);
+            // Los threads nuevos arrancan ya tomando de la cola, como los del inicio
+            scanExecutor.prestartAllCoreThreads();
+        } else {
+            scanExecutor.setCorePoolSize(threads);
+            scanExecutor.setMaximumPoolSize(threads);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.udea.demonmap.service;
+
+/**
+ * Tipos de escaneo expuestos por la API, usados para limitar la concurrencia.
+ */
+public enum ScanType {
+    QUICK,  // Descubrimiento de hosts activos (nmap -sn)
+    FULL,   // Descubrimiento + escaneo de puertos de cada host
+    HOST    // Escaneo de puertos de un host individual
+}
@@ -0,0 +1,273 @@
+package com.udea.demonmap.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.dto.ChunkLeaseDTO;
+import com.udea.demonmap.dto.ChunkResultDTO;
+import com.udea.demonmap.dto.WorkerRegistrationDTO;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.exception.ScanRejectedException;
+import com.udea.demonmap.repository.ScanException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Worker de escaneo distribuido: se registra en network.scan.cluster.coordinator-url,
+ * pide tramos, los escanea con {@link NetworkScanService#performChunkScan} y
+ * devuelve el resultado.
+ *
+ * Cada uno de los network.scan.cluster.worker-slots threads pide su propio
+ * tramo con long polling, así que el worker nunca tiene más tramos en curso
+ * que slots. Un thread aparte envía los heartbeats que mantienen vivos los
+ * leases. Si el coordinador olvida al worker (reinicio o vencimiento) este se
+ * vuelve a registrar; si no está disponible, reintenta con espera creciente.
+ *
+ * Un tramo que el control de admisión rechaza (la instancia también atiende
+ * escaneos locales) no es un fallo: se devuelve sin gastar un intento y el
+ * thread espera antes de pedir otro. Por eso worker-slots no puede superar
+ * network.scan.admission.max-concurrent-full-scans, o algún slot quedaría
+ * siempre rechazado.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "network.scan.cluster", name = "coordinator-url")
+public class ScanWorker implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+
+    /**
+     * Espera mínima antes de pedir otro tramo tras un rechazo por saturación.
+     */
+    private static final long MIN_REJECTED_BACKOFF_MILLIS = 500;
+
+    private final NetworkScanService networkScanService;
+    private final NetworkScanConfig.Cluster cluster;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final String name;
+    private final HttpClient httpClient;
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile String workerId;
+    private volatile Duration requestTimeout;
+    private volatile boolean running;
+
+    public ScanWorker(NetworkScanService networkScanService, NetworkScanConfig scanConfig, ObjectMapper objectMapper) {
+        if (scanConfig.getCluster().getWorkerSlots() > scanConfig.getAdmission().getMaxConcurrentFullScans()) {
+            throw new IllegalStateException("network.scan.cluster.worker-slots ("
+                    + scanConfig.getCluster().getWorkerSlots()
+                    + ") no puede superar network.scan.admission.max-concurrent-full-scans ("
+                    + scanConfig.getAdmission().getMaxConcurrentFullScans() + ")");
+        }
+        this.networkScanService = networkScanService;
+        this.cluster = scanConfig.getCluster();
+        this.objectMapper = objectMapper;
+        this.baseUrl = cluster.getCoordinatorUrl().replaceAll("/+$", "") + "/api/cluster";
+        this.name = cluster.getWorkerName().isBlank() ? defaultName() : cluster.getWorkerName();
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        this.requestTimeout = Duration.ofMillis(cluster.getPollTimeoutMs() + 5000L);
+    }
+
+    /**
+     * Arranca con la aplicación lista: un tramo recibido antes se escanearía
+     * sin el pool ni el escáner inicializados.
+     */
+    @Override
+    public synchronized void onApplicationEvent(ApplicationReadyEvent event) {
+        if (running) {
+            return;
+        }
+        running = true;
+        log.info("Worker {} se une al coordinador {} con {} slots", name, baseUrl, cluster.getWorkerSlots());
+        for (int i = 1; i <= cluster.getWorkerSlots(); i++) {
+            threads.add(startDaemon(this::leaseLoop, "cluster-worker-" + i));
+        }
+        threads.add(startDaemon(this::heartbeatLoop, "cluster-heartbeat"));
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    private void leaseLoop() {
+        long backoff = 0;
+        while (running) {
+            try {
+                String id = ensureRegistered();
+                HttpResponse<String> response = post("/workers/" + id + "/lease", null);
+                backoff = 0;
+                if (response.statusCode() == 404) {
+                    forget(id);
+                } else if (response.statusCode() == 200) {
+                    process(objectMapper.readValue(response.body(), ChunkLeaseDTO.class));
+                } else if (response.statusCode() != 204) {
+                    throw new IOException("el coordinador respondió " + response.statusCode());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                backoff = backoff == 0 ? 500 : Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                log.warn("Coordinador {} no disponible ({}), reintento en {} ms", baseUrl, e.getMessage(), backoff);
+                if (!sleep(backoff)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Escanea el tramo y entrega el resultado. Un fallo del escaneo se informa
+     * al coordinador para que reintente el tramo en otro lease; un rechazo por
+     * saturación devuelve el tramo y espera lo que indica el rechazo.
+     */
+    private void process(ChunkLeaseDTO lease) throws IOException, InterruptedException {
+        log.debug("Tramo {} recibido (intento {})", lease.getNetworkRange(), lease.getAttempt());
+        ChunkResultDTO result;
+        ScanResult scan = null;
+        try {
+            scan = networkScanService.performChunkScan(lease.getNetworkRange());
+            result = ChunkResultDTO.builder()
+                    .devices(scan.getDevices())
+                    .totalHostsScanned(scan.getTotalHostsScanned())
+                    .deferredHosts(scan.getDeferredHosts())
+                    .build();
+        } catch (ScanRejectedException e) {
+            returnLease(lease, e);
+            return;
+        } catch (ScanException | RuntimeException e) {
+            log.warn("Error escaneando el tramo {}: {}", lease.getNetworkRange(), e.getMessage());
+            result = ChunkResultDTO.builder().errorMessage(e.getMessage() != null ? e.getMessage() : e.toString()).build();
+        }
+        HttpResponse<String> response;
+        try {
+            response = post("/leases/" + lease.getLeaseId() + "/result", result);
+        } finally {
+            if (scan != null) {
+                scan.releaseDevices();
+            }
+        }
+        if (response.statusCode() == 410) {
+            log.warn("Lease del tramo {} vencido antes de entregar el resultado", lease.getNetworkRange());
+        } else if (response.statusCode() >= 400) {
+            throw new IOException("el coordinador respondió " + response.statusCode() + " al resultado");
+        }
+    }
+
+    private void returnLease(ChunkLeaseDTO lease, ScanRejectedException rejection) throws IOException, InterruptedException {
+        long backoff = Math.min(Math.max(rejection.getRetryAfterSeconds() * 1000, MIN_REJECTED_BACKOFF_MILLIS),
+                MAX_BACKOFF_MILLIS);
+        log.debug("Worker ocupado, se devuelve el tramo {} y se espera {} ms: {}",
+                lease.getNetworkRange(), backoff, rejection.getMessage());
+        int status = post("/leases/" + lease.getLeaseId() + "/return", null).statusCode();
+        if (status >= 400 && status != 410) {
+            throw new IOException("el coordinador respondió " + status + " al devolver el tramo");
+        }
+        if (!sleep(backoff)) {
+            throw new InterruptedException();
+        }
+    }
+
+    private void heartbeatLoop() {
+        while (running) {
+            String id = workerId;
+            if (id != null) {
+                try {
+                    if (post("/workers/" + id + "/heartbeat", null).statusCode() == 404) {
+                        forget(id);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    log.debug("Heartbeat fallido: {}", e.getMessage());
+                }
+            }
+            if (!sleep(cluster.getHeartbeatIntervalMs())) {
+                return;
+            }
+        }
+    }
+
+    private synchronized String ensureRegistered() throws IOException, InterruptedException {
+        if (workerId != null) {
+            return workerId;
+        }
+        HttpResponse<String> response = post("/workers", WorkerRegistrationDTO.builder()
+                .name(name)
+                .slots(cluster.getWorkerSlots())
+                .build());
+        if (response.statusCode() != 201) {
+            throw new IOException("registro rechazado con " + response.statusCode() + ": " + response.body());
+        }
+        WorkerRegistrationDTO registration = objectMapper.readValue(response.body(), WorkerRegistrationDTO.class);
+        // El long polling del coordinador manda sobre el timeout local
+        requestTimeout = Duration.ofMillis(registration.getPollTimeoutMs() + 5000L);
+        workerId = registration.getWorkerId();
+        log.info("Worker {} registrado en {} como {}", name, baseUrl, workerId);
+        return workerId;
+    }
+
+    private synchronized void forget(String id) {
+        if (id.equals(workerId)) {
+            log.warn("El coordinador no reconoce al worker {}, se registra de nuevo", id);
+            workerId = null;
+        }
+    }
+
+    private HttpResponse<String> post(String path, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(requestTimeout);
+        if (body == null) {
+            request.POST(HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * @return false si el thread fue interrumpido
+     */
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static Thread startDaemon(Runnable task, String threadName) {
+        Thread thread = new Thread(task, threadName);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static String defaultName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "localhost";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+}
@@ -0,0 +1,192 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.repository.NetworkScanner;
+import com.udea.demonmap.repository.PortSelection;
+import com.udea.demonmap.repository.ScanException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Escaneo de los top N puertos de un host repartido en tramos paralelos.
+ *
+ * La lista de puertos se divide en K tramos disjuntos que se escanean a la vez
+ * en el pool de escaneo, cada uno con su parte del presupuesto de paquetes por
+ * segundo contra el host, y los puertos encontrados se juntan en un solo
+ * dispositivo. K se limita a los threads libres del pool: con el pool ocupado
+ * el host se escanea en una sola pasada, como antes.
+ *
+ * Los threads libres se descuentan de los tramos que otros hosts ya
+ * reservaron y todavía no empezaron, de modo que dos escaneos simultáneos no
+ * repartan los mismos threads. Si un tramo falla, o el futuro devuelto se
+ * cancela, se cancelan los tramos que aún no empezaron (un nmap ya lanzado
+ * termina su tramo).
+ */
+@Slf4j
+@Component
+public class SplitPortScanner {
+
+    private final NetworkScanner networkScanner;
+    private final NetworkScanConfig scanConfig;
+    private final ThreadPoolExecutor executor;
+    // Tramos reservados que todavía no ocupan un thread del pool
+    private final AtomicInteger reservedSlices = new AtomicInteger();
+
+    public SplitPortScanner(NetworkScanner networkScanner, NetworkScanConfig scanConfig, ThreadPoolExecutor executor) {
+        this.networkScanner = networkScanner;
+        this.scanConfig = scanConfig;
+        this.executor = executor;
+    }
+
+    /**
+     * Envía al pool el escaneo de los top N puertos del host. Las tareas heredan
+     * el {@link ScanContext} del thread que llama.
+     *
+     * @param ipAddress Dirección IP a escanear
+     * @return Futuro con el dispositivo y todos los puertos abiertos encontrados;
+     *         cancelarlo cancela los tramos que no empezaron
+     */
+    public CompletableFuture<NetworkDevice> scan(String ipAddress) {
+        List<Integer> ports = networkScanner.topPortList(scanConfig.getTopPorts());
+        int slices = reserveSlices(ports.size());
+        if (slices <= 1) {
+            return CompletableFuture.supplyAsync(() -> scanHost(ipAddress, PortSelection.top()), executor);
+        }
+
+        int maxRate = Math.max(1, scanConfig.getSplitPort().getMaxRatePerHost() / slices);
+        List<List<Integer>> portSlices = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            portSlices.add(new ArrayList<>());
+        }
+        // Reparto alternado: cada tramo recibe puertos de todas las frecuencias
+        for (int i = 0; i < ports.size(); i++) {
+            portSlices.get(i % slices).add(ports.get(i));
+        }
+
+        log.debug("Host {}: {} puertos en {} tramos a {} paquetes/s cada uno", ipAddress, ports.size(), slices, maxRate);
+        CompletableFuture<NetworkDevice> result = new CompletableFuture<>();
+        List<CompletableFuture<NetworkDevice>> parts = new ArrayList<>(slices);
+        for (List<Integer> slice : portSlices) {
+            CompletableFuture<NetworkDevice> part = submitSlice(ipAddress, PortSelection.slice(slice, maxRate));
+            // El primer tramo que falla hace fallar al host sin esperar al resto
+            part.whenComplete((device, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                }
+            });
+            parts.add(part);
+        }
+        CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).thenRun(() ->
+                result.complete(merge(parts.stream().map(CompletableFuture::join).toList())));
+        result.whenComplete((device, error) -> {
+            if (error != null) {
+                parts.forEach(part -> part.cancel(false));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return Tramos reservados: los configurados, sin dejar tramos con menos del
+     *         mínimo de puertos y sin superar los threads libres del pool que no
+     *         estén reservados por otro host. Con 1 no se reserva nada.
+     */
+    private int reserveSlices(int portCount) {
+        NetworkScanConfig.SplitPort splitPort = scanConfig.getSplitPort();
+        if (!splitPort.isEnabled() || portCount == 0) {
+            return 1;
+        }
+        while (true) {
+            int reserved = reservedSlices.get();
+            int idleThreads = executor.getMaximumPoolSize() - executor.getActiveCount() - reserved;
+            int slices = Math.min(splitPort.getParallelism(),
+                    Math.min(portCount / splitPort.getMinPortsPerSlice(), idleThreads));
+            if (slices <= 1) {
+                return 1;
+            }
+            if (reservedSlices.compareAndSet(reserved, reserved + slices)) {
+                return slices;
+            }
+        }
+    }
+
+    /**
+     * @return Tramos reservados que todavía no ocupan un thread del pool
+     */
+    int reservedSlices() {
+        return reservedSlices.get();
+    }
+
+    /**
+     * Envía un tramo reservado. La reserva se libera al empezar el tramo, cuando
+     * pasa a contarse entre los threads activos del pool, o al terminar si nunca
+     * empezó (cancelado o rechazado).
+     */
+    private CompletableFuture<NetworkDevice> submitSlice(String ipAddress, PortSelection ports) {
+        AtomicBoolean reservation = new AtomicBoolean(true);
+        Runnable release = () -> {
+            if (reservation.getAndSet(false)) {
+                reservedSlices.decrementAndGet();
+            }
+        };
+        CompletableFuture<NetworkDevice> part;
+        try {
+            part = CompletableFuture.supplyAsync(() -> {
+                release.run();
+                return scanHost(ipAddress, ports);
+            }, executor);
+        } catch (RuntimeException e) {
+            release.run();
+            return CompletableFuture.failedFuture(e);
+        }
+        part.whenComplete((device, error) -> release.run());
+        return part;
+    }
+
+    private NetworkDevice scanHost(String ipAddress, PortSelection ports) {
+        try {
+            return networkScanner.scanHost(ipAddress, ports);
+        } catch (ScanException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Junta los tramos: los datos del host salen del primer tramo que lo vio
+     * activo y los puertos de todos, ordenados por número.
+     */
+    private static NetworkDevice merge(List<NetworkDevice> parts) {
+        NetworkDevice base = parts.stream()
+                .filter(part -> "up".equalsIgnoreCase(part.getStatus()))
+                .findFirst()
+                .orElse(parts.get(0));
+        List<Port> openPorts = new ArrayList<>();
+        for (NetworkDevice part : parts) {
+            if (part.getOpenPorts() != null) {
+                openPorts.addAll(part.getOpenPorts());
+            }
+        }
+        openPorts.sort(Comparator.comparing(Port::getPortNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+        return NetworkDevice.builder()
+                .ipAddress(base.getIpAddress())
+                .macAddress(base.getMacAddress())
+                .hostname(base.getHostname())
+                .status(base.getStatus())
+                .operatingSystem(base.getOperatingSystem())
+                .vendor(base.getVendor())
+                .responseTime(base.getResponseTime())
+                .openPorts(openPorts)
+                .build();
+    }
+}
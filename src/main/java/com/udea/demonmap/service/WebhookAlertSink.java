@@ -0,0 +1,64 @@
+package com.udea.demonmap.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.AlertMatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Envía cada coincidencia con POST JSON a network.scan.alerts.webhook-url.
+ *
+ * El envío es asíncrono y sin reintentos: un webhook caído no frena el
+ * escaneo, solo deja un warning en el log.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "network.scan.alerts", name = "webhook-url")
+public class WebhookAlertSink implements AlertSink {
+
+    private final ObjectMapper objectMapper;
+    private final URI uri;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public WebhookAlertSink(NetworkScanConfig scanConfig, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.uri = URI.create(scanConfig.getAlerts().getWebhookUrl());
+        this.timeout = Duration.ofSeconds(scanConfig.getAlerts().getWebhookTimeoutSeconds());
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        log.info("Coincidencias de alertas se envían a {}", uri);
+    }
+
+    @Override
+    public void deliver(AlertMatch match) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(match);
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar la alerta {}: {}", match.getRuleName(), e.getMessage());
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        log.warn("Webhook de alertas {} no disponible: {}", uri, error.getMessage());
+                    } else if (response.statusCode() >= 400) {
+                        log.warn("Webhook de alertas {} respondió {}", uri, response.statusCode());
+                    }
+                });
+    }
+}
@@ -0,0 +1,98 @@
+package com.udea.demonmap.util;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de int a int no negativo con direccionamiento abierto, sin boxing.
+ *
+ * Pensado para asignar ids densos a direcciones IPv4 y prefijos de subred:
+ * claves y valores viven en dos arreglos paralelos con sondeo lineal y no
+ * se admite borrar. Un valor -1 en la tabla marca la ranura libre.
+ *
+ * No es thread-safe.
+ */
+public final class IntIntHashMap {
+
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return Valor de la clave, o -1 si no está
+     */
+    public int get(int key) {
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            int value = values[slot];
+            if (value == FREE || keys[slot] == key) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Asocia un valor a la clave, reemplazando el anterior.
+     *
+     * @param value Valor no negativo
+     */
+    public void put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("El valor debe ser no negativo: " + value);
+        }
+        int slot = mix(key) & mask;
+        while (values[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == FREE) {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != FREE) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, FREE);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Dispersa los bits: las direcciones consecutivas de una subred solo
+     * difieren en los bits bajos.
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,242 @@
+package com.udea.demonmap.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Intervalo cerrado de direcciones IPv4 [start, end] representadas como long.
+ *
+ * Permite operar rangos CIDR como intervalos numéricos (intersección,
+ * resta, partición) y volver a expresarlos como bloques CIDR para nmap.
+ */
+public final class Ipv4Range implements Comparable<Ipv4Range> {
+
+    private static final Pattern CIDR_PATTERN = Pattern.compile(
+            "^(\\d{1,3}(?:\\.\\d{1,3}){3})(?:/(\\d{1,2}))?$");
+
+    private final long start;
+    private final long end;
+
+    public Ipv4Range(long start, long end) {
+        if (start < 0 || end > 0xFFFFFFFFL || start > end) {
+            throw new IllegalArgumentException("Intervalo IPv4 inválido: " + start + "-" + end);
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parsea una IP individual o un rango CIDR (ej: 192.168.1.0/24).
+     *
+     * @throws IllegalArgumentException si el formato no es válido
+     */
+    public static Ipv4Range parse(String cidr) {
+        Matcher matcher = CIDR_PATTERN.matcher(cidr == null ? "" : cidr.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Rango de red inválido: " + cidr);
+        }
+        long address = toLong(matcher.group(1));
+        int prefix = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 32;
+        if (prefix > 32) {
+            throw new IllegalArgumentException("Prefijo CIDR inválido: /" + prefix);
+        }
+        long size = 1L << (32 - prefix);
+        long networkStart = address & ~(size - 1) & 0xFFFFFFFFL;
+        return new Ipv4Range(networkStart, networkStart + size - 1);
+    }
+
+    /**
+     * Igual que {@link #parse(String)} pero retorna vacío si el destino no es
+     * una IP o un CIDR (por ejemplo rangos con sintaxis propia de nmap).
+     */
+    public static Optional<Ipv4Range> tryParse(String cidr) {
+        try {
+            return Optional.of(parse(cidr));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static long toLong(String ipAddress) {
+        String[] octets = ipAddress.trim().split("\\.");
+        if (octets.length != 4) {
+            throw new IllegalArgumentException("Dirección IPv4 inválida: " + ipAddress);
+        }
+        long value = 0;
+        for (String octet : octets) {
+            int part;
+            try {
+                part = Integer.parseInt(octet);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Dirección IPv4 inválida: " + ipAddress);
+            }
+            if (part < 0 || part > 255) {
+                throw new IllegalArgumentException("Dirección IPv4 inválida: " + ipAddress);
+            }
+            value = (value << 8) | part;
+        }
+        return value;
+    }
+
+    public static String toIp(long value) {
+        return ((value >> 24) & 0xFF) + "." + ((value >> 16) & 0xFF) + "."
+                + ((value >> 8) & 0xFF) + "." + (value & 0xFF);
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long size() {
+        return end - start + 1;
+    }
+
+    public boolean contains(long address) {
+        return address >= start && address <= end;
+    }
+
+    public boolean contains(String ipAddress) {
+        return contains(toLong(ipAddress));
+    }
+
+    public boolean overlaps(Ipv4Range other) {
+        return start <= other.end && other.start <= end;
+    }
+
+    /**
+     * @return Intersección con otro intervalo, o vacío si no se solapan
+     */
+    public Optional<Ipv4Range> intersect(Ipv4Range other) {
+        if (!overlaps(other)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Ipv4Range(Math.max(start, other.start), Math.min(end, other.end)));
+    }
+
+    /**
+     * Resta un conjunto de intervalos y retorna los tramos no cubiertos, ordenados.
+     */
+    public List<Ipv4Range> subtract(List<Ipv4Range> covered) {
+        List<Ipv4Range> sorted = new ArrayList<>(covered);
+        sorted.sort(Comparator.naturalOrder());
+
+        List<Ipv4Range> remainder = new ArrayList<>();
+        long cursor = start;
+        for (Ipv4Range range : sorted) {
+            if (range.end < cursor || range.start > end) {
+                continue;
+            }
+            if (range.start > cursor) {
+                remainder.add(new Ipv4Range(cursor, range.start - 1));
+            }
+            cursor = Math.max(cursor, range.end + 1);
+            if (cursor > end) {
+                break;
+            }
+        }
+        if (cursor <= end) {
+            remainder.add(new Ipv4Range(cursor, end));
+        }
+        return remainder;
+    }
+
+    /**
+     * Une intervalos solapados o contiguos en una lista ordenada y disjunta.
+     */
+    public static List<Ipv4Range> merge(List<Ipv4Range> ranges) {
+        List<Ipv4Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.naturalOrder());
+
+        List<Ipv4Range> merged = new ArrayList<>();
+        for (Ipv4Range range : sorted) {
+            if (!merged.isEmpty() && merged.get(merged.size() - 1).end + 1 >= range.start) {
+                Ipv4Range last = merged.remove(merged.size() - 1);
+                merged.add(new Ipv4Range(last.start, Math.max(last.end, range.end)));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Corta el intervalo en los límites de los bloques alineados al prefijo.
+     */
+    public List<Ipv4Range> split(int prefixLength) {
+        long blockSize = 1L << (32 - prefixLength);
+        List<Ipv4Range> blocks = new ArrayList<>();
+        long cursor = start;
+        while (cursor <= end) {
+            long blockEnd = Math.min(end, cursor | (blockSize - 1));
+            blocks.add(new Ipv4Range(cursor, blockEnd));
+            cursor = blockEnd + 1;
+        }
+        return blocks;
+    }
+
+    /**
+     * Expresa el intervalo como la lista mínima de bloques CIDR alineados.
+     */
+    public List<String> toCidrBlocks() {
+        List<String> blocks = new ArrayList<>();
+        long cursor = start;
+        while (cursor <= end) {
+            // Bloque más grande alineado en cursor que no se pase del final
+            int prefix = 32 - Long.numberOfTrailingZeros(cursor == 0 ? 1L << 32 : cursor);
+            prefix = Math.max(prefix, 0);
+            while ((cursor + (1L << (32 - prefix)) - 1) > end) {
+                prefix++;
+            }
+            blocks.add(toIp(cursor) + "/" + prefix);
+            cursor += 1L << (32 - prefix);
+        }
+        return blocks;
+    }
+
+    /**
+     * Formato de destino para nmap: bloques CIDR separados por espacios.
+     */
+    public static String toNmapTargets(List<Ipv4Range> ranges) {
+        List<String> blocks = new ArrayList<>();
+        for (Ipv4Range range : ranges) {
+            blocks.addAll(range.toCidrBlocks());
+        }
+        return String.join(" ", blocks);
+    }
+
+    @Override
+    public int compareTo(Ipv4Range other) {
+        int byStart = Long.compare(start, other.start);
+        return byStart != 0 ? byStart : Long.compare(end, other.end);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Ipv4Range other)) {
+            return false;
+        }
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+
+    @Override
+    public String toString() {
+        List<String> blocks = toCidrBlocks();
+        return blocks.size() == 1 ? blocks.get(0) : toIp(start) + "-" + toIp(end);
+    }
+}
@@ -0,0 +1,247 @@
+package com.udea.demonmap.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.udea.demonmap.entity.NetworkDevice;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lista de dispositivos que guarda en memoria hasta un umbral y el resto en un
+ * archivo temporal en Smile (JSON binario, sin repetir nombres de campo).
+ *
+ * Está pensada para los resultados de escaneos grandes: se llena con add()
+ * mientras terminan los hosts y después se recorre de principio a fin
+ * (serialización de la respuesta, listeners), leyendo el archivo en secuencia
+ * sin cargarlo entero. get(i) sobre la parte en disco solo es eficiente si los
+ * índices se piden en orden, como hacen los serializadores de Jackson.
+ *
+ * El archivo se borra con close(), que quien entrega el resultado llama al
+ * terminar de recorrerlo; si la lista deja de ser alcanzable sin cerrarse, el
+ * Cleaner lo borra igual, pero recién cuando pase el GC.
+ */
+public final class SpillingDeviceList extends AbstractList<NetworkDevice> implements Closeable {
+
+    private static final ObjectMapper SMILE = new ObjectMapper(new SmileFactory())
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int memoryLimit;
+    private final Path directory;
+    private final List<NetworkDevice> inMemory = new ArrayList<>();
+    private RunFile run;
+    private Cleaner.Cleanable cleanable;
+    private int spilled;
+    private int references = 1;
+
+    // Cursor de get(i) sobre la parte en disco
+    private MappingIterator<NetworkDevice> cursor;
+    private int cursorIndex;
+
+    /**
+     * @param memoryLimit Dispositivos que se guardan en memoria antes de escribir a disco
+     * @param directory Directorio del archivo temporal (se crea si no existe)
+     */
+    public SpillingDeviceList(int memoryLimit, Path directory) {
+        this.memoryLimit = memoryLimit;
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized boolean add(NetworkDevice device) {
+        if (inMemory.size() < memoryLimit) {
+            return inMemory.add(device);
+        }
+        try {
+            if (run == null) {
+                Files.createDirectories(directory);
+                run = new RunFile(Files.createTempFile(directory, "scan-", ".smile"));
+                cleanable = CLEANER.register(this, run);
+            }
+            run.writer.write(device);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el resultado a disco: " + e.getMessage(), e);
+        }
+        spilled++;
+        return true;
+    }
+
+    @Override
+    public synchronized NetworkDevice get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Índice " + index + " fuera de [0, " + size() + ")");
+        }
+        if (index < inMemory.size()) {
+            return inMemory.get(index);
+        }
+        int diskIndex = index - inMemory.size();
+        if (cursor == null || diskIndex < cursorIndex) {
+            closeCursor();
+            cursor = openRun();
+            cursorIndex = 0;
+        }
+        while (cursorIndex < diskIndex) {
+            cursor.next();
+            cursorIndex++;
+        }
+        cursorIndex++;
+        NetworkDevice device = cursor.next();
+        if (cursorIndex == spilled) {
+            closeCursor();
+        }
+        return device;
+    }
+
+    @Override
+    public synchronized int size() {
+        return inMemory.size() + spilled;
+    }
+
+    /**
+     * Recorre primero los dispositivos en memoria y después los del archivo.
+     * No debe haber add() concurrentes con el recorrido.
+     */
+    @Override
+    public synchronized Iterator<NetworkDevice> iterator() {
+        Iterator<NetworkDevice> memory = new ArrayList<>(inMemory).iterator();
+        int diskCount = spilled;
+        return new Iterator<>() {
+            private MappingIterator<NetworkDevice> disk;
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return memory.hasNext() || read < diskCount;
+            }
+
+            @Override
+            public NetworkDevice next() {
+                if (memory.hasNext()) {
+                    return memory.next();
+                }
+                if (read >= diskCount) {
+                    throw new NoSuchElementException();
+                }
+                if (disk == null) {
+                    disk = openRun();
+                }
+                NetworkDevice device = disk.next();
+                if (++read == diskCount) {
+                    closeQuietly(disk);
+                }
+                return device;
+            }
+        };
+    }
+
+    /**
+     * @return Dispositivos escritos a disco
+     */
+    public synchronized int getSpilledCount() {
+        return spilled;
+    }
+
+    /**
+     * Suma un usuario de la lista que la recorre por su cuenta (p. ej. en otro
+     * thread) y la cierra al terminar: el archivo se borra con el último close().
+     *
+     * @return Esta lista
+     * @throws IllegalStateException si la lista ya se cerró
+     */
+    public synchronized SpillingDeviceList retain() {
+        if (references == 0) {
+            throw new IllegalStateException("La lista ya se cerró");
+        }
+        references++;
+        return this;
+    }
+
+    /**
+     * Cierra y borra el archivo temporal cuando lo cierra su último usuario
+     * (ver {@link #retain()}). La lista queda solo con la parte en memoria.
+     */
+    @Override
+    public synchronized void close() {
+        if (references > 1) {
+            references--;
+            return;
+        }
+        references = 0;
+        closeCursor();
+        if (cleanable != null) {
+            cleanable.clean();
+            cleanable = null;
+            run = null;
+        }
+        spilled = 0;
+    }
+
+    private MappingIterator<NetworkDevice> openRun() {
+        try {
+            run.writer.flush();
+            return SMILE.readerFor(NetworkDevice.class)
+                    .readValues(new BufferedInputStream(Files.newInputStream(run.path)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el resultado en disco: " + e.getMessage(), e);
+        }
+    }
+
+    private void closeCursor() {
+        if (cursor != null) {
+            closeQuietly(cursor);
+            cursor = null;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Solo lectura: no hay nada que perder
+        }
+    }
+
+    /**
+     * Archivo de derrame. Es el estado que limpia el Cleaner, por lo que no
+     * referencia a la lista.
+     */
+    private static final class RunFile implements Runnable {
+        private final Path path;
+        private final SequenceWriter writer;
+
+        RunFile(Path path) throws IOException {
+            this.path = path;
+            this.writer = SMILE.writerFor(NetworkDevice.class)
+                    .writeValues(new BufferedOutputStream(Files.newOutputStream(path)));
+        }
+
+        @Override
+        public void run() {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // El archivo se borra de todos modos
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // Queda en el directorio temporal
+            }
+        }
+    }
+}
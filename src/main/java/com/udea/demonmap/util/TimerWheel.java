@@ -0,0 +1,119 @@
+package com.udea.demonmap.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de temporizadores con hash (hashed timing wheel).
+ *
+ * Los vencimientos se redondean a ticks de duración fija y se guardan en la
+ * ranura {@code tick % ranuras}; programar y cancelar son O(1) y avanzar la
+ * rueda solo recorre las ranuras de los ticks transcurridos. Un temporizador
+ * a más de una vuelta de distancia queda en su ranura hasta la vuelta que
+ * corresponde.
+ *
+ * No es thread-safe: está pensada para usarse desde un único thread de E/S.
+ */
+public final class TimerWheel<T> {
+
+    private final List<Deque<Timeout<T>>> slots;
+    private final int mask;
+    private final long tickNanos;
+    private final long originNanos;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param slots Número de ranuras (se redondea a potencia de dos)
+     * @param tickNanos Duración de un tick
+     * @param nowNanos Instante actual según System.nanoTime()
+     */
+    public TimerWheel(int slots, long tickNanos, long nowNanos) {
+        int capacity = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.slots = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.slots.add(new ArrayDeque<>());
+        }
+        this.mask = capacity - 1;
+        this.tickNanos = tickNanos;
+        this.originNanos = nowNanos;
+    }
+
+    /**
+     * Programa un vencimiento. Nunca vence antes del próximo tick.
+     */
+    public Timeout<T> schedule(T item, long delayNanos, long nowNanos) {
+        long deadlineTick = Math.max(currentTick + 1, (nowNanos - originNanos + delayNanos + tickNanos - 1) / tickNanos);
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        slots.get((int) (deadlineTick & mask)).add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Avanza la rueda hasta el instante dado y entrega los elementos vencidos.
+     */
+    public void advance(long nowNanos, Consumer<T> expired) {
+        long targetTick = (nowNanos - originNanos) / tickNanos;
+        while (currentTick < targetTick && size > 0) {
+            currentTick++;
+            Iterator<Timeout<T>> it = slots.get((int) (currentTick & mask)).iterator();
+            while (it.hasNext()) {
+                Timeout<T> timeout = it.next();
+                if (timeout.cancelled) {
+                    it.remove();
+                    size--;
+                } else if (timeout.deadlineTick <= currentTick) {
+                    it.remove();
+                    size--;
+                    expired.accept(timeout.item);
+                }
+            }
+        }
+        // Sin temporizadores pendientes no hace falta recorrer ranuras vacías
+        currentTick = Math.max(currentTick, targetTick);
+    }
+
+    /**
+     * @return Nanosegundos hasta el próximo tick, o -1 si no hay temporizadores
+     */
+    public long nanosUntilNextTick(long nowNanos) {
+        if (size == 0) {
+            return -1;
+        }
+        long nextTickAt = originNanos + (currentTick + 1) * tickNanos;
+        return Math.max(0, nextTickAt - nowNanos);
+    }
+
+    /**
+     * @return Temporizadores programados, incluidos los cancelados aún no retirados
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Temporizador programado.
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private boolean cancelled;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Cancela el vencimiento; se retira de la rueda al pasar por su ranura.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.udea.demonmap;
+
+import com.udea.demonmap.repository.NetworkScanner;
+import com.udea.demonmap.repository.SimulatedNetworkScanner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La aplicación con {@link SimulatedNetworkScanner} en una JVM hija, para las
+ * pruebas que necesitan procesos reales: arranque en frío, varias instancias
+ * en loopback. Las propiedades de sistema loadtest.* de la JVM hija
+ * configuran la red simulada.
+ */
+public final class SimulatedApplication implements AutoCloseable {
+
+    private static final String PORT_MARKER = "STARTUP_PORT=";
+
+    private final Process process;
+    private final long startNanos;
+    private final CompletableFuture<Integer> port = new CompletableFuture<>();
+
+    private SimulatedApplication(Process process, long startNanos) {
+        this.process = process;
+        this.startNanos = startNanos;
+        Thread reader = new Thread(this::readOutput, "simulated-app-output");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Lanza la aplicación en una JVM nueva con el classpath de las pruebas.
+     *
+     * @param jvmArgs Opciones de la JVM hija
+     * @param appArgs Argumentos de la aplicación (se agrega --server.port=0)
+     */
+    public static SimulatedApplication fork(List<String> jvmArgs, List<String> appArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SimulatedApplication.class.getName());
+        command.add("--server.port=0");
+        command.addAll(appArgs);
+
+        long start = System.nanoTime();
+        return new SimulatedApplication(new ProcessBuilder(command).redirectErrorStream(true).start(), start);
+    }
+
+    /**
+     * Espera a que la aplicación abra su puerto.
+     *
+     * @return Puerto HTTP de la aplicación
+     */
+    public int awaitPort(Duration timeout) throws Exception {
+        return port.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Milisegundos desde el lanzamiento del proceso
+     */
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Mata el proceso sin dejarle terminar ordenadamente, como una caída.
+     */
+    public void kill() throws InterruptedException {
+        process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Consume la salida del proceso (para que no se bloquee) y publica el puerto.
+     */
+    private void readOutput() {
+        StringBuilder tail = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(PORT_MARKER)) {
+                    port.complete(Integer.parseInt(line.substring(PORT_MARKER.length()).trim()));
+                } else if (!port.isDone()) {
+                    tail.append(line).append('\n');
+                }
+            }
+        } catch (Exception e) {
+            port.completeExceptionally(e);
+        }
+        port.completeExceptionally(new IllegalStateException("La aplicación terminó sin abrir el puerto:\n" + tail));
+    }
+
+    /**
+     * Punto de entrada de la JVM hija: la aplicación real con el escáner simulado.
+     */
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(DemonmapApplication.class, SimulatorConfig.class);
+        // Fuera del contexto de pruebas el escaneo de componentes vería las configuraciones de prueba
+        application.addInitializers(context -> context.getBeanFactory()
+                .registerSingleton("testTypeExcludeFilter", new TestTypeExcludeFilter()));
+        application.addListeners(new PortAnnouncer());
+        application.run(args);
+    }
+
+    @TestConfiguration
+    static class SimulatorConfig {
+        @Bean
+        @Primary
+        NetworkScanner simulatedNetworkScanner() {
+            return new SimulatedNetworkScanner(SimulatedNetworkScanner.Profile.fromSystemProperties());
+        }
+    }
+
+    private static final class TestTypeExcludeFilter extends TypeExcludeFilter {
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName())
+                    || metadataReader.getAnnotationMetadata().hasAnnotation(TestComponent.class.getName());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj != null && getClass() == obj.getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+
+    private static final class PortAnnouncer implements ApplicationListener<WebServerInitializedEvent> {
+        @Override
+        public void onApplicationEvent(WebServerInitializedEvent event) {
+            System.out.println(PORT_MARKER + event.getWebServer().getPort());
+        }
+    }
+}
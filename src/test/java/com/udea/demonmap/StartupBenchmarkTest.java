@@ -0,0 +1,113 @@
+package com.udea.demonmap;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark de tiempo hasta el primer escaneo exitoso.
+ *
+ * Cada corrida lanza una JVM nueva con {@link SimulatedApplication} (la aplicación
+ * con un nmap simulado) y mide desde el arranque del proceso hasta que el puerto
+ * queda abierto y hasta la primera respuesta 200 de /api/network/scan/host/{ip}.
+ * La segunda medida incluye los beans que el perfil fast-startup difiere al
+ * primer escaneo: se verifica que el arranque sea más rápido sin que el primer
+ * escaneo devuelva lo ganado. No corre con el resto de las pruebas: lanza JVMs
+ * y compara tiempos de reloj. Para correrlo, con más corridas o para probar
+ * opciones de JVM (p. ej. un archivo CDS generado sobre este classpath):
+ * <pre>
+ *   mvn -Pbenchmark test -Dtest=StartupBenchmarkTest
+ *   mvn -Pbenchmark test -Dtest=StartupBenchmarkTest -Dstartup.runs=5 -Dstartup.jvmArgs="-XX:TieredStopAtLevel=1"
+ * </pre>
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 2);
+    private static final String JVM_ARGS = System.getProperty("startup.jvmArgs", "");
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(Integer.getInteger("startup.timeoutSeconds", 120));
+
+    /**
+     * Margen tolerado para el primer escaneo del perfil fast-startup respecto al
+     * perfil por defecto: la inicialización diferida puede trasladarle parte del
+     * costo, pero no más que este porcentaje.
+     */
+    private static final int FIRST_SCAN_TOLERANCE_PERCENT = Integer.getInteger("startup.firstScanTolerancePercent", 10);
+
+    private record Timing(long readyMillis, long firstScanMillis) {
+    }
+
+    @Test
+    void fastStartupProfileReachesFirstScanSooner() throws Exception {
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("default", List.of());
+        variants.put("fast-startup", List.of("--spring.profiles.active=fast-startup"));
+
+        Map<String, List<Timing>> results = new LinkedHashMap<>();
+        for (int run = 0; run < RUNS; run++) {
+            // Alternar variantes reparte entre ambas el efecto de la caché de disco
+            for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+                results.computeIfAbsent(variant.getKey(), key -> new ArrayList<>()).add(timeToFirstScan(variant.getValue()));
+            }
+        }
+
+        System.out.printf("%n=== Arranque hasta el primer escaneo exitoso (%d corridas, mejor / mediana) ===%n", RUNS);
+        results.forEach((name, timings) -> System.out.printf("%-14s puerto abierto: %5d / %5d ms, primer escaneo: %5d / %5d ms%n",
+                name, best(timings, Timing::readyMillis), median(timings, Timing::readyMillis),
+                best(timings, Timing::firstScanMillis), median(timings, Timing::firstScanMillis)));
+
+        List<Timing> standard = results.get("default");
+        List<Timing> fast = results.get("fast-startup");
+        assertTrue(best(fast, Timing::readyMillis) < best(standard, Timing::readyMillis),
+                "El perfil fast-startup no abre el puerto antes que el perfil por defecto");
+        long firstScanLimit = best(standard, Timing::firstScanMillis) * (100 + FIRST_SCAN_TOLERANCE_PERCENT) / 100;
+        assertTrue(best(fast, Timing::firstScanMillis) <= firstScanLimit,
+                "El perfil fast-startup llega al primer escaneo en " + best(fast, Timing::firstScanMillis)
+                        + " ms, más que el límite de " + firstScanLimit + " ms");
+    }
+
+    private static long best(List<Timing> timings, ToLongFunction<Timing> metric) {
+        return timings.stream().mapToLong(metric).min().orElseThrow();
+    }
+
+    private static long median(List<Timing> timings, ToLongFunction<Timing> metric) {
+        long[] sorted = timings.stream().mapToLong(metric).sorted().toArray();
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Lanza la aplicación en una JVM nueva y mide hasta el primer escaneo exitoso.
+     *
+     * @return Milisegundos desde el arranque del proceso hasta el puerto abierto y hasta el primer escaneo
+     */
+    private static Timing timeToFirstScan(List<String> appArgs) throws Exception {
+        List<String> jvmArgs = JVM_ARGS.isBlank() ? List.of() : Arrays.asList(JVM_ARGS.trim().split("\\s+"));
+        try (SimulatedApplication application = SimulatedApplication.fork(jvmArgs, appArgs)) {
+            int serverPort = application.awaitPort(STARTUP_TIMEOUT);
+            long readyMillis = application.elapsedMillis();
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + serverPort + "/api/network/scan/host/10.0.0.1"))
+                            .timeout(STARTUP_TIMEOUT)
+                            .GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            long firstScanMillis = application.elapsedMillis();
+            assertEquals(200, response.statusCode(), "Primer escaneo fallido: " + response.body());
+            return new Timing(readyMillis, firstScanMillis);
+        }
+    }
+}
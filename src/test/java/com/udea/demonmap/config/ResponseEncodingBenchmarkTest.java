@@ -0,0 +1,125 @@
+package com.udea.demonmap.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.udea.demonmap.dto.NetworkDeviceDTO;
+import com.udea.demonmap.dto.PortDTO;
+import com.udea.demonmap.dto.ScanResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark de bytes en el cable y CPU de serialización por dispositivo
+ * para cada codificación negociable de ScanResultDTO.
+ */
+@Slf4j
+@Tag("benchmark")
+class ResponseEncodingBenchmarkTest {
+
+    private static final int DEVICES = 4096;   // ~ una /20 completa
+    private static final int PORTS_PER_DEVICE = 8;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private interface Compressor {
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+
+    @Test
+    void compactEncodingsAreSmallerThanPlainJson() throws Exception {
+        ScanResultDTO result = syntheticResult();
+
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+
+        long jsonBytes = measure("json", json, out -> out, result);
+        long gzipBytes = measure("json+gzip", json, GZIPOutputStream::new, result);
+        long zstdBytes = measure("json+zstd", json, out -> new ZstdOutputStream(out, 3), result);
+        long cborBytes = measure("cbor", cbor, out -> out, result);
+        long smileBytes = measure("smile", smile, out -> out, result);
+        measure("smile+zstd", smile, out -> new ZstdOutputStream(out, 3), result);
+
+        assertTrue(cborBytes < jsonBytes, "CBOR debe ser más compacto que JSON");
+        assertTrue(smileBytes < jsonBytes, "Smile debe ser más compacto que JSON");
+        assertTrue(gzipBytes < jsonBytes / 4, "gzip debe reducir al menos 4x el JSON");
+        assertTrue(zstdBytes < jsonBytes / 4, "zstd debe reducir al menos 4x el JSON");
+    }
+
+    private long measure(String name, ObjectMapper mapper, Compressor compressor,
+                         ScanResultDTO result) throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            bytes = serialize(mapper, compressor, result);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            serialize(mapper, compressor, result);
+        }
+        long nanosPerDevice = (System.nanoTime() - start) / ((long) MEASURED_ROUNDS * DEVICES);
+
+        log.info("{}: {} bytes, {} bytes/dispositivo, {} ns/dispositivo",
+                name, bytes, bytes / DEVICES, nanosPerDevice);
+        return bytes;
+    }
+
+    private long serialize(ObjectMapper mapper, Compressor compressor,
+                           ScanResultDTO result) throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream(1 << 20);
+        try (OutputStream out = compressor.wrap(sink)) {
+            mapper.writeValue(out, result);
+        }
+        return sink.size();
+    }
+
+    private ScanResultDTO syntheticResult() {
+        String[] services = {"ssh", "http", "https", "msrpc", "netbios-ssn", "microsoft-ds", "rdp", "telnet"};
+        int[] ports = {22, 80, 443, 135, 139, 445, 3389, 23};
+        List<NetworkDeviceDTO> devices = new ArrayList<>(DEVICES);
+        for (int i = 0; i < DEVICES; i++) {
+            List<PortDTO> openPorts = new ArrayList<>(PORTS_PER_DEVICE);
+            for (int p = 0; p < PORTS_PER_DEVICE; p++) {
+                openPorts.add(PortDTO.builder()
+                        .portNumber(ports[p])
+                        .protocol("tcp")
+                        .state("open")
+                        .service(services[p])
+                        .version(p % 2 == 0 ? "OpenSSH 8.9p1 Ubuntu 3ubuntu0." + (i % 10) : null)
+                        .build());
+            }
+            devices.add(NetworkDeviceDTO.builder()
+                    .ipAddress("10.0." + (i >> 8) + "." + (i & 0xFF))
+                    .macAddress(String.format("AA:BB:CC:%02X:%02X:%02X", i >> 16 & 0xFF, i >> 8 & 0xFF, i & 0xFF))
+                    .hostname("host-" + i + ".local")
+                    .status("up")
+                    .vendor(i % 3 == 0 ? "Dell" : "Hewlett Packard")
+                    .responseTime((long) (i % 50))
+                    .openPorts(openPorts)
+                    .build());
+        }
+        return ScanResultDTO.builder()
+                .networkRange("10.0.0.0/20")
+                .scanStartTime(LocalDateTime.now().minusMinutes(5))
+                .scanEndTime(LocalDateTime.now())
+                .durationMs(300_000L)
+                .totalHostsScanned(DEVICES)
+                .activeHostsFound(DEVICES)
+                .status("SUCCESS")
+                .devices(devices)
+                .build();
+    }
+}
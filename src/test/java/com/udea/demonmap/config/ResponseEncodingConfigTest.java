@@ -0,0 +1,111 @@
+package com.udea.demonmap.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.ZstdInputStream;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.service.NetworkScanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Negociación de CBOR y Smile sobre el endpoint de escaneo real, con la
+ * compresión zstd de {@link ZstdCompressionFilter}. Las fechas como texto
+ * ISO prueban que responde el ObjectMapper de Spring Boot y no el de los
+ * convertidores por defecto de Spring MVC, que las escribe como arreglos.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ResponseEncodingConfigTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 10, 30, 15);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private NetworkScanService networkScanService;
+
+    @BeforeEach
+    void stubScan() throws Exception {
+        List<NetworkDevice> devices = new ArrayList<>();
+        devices.add(NetworkDevice.builder()
+                .ipAddress("10.0.0.1")
+                .status("up")
+                .build());
+        when(networkScanService.performQuickScan(anyString())).thenReturn(ScanResult.builder()
+                .scanId("prueba")
+                .networkRange("10.0.0.0/30")
+                .scanStartTime(START)
+                .scanEndTime(START.plusSeconds(2))
+                .durationMs(2000L)
+                .devices(devices)
+                .totalHostsScanned(4)
+                .activeHostsFound(1)
+                .status(ScanResult.ScanStatus.SUCCESS)
+                .build());
+    }
+
+    @Test
+    void cborResponseUsesTheBootMapperAndIsCompressedWithZstd() throws Exception {
+        JsonNode body = scan("application/cbor", new CBORFactory());
+
+        assertEquals("2024-05-01T10:30:15", body.get("scanStartTime").asText());
+        assertTrue(body.get("scanStartTime").isTextual());
+        assertEquals("10.0.0.1", body.get("devices").get(0).get("ipAddress").asText());
+    }
+
+    @Test
+    void smileResponseUsesTheBootMapperAndIsCompressedWithZstd() throws Exception {
+        JsonNode body = scan("application/x-jackson-smile", new SmileFactory());
+
+        assertEquals("2024-05-01T10:30:15", body.get("scanStartTime").asText());
+        assertTrue(body.get("scanStartTime").isTextual());
+        assertEquals("10.0.0.1", body.get("devices").get(0).get("ipAddress").asText());
+    }
+
+    /**
+     * Pide un escaneo rápido en el formato indicado con Accept-Encoding: zstd
+     * y devuelve el cuerpo descomprimido y parseado.
+     */
+    private JsonNode scan(String mediaType, JsonFactory factory) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/network/scan")
+                        .param("networkRange", "10.0.0.0/30")
+                        .header(HttpHeaders.ACCEPT, mediaType)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "zstd"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, mediaType))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "zstd"))
+                .andReturn();
+
+        byte[] compressed = result.getResponse().getContentAsByteArray();
+        try (InputStream in = new ZstdInputStream(new ByteArrayInputStream(compressed))) {
+            return new ObjectMapper(factory).readTree(in);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.SimulatedApplication;
+import com.udea.demonmap.entity.ClusterWorker;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.service.ScanCoordinator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Escalado del modo coordinador/worker en loopback.
+ *
+ * Esta JVM es el coordinador; los workers son JVMs hijas con
+ * {@link SimulatedApplication}, cuyo pool chico hace que la capacidad de cada
+ * worker sea el cuello de botella. Se escanea el mismo rango con 1, 2 y 4
+ * workers, se verifica que todos encuentren los mismos dispositivos y que la
+ * eficiencia (aceleración / workers) no caiga por debajo del mínimo; al final
+ * se mata un worker a mitad de escaneo y se verifica que sus tramos se
+ * reasignen sin perder hosts. No corre con el resto de las pruebas: lanza
+ * JVMs y mide tiempo real. Para correrlo, o con un rango mayor o más workers:
+ * <pre>
+ *   mvn -Pbenchmark test
+ *   mvn -Pbenchmark test -Dtest=ClusterScalingTest -Dcluster.network=10.0.0.0/20 -Dcluster.workers=1,2,4,8
+ * </pre>
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "network.scan.cluster.coordinator-enabled=true",
+        "network.scan.cluster.chunk-prefix-length=26",
+        "network.scan.cluster.lease-timeout-ms=1500",
+        "network.scan.cluster.poll-timeout-ms=1000"
+})
+class ClusterScalingTest {
+
+    private static final String NETWORK = System.getProperty("cluster.network", "10.0.0.0/22");
+    private static final int[] WORKER_COUNTS = Arrays.stream(System.getProperty("cluster.workers", "1,2,4").split(","))
+            .mapToInt(count -> Integer.parseInt(count.trim()))
+            .toArray();
+    private static final double MIN_EFFICIENCY = Double.parseDouble(System.getProperty("cluster.minEfficiency", "0.6"));
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+
+    /**
+     * Red simulada de cada worker: latencia por host dominante frente al
+     * costo de CPU, para que en loopback se mida el reparto y no la máquina.
+     */
+    private static final List<String> WORKER_JVM_ARGS = List.of(
+            "-Xmx256m",
+            "-XX:TieredStopAtLevel=1",
+            "-Dloadtest.medianLatencyMs=" + Long.getLong("cluster.medianLatencyMs", 100),
+            "-Dloadtest.latencySigma=0.1");
+
+    @Autowired
+    private ScanCoordinator coordinator;
+
+    @LocalServerPort
+    private int port;
+
+    private final List<SimulatedApplication> workers = new ArrayList<>();
+
+    @AfterEach
+    void stopWorkers() throws InterruptedException {
+        for (SimulatedApplication worker : workers) {
+            worker.close();
+        }
+    }
+
+    @Test
+    void scalesWithWorkersAndSurvivesWorkerLoss() throws Exception {
+        Map<Integer, Long> durations = new LinkedHashMap<>();
+        int expectedDevices = -1;
+        for (int count : WORKER_COUNTS) {
+            startWorkers(count);
+            // Calentamiento: el primer escaneo de cada JVM nueva paga la carga de clases y el JIT
+            ScanResult warmup = coordinator.scan(NETWORK);
+            assertEquals(ScanResult.ScanStatus.SUCCESS, warmup.getStatus(), warmup.getErrorMessage());
+            if (expectedDevices < 0) {
+                expectedDevices = warmup.getDevices().size();
+                assertTrue(expectedDevices > 0, "La red simulada no tiene hosts activos");
+            }
+            long start = System.nanoTime();
+            ScanResult result = coordinator.scan(NETWORK);
+            durations.put(count, (System.nanoTime() - start) / 1_000_000);
+            assertEquals(ScanResult.ScanStatus.SUCCESS, result.getStatus(), result.getErrorMessage());
+            assertEquals(expectedDevices, result.getDevices().size(), "Dispositivos distintos con " + count + " workers");
+        }
+
+        long baseline = durations.get(WORKER_COUNTS[0]) * WORKER_COUNTS[0];
+        System.out.printf("%n=== Escaneo distribuido de %s (%d hosts activos, tramos /26) ===%n", NETWORK, expectedDevices);
+        durations.forEach((count, millis) -> System.out.printf("%2d workers: %6d ms, aceleración %.2fx, eficiencia %.0f%%%n",
+                count, millis, (double) baseline / millis, 100.0 * baseline / millis / count));
+
+        int largest = WORKER_COUNTS[WORKER_COUNTS.length - 1];
+        double efficiency = (double) baseline / durations.get(largest) / largest;
+        assertTrue(efficiency >= MIN_EFFICIENCY, String.format(
+                "Eficiencia con %d workers de %.2f, menor al mínimo de %.2f", largest, efficiency, MIN_EFFICIENCY));
+
+        assertWorkerLossIsRecovered(expectedDevices);
+    }
+
+    /**
+     * Mata un worker en cuanto tiene tramos prestados: el escaneo debe terminar
+     * completo cuando sus leases vencen y los tramos pasan a otro worker.
+     */
+    private void assertWorkerLossIsRecovered(int expectedDevices) throws Exception {
+        startWorkers(Math.max(2, workers.size()));
+        CompletableFuture<ScanResult> scan = CompletableFuture.supplyAsync(() -> {
+            try {
+                return coordinator.scan(NETWORK);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        SimulatedApplication victim = workers.get(workers.size() - 1);
+        String victimName = "worker-" + workers.size();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (coordinator.getWorkers().stream()
+                .noneMatch(worker -> worker.getName().equals(victimName) && !worker.getLeasedRanges().isEmpty())) {
+            assertTrue(System.nanoTime() < deadline, victimName + " nunca recibió tramos");
+            Thread.sleep(20);
+        }
+        victim.kill();
+        workers.remove(victim);
+
+        ScanResult result = scan.get(2, TimeUnit.MINUTES);
+        assertEquals(ScanResult.ScanStatus.SUCCESS, result.getStatus(), result.getErrorMessage());
+        assertEquals(expectedDevices, result.getDevices().size(), "Se perdieron hosts al caer un worker");
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coordinator.getWorkers().stream().map(ClusterWorker::getName).anyMatch(victimName::equals)) {
+            assertTrue(System.nanoTime() < deadline, "El worker caído sigue registrado");
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Lanza workers hasta tener {@code count} registrados en el coordinador.
+     */
+    private void startWorkers(int count) throws Exception {
+        List<SimulatedApplication> started = new ArrayList<>();
+        while (workers.size() < count) {
+            SimulatedApplication worker = SimulatedApplication.fork(WORKER_JVM_ARGS, List.of(
+                    "--network.scan.cluster.coordinator-url=http://localhost:" + port,
+                    "--network.scan.cluster.worker-name=worker-" + (workers.size() + 1),
+                    "--network.scan.cluster.heartbeat-interval-ms=300",
+                    "--network.scan.thread-pool-size=8",
+                    "--network.scan.checkpoint.enabled=false",
+                    // Sin historial ni perfiles aprendidos: cada worker nuevo rinde igual que los anteriores
+                    "--network.scan.planner.enabled=false",
+                    "--network.scan.port-profile.enabled=false",
+                    "--network.scan.split-port.enabled=false",
+                    "--network.scan.timing.enabled=false",
+                    "--network.scan.straggler.enabled=false",
+                    "--spring.main.banner-mode=off"));
+            workers.add(worker);
+            started.add(worker);
+        }
+        for (SimulatedApplication worker : started) {
+            worker.awaitPort(STARTUP_TIMEOUT);
+        }
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (coordinator.getWorkers().size() < count) {
+            assertTrue(System.nanoTime() < deadline, "Los workers no se registraron en el coordinador");
+            Thread.sleep(50);
+        }
+    }
+}
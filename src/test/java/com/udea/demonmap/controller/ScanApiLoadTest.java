@@ -0,0 +1,193 @@
+package com.udea.demonmap.controller;
+
+import com.udea.demonmap.repository.NetworkScanner;
+import com.udea.demonmap.repository.SimulatedNetworkScanner;
+import com.udea.demonmap.util.Ipv4Range;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga de la API REST contra una red simulada.
+ *
+ * Reemplaza nmap por {@link SimulatedNetworkScanner} y dispara peticiones
+ * concurrentes a /api/network/scan y /api/network/scan/host/{ip}, reportando
+ * throughput, latencias p50/p99 y heap máximo observado. No corre con el resto
+ * de las pruebas: mide tiempos de reloj. Para correrlo, o con una carga real:
+ * <pre>
+ *   mvn -Pbenchmark test -Dtest=ScanApiLoadTest
+ *   mvn -Pbenchmark test -Dtest=ScanApiLoadTest -Dloadtest.requests=2000 -Dloadtest.clients=64 \
+ *       -Dloadtest.network=10.0.0.0/22 -Dloadtest.threadPoolSize=50 -Dloadtest.medianLatencyMs=200
+ * </pre>
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(ScanApiLoadTest.SimulatorConfig.class)
+class ScanApiLoadTest {
+
+    private static final String NETWORK = System.getProperty("loadtest.network", "10.0.0.0/26");
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 8);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 40);
+    private static final double FULL_SCAN_RATIO = Double.parseDouble(System.getProperty("loadtest.fullScanRatio", "0.2"));
+
+    @TestConfiguration
+    static class SimulatorConfig {
+        @Bean
+        @Primary
+        NetworkScanner simulatedNetworkScanner() {
+            return new SimulatedNetworkScanner(SimulatedNetworkScanner.Profile.fromSystemProperties());
+        }
+    }
+
+    @DynamicPropertySource
+    static void scanProperties(DynamicPropertyRegistry registry) {
+        registry.add("network.scan.thread-pool-size", () -> Integer.getInteger("loadtest.threadPoolSize", 20));
+        registry.add("network.scan.host-timeout-seconds", () -> Integer.getInteger("loadtest.hostTimeoutSeconds", 5));
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void scanEndpointsUnderConcurrentLoad() throws Exception {
+        Ipv4Range range = Ipv4Range.parse(NETWORK);
+        long[] latenciesNanos = new long[REQUESTS];
+        AtomicInteger nextRequest = new AtomicInteger();
+        Map<Integer, AtomicInteger> statusCounts = new ConcurrentHashMap<>();
+        AtomicLong peakHeapBytes = new AtomicLong();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ScheduledHeapSampler sampler = new ScheduledHeapSampler(memory, peakHeapBytes);
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(CLIENTS);
+        ExecutorService drivers = Executors.newFixedThreadPool(CLIENTS);
+        long elapsedNanos;
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(clientExecutor)
+                    .build();
+            sampler.start();
+
+            long start = System.nanoTime();
+            for (int c = 0; c < CLIENTS; c++) {
+                drivers.submit(() -> {
+                    int index;
+                    while ((index = nextRequest.getAndIncrement()) < REQUESTS) {
+                        URI uri = nextUri(range);
+                        long requestStart = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        latenciesNanos[index] = System.nanoTime() - requestStart;
+                        statusCounts.computeIfAbsent(status, key -> new AtomicInteger()).incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            drivers.shutdown();
+            assertTrue(drivers.awaitTermination(10, TimeUnit.MINUTES), "La carga no terminó a tiempo");
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            sampler.interrupt();
+            drivers.shutdownNow();
+            clientExecutor.shutdownNow();
+        }
+
+        Arrays.sort(latenciesNanos);
+        double seconds = elapsedNanos / 1e9;
+        log.info("Carga: {} peticiones, {} clientes, red {}", REQUESTS, CLIENTS, NETWORK);
+        log.info("Throughput: {} req/s", String.format("%.1f", REQUESTS / seconds));
+        log.info("Latencia p50: {} ms, p99: {} ms, máx: {} ms",
+                percentileMillis(latenciesNanos, 50), percentileMillis(latenciesNanos, 99),
+                latenciesNanos[latenciesNanos.length - 1] / 1_000_000);
+        log.info("Heap máximo observado: {} MB", peakHeapBytes.get() / (1024 * 1024));
+        log.info("Respuestas por status: {}", statusCounts);
+
+        int ok = count(statusCounts, 200);
+        int shed = count(statusCounts, 429);
+        assertTrue(ok > 0, "Ninguna petición fue atendida");
+        // Sin fallos inyectados solo se esperan respuestas exitosas o rechazos por admisión
+        if (Double.parseDouble(System.getProperty("loadtest.failureRate", "0")) == 0) {
+            assertEquals(REQUESTS, ok + shed, "Respuestas inesperadas: " + statusCounts);
+        }
+    }
+
+    private URI nextUri(Ipv4Range range) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < FULL_SCAN_RATIO) {
+            return URI.create("http://localhost:" + port + "/api/network/scan?scanType=full&networkRange=" + NETWORK);
+        }
+        long address = range.getStart() + random.nextLong(range.size());
+        return URI.create("http://localhost:" + port + "/api/network/scan/host/" + Ipv4Range.toIp(address));
+    }
+
+    private static long percentileMillis(long[] sortedNanos, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000;
+    }
+
+    private static int count(Map<Integer, AtomicInteger> counts, int status) {
+        AtomicInteger value = counts.get(status);
+        return value != null ? value.get() : 0;
+    }
+
+    /**
+     * Muestrea el heap usado cada 50 ms y conserva el máximo.
+     */
+    private static final class ScheduledHeapSampler extends Thread {
+        private final MemoryMXBean memory;
+        private final AtomicLong peak;
+
+        ScheduledHeapSampler(MemoryMXBean memory, AtomicLong peak) {
+            super("heap-sampler");
+            setDaemon(true);
+            this.memory = memory;
+            this.peak = peak;
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.udea.demonmap.repository;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Lectura de archivos -oX y -oG escritos en un directorio temporal. Con un
+ * umbral de mmap de 0 el archivo se lee mapeado en memoria.
+ */
+class NmapArchiveReaderTest {
+
+    private static final long NO_MMAP = Long.MAX_VALUE;
+
+    private static final String XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <nmaprun scanner="nmap" args="nmap -sV -oX scan.xml 10.0.0.0/24">
+            <host><status state="up"/>
+            <address addr="10.0.0.1" addrtype="ipv4"/>
+            <address addr="AA:BB:CC:DD:EE:FF" addrtype="mac" vendor="Acme"/>
+            <hostnames><hostname name="router.lan" type="PTR"/></hostnames>
+            <ports>
+            <port protocol="tcp" portid="22"><state state="open"/><service name="ssh" product="OpenSSH" version="8.2" extrainfo="protocol 2.0"/></port>
+            <port protocol="tcp" portid="23"><state state="closed"/><service name="telnet"/></port>
+            </ports>
+            <os><osmatch name="Linux 5.X" accuracy="95"/></os>
+            <times srtt="1500" rttvar="300" to="100000"/>
+            </host>
+            <host><status state="down"/><address addr="10.0.0.2" addrtype="ipv4"/></host>
+            <host><status state="up"/>
+            <address addr="10.0.0.3" addrtype="ipv4"/>
+            <ports><port protocol="udp" portid="161"><state state="open"/><service name="snmp"/></port></ports>
+            </host>
+            </nmaprun>
+            """;
+
+    private static final String GREPABLE = """
+            # Nmap 7.94 scan initiated Mon May  6 10:00:00 2024 as: nmap -oG scan.gnmap 10.0.0.0/24
+            Host: 10.0.0.1 (router.lan)\tStatus: Up
+            Host: 10.0.0.1 (router.lan)\tPorts: 22/open/tcp//ssh//OpenSSH 8.2/, 23/closed/tcp//telnet///, 80/open/tcp//http///\tOS: Linux 5.X
+            Host: 10.0.0.2 ()\tStatus: Down
+            Host: 10.0.0.3 ()\tStatus: Up
+            # Nmap done at Mon May  6 10:00:05 2024 -- 256 IP addresses (2 hosts up) scanned in 5.00 seconds
+            """;
+
+    @TempDir
+    Path directory;
+
+    private final List<NetworkDevice> devices = new ArrayList<>();
+
+    @Test
+    void xmlHostsAreDeliveredWithTheirOpenPorts() throws Exception {
+        NmapArchiveReader.Summary summary = read(write("scan.xml", XML), NO_MMAP);
+
+        assertEquals(NmapArchiveReader.Format.XML, summary.format());
+        assertEquals("nmap -sV -oX scan.xml 10.0.0.0/24", summary.args());
+        assertEquals(3, summary.hostsRead());
+        assertEquals(2, summary.devicesFound());
+        assertEquals(List.of("10.0.0.1", "10.0.0.3"), devices.stream().map(NetworkDevice::getIpAddress).toList());
+
+        NetworkDevice router = devices.get(0);
+        assertEquals("AA:BB:CC:DD:EE:FF", router.getMacAddress());
+        assertEquals("Acme", router.getVendor());
+        assertEquals("router.lan", router.getHostname());
+        assertEquals("Linux 5.X", router.getOperatingSystem());
+        assertEquals(1500L, router.getResponseTime());
+        assertEquals(1, router.getOpenPorts().size());
+        Port ssh = router.getOpenPorts().get(0);
+        assertEquals(22, ssh.getPortNumber());
+        assertEquals("ssh", ssh.getService());
+        assertEquals("OpenSSH 8.2 (protocol 2.0)", ssh.getVersion());
+        assertEquals("udp", devices.get(1).getOpenPorts().get(0).getProtocol());
+    }
+
+    @Test
+    void truncatedXmlKeepsTheHostsReadBeforeTheCut() throws Exception {
+        String truncated = XML.substring(0, XML.indexOf("<address addr=\"10.0.0.3\"") + 10);
+
+        NmapArchiveReader.Summary summary = read(write("cut.xml", truncated), NO_MMAP);
+
+        assertEquals(2, summary.hostsRead());
+        assertEquals(List.of("10.0.0.1"), devices.stream().map(NetworkDevice::getIpAddress).toList());
+    }
+
+    @Test
+    void xmlCutBeforeTheFirstHostIsRejected() throws Exception {
+        Path file = write("empty.xml", XML.substring(0, XML.indexOf("<host>") + 12));
+
+        assertThrows(IOException.class, () -> read(file, NO_MMAP));
+    }
+
+    @Test
+    void grepableLinesOfTheSameHostAreJoined() throws Exception {
+        NmapArchiveReader.Summary summary = read(write("scan.gnmap", GREPABLE), NO_MMAP);
+
+        assertEquals(NmapArchiveReader.Format.GREPABLE, summary.format());
+        assertEquals("nmap -oG scan.gnmap 10.0.0.0/24", summary.args());
+        assertEquals(3, summary.hostsRead());
+        assertEquals(List.of("10.0.0.1", "10.0.0.3"), devices.stream().map(NetworkDevice::getIpAddress).toList());
+
+        NetworkDevice router = devices.get(0);
+        assertEquals("router.lan", router.getHostname());
+        assertEquals("Linux 5.X", router.getOperatingSystem());
+        assertEquals(List.of(22, 80), router.getOpenPorts().stream().map(Port::getPortNumber).toList());
+        assertEquals("OpenSSH 8.2", router.getOpenPorts().get(0).getVersion());
+        assertNull(devices.get(1).getHostname());
+    }
+
+    @Test
+    void gzippedMappedFileIsReadAndItsCompressedBytesCounted() throws Exception {
+        Path file = directory.resolve("scan.xml.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(XML.getBytes(StandardCharsets.UTF_8));
+        }
+        AtomicLong bytesRead = new AtomicLong();
+
+        NmapArchiveReader.Summary summary = NmapArchiveReader.read(file, 0, devices::add, bytesRead::addAndGet);
+
+        assertEquals(2, summary.devicesFound());
+        assertEquals(Files.size(file), bytesRead.get());
+    }
+
+    @Test
+    void fileThatIsNotNmapOutputIsRejected() throws Exception {
+        Path file = write("notes.txt", "no es salida de nmap\n");
+
+        assertThrows(IOException.class, () -> read(file, NO_MMAP));
+    }
+
+    private NmapArchiveReader.Summary read(Path file, long mmapThreshold) throws IOException {
+        return NmapArchiveReader.read(file, mmapThreshold, devices::add, bytes -> { });
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+    }
+}
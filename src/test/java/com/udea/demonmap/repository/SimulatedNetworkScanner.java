@@ -0,0 +1,246 @@
+package com.udea.demonmap.repository;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.util.Ipv4Range;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulador de nmap en la JVM para pruebas de carga.
+ *
+ * Modela una red sintética determinista: qué IPs están activas, su MAC/vendor y
+ * sus puertos abiertos dependen solo de la IP. Cada invocación genera la misma
+ * salida de texto que nmap y la procesa con {@link NmapOutputParser}, de modo que
+ * el costo de parseo es el real. La latencia sigue una distribución log-normal y
+ * se pueden inyectar fallos y timeouts con una probabilidad configurable.
+ */
+public class SimulatedNetworkScanner implements NetworkScanner {
+
+    private static final int[] PORT_CATALOG = {22, 80, 443, 445, 139, 135, 3389, 23, 21, 25, 53, 8080, 3306, 5432};
+    private static final long FAST_HOST_TIMEOUT_MS = 5_000;
+    private static final String[] SERVICE_CATALOG = {"ssh", "http", "https", "microsoft-ds", "netbios-ssn", "msrpc",
+            "ms-wbt-server", "telnet", "ftp", "smtp", "domain", "http-proxy", "mysql", "postgresql"};
+    private static final String[] VENDOR_CATALOG = {"Dell", "Hewlett Packard", "Cisco Systems", "TP-Link", "Intel Corporate"};
+
+    private final Profile profile;
+
+    public SimulatedNetworkScanner(Profile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Parámetros de la red simulada.
+     */
+    @Data
+    @Builder
+    public static class Profile {
+        /** Fracción de direcciones activas (0..1) */
+        @Builder.Default
+        private double density = 0.5;
+        /** Mediana de latencia del escaneo de un host */
+        @Builder.Default
+        private long medianLatencyMs = 5;
+        /** Dispersión de la log-normal; 0 = latencia constante */
+        @Builder.Default
+        private double latencySigma = 0.5;
+        /** Costo del descubrimiento por dirección del rango */
+        @Builder.Default
+        private long discoveryMicrosPerAddress = 50;
+        /** Probabilidad de que el escaneo de un host falle */
+        @Builder.Default
+        private double failureRate = 0.0;
+        /** Probabilidad de que un host no responda antes del timeout */
+        @Builder.Default
+        private double timeoutRate = 0.0;
+        /** Duración de un host que excede el timeout */
+        @Builder.Default
+        private long timeoutMs = 10_000;
+
+        /**
+         * Perfil tomado de propiedades de sistema (-Dloadtest.density=0.3, etc.).
+         */
+        public static Profile fromSystemProperties() {
+            return Profile.builder()
+                    .density(Double.parseDouble(System.getProperty("loadtest.density", "0.5")))
+                    .medianLatencyMs(Long.getLong("loadtest.medianLatencyMs", 5))
+                    .latencySigma(Double.parseDouble(System.getProperty("loadtest.latencySigma", "0.5")))
+                    .discoveryMicrosPerAddress(Long.getLong("loadtest.discoveryMicrosPerAddress", 50))
+                    .failureRate(Double.parseDouble(System.getProperty("loadtest.failureRate", "0")))
+                    .timeoutRate(Double.parseDouble(System.getProperty("loadtest.timeoutRate", "0")))
+                    .timeoutMs(Long.getLong("loadtest.timeoutMs", 10_000))
+                    .build();
+        }
+    }
+
+    @Override
+    public ScanResult scanNetwork(String networkRange) throws ScanException {
+        LocalDateTime start = LocalDateTime.now();
+        List<String> output = discoveryOutput(networkRange);
+        List<NetworkDevice> devices = NmapOutputParser.parseQuickScanDevices(output);
+        ScanResult result = ScanResult.builder()
+                .networkRange(networkRange)
+                .scanStartTime(start)
+                .scanEndTime(LocalDateTime.now())
+                .devices(devices)
+                .totalHostsScanned(devices.size())
+                .activeHostsFound(devices.size())
+                .status(ScanResult.ScanStatus.SUCCESS)
+                .build();
+        result.calculateDuration();
+        return result;
+    }
+
+    @Override
+    public NetworkDevice scanHost(String ipAddress) throws ScanException {
+        return scanHost(ipAddress, PortSelection.top());
+    }
+    
+    /**
+     * Con una lista explícita de puertos la latencia se reduce en proporción
+     * a los puertos sondeados frente al catálogo completo. El perfil rápido
+     * además corta los hosts que no responden en su --host-timeout de 5 s.
+     */
+    @Override
+    public NetworkDevice scanHost(String ipAddress, PortSelection ports) throws ScanException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        if (roll < profile.getTimeoutRate()) {
+            sleep(ports.getMode() == PortSelection.Mode.FAST
+                    ? Math.min(profile.getTimeoutMs(), FAST_HOST_TIMEOUT_MS) : profile.getTimeoutMs());
+        } else {
+            double factor = Math.exp(profile.getLatencySigma() * random.nextGaussian());
+            if (ports.getMode() == PortSelection.Mode.ONLY || ports.getMode() == PortSelection.Mode.SLICE) {
+                factor *= Math.min(1.0, (double) ports.getPorts().size() / PORT_CATALOG.length);
+            } else if (ports.getMode() == PortSelection.Mode.FAST) {
+                factor *= Math.min(1.0, (double) ports.getTopPorts() / PORT_CATALOG.length);
+            }
+            sleep(Math.round(profile.getMedianLatencyMs() * factor));
+        }
+        if (random.nextDouble() < profile.getFailureRate()) {
+            throw new ScanException("Fallo simulado escaneando " + ipAddress);
+        }
+        NetworkDevice device = NmapOutputParser.parseHostScan(hostOutput(ipAddress), ipAddress);
+        if (ports.getMode() != PortSelection.Mode.TOP) {
+            boolean only = ports.getMode() == PortSelection.Mode.ONLY || ports.getMode() == PortSelection.Mode.SLICE;
+            device.getOpenPorts().removeIf(port -> ports.getPorts().contains(port.getPortNumber()) != only);
+        }
+        return device;
+    }
+    
+    @Override
+    public List<Integer> topPortList(int count) {
+        return Arrays.stream(PORT_CATALOG).limit(count).boxed().toList();
+    }
+    
+    @Override
+    public boolean isHostAlive(String ipAddress) {
+        return isAlive(Ipv4Range.toLong(ipAddress));
+    }
+
+    @Override
+    public List<String> getActiveHosts(String networkRange) throws ScanException {
+        return NmapOutputParser.parseActiveHosts(discoveryOutput(networkRange));
+    }
+
+    /**
+     * Salida equivalente a "nmap -sn" sobre uno o más destinos separados por espacio.
+     */
+    private List<String> discoveryOutput(String targets) throws ScanException {
+        List<String> output = new ArrayList<>();
+        output.add("Starting Nmap 7.94 ( https://nmap.org ) at " + LocalDateTime.now());
+        long addresses = 0;
+        int up = 0;
+        for (String target : targets.trim().split("\\s+")) {
+            Ipv4Range range;
+            try {
+                range = Ipv4Range.parse(target);
+            } catch (IllegalArgumentException e) {
+                throw new ScanException("Destino no soportado por el simulador: " + target);
+            }
+            addresses += range.size();
+            for (long address = range.getStart(); address <= range.getEnd(); address++) {
+                if (!isAlive(address)) {
+                    continue;
+                }
+                up++;
+                output.add("Nmap scan report for " + Ipv4Range.toIp(address));
+                output.add("Host is up (0.00030s latency).");
+                output.add("MAC Address: " + mac(address) + " (" + vendor(address) + ")");
+            }
+        }
+        sleep(addresses * profile.getDiscoveryMicrosPerAddress() / 1_000);
+        output.add("Nmap done: " + addresses + " IP addresses (" + up + " hosts up) scanned");
+        return output;
+    }
+
+    /**
+     * Salida equivalente a "nmap -sS --top-ports N" sobre un host.
+     */
+    private List<String> hostOutput(String ipAddress) {
+        long address = Ipv4Range.toLong(ipAddress);
+        List<String> output = new ArrayList<>();
+        output.add("Starting Nmap 7.94 ( https://nmap.org ) at " + LocalDateTime.now());
+        if (!isAlive(address)) {
+            output.add("Note: Host seems down. If it is really up, but blocking our ping probes, try -Pn");
+            output.add("Nmap done: 1 IP address (0 hosts up) scanned");
+            return output;
+        }
+        output.add("Nmap scan report for host-" + ipAddress.replace('.', '-') + ".sim (" + ipAddress + ")");
+        output.add("Host is up (0.0021s latency).");
+        output.add("PORT     STATE SERVICE");
+        long hash = mix(address);
+        int openPorts = (int) (hash & 0x7);
+        boolean[] listed = new boolean[PORT_CATALOG.length];
+        for (int i = 0; i < openPorts; i++) {
+            int index = (int) ((hash >>> (8 + i * 4)) % PORT_CATALOG.length);
+            if (!listed[index]) {
+                listed[index] = true;
+                output.add(String.format("%-8s open  %s", PORT_CATALOG[index] + "/tcp", SERVICE_CATALOG[index]));
+            }
+        }
+        output.add("MAC Address: " + mac(address) + " (" + vendor(address) + ")");
+        output.add("Nmap done: 1 IP address (1 host up) scanned");
+        return output;
+    }
+
+    private boolean isAlive(long address) {
+        return (mix(address) >>> 10) * 0x1.0p-53 < profile.getDensity();
+    }
+
+    private static String mac(long address) {
+        return String.format("AA:BB:CC:%02X:%02X:%02X", (address >> 16) & 0xFF, (address >> 8) & 0xFF, address & 0xFF);
+    }
+
+    private static String vendor(long address) {
+        return VENDOR_CATALOG[(int) ((mix(address) >>> 32) % VENDOR_CATALOG.length)];
+    }
+
+    /**
+     * Hash determinista (SplitMix64) de la dirección.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) & Long.MAX_VALUE;
+    }
+
+    private static void sleep(long millis) throws ScanException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScanException("Simulación interrumpida", e);
+        }
+    }
+}
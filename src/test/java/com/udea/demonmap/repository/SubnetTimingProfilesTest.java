@@ -0,0 +1,89 @@
+package com.udea.demonmap.repository;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Estimación de RTT por subred /24 y timing de nmap derivado, con latencias
+ * en microsegundos como las entrega {@link NmapOutputParser#parseLatency}.
+ */
+class SubnetTimingProfilesTest {
+
+    private final NetworkScanConfig config = new NetworkScanConfig();
+    private final SubnetTimingProfiles profiles = new SubnetTimingProfiles(config);
+
+    @Test
+    void srttAndRttvarFollowTheTcpSmoothing() {
+        profiles.record("10.0.0.5", 1000);
+        assertEquals(1000, profiles.smoothedRtt("10.0.0.5"));
+
+        // RTTVAR = 3/4 * 500 + 1/4 * |1000 - 2000| = 625; SRTT = 7/8 * 1000 + 1/8 * 2000 = 1125
+        profiles.record("10.0.0.200", 2000);
+        assertEquals(1125, profiles.smoothedRtt("10.0.0.5"));
+
+        // RTTVAR = 3/4 * 625 + 1/4 * 125 = 500; SRTT = 7/8 * 1125 + 1/8 * 1000 = 1109.375
+        profiles.record("10.0.0.9", 1000);
+        assertEquals(1109, profiles.smoothedRtt("10.0.0.9"));
+        assertEquals(-1, profiles.smoothedRtt("10.0.1.5"));
+    }
+
+    @Test
+    void fastLanGetsShortTimeoutsAndOneRetry() {
+        profiles.record("10.0.0.5", 1000);
+        profiles.record("10.0.0.5", 2000);
+        profiles.record("10.0.0.5", 1000);
+
+        // RTO = 1109 + 4 * 500 µs: los timeouts quedan en sus mínimos
+        assertEquals("-T4 --initial-rtt-timeout 25ms --max-rtt-timeout 100ms --max-retries 1 --host-timeout 10s",
+                profiles.timingArguments("10.0.0.77"));
+        assertTrue(profiles.allowsMinRate("10.0.0.77"));
+    }
+
+    @Test
+    void slowLinkGetsLongerTimeoutsAndMoreRetriesWithinTheHostTimeout() {
+        for (int i = 0; i < 3; i++) {
+            profiles.record("172.16.4.1", 200_000);
+        }
+
+        // SRTT 200 ms, RTTVAR 56.25 ms: RTO 425 ms; el host timeout escalado (80 s) se acota a 30 s
+        assertEquals("-T4 --initial-rtt-timeout 425ms --max-rtt-timeout 1700ms --max-retries 4 --host-timeout 30s",
+                profiles.timingArguments("172.16.4.10"));
+        assertFalse(profiles.allowsMinRate("172.16.4.10"));
+    }
+
+    @Test
+    void subnetWithoutEnoughSamplesUsesTheDefaultTiming() {
+        profiles.record("10.0.0.5", 1000);
+        profiles.record("10.0.0.5", -1);
+
+        assertEquals("-T4 --host-timeout 20s", profiles.timingArguments("10.0.0.5"));
+        config.setHostTimeoutSeconds(10);
+        assertEquals("-T4 --host-timeout 10s", profiles.timingArguments("10.0.0.5"));
+        assertTrue(profiles.allowsMinRate("10.0.0.5"));
+    }
+
+    @Test
+    void disabledTimingIgnoresTheMeasurements() {
+        config.getTiming().setEnabled(false);
+        for (int i = 0; i < 3; i++) {
+            profiles.record("172.16.4.1", 200_000);
+        }
+
+        assertEquals("-T4 --host-timeout 20s", profiles.timingArguments("172.16.4.1"));
+        assertTrue(profiles.allowsMinRate("172.16.4.1"));
+    }
+
+    @Test
+    void latencyIsParsedInMicroseconds() {
+        assertEquals(1000L, NmapOutputParser.parseLatency("Host is up (0.0010s latency)."));
+        assertEquals(320L, NmapOutputParser.parseLatency("Host is up (0.00032s latency)."));
+        assertEquals(1_250_000L, NmapOutputParser.parseLatency("Host is up (1.25s latency)."));
+        assertNull(NmapOutputParser.parseLatency("Host is up."));
+        assertNull(NmapOutputParser.parseLatency("Host is up (.s latency)."));
+    }
+}
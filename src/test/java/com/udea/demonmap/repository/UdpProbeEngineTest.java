@@ -0,0 +1,275 @@
+package com.udea.demonmap.repository;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.Port;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Motor UDP contra servidores de prueba en loopback: cada uno es un
+ * DatagramChannel en 127.0.0.1 con un puerto efímero que contesta como el
+ * protocolo (o no contesta) y anota cuándo recibió cada datagrama.
+ */
+class UdpProbeEngineTest {
+
+    private static final String LOOPBACK = "127.0.0.1";
+    private static final int TIMEOUT_MS = 100;
+    private static final int RETRIES = 2;
+
+    private final List<Responder> responders = new ArrayList<>();
+    private UdpProbeEngine engine;
+
+    @AfterEach
+    void stop() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+        responders.forEach(Responder::close);
+    }
+
+    @Test
+    void dnsResponderIsReportedOpen() throws Exception {
+        engine = engine(1000);
+        // Respuesta: la misma consulta con el bit QR encendido
+        Responder dns = responder(request -> {
+            byte[] response = request.clone();
+            response[2] |= (byte) 0x80;
+            return response;
+        });
+
+        Port port = probe(dns, UdpProbe.DNS).orElseThrow();
+
+        assertEquals(dns.port(), port.getPortNumber());
+        assertEquals("udp", port.getProtocol());
+        assertEquals("open", port.getState());
+        assertEquals("domain", port.getService());
+    }
+
+    @Test
+    void dnsAnswerWithAnotherTransactionIdIsIgnored() throws Exception {
+        engine = engine(1000);
+        Responder dns = responder(request -> {
+            byte[] response = request.clone();
+            response[0] ^= (byte) 0xFF;
+            response[2] |= (byte) 0x80;
+            return response;
+        });
+
+        assertEquals(Optional.empty(), probe(dns, UdpProbe.DNS));
+    }
+
+    @Test
+    void ntpResponderReportsVersionAndStratum() throws Exception {
+        engine = engine(1000);
+        Responder ntp = responder(request -> {
+            byte[] response = new byte[48];
+            response[0] = 0x24;     // LI=0, VN=4, modo 4 (servidor)
+            response[1] = 2;        // stratum
+            return response;
+        });
+
+        Port port = probe(ntp, UdpProbe.NTP).orElseThrow();
+
+        assertEquals("udp", port.getProtocol());
+        assertEquals("ntp", port.getService());
+        assertEquals("NTP v4 (stratum 2)", port.getVersion());
+    }
+
+    @Test
+    void ssdpResponderReportsServerHeader() throws Exception {
+        engine = engine(1000);
+        Responder ssdp = responder(request -> {
+            assertTrue(new String(request, StandardCharsets.US_ASCII).startsWith("M-SEARCH * HTTP/1.1"));
+            return ("HTTP/1.1 200 OK\r\n"
+                    + "CACHE-CONTROL: max-age=120\r\n"
+                    + "ST: upnp:rootdevice\r\n"
+                    + "Server: Linux/5.10 UPnP/1.0 MiniUPnPd/2.2\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        });
+
+        Port port = probe(ssdp, UdpProbe.SSDP).orElseThrow();
+
+        assertEquals("udp", port.getProtocol());
+        assertEquals("upnp", port.getService());
+        assertEquals("Linux/5.10 UPnP/1.0 MiniUPnPd/2.2", port.getVersion());
+    }
+
+    @Test
+    void silentPortYieldsNothingAfterRetries() throws Exception {
+        engine = engine(1000);
+        Responder silent = responder(request -> null);
+
+        long start = System.nanoTime();
+        assertEquals(Optional.empty(), probe(silent, UdpProbe.NTP));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Un envío más los reintentos, cada uno esperando su timeout
+        assertEquals(1 + RETRIES, silent.received().size());
+        assertTrue(elapsedMs >= (1 + RETRIES) * TIMEOUT_MS - 20,
+                "Se dio por perdida tras " + elapsedMs + " ms, antes de agotar los timeouts");
+    }
+
+    @Test
+    void respondingAndSilentPortsOnTheSameHostAreResolvedIndependently() throws Exception {
+        engine = engine(1000);
+        Responder ntp = responder(request -> {
+            byte[] response = new byte[48];
+            response[0] = 0x24;
+            return response;
+        });
+        Responder silent = responder(request -> null);
+
+        CompletableFuture<Optional<Port>> open = engine.probe(LOOPBACK, ntp.port(), UdpProbe.NTP);
+        CompletableFuture<Optional<Port>> closed = engine.probe(LOOPBACK, silent.port(), UdpProbe.NTP);
+
+        assertEquals(ntp.port(), open.get(5, TimeUnit.SECONDS).orElseThrow().getPortNumber());
+        assertEquals(Optional.empty(), closed.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sendRateIsRespected() throws Exception {
+        int rate = 20;
+        int probes = 10;
+        engine = engine(rate);
+        Responder ntp = responder(request -> {
+            byte[] response = new byte[48];
+            response[0] = 0x24;
+            return response;
+        });
+
+        List<CompletableFuture<Optional<Port>>> results = new ArrayList<>();
+        for (int i = 0; i < probes; i++) {
+            results.add(engine.probe(LOOPBACK, ntp.port(), UdpProbe.NTP));
+        }
+        for (CompletableFuture<Optional<Port>> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS).isPresent());
+        }
+
+        List<Long> received = ntp.received();
+        assertEquals(probes, received.size());
+        // Tras un periodo ocioso se permite un envío adelantado, no una ráfaga
+        long intervalMs = 1000 / rate;
+        long spanMs = TimeUnit.NANOSECONDS.toMillis(received.get(received.size() - 1) - received.get(0));
+        assertTrue(spanMs >= (probes - 2) * intervalMs - intervalMs / 2,
+                probes + " sondas a " + rate + "/s se enviaron en " + spanMs + " ms");
+        for (int i = 2; i < received.size(); i++) {
+            long gapMs = TimeUnit.NANOSECONDS.toMillis(received.get(i) - received.get(i - 1));
+            assertTrue(gapMs >= intervalMs / 2, "Dos sondas separadas por " + gapMs + " ms");
+        }
+    }
+
+    @Test
+    void shutdownFailsPendingProbesAndTheNextProbeRestartsTheEngine() throws Exception {
+        engine = engine(1000);
+        Responder silent = responder(request -> null);
+        Responder ntp = responder(request -> {
+            byte[] response = new byte[48];
+            response[0] = 0x24;
+            return response;
+        });
+
+        CompletableFuture<Optional<Port>> pending = engine.probe(LOOPBACK, silent.port(), UdpProbe.NTP);
+        engine.shutdown();
+
+        ExecutionException stopped = assertThrows(ExecutionException.class, () -> pending.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(ScanException.class, stopped.getCause());
+        // El motor detenido vuelve a arrancar con la siguiente sonda
+        assertTrue(probe(ntp, UdpProbe.NTP).isPresent());
+    }
+
+    private UdpProbeEngine engine(int ratePerSecond) {
+        NetworkScanConfig config = new NetworkScanConfig();
+        config.getUdp().setEnabled(true);
+        config.getUdp().setRatePerSecond(ratePerSecond);
+        config.getUdp().setTimeoutMs(TIMEOUT_MS);
+        config.getUdp().setRetries(RETRIES);
+        return new UdpProbeEngine(config);
+    }
+
+    private Optional<Port> probe(Responder responder, UdpProbe probe) throws Exception {
+        return engine.probe(LOOPBACK, responder.port(), probe).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param reply Respuesta a cada datagrama, o null para no contestar
+     */
+    private Responder responder(UnaryOperator<byte[]> reply) throws IOException {
+        Responder responder = new Responder(reply);
+        responders.add(responder);
+        return responder;
+    }
+
+    private static final class Responder {
+        private final DatagramChannel channel;
+        private final Thread thread;
+        private final List<Long> received = new CopyOnWriteArrayList<>();
+
+        Responder(UnaryOperator<byte[]> reply) throws IOException {
+            channel = DatagramChannel.open().bind(new InetSocketAddress(LOOPBACK, 0));
+            thread = new Thread(() -> serve(reply), "udp-responder");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() {
+            return ((InetSocketAddress) channel.socket().getLocalSocketAddress()).getPort();
+        }
+
+        /**
+         * @return Instantes (System.nanoTime) en que llegó cada datagrama
+         */
+        List<Long> received() {
+            return received;
+        }
+
+        private void serve(UnaryOperator<byte[]> reply) {
+            ByteBuffer buffer = ByteBuffer.allocate(2048);
+            try {
+                while (true) {
+                    SocketAddress from = channel.receive(buffer.clear());
+                    received.add(System.nanoTime());
+                    buffer.flip();
+                    byte[] request = new byte[buffer.remaining()];
+                    buffer.get(request);
+                    byte[] response = reply.apply(request);
+                    if (response != null) {
+                        channel.send(ByteBuffer.wrap(response), from);
+                    }
+                }
+            } catch (ClosedChannelException e) {
+                // Fin de la prueba
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+                thread.join(1000);
+            } catch (IOException | InterruptedException e) {
+                // El thread es daemon
+            }
+        }
+    }
+}
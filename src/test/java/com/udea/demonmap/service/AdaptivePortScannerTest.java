@@ -0,0 +1,274 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.repository.NetworkScanner;
+import com.udea.demonmap.repository.PortSelection;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ciclo aprender / confirmar / barrer del perfil de puertos. El escáner es
+ * un doble que responde según los puertos abiertos de cada host y el pool de
+ * barrido no tiene threads: las tareas se corren a mano desde la prueba.
+ */
+class AdaptivePortScannerTest {
+
+    private static final String HOST = "10.0.0.5";
+    private static final List<Integer> TOP_PORTS = List.of(22, 80, 443, 3389, 8080);
+
+    private final FakeScanner scanner = new FakeScanner();
+    private final ManualExecutor sweepExecutor = new ManualExecutor();
+    private final List<NetworkDevice> updates = new ArrayList<>();
+    private final NetworkScanConfig config = new NetworkScanConfig();
+
+    @Test
+    void firstScanCoversTheTopPortsAndLearnsTheOpenOnes() throws Exception {
+        scanner.open(HOST, 22, 80);
+
+        NetworkDevice device = newScanner().scan(HOST, updates::add);
+
+        assertEquals(List.of("TOP"), scanner.calls);
+        assertEquals(Set.of(22, 80), ports(device));
+        assertFalse(device.isPartial());
+    }
+
+    @Test
+    void recentlySweptHostOnlyConfirmsItsKnownPorts() throws Exception {
+        AdaptivePortScanner adaptive = newScanner();
+        scanner.open(HOST, 22, 80);
+        adaptive.scan(HOST, updates::add);
+        scanner.open(HOST, 22, 80, 443);
+
+        NetworkDevice device = adaptive.scan(HOST, updates::add);
+
+        assertEquals(List.of("TOP", "ONLY[22,80]"), scanner.calls);
+        assertEquals(Set.of(22, 80), ports(device));
+        assertFalse(device.isPartial());
+        assertTrue(sweepExecutor.tasks.isEmpty());
+    }
+
+    @Test
+    void staleProfileIsConfirmedAsPartialAndTheSweepPublishesTheWholeHost() throws Exception {
+        config.getPortProfile().setSweepIntervalMinutes(0);
+        AdaptivePortScanner adaptive = newScanner();
+        scanner.open(HOST, 22, 80);
+        adaptive.scan(HOST, updates::add);
+        scanner.open(HOST, 22, 80, 443);
+
+        NetworkDevice confirmed = adaptive.scan(HOST, updates::add);
+        assertTrue(confirmed.isPartial());
+        assertEquals(Set.of(22, 80), ports(confirmed));
+        // Con el barrido pendiente, otro escaneo no lanza uno nuevo
+        assertTrue(adaptive.scan(HOST, updates::add).isPartial());
+        assertEquals(1, sweepExecutor.tasks.size());
+
+        sweepExecutor.runAll();
+
+        assertEquals(List.of("TOP", "ONLY[22,80]", "ONLY[22,80]", "TOP_EXCLUDING[22,80]"), scanner.calls);
+        assertEquals(1, updates.size());
+        assertFalse(updates.get(0).isPartial());
+        assertEquals(Set.of(22, 80, 443), ports(updates.get(0)));
+        assertEquals(Set.of(22, 80, 443), adaptive.knownOpenPorts(HOST));
+    }
+
+    @Test
+    void fullSweepQueueSweepsInTheForeground() throws Exception {
+        config.getPortProfile().setSweepIntervalMinutes(0);
+        AdaptivePortScanner adaptive = newScanner();
+        scanner.open(HOST, 22);
+        adaptive.scan(HOST, updates::add);
+        scanner.open(HOST, 22, 8080);
+        sweepExecutor.rejecting = true;
+
+        NetworkDevice device = adaptive.scan(HOST, updates::add);
+
+        assertFalse(device.isPartial());
+        assertEquals(Set.of(22, 8080), ports(device));
+        assertTrue(updates.isEmpty());
+        // El barrido terminó: el siguiente escaneo puede lanzar otro
+        sweepExecutor.rejecting = false;
+        adaptive.scan(HOST, updates::add);
+        assertEquals(1, sweepExecutor.tasks.size());
+    }
+
+    @Test
+    void knownPortsThatNoLongerAnswerLeaveTheProfile() throws Exception {
+        AdaptivePortScanner adaptive = newScanner();
+        scanner.open(HOST, 22, 80);
+        adaptive.scan(HOST, updates::add);
+        scanner.open(HOST, 22);
+
+        adaptive.scan(HOST, updates::add);
+
+        assertEquals(Set.of(22), adaptive.knownOpenPorts(HOST));
+    }
+
+    @Test
+    void scansMadeElsewhereTeachTheProfile() {
+        AdaptivePortScanner adaptive = newScanner();
+
+        adaptive.record(HOST, PortSelection.fast(3), device("up", 8080));
+        assertEquals(Set.of(8080), adaptive.knownOpenPorts(HOST));
+
+        adaptive.record(HOST, PortSelection.slice(List.of(22, 8080), 50), device("up", 22));
+        assertEquals(Set.of(22), adaptive.knownOpenPorts(HOST));
+
+        adaptive.record(HOST, PortSelection.top(), device("up", 443));
+        assertEquals(Set.of(22, 443), adaptive.knownOpenPorts(HOST));
+    }
+
+    @Test
+    void hostsThatDidNotAnswerLeaveTheProfileUntouched() throws Exception {
+        AdaptivePortScanner adaptive = newScanner();
+        scanner.open(HOST, 22, 80);
+        adaptive.scan(HOST, updates::add);
+        scanner.down.add(HOST);
+
+        NetworkDevice device = adaptive.scan(HOST, updates::add);
+        adaptive.record(HOST, PortSelection.slice(List.of(22, 80), 50), device("unknown"));
+
+        assertFalse(device.isPartial());
+        assertEquals(Set.of(22, 80), adaptive.knownOpenPorts(HOST));
+        assertTrue(sweepExecutor.tasks.isEmpty());
+    }
+
+    @Test
+    void pastTheCapTheLeastRecentlyScannedHostIsForgotten() throws Exception {
+        config.getPortProfile().setMaxHosts(100);
+        AdaptivePortScanner adaptive = newScanner();
+        for (int i = 0; i < 100; i++) {
+            scanner.open("10.0.1." + i, 22);
+            adaptive.scan("10.0.1." + i, updates::add);
+        }
+        // El primero se vuelve a escanear: el más antiguo pasa a ser 10.0.1.1
+        adaptive.scan("10.0.1.0", updates::add);
+
+        scanner.open("10.0.2.1", 80);
+        adaptive.scan("10.0.2.1", updates::add);
+
+        assertEquals(Set.of(22), adaptive.knownOpenPorts("10.0.1.0"));
+        assertEquals(Set.of(), adaptive.knownOpenPorts("10.0.1.1"));
+        assertEquals(Set.of(80), adaptive.knownOpenPorts("10.0.2.1"));
+    }
+
+    private AdaptivePortScanner newScanner() {
+        return new AdaptivePortScanner(scanner, config, sweepExecutor);
+    }
+
+    private static Set<Integer> ports(NetworkDevice device) {
+        Set<Integer> ports = new TreeSet<>();
+        device.getOpenPorts().forEach(port -> ports.add(port.getPortNumber()));
+        return ports;
+    }
+
+    private static NetworkDevice device(String status, Integer... openPorts) {
+        List<Port> ports = new ArrayList<>();
+        for (Integer port : openPorts) {
+            ports.add(Port.builder().portNumber(port).protocol("tcp").state("open").build());
+        }
+        return NetworkDevice.builder()
+                .ipAddress(HOST)
+                .status(status)
+                .openPorts(ports)
+                .build();
+    }
+
+    /**
+     * Escáner que devuelve, de los puertos pedidos, los abiertos del host.
+     */
+    private static final class FakeScanner implements NetworkScanner {
+        private final Map<String, Set<Integer>> openPorts = new HashMap<>();
+        private final Set<String> down = new TreeSet<>();
+        private final List<String> calls = new ArrayList<>();
+
+        void open(String ipAddress, Integer... ports) {
+            openPorts.put(ipAddress, Set.of(ports));
+        }
+
+        @Override
+        public NetworkDevice scanHost(String ipAddress, PortSelection selection) {
+            calls.add(selection.toString());
+            if (down.contains(ipAddress)) {
+                return NetworkDevice.builder().ipAddress(ipAddress).status("unknown").openPorts(new ArrayList<>()).build();
+            }
+            Set<Integer> probed = new TreeSet<>(switch (selection.getMode()) {
+                case ONLY, SLICE -> selection.getPorts();
+                case FAST -> TOP_PORTS.subList(0, selection.getTopPorts());
+                default -> TOP_PORTS;
+            });
+            if (selection.getMode() == PortSelection.Mode.TOP_EXCLUDING) {
+                probed.removeAll(selection.getPorts());
+            }
+            probed.retainAll(openPorts.getOrDefault(ipAddress, Set.of()));
+            NetworkDevice device = device("up", probed.toArray(new Integer[0]));
+            device.setIpAddress(ipAddress);
+            return device;
+        }
+
+        @Override
+        public NetworkDevice scanHost(String ipAddress) {
+            return scanHost(ipAddress, PortSelection.top());
+        }
+
+        @Override
+        public ScanResult scanNetwork(String networkRange) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isHostAlive(String ipAddress) {
+            return !down.contains(ipAddress);
+        }
+
+        @Override
+        public List<String> getActiveHosts(String networkRange) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Pool sin threads: guarda las tareas para correrlas desde la prueba, o
+     * las rechaza como un pool con la cola llena.
+     */
+    private static final class ManualExecutor extends ThreadPoolExecutor {
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private boolean rejecting;
+
+        ManualExecutor() {
+            super(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (rejecting) {
+                throw new RejectedExecutionException("Cola de barridos llena");
+            }
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.AlertMatch;
+import com.udea.demonmap.entity.NetworkDevice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * new:host recuerda las IPs vistas entre reinicios y con un tope.
+ */
+class AlertServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<AlertMatch> delivered = new ArrayList<>();
+    private final List<AlertServiceImpl> services = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        services.forEach(AlertServiceImpl::close);
+    }
+
+    @Test
+    void newHostFiresOnlyOnTheFirstSighting() {
+        AlertServiceImpl alerts = start(1000);
+
+        alerts.onDeviceScanned(device("10.0.0.1"));
+        alerts.onDeviceScanned(device("10.0.0.1"));
+
+        assertEquals(List.of("10.0.0.1"), deliveredIps());
+    }
+
+    @Test
+    void seenHostsSurviveARestart() {
+        AlertServiceImpl before = start(1000);
+        before.onDeviceScanned(device("10.0.0.1"));
+        before.onDevicesImported(List.of(device("10.0.0.2")));
+        before.close();
+        delivered.clear();
+
+        AlertServiceImpl after = start(1000);
+        after.onDeviceScanned(device("10.0.0.1"));
+        after.onDeviceScanned(device("10.0.0.2"));
+        after.onDeviceScanned(device("10.0.0.3"));
+
+        assertEquals(List.of("10.0.0.3"), deliveredIps());
+    }
+
+    @Test
+    void hostSeenOnEveryScanSurvivesTheCap() {
+        AlertServiceImpl alerts = start(1000);
+        alerts.onDeviceScanned(device("10.9.9.9"));
+        // Dos "escaneos" de 800 hosts nuevos cada uno; el host estable aparece en ambos
+        for (int scan = 0; scan < 2; scan++) {
+            for (int i = 0; i < 800; i++) {
+                alerts.onDeviceScanned(device("10." + scan + "." + (i / 256) + "." + (i % 256)));
+            }
+            alerts.onDeviceScanned(device("10.9.9.9"));
+        }
+        delivered.clear();
+
+        alerts.onDeviceScanned(device("10.9.9.9"));
+        assertEquals(List.of(), deliveredIps());
+        // Lo que hace más tiempo no aparece se olvidó y vuelve a ser nuevo
+        alerts.onDeviceScanned(device("10.0.0.0"));
+        assertEquals(List.of("10.0.0.0"), deliveredIps());
+    }
+
+    @Test
+    void recencySurvivesARestartAndTheFileIsCompacted() throws IOException {
+        AlertServiceImpl before = start(1000);
+        before.onDeviceScanned(device("10.9.9.9"));
+        List<NetworkDevice> devices = new ArrayList<>();
+        for (int i = 0; i < 999; i++) {
+            devices.add(device("10.0." + (i / 256) + "." + (i % 256)));
+        }
+        before.onDevicesImported(devices);
+        before.onDeviceScanned(device("10.9.9.9"));
+        before.onDeviceScanned(device("10.1.0.0"));
+        before.close();
+        assertEquals(1000, Files.readAllLines(seenHostsFile()).size());
+        delivered.clear();
+
+        AlertServiceImpl after = start(1000);
+        after.onDeviceScanned(device("10.9.9.9"));
+        after.onDeviceScanned(device("10.1.0.0"));
+        assertEquals(List.of(), deliveredIps());
+        // El primero del lote importado es el que se olvidó
+        after.onDeviceScanned(device("10.0.0.0"));
+        assertEquals(List.of("10.0.0.0"), deliveredIps());
+    }
+
+    @Test
+    void hostsThatAreNotUpAreNeitherNewNorRemembered() throws IOException {
+        AlertServiceImpl alerts = start(1000);
+        NetworkDevice down = device("10.0.0.1");
+        down.setStatus("unknown");
+
+        alerts.onDeviceScanned(down);
+        assertEquals(List.of(), deliveredIps());
+        assertEquals(List.of(), Files.readAllLines(seenHostsFile()));
+
+        alerts.onDeviceScanned(device("10.0.0.1"));
+        assertEquals(List.of("10.0.0.1"), deliveredIps());
+    }
+
+    @Test
+    void partialResultsAreNotEvaluated() {
+        AlertServiceImpl alerts = start(1000);
+        NetworkDevice followUp = device("10.0.0.1");
+        followUp.setPartial(true);
+
+        alerts.onDeviceScanned(followUp);
+        assertEquals(List.of(), deliveredIps());
+
+        alerts.onDeviceScanned(device("10.0.0.1"));
+        assertEquals(List.of("10.0.0.1"), deliveredIps());
+    }
+
+    private AlertServiceImpl start(int maxSeenHosts) {
+        NetworkScanConfig config = new NetworkScanConfig();
+        config.getAlerts().setMaxSeenHosts(maxSeenHosts);
+        config.getAlerts().setSeenHostsFile(seenHostsFile().toString());
+        config.getAlerts().getRules().put("nuevo", "new:host");
+        AlertServiceImpl alerts = new AlertServiceImpl(config, List.of(delivered::add));
+        services.add(alerts);
+        return alerts;
+    }
+
+    private Path seenHostsFile() {
+        return directory.resolve("alerts").resolve("seen-hosts.txt");
+    }
+
+    private List<String> deliveredIps() {
+        return delivered.stream().map(match -> match.getDevice().getIpAddress()).toList();
+    }
+
+    private static NetworkDevice device(String ip) {
+        return NetworkDevice.builder()
+                .ipAddress(ip)
+                .status("up")
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.HostTransition;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.entity.ScanResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * El índice refleja el último resultado: los hosts que salen de un escaneo
+ * completo o que el monitoreo da por caídos dejan de coincidir.
+ */
+class DeviceIndexServiceImplTest {
+
+    private DeviceIndexServiceImpl index;
+
+    @BeforeEach
+    void indexHosts() {
+        index = new DeviceIndexServiceImpl();
+        index.onDevicesImported(List.of(
+                device("10.0.0.1", 3389),
+                device("10.0.0.2", 3389),
+                device("10.0.0.3", 3389),
+                device("10.0.1.1", 3389)));
+    }
+
+    @Test
+    void fullScanRemovesInRangeHostsThatWereNotSeen() {
+        index.onScanCompleted(result("10.0.0.0/24", ScanResult.ScanStatus.SUCCESS,
+                List.of(device("10.0.0.1", 3389)), List.of("10.0.0.3")));
+
+        // 10.0.0.3 se difirió y 10.0.1.1 está fuera del rango: siguen en el índice
+        assertEquals(List.of("10.0.0.1", "10.0.0.3", "10.0.1.1"), matches("port:3389"));
+        assertEquals(3, index.getIndexedHostCount());
+        assertEquals(List.of(), matches("NOT port:3389"));
+    }
+
+    @Test
+    void partialScanDoesNotRemoveHosts() {
+        index.onScanCompleted(result("10.0.0.0/24", ScanResult.ScanStatus.PARTIAL,
+                List.of(device("10.0.0.1", 3389)), List.of()));
+
+        assertEquals(4, index.getIndexedHostCount());
+    }
+
+    @Test
+    void hostMarkedDownIsRemovedAndComesBackOnNextScan() {
+        index.onHostStateChanged(HostTransition.builder()
+                .ipAddress("10.0.0.2")
+                .previousState(HostTransition.HostState.UP)
+                .state(HostTransition.HostState.DOWN)
+                .build());
+        assertEquals(List.of("10.0.0.1", "10.0.0.3", "10.0.1.1"), matches("port:3389"));
+
+        index.onDeviceScanned(device("10.0.0.2", 22));
+        assertEquals(List.of("10.0.0.2"), matches("port:22"));
+        assertEquals(List.of("10.0.0.1", "10.0.0.3", "10.0.1.1"), matches("port:3389"));
+    }
+
+    @Test
+    void partialResultAddsToTheIndexedEntryInsteadOfReplacingIt() {
+        NetworkDevice followUp = device("10.0.0.1", 22);
+        followUp.setPartial(true);
+        index.onDeviceScanned(followUp);
+
+        assertEquals(List.of("10.0.0.1"), matches("port:22 AND port:3389"));
+
+        // Un host sin entrada previa se indexa con lo que trae el parcial
+        NetworkDevice unknown = device("10.0.2.1", 22);
+        unknown.setPartial(true);
+        index.onDeviceScanned(unknown);
+        assertEquals(List.of("10.0.0.1", "10.0.2.1"), matches("port:22"));
+    }
+
+    private List<String> matches(String expression) {
+        return index.query(expression, Integer.MAX_VALUE).getIpAddresses();
+    }
+
+    private static ScanResult result(String range, ScanResult.ScanStatus status,
+                                     List<NetworkDevice> devices, List<String> deferred) {
+        return ScanResult.builder()
+                .networkRange(range)
+                .status(status)
+                .devices(new ArrayList<>(devices))
+                .deferredHosts(new ArrayList<>(deferred))
+                .build();
+    }
+
+    private static NetworkDevice device(String ip, int port) {
+        return NetworkDevice.builder()
+                .ipAddress(ip)
+                .status("up")
+                .openPorts(List.of(Port.builder().portNumber(port).protocol("tcp").state("open").build()))
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Parseo y precedencia de las consultas sobre el índice de dispositivos.
+ *
+ * Los hosts de prueba se indexan en {@link DeviceIndexServiceImpl}, que es la
+ * vista de índices que evalúa la consulta en producción.
+ */
+class DeviceQueryTest {
+
+    private DeviceIndexServiceImpl index;
+
+    @BeforeEach
+    void indexHosts() {
+        index = new DeviceIndexServiceImpl();
+        index.onDevicesImported(List.of(
+                device("10.0.0.1", "Dell Inc.", port(22, "ssh"), port(80, "http")),
+                device("10.0.0.2", "Dell Inc.", port(443, "https")),
+                device("10.0.0.3", "Hewlett Packard", port(22, "ssh"), port(443, "https")),
+                device("10.0.0.4", "Cisco Systems", port(3389, "ms-wbt-server")),
+                device("10.0.0.5", null)));
+    }
+
+    @Test
+    void termsMatchPortServiceAndVendor() {
+        assertEquals(ips("10.0.0.1", "10.0.0.3"), query("port:22"));
+        assertEquals(ips("10.0.0.2", "10.0.0.3"), query("service:https"));
+        assertEquals(ips("10.0.0.4"), query("vendor:\"cisco systems\""));
+        assertEquals(ips(), query("port:8080"));
+    }
+
+    @Test
+    void prefixMatchesEveryValueStartingWithIt() {
+        assertEquals(ips("10.0.0.1", "10.0.0.2", "10.0.0.3"), query("service:http*"));
+        assertEquals(ips("10.0.0.1", "10.0.0.2"), query("vendor:dell*"));
+    }
+
+    @Test
+    void keywordsAndValuesAreCaseInsensitive() {
+        assertEquals(query("port:22 AND service:https"), query("PORT:22 and Service:HTTPS"));
+    }
+
+    @Test
+    void juxtapositionIsAnd() {
+        assertEquals(ips("10.0.0.3"), query("port:22 port:443"));
+        assertEquals(query("port:22 AND port:443"), query("port:22 port:443"));
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        // port:3389 OR (port:22 AND port:443)
+        assertEquals(ips("10.0.0.3", "10.0.0.4"), query("port:3389 OR port:22 AND port:443"));
+        // (port:22 AND port:443) OR port:3389
+        assertEquals(ips("10.0.0.3", "10.0.0.4"), query("port:22 port:443 OR port:3389"));
+    }
+
+    @Test
+    void notBindsTighterThanAnd() {
+        // (NOT port:22) AND service:https
+        assertEquals(ips("10.0.0.2"), query("NOT port:22 service:https"));
+        // NOT aplica solo al término siguiente, no a la conjunción
+        assertEquals(ips("10.0.0.2", "10.0.0.4", "10.0.0.5"), query("NOT port:22"));
+        assertEquals(ips("10.0.0.1", "10.0.0.2", "10.0.0.3", "10.0.0.5"), query("NOT (port:3389)"));
+    }
+
+    @Test
+    void parenthesesOverridePrecedence() {
+        assertEquals(ips("10.0.0.3"), query("(port:3389 OR port:22) AND port:443"));
+        assertEquals(ips("10.0.0.1", "10.0.0.2", "10.0.0.4", "10.0.0.5"),
+                query("NOT (port:22 AND port:443)"));
+    }
+
+    @Test
+    void doubleNegationCancels() {
+        assertEquals(query("port:22"), query("NOT NOT port:22"));
+    }
+
+    @Test
+    void andNotExcludesWithoutComplement() {
+        assertEquals(ips("10.0.0.1"), query("port:22 AND NOT service:https"));
+    }
+
+    @Test
+    void malformedQueriesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("   "));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("port:"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("22"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("port:http"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("port:65536"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("os:linux"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("(port:22 OR port:80"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("port:22)"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("port:22 OR"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("NOT"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("vendor:\"dell"));
+    }
+
+    @Test
+    void ruleTermsAreOnlyAcceptedInAlertRules() {
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("net:10.0.0.0/24"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parse("new:host"));
+        DeviceQuery.parseRule("net:10.0.0.0/24 AND new:host");
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parseRule("new:device"));
+        assertThrows(IllegalArgumentException.class, () -> DeviceQuery.parseRule("net:10.0.0.0/33"));
+    }
+
+    @Test
+    void anchorsKeepTheMostSelectiveSideOfAnAnd() {
+        assertEquals(Set.of(new DeviceQuery.Anchor("port", "22")),
+                DeviceQuery.parse("port:22 AND (service:ssh OR service:http)").anchors());
+        assertEquals(Set.of(new DeviceQuery.Anchor("port", "22"), new DeviceQuery.Anchor("port", "80")),
+                DeviceQuery.parse("port:22 OR port:80").anchors());
+        assertNull(DeviceQuery.parse("port:22 OR NOT port:80").anchors());
+        assertNull(DeviceQuery.parse("service:http*").anchors());
+    }
+
+    private Set<String> query(String expression) {
+        return new TreeSet<>(index.query(expression, Integer.MAX_VALUE).getIpAddresses());
+    }
+
+    private static Set<String> ips(String... ips) {
+        return Arrays.stream(ips).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static NetworkDevice device(String ip, String vendor, Port... ports) {
+        return NetworkDevice.builder()
+                .ipAddress(ip)
+                .status("up")
+                .vendor(vendor)
+                .openPorts(Arrays.asList(ports))
+                .build();
+    }
+
+    private static Port port(int number, String service) {
+        return Port.builder()
+                .portNumber(number)
+                .protocol("tcp")
+                .state("open")
+                .service(service)
+                .build();
+    }
+}
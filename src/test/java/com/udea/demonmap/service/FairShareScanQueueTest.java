@@ -0,0 +1,156 @@
+package com.udea.demonmap.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Orden de despacho de la cola justa. Las tareas se despachan con poll y se
+ * ejecutan en el thread de la prueba, así que el orden es determinista.
+ */
+class FairShareScanQueueTest {
+
+    private final List<String> executed = new ArrayList<>();
+
+    @Test
+    void classesAreDispatchedInProportionToTheirWeights() {
+        FairShareScanQueue queue = new FairShareScanQueue(100,
+                weights(4, 2, 1), Map.of(), 0);
+        for (ScanPriority priority : ScanPriority.values()) {
+            for (int i = 0; i < 14; i++) {
+                enqueue(queue, "cliente", priority, priority.name());
+            }
+        }
+
+        runNext(queue, 14);
+
+        assertEquals(8, count(ScanPriority.INTERACTIVE.name()));
+        assertEquals(4, count(ScanPriority.SCHEDULED.name()));
+        assertEquals(2, count(ScanPriority.BULK.name()));
+    }
+
+    @Test
+    void clientsOfTheSameClassShareByTheirWeights() {
+        FairShareScanQueue queue = new FairShareScanQueue(100,
+                weights(1, 1, 1), Map.of("nocturno", 2), 0);
+        for (int i = 0; i < 6; i++) {
+            enqueue(queue, "nocturno", ScanPriority.BULK, "nocturno");
+            enqueue(queue, "ui", ScanPriority.BULK, "ui");
+        }
+
+        runNext(queue, 6);
+
+        assertEquals(4, count("nocturno"));
+        assertEquals(2, count("ui"));
+    }
+
+    @Test
+    void interactiveTaskBehindABulkBacklogIsDispatchedNext() {
+        FairShareScanQueue queue = new FairShareScanQueue(100,
+                weights(1, 1, 1), Map.of(), 0);
+        for (int i = 0; i < 10; i++) {
+            enqueue(queue, "lote", ScanPriority.BULK, "lote");
+        }
+        runNext(queue, 3);
+
+        enqueue(queue, "ui", ScanPriority.INTERACTIVE, "ui");
+        runNext(queue, 1);
+
+        assertEquals(List.of("lote", "lote", "lote", "ui"), executed);
+    }
+
+    @Test
+    void clientAtItsRunningCapIsSkippedUntilATaskFinishes() {
+        FairShareScanQueue queue = new FairShareScanQueue(100,
+                weights(1, 1, 1), Map.of(), 1);
+        enqueue(queue, "a", ScanPriority.SCHEDULED, "a1");
+        enqueue(queue, "a", ScanPriority.SCHEDULED, "a2");
+        enqueue(queue, "b", ScanPriority.SCHEDULED, "b1");
+
+        Runnable first = queue.poll();
+        Runnable second = queue.poll();
+        // Solo queda a2 y "a" tiene una tarea en ejecución
+        assertNull(queue.poll());
+        assertEquals(1, queue.size());
+
+        first.run();
+        second.run();
+        queue.poll().run();
+        assertEquals(List.of("a1", "b1", "a2"), executed);
+    }
+
+    @Test
+    void putBlocksWhileTheQueueIsFull() throws InterruptedException {
+        FairShareScanQueue queue = new FairShareScanQueue(2,
+                weights(1, 1, 1), Map.of(), 0);
+        assertTrue(queue.offer(task("1")));
+        assertTrue(queue.offer(task("2")));
+        assertFalse(queue.offer(task("rechazada")));
+        assertFalse(queue.offer(task("rechazada"), 10, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.remainingCapacity());
+
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(task("3"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        awaitState(producer, Thread.State.WAITING);
+        assertEquals(2, queue.size());
+
+        queue.poll().run();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(producer.isAlive());
+        assertEquals(2, queue.size());
+
+        runNext(queue, 2);
+        assertEquals(List.of("1", "2", "3"), executed);
+    }
+
+    private static Map<ScanPriority, Integer> weights(int interactive, int scheduled, int bulk) {
+        Map<ScanPriority, Integer> weights = new EnumMap<>(ScanPriority.class);
+        weights.put(ScanPriority.INTERACTIVE, interactive);
+        weights.put(ScanPriority.SCHEDULED, scheduled);
+        weights.put(ScanPriority.BULK, bulk);
+        return weights;
+    }
+
+    private void enqueue(FairShareScanQueue queue, String clientId, ScanPriority priority, String label) {
+        try (ScanContext.Scope scope = ScanContext.open(clientId, priority)) {
+            assertTrue(queue.offer(task(label)));
+        }
+    }
+
+    private Runnable task(String label) {
+        return () -> executed.add(label);
+    }
+
+    private void runNext(FairShareScanQueue queue, int tasks) {
+        for (int i = 0; i < tasks; i++) {
+            queue.poll().run();
+        }
+    }
+
+    private long count(String label) {
+        return executed.stream().filter(label::equals).count();
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != state) {
+            assertTrue(System.nanoTime() < deadline, "El thread no llegó a " + state);
+            Thread.sleep(1);
+        }
+    }
+}
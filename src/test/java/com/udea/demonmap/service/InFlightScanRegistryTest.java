@@ -0,0 +1,74 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.util.Ipv4Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reparto de rangos solapados entre escaneos en curso: cada dirección la
+ * sondea un solo escaneo y los demás se suscriben a sus hosts.
+ */
+class InFlightScanRegistryTest {
+
+    private final InFlightScanRegistry registry = new InFlightScanRegistry();
+
+    @Test
+    void overlappingScanOnlyProbesTheUncoveredRemainder() {
+        InFlightScanRegistry.Registration first = registry.register(Ipv4Range.parse("10.0.0.0/24"));
+
+        InFlightScanRegistry.Registration second = registry.register(Ipv4Range.parse("10.0.0.0/23"));
+
+        assertEquals(List.of(Ipv4Range.parse("10.0.0.0/24")), first.getOwnSegments());
+        assertEquals(List.of(Ipv4Range.parse("10.0.1.0/24")), second.getOwnSegments());
+        assertEquals(1, second.getSubscriptions().size());
+        assertEquals(Ipv4Range.parse("10.0.0.0/24"), second.getSubscriptions().get(0).getOverlap());
+    }
+
+    @Test
+    void subscriberSeesOnlyTheHostsInsideTheOverlap() throws Exception {
+        InFlightScanRegistry.Registration owner = registry.register(Ipv4Range.parse("10.0.0.0/24"));
+        InFlightScanRegistry.Registration subscriber = registry.register(Ipv4Range.parse("10.0.0.128/25"));
+        CompletableFuture<Map<String, CompletableFuture<NetworkDevice>>> shared =
+                subscriber.getSubscriptions().get(0).sharedHosts();
+        assertEquals(List.of(), subscriber.getOwnSegments());
+
+        Map<String, CompletableFuture<NetworkDevice>> hosts = new LinkedHashMap<>();
+        hosts.put("10.0.0.5", new CompletableFuture<>());
+        hosts.put("10.0.0.200", new CompletableFuture<>());
+        owner.publishHosts(hosts);
+
+        assertEquals(List.of("10.0.0.200"), List.copyOf(shared.get().keySet()));
+    }
+
+    @Test
+    void closingWithoutPublishingReleasesTheRangeAndUnblocksSubscribers() {
+        InFlightScanRegistry.Registration owner = registry.register(Ipv4Range.parse("10.0.0.0/24"));
+        InFlightScanRegistry.Registration subscriber = registry.register(Ipv4Range.parse("10.0.0.0/24"));
+
+        owner.close();
+
+        assertTrue(subscriber.getSubscriptions().get(0).sharedHosts().isCompletedExceptionally());
+        // El rango liberado lo vuelve a sondear el próximo escaneo
+        assertEquals(List.of(Ipv4Range.parse("10.0.0.0/24")),
+                registry.register(Ipv4Range.parse("10.0.0.0/24")).getOwnSegments());
+    }
+
+    @Test
+    void privateScanIsNotSharedWithLaterScans() {
+        InFlightScanRegistry.Registration isolated = registry.register(Ipv4Range.parse("10.0.0.0/24"), false);
+        isolated.publishHosts(Map.of("10.0.0.1", new CompletableFuture<>()));
+
+        InFlightScanRegistry.Registration next = registry.register(Ipv4Range.parse("10.0.0.0/24"));
+
+        assertEquals(List.of(), next.getSubscriptions());
+        assertEquals(List.of(Ipv4Range.parse("10.0.0.0/24")), next.getOwnSegments());
+    }
+}
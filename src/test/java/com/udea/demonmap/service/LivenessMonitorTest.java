@@ -0,0 +1,38 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.dto.LivenessStatusDTO;
+import com.udea.demonmap.entity.NetworkDevice;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Qué hosts escaneados entran al monitoreo como vivos. El thread de sondeo
+ * no se arranca: solo se mira el registro.
+ */
+class LivenessMonitorTest {
+
+    private final LivenessMonitor monitor = new LivenessMonitor(null, new NetworkScanConfig(), List.of());
+
+    @Test
+    void onlyHostsThatRespondedAreRegisteredAsUp() {
+        monitor.onDeviceScanned(device("10.0.0.1", "up"));
+        monitor.onDeviceScanned(device("10.0.0.2", "unknown"));
+        monitor.onDeviceScanned(device("10.0.0.3", "error"));
+
+        LivenessStatusDTO status = monitor.getStatus();
+        assertEquals(1, status.getMonitoredHosts());
+        assertEquals(1, status.getHostsUp());
+        assertEquals(0, status.getHostsDown());
+    }
+
+    private static NetworkDevice device(String ip, String status) {
+        return NetworkDevice.builder()
+                .ipAddress(ip)
+                .status(status)
+                .build();
+    }
+}
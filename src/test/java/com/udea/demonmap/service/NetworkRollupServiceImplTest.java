@@ -0,0 +1,50 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Solo los hosts que respondieron cuentan como vivos en los agregados.
+ */
+class NetworkRollupServiceImplTest {
+
+    private final NetworkRollupServiceImpl rollups = new NetworkRollupServiceImpl(new NetworkScanConfig());
+
+    @Test
+    void hostsThatAreNotUpAreNotCounted() {
+        rollups.onDeviceScanned(device("10.0.0.1", "up", 22));
+        rollups.onDeviceScanned(device("10.0.0.2", "unknown"));
+        rollups.onDeviceScanned(device("10.0.0.3", "error"));
+
+        assertEquals(1, rollups.getRollup().getLiveHosts());
+        assertEquals(1L, rollups.getRollup().getOpenPorts());
+    }
+
+    @Test
+    void partialResultAddsToTheLiveHost() {
+        rollups.onDeviceScanned(device("10.0.0.1", "up", 22, 80));
+        NetworkDevice followUp = device("10.0.0.1", "up", 443);
+        followUp.setPartial(true);
+        rollups.onDeviceScanned(followUp);
+
+        assertEquals(1, rollups.getRollup().getLiveHosts());
+        assertEquals(3L, rollups.getRollup().getOpenPorts());
+    }
+
+    private static NetworkDevice device(String ip, String status, int... ports) {
+        NetworkDevice device = NetworkDevice.builder()
+                .ipAddress(ip)
+                .status(status)
+                .build();
+        for (int port : ports) {
+            device.addPort(Port.builder().portNumber(port).protocol("tcp").state("open").build());
+        }
+        return device;
+    }
+}
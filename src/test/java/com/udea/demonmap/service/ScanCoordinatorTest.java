@@ -0,0 +1,96 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.repository.ScanException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reparto de una /23 en dos tramos /24 a un único worker. El escaneo corre
+ * en su propio thread y la prueba hace de worker.
+ */
+class ScanCoordinatorTest {
+
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    private final ScanCoordinator coordinator = new ScanCoordinator(new NetworkScanConfig(), List.of(
+            new ScanResultListener() {
+                @Override
+                public void onDeviceScanned(NetworkDevice device) {
+                    published.add(device.getIpAddress());
+                }
+            }));
+
+    @Test
+    void devicesOfEveryChunkAreCombinedAndPublished() throws Exception {
+        String worker = coordinator.register("worker-1", 2);
+        AtomicReference<Object> outcome = new AtomicReference<>();
+        Thread scan = startScan("10.0.0.0/23", outcome);
+
+        ScanCoordinator.ChunkLease first = coordinator.lease(worker).orElseThrow();
+        ScanCoordinator.ChunkLease second = coordinator.lease(worker).orElseThrow();
+        assertTrue(coordinator.complete(first.leaseId(), chunkResult("10.0.0.1")));
+        assertTrue(coordinator.complete(second.leaseId(), chunkResult("10.0.1.1")));
+        scan.join(5000);
+
+        ScanResult result = assertInstanceOf(ScanResult.class, outcome.get());
+        assertEquals(ScanResult.ScanStatus.SUCCESS, result.getStatus());
+        assertEquals(2, result.getDevices().size());
+        assertEquals(List.of("10.0.0.1", "10.0.1.1"), published);
+    }
+
+    @Test
+    void chunkCompletedAfterTheScanWasInterruptedIsDropped() throws Exception {
+        String worker = coordinator.register("worker-1", 2);
+        AtomicReference<Object> outcome = new AtomicReference<>();
+        Thread scan = startScan("10.0.0.0/23", outcome);
+
+        ScanCoordinator.ChunkLease first = coordinator.lease(worker).orElseThrow();
+        ScanCoordinator.ChunkLease late = coordinator.lease(worker).orElseThrow();
+        coordinator.complete(first.leaseId(), chunkResult("10.0.0.1"));
+        scan.interrupt();
+        scan.join(5000);
+        assertInstanceOf(ScanException.class, outcome.get());
+
+        // El lease existía: el worker no lo reintenta, pero el resultado no se usa
+        assertTrue(coordinator.complete(late.leaseId(), chunkResult("10.0.1.1")));
+        assertEquals(List.of("10.0.0.1"), published);
+        assertFalse(coordinator.complete(late.leaseId(), chunkResult("10.0.1.1")));
+    }
+
+    /**
+     * @param outcome Recibe el resultado o la excepción del escaneo
+     */
+    private Thread startScan(String networkRange, AtomicReference<Object> outcome) {
+        Thread scan = new Thread(() -> {
+            try {
+                outcome.set(coordinator.scan(networkRange));
+            } catch (ScanException e) {
+                outcome.set(e);
+            }
+        }, "scan-coordinator-test");
+        scan.start();
+        return scan;
+    }
+
+    private static ScanResult chunkResult(String... ips) {
+        List<NetworkDevice> devices = new ArrayList<>();
+        for (String ip : ips) {
+            devices.add(NetworkDevice.builder().ipAddress(ip).status("up").build());
+        }
+        return ScanResult.builder()
+                .devices(devices)
+                .totalHostsScanned(256)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.udea.demonmap.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanCheckpoint;
+import com.udea.demonmap.util.Ipv4Range;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Reanudación desde el journal: qué hosts quedan pendientes, qué bloques ya
+ * no se descubren y cómo se tolera una última línea cortada.
+ */
+class ScanJournalTest {
+
+    private static final String RANGE = "10.0.0.0/24";
+
+    @TempDir
+    Path directory;
+
+    private NetworkScanConfig config;
+    private ScanJournal journal;
+
+    @BeforeEach
+    void createJournal() {
+        config = new NetworkScanConfig();
+        config.getCheckpoint().setDirectory(directory.resolve("checkpoints").toString());
+        journal = new ScanJournal(config, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void resumeSeparatesPendingFromCompletedHosts() throws IOException {
+        String scanId = interruptedScan();
+
+        try (ScanJournal.Checkpoint checkpoint = journal.resume(scanId)) {
+            assertEquals(RANGE, checkpoint.getNetworkRange());
+            assertEquals(List.of(Ipv4Range.parse("10.0.0.0/25")), checkpoint.getDiscoveredBlocks());
+            assertEquals(List.of("10.0.0.1"), List.copyOf(checkpoint.getCompletedDevices().keySet()));
+            // El host con error no se registró: se vuelve a escanear
+            assertEquals(List.of("10.0.0.2", "10.0.0.3"), checkpoint.getPendingHosts());
+        }
+    }
+
+    @Test
+    void alreadyDiscoveredBlocksAreSubtractedFromTheRange() throws IOException {
+        String scanId = interruptedScan();
+
+        try (ScanJournal.Checkpoint checkpoint = journal.resume(scanId)) {
+            List<Ipv4Range> remaining = Ipv4Range.parse(RANGE)
+                    .subtract(Ipv4Range.merge(checkpoint.getDiscoveredBlocks()));
+            assertEquals(List.of(Ipv4Range.parse("10.0.0.128/25")), remaining);
+        }
+    }
+
+    @Test
+    void truncatedLastLineIsIgnored() throws IOException {
+        String scanId = interruptedScan();
+        Files.writeString(directory.resolve("checkpoints").resolve(scanId + ".journal"),
+                "{\"type\":\"host\",\"device\":{\"ipAddress\":\"10.0.0.3\",\"sta",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (ScanJournal.Checkpoint checkpoint = journal.resume(scanId)) {
+            assertEquals(List.of("10.0.0.1"), List.copyOf(checkpoint.getCompletedDevices().keySet()));
+            assertEquals(List.of("10.0.0.2", "10.0.0.3"), checkpoint.getPendingHosts());
+        }
+    }
+
+    @Test
+    void scanInProgressIsNeitherListedNorResumedTwice() throws IOException {
+        String scanId = interruptedScan();
+
+        try (ScanJournal.Checkpoint checkpoint = journal.resume(scanId)) {
+            assertEquals(List.of(), journal.listInterrupted());
+            assertThrows(IllegalArgumentException.class, () -> journal.resume(scanId));
+        }
+
+        List<ScanCheckpoint> interrupted = journal.listInterrupted();
+        assertEquals(1, interrupted.size());
+        assertEquals(scanId, interrupted.get(0).getScanId());
+        assertEquals(1, interrupted.get(0).getDiscoveredBlocks());
+        assertEquals(1, interrupted.get(0).getCompletedHosts());
+    }
+
+    @Test
+    void completedScanLeavesNoJournal() throws IOException {
+        String scanId = interruptedScan();
+
+        journal.resume(scanId).complete();
+
+        assertEquals(List.of(), journal.listInterrupted());
+        assertThrows(IllegalArgumentException.class, () -> journal.resume(scanId));
+    }
+
+    @Test
+    void failedStartLeavesNothingBehind() throws IOException {
+        // El directorio de journals no se puede crear: su padre es un archivo
+        Path blocked = directory.resolve("blocked");
+        Files.writeString(blocked, "");
+        config.getCheckpoint().setDirectory(blocked.resolve("checkpoints").toString());
+
+        assertThrows(IOException.class, () -> journal.start(RANGE));
+
+        Files.delete(blocked);
+        assertEquals(List.of(), journal.listInterrupted());
+        try (ScanJournal.Checkpoint checkpoint = journal.start(RANGE)) {
+            assertEquals(List.of(), checkpoint.getPendingHosts());
+        }
+        assertFalse(journal.listInterrupted().isEmpty());
+    }
+
+    /**
+     * Escaneo que descubrió la primera mitad del rango (tres hosts), terminó
+     * uno, falló otro y se cortó antes del tercero.
+     */
+    private String interruptedScan() throws IOException {
+        ScanJournal.Checkpoint checkpoint = journal.start(RANGE);
+        checkpoint.recordDiscovered(List.of(Ipv4Range.parse("10.0.0.0/25")),
+                List.of("10.0.0.1", "10.0.0.2", "10.0.0.3"));
+        checkpoint.recordHost(device("10.0.0.1", "up"));
+        checkpoint.recordHost(device("10.0.0.2", "error"));
+        checkpoint.close();
+        return checkpoint.getScanId();
+    }
+
+    private static NetworkDevice device(String ip, String status) {
+        return NetworkDevice.builder()
+                .ipAddress(ip)
+                .status(status)
+                .build();
+    }
+}
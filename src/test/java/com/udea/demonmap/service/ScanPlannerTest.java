@@ -0,0 +1,96 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.repository.DiscoveryProfile;
+import com.udea.demonmap.util.Ipv4Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Agrupación de los bloques de una /16 en invocaciones de descubrimiento
+ * según el historial: 40 bloques con hosts conocidos, 64 vacíos y el resto
+ * sin historial.
+ */
+class ScanPlannerTest {
+
+    private static final Ipv4Range NETWORK = Ipv4Range.parse("10.1.0.0/16");
+
+    private final ScanHistory history = new ScanHistory();
+    private final NetworkScanConfig config = new NetworkScanConfig();
+    private final ScanPlanner planner = new ScanPlanner(history, config);
+
+    @Test
+    void blocksOfEachPriorityAreDiscoveredSixteenPerInvocation() {
+        recordHistory();
+
+        List<ScanPlanner.ScanChunk> chunks = planner.plan(List.of(NETWORK));
+
+        // 40 con hosts conocidos, 152 sin historial y 64 vacíos, de a 16 bloques
+        assertEquals(3 + 10 + 4, chunks.size());
+        assertEquals(List.of(
+                        ScanPlanner.Priority.HOT, ScanPlanner.Priority.HOT, ScanPlanner.Priority.HOT,
+                        ScanPlanner.Priority.UNKNOWN, ScanPlanner.Priority.UNKNOWN, ScanPlanner.Priority.UNKNOWN,
+                        ScanPlanner.Priority.UNKNOWN, ScanPlanner.Priority.UNKNOWN, ScanPlanner.Priority.UNKNOWN,
+                        ScanPlanner.Priority.UNKNOWN, ScanPlanner.Priority.UNKNOWN, ScanPlanner.Priority.UNKNOWN,
+                        ScanPlanner.Priority.UNKNOWN,
+                        ScanPlanner.Priority.COLD, ScanPlanner.Priority.COLD, ScanPlanner.Priority.COLD,
+                        ScanPlanner.Priority.COLD),
+                chunks.stream().map(ScanPlanner.ScanChunk::getPriority).toList());
+        assertEquals(DiscoveryProfile.LIGHT, chunks.get(chunks.size() - 1).getDiscoveryProfile());
+        assertEquals(256 * 256, chunks.stream()
+                .flatMap(chunk -> chunk.getRanges().stream())
+                .mapToLong(Ipv4Range::size)
+                .sum());
+    }
+
+    @Test
+    void densestBlockLeadsTheFirstBatchWithItsKnownHostsFirst() {
+        recordHistory();
+
+        List<ScanPlanner.ScanChunk> chunks = planner.plan(List.of(NETWORK));
+
+        ScanPlanner.ScanChunk first = chunks.get(0);
+        assertEquals(List.of("10.1.7.1", "10.1.7.2", "10.1.7.3", "10.1.0.1"),
+                first.getKnownAliveHosts().subList(0, 4));
+        assertEquals(16 + 2, first.getKnownAliveHosts().size());
+        assertEquals(8, chunks.get(2).getKnownAliveHosts().size());
+    }
+
+    @Test
+    void withThePlannerDisabledTheRangeIsDiscoveredInOneInvocation() {
+        recordHistory();
+        config.getPlanner().setEnabled(false);
+
+        List<ScanPlanner.ScanChunk> chunks = planner.plan(List.of(NETWORK));
+
+        assertEquals(1, chunks.size());
+        assertEquals(List.of(NETWORK), chunks.get(0).getRanges());
+    }
+
+    /**
+     * Un host visto en cada bloque 10.1.0-39 (tres en 10.1.7) y un escaneo
+     * completo de 10.1.64.0/18 que no encontró nada.
+     */
+    private void recordHistory() {
+        for (int block = 0; block < 40; block++) {
+            history.onDeviceScanned(device("10.1." + block + ".1"));
+        }
+        history.onDeviceScanned(device("10.1.7.2"));
+        history.onDeviceScanned(device("10.1.7.3"));
+        history.onScanCompleted(ScanResult.builder()
+                .networkRange("10.1.64.0/18")
+                .build());
+    }
+
+    private static NetworkDevice device(String ip) {
+        return NetworkDevice.builder()
+                .ipAddress(ip)
+                .status("up")
+                .build();
+    }
+}
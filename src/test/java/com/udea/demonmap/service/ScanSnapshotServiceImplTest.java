@@ -0,0 +1,158 @@
+package com.udea.demonmap.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.dto.ScanChangeDTO;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.entity.ScanResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Snapshots en un directorio temporal con tramos de 3 dispositivos para el
+ * sort externo, así un escaneo de unos pocos hosts ya se mezcla desde disco.
+ */
+class ScanSnapshotServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor();
+    private final NetworkScanConfig config = new NetworkScanConfig();
+    private ScanSnapshotServiceImpl snapshots;
+
+    @BeforeEach
+    void setUp() {
+        config.getSnapshots().setDirectory(directory.toString());
+        config.getSpill().setMemoryThreshold(3);
+        snapshots = new ScanSnapshotServiceImpl(config, new ObjectMapper().findAndRegisterModules(), snapshotExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotExecutor.shutdownNow();
+    }
+
+    @Test
+    void hostsAreSortedNumericallyAcrossRunsWithoutDuplicates() throws Exception {
+        String empty = save("10.0.0.0/24", List.of(), List.of());
+        String full = save("10.0.0.0/24", List.of(
+                device("10.0.0.100"), device("10.0.0.9"), device("10.0.0.10"),
+                device("10.0.0.2"), device("10.0.0.9"), device("10.0.0.250"),
+                device("10.0.0.1"), errorDevice("10.0.0.3")), List.of());
+
+        assertEquals(6, snapshots.listSnapshots().get(1).getHostCount());
+        assertEquals(List.of("10.0.0.1", "10.0.0.2", "10.0.0.9", "10.0.0.10", "10.0.0.100", "10.0.0.250"),
+                changes(empty, full).stream().map(ScanChangeDTO::getIpAddress).toList());
+        // Los tramos temporales del sort se borran: quedan hosts y metadatos de cada snapshot
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(4, files.count());
+        }
+    }
+
+    @Test
+    void mergeReportsHostPortAndAttributeChangesInAddressOrder() throws Exception {
+        String before = save("10.0.0.0/24", List.of(
+                device("10.0.0.1", 22, 80),
+                device("10.0.0.5", 443),
+                device("10.0.0.7"),
+                device("10.0.0.8")), List.of());
+        NetworkDevice renumbered = device("10.0.0.1", 22, 8080);
+        renumbered.setMacAddress("AA:BB:CC:DD:EE:FF");
+        String after = save("10.0.0.0/24", List.of(
+                device("10.0.0.9"),
+                renumbered,
+                device("10.0.0.8"),
+                device("10.0.0.6")), List.of("10.0.0.7"));
+
+        assertEquals(List.of(
+                "MAC_CHANGED 10.0.0.1 null",
+                "PORT_CLOSED 10.0.0.1 80",
+                "PORT_OPENED 10.0.0.1 8080",
+                "HOST_REMOVED 10.0.0.5 null",
+                "PORT_CLOSED 10.0.0.5 443",
+                "HOST_ADDED 10.0.0.6 null",
+                "HOST_ADDED 10.0.0.9 null"),
+                changes(before, after).stream()
+                        .map(change -> change.getChange() + " " + change.getIpAddress() + " " + change.getPort())
+                        .toList());
+    }
+
+    @Test
+    void hostsOutsideTheOtherScanRangeAreNotReported() throws Exception {
+        String narrow = save("10.0.0.0/25", List.of(device("10.0.0.1")), List.of());
+        String wide = save("10.0.0.0/24", List.of(device("10.0.0.1"), device("10.0.0.200")), List.of());
+
+        assertEquals(List.of(), changes(narrow, wide));
+        assertEquals(List.of(), changes(wide, narrow));
+    }
+
+    @Test
+    void unknownSnapshotIsRejected() throws Exception {
+        String known = save("10.0.0.0/24", List.of(), List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> snapshots.diff(known, UUID.randomUUID().toString()));
+    }
+
+    /**
+     * Notifica un escaneo terminado y espera a que se escriba su snapshot.
+     *
+     * @return Id del escaneo
+     */
+    private String save(String networkRange, List<NetworkDevice> devices, List<String> deferredHosts)
+            throws Exception {
+        ScanResult result = ScanResult.builder()
+                .networkRange(networkRange)
+                .scanStartTime(LocalDateTime.now())
+                .scanEndTime(LocalDateTime.now())
+                .devices(new ArrayList<>(devices))
+                .deferredHosts(deferredHosts)
+                .status(ScanResult.ScanStatus.SUCCESS)
+                .build();
+        snapshots.onScanCompleted(result);
+        snapshotExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        return result.getScanId();
+    }
+
+    private List<ScanChangeDTO> changes(String fromScanId, String toScanId) {
+        try (Stream<ScanChangeDTO> changes = snapshots.diff(fromScanId, toScanId)) {
+            return changes.toList();
+        }
+    }
+
+    private static NetworkDevice device(String ip, Integer... openPorts) {
+        List<Port> ports = new ArrayList<>();
+        for (Integer port : openPorts) {
+            ports.add(Port.builder().portNumber(port).protocol("tcp").state("open").build());
+        }
+        return NetworkDevice.builder()
+                .ipAddress(ip)
+                .status("up")
+                .openPorts(ports)
+                .build();
+    }
+
+    private static NetworkDevice errorDevice(String ip) {
+        return NetworkDevice.builder()
+                .ipAddress(ip)
+                .status("error")
+                .build();
+    }
+}
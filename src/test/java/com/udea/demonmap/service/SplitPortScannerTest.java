@@ -0,0 +1,166 @@
+package com.udea.demonmap.service;
+
+import com.udea.demonmap.config.NetworkScanConfig;
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import com.udea.demonmap.entity.ScanResult;
+import com.udea.demonmap.repository.NetworkScanner;
+import com.udea.demonmap.repository.PortSelection;
+import com.udea.demonmap.repository.ScanException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reserva de threads y cancelación de los tramos. El pool no tiene threads:
+ * las tareas se corren a mano desde la prueba, así que "empezar" un tramo es
+ * un paso explícito.
+ */
+class SplitPortScannerTest {
+
+    private static final List<Integer> TOP_PORTS = IntStream.rangeClosed(1, 20).boxed().toList();
+
+    private final ManualExecutor executor = new ManualExecutor(4);
+    private final FakeScanner scanner = new FakeScanner();
+    private final SplitPortScanner splitPortScanner =
+            new SplitPortScanner(scanner, new NetworkScanConfig(), executor);
+
+    @Test
+    void concurrentHostsDoNotSplitTheSameIdleThreads() throws Exception {
+        CompletableFuture<NetworkDevice> first = splitPortScanner.scan("10.0.0.1");
+        assertEquals(4, executor.tasks.size());
+        assertEquals(4, splitPortScanner.reservedSlices());
+
+        // Los 4 threads libres ya están reservados aunque ningún tramo empezó
+        CompletableFuture<NetworkDevice> second = splitPortScanner.scan("10.0.0.2");
+        assertEquals(5, executor.tasks.size());
+        assertEquals(4, splitPortScanner.reservedSlices());
+
+        executor.runNext();
+        assertEquals(3, splitPortScanner.reservedSlices());
+        executor.runAll();
+
+        assertEquals(0, splitPortScanner.reservedSlices());
+        assertEquals(List.of(3, 7, 11), openPorts(first.get(1, TimeUnit.SECONDS)));
+        assertEquals(List.of(3, 7, 11), openPorts(second.get(1, TimeUnit.SECONDS)));
+        assertEquals(List.of("SLICE", "SLICE", "SLICE", "SLICE", "TOP"), scanner.modes);
+    }
+
+    @Test
+    void failedSliceFailsTheHostAndCancelsTheQueuedSlices() {
+        scanner.failing = true;
+        CompletableFuture<NetworkDevice> scan = splitPortScanner.scan("10.0.0.1");
+
+        executor.runNext();
+
+        assertTrue(scan.isCompletedExceptionally());
+        executor.runAll();
+        assertEquals(1, scanner.modes.size());
+        assertEquals(0, splitPortScanner.reservedSlices());
+    }
+
+    @Test
+    void cancellingTheHostCancelsTheQueuedSlicesAndReleasesTheirThreads() {
+        CompletableFuture<NetworkDevice> scan = splitPortScanner.scan("10.0.0.1");
+        executor.runNext();
+
+        scan.cancel(false);
+
+        assertEquals(0, splitPortScanner.reservedSlices());
+        executor.runAll();
+        assertEquals(1, scanner.modes.size());
+        // Sin reservas pendientes el siguiente host vuelve a repartirse
+        splitPortScanner.scan("10.0.0.2");
+        assertEquals(4, splitPortScanner.reservedSlices());
+    }
+
+    private static List<Integer> openPorts(NetworkDevice device) {
+        return device.getOpenPorts().stream().map(Port::getPortNumber).toList();
+    }
+
+    /**
+     * Escáner con los puertos 3, 7 y 11 abiertos en todos los hosts.
+     */
+    private static final class FakeScanner implements NetworkScanner {
+        private final List<String> modes = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public NetworkDevice scanHost(String ipAddress, PortSelection selection) throws ScanException {
+            modes.add(selection.getMode().name());
+            if (failing) {
+                throw new ScanException("nmap terminó con error");
+            }
+            List<Integer> probed = selection.getMode() == PortSelection.Mode.SLICE ? selection.getPorts() : TOP_PORTS;
+            List<Port> open = new ArrayList<>();
+            for (int port : List.of(3, 7, 11)) {
+                if (probed.contains(port)) {
+                    open.add(Port.builder().portNumber(port).protocol("tcp").state("open").build());
+                }
+            }
+            return NetworkDevice.builder().ipAddress(ipAddress).status("up").openPorts(open).build();
+        }
+
+        @Override
+        public NetworkDevice scanHost(String ipAddress) throws ScanException {
+            return scanHost(ipAddress, PortSelection.top());
+        }
+
+        @Override
+        public List<Integer> topPortList(int count) {
+            return TOP_PORTS;
+        }
+
+        @Override
+        public ScanResult scanNetwork(String networkRange) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isHostAlive(String ipAddress) {
+            return true;
+        }
+
+        @Override
+        public List<String> getActiveHosts(String networkRange) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Pool sin threads que guarda las tareas para correrlas desde la prueba.
+     */
+    private static final class ManualExecutor extends ThreadPoolExecutor {
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        ManualExecutor(int threads) {
+            super(threads, threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runNext() {
+            tasks.poll().run();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                runNext();
+            }
+        }
+    }
+}
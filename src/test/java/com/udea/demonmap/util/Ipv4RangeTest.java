@@ -0,0 +1,94 @@
+package com.udea.demonmap.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Aritmética de intervalos IPv4 y su vuelta a bloques CIDR.
+ */
+class Ipv4RangeTest {
+
+    @Test
+    void parseAlignsTheAddressToItsNetwork() {
+        Ipv4Range range = Ipv4Range.parse("192.168.1.77/24");
+
+        assertEquals("192.168.1.0", Ipv4Range.toIp(range.getStart()));
+        assertEquals("192.168.1.255", Ipv4Range.toIp(range.getEnd()));
+        assertEquals(256, range.size());
+        assertEquals(1, Ipv4Range.parse("10.0.0.7").size());
+        assertEquals(1L << 32, Ipv4Range.parse("0.0.0.0/0").size());
+    }
+
+    @Test
+    void invalidTargetsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Ipv4Range.parse("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> Ipv4Range.parse("10.0.0.256/24"));
+        assertThrows(IllegalArgumentException.class, () -> Ipv4Range.parse(null));
+        // Sintaxis propia de nmap: no es un CIDR
+        assertEquals(Optional.empty(), Ipv4Range.tryParse("10.0.0.1-20"));
+    }
+
+    @Test
+    void intersectReturnsTheCommonPartOnly() {
+        Ipv4Range wide = Ipv4Range.parse("10.0.0.0/23");
+        Ipv4Range inside = Ipv4Range.parse("10.0.1.0/25");
+
+        assertEquals(Optional.of(inside), wide.intersect(inside));
+        assertEquals(Optional.empty(), inside.intersect(Ipv4Range.parse("10.0.1.128/25")));
+        assertTrue(wide.overlaps(inside));
+        assertFalse(wide.overlaps(Ipv4Range.parse("10.0.2.0/24")));
+    }
+
+    @Test
+    void subtractLeavesTheUncoveredGapsInOrder() {
+        Ipv4Range range = Ipv4Range.parse("10.0.0.0/24");
+
+        List<Ipv4Range> remainder = range.subtract(List.of(
+                Ipv4Range.parse("10.0.0.128/26"),
+                Ipv4Range.parse("10.0.0.0/26"),
+                Ipv4Range.parse("10.0.0.32/27")));
+
+        assertEquals(List.of(Ipv4Range.parse("10.0.0.64/26"), Ipv4Range.parse("10.0.0.192/26")), remainder);
+        assertEquals(List.of(), range.subtract(List.of(Ipv4Range.parse("10.0.0.0/16"))));
+        assertEquals(List.of(range), range.subtract(List.of(Ipv4Range.parse("10.0.1.0/24"))));
+    }
+
+    @Test
+    void mergeJoinsOverlappingAndAdjacentRanges() {
+        List<Ipv4Range> merged = Ipv4Range.merge(List.of(
+                Ipv4Range.parse("10.0.1.0/24"),
+                Ipv4Range.parse("10.0.0.0/24"),
+                Ipv4Range.parse("10.0.0.128/25"),
+                Ipv4Range.parse("10.0.3.0/24")));
+
+        assertEquals(List.of(Ipv4Range.parse("10.0.0.0/23"), Ipv4Range.parse("10.0.3.0/24")), merged);
+    }
+
+    @Test
+    void splitCutsAtTheAlignedBlockBoundaries() {
+        Ipv4Range range = new Ipv4Range(Ipv4Range.toLong("10.0.0.200"), Ipv4Range.toLong("10.0.2.10"));
+
+        List<Ipv4Range> blocks = range.split(24);
+
+        assertEquals(List.of("10.0.0.200-10.0.0.255", "10.0.1.0/24", "10.0.2.0-10.0.2.10"),
+                blocks.stream().map(Ipv4Range::toString).toList());
+    }
+
+    @Test
+    void unalignedRangeBecomesTheMinimalCidrBlocks() {
+        Ipv4Range range = new Ipv4Range(Ipv4Range.toLong("10.0.0.1"), Ipv4Range.toLong("10.0.0.10"));
+
+        assertEquals(List.of("10.0.0.1/32", "10.0.0.2/31", "10.0.0.4/30", "10.0.0.8/31", "10.0.0.10/32"),
+                range.toCidrBlocks());
+        assertEquals(List.of("0.0.0.0/0"), Ipv4Range.parse("0.0.0.0/0").toCidrBlocks());
+        assertEquals("10.0.0.0/24 10.0.2.0/31", Ipv4Range.toNmapTargets(List.of(
+                Ipv4Range.parse("10.0.0.0/24"), Ipv4Range.parse("10.0.2.0/31"))));
+    }
+}
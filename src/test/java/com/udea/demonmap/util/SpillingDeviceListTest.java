@@ -0,0 +1,139 @@
+package com.udea.demonmap.util;
+
+import com.udea.demonmap.entity.NetworkDevice;
+import com.udea.demonmap.entity.Port;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lista con un umbral de 3 dispositivos en memoria: del cuarto en adelante
+ * van al archivo de derrame en un directorio temporal de la prueba.
+ */
+class SpillingDeviceListTest {
+
+    private static final int MEMORY_LIMIT = 3;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void devicesPastTheThresholdGoToDiskAndComeBackInOrder() throws Exception {
+        try (SpillingDeviceList list = filled(10)) {
+            assertEquals(10, list.size());
+            assertEquals(7, list.getSpilledCount());
+            assertEquals(1, spillFiles().size());
+
+            assertEquals(ips(10), ipsOf(list));
+            NetworkDevice spilled = list.get(8);
+            assertEquals("10.0.0.8", spilled.getIpAddress());
+            assertEquals(8, spilled.getOpenPorts().get(0).getPortNumber());
+        }
+    }
+
+    @Test
+    void getWalksTheDiskInOrderAndRewindsWhenAskedBackwards() throws Exception {
+        try (SpillingDeviceList list = filled(8)) {
+            List<String> forward = new ArrayList<>();
+            for (int i = 0; i < list.size(); i++) {
+                forward.add(list.get(i).getIpAddress());
+            }
+            assertEquals(ips(8), forward);
+
+            assertEquals("10.0.0.6", list.get(6).getIpAddress());
+            assertEquals("10.0.0.4", list.get(4).getIpAddress());
+            assertThrows(IndexOutOfBoundsException.class, () -> list.get(8));
+        }
+    }
+
+    @Test
+    void closeDeletesTheFileAndKeepsTheDevicesInMemory() throws Exception {
+        SpillingDeviceList list = filled(6);
+
+        list.close();
+
+        assertEquals(List.of(), spillFiles());
+        assertEquals(ips(MEMORY_LIMIT), ipsOf(list));
+        assertThrows(IllegalStateException.class, list::retain);
+    }
+
+    @Test
+    void fileSurvivesUntilTheLastRetainedUserCloses() throws Exception {
+        SpillingDeviceList list = filled(6);
+        list.retain();
+
+        list.close();
+        assertEquals(1, spillFiles().size());
+        assertEquals(ips(6), ipsOf(list));
+
+        list.close();
+        assertEquals(List.of(), spillFiles());
+    }
+
+    @Test
+    void belowTheThresholdNothingIsWritten() throws Exception {
+        try (SpillingDeviceList list = filled(MEMORY_LIMIT)) {
+            assertEquals(0, list.getSpilledCount());
+            assertEquals(List.of(), spillFiles());
+        }
+    }
+
+    @Test
+    void unreachableListIsDeletedByTheCleaner() throws Exception {
+        filled(6);
+        assertEquals(1, spillFiles().size());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!spillFiles().isEmpty() && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        assertTrue(spillFiles().isEmpty(), "El Cleaner no borró el archivo de derrame");
+    }
+
+    private SpillingDeviceList filled(int count) {
+        SpillingDeviceList list = new SpillingDeviceList(MEMORY_LIMIT, directory);
+        for (int i = 0; i < count; i++) {
+            list.add(NetworkDevice.builder()
+                    .ipAddress("10.0.0." + i)
+                    .status("up")
+                    .openPorts(List.of(Port.builder().portNumber(i).protocol("tcp").state("open").build()))
+                    .build());
+        }
+        return list;
+    }
+
+    private List<Path> spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private static List<String> ips(int count) {
+        List<String> ips = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ips.add("10.0.0." + i);
+        }
+        return ips;
+    }
+
+    private static List<String> ipsOf(List<NetworkDevice> devices) {
+        List<String> ips = new ArrayList<>();
+        for (NetworkDevice device : devices) {
+            ips.add(device.getIpAddress());
+        }
+        return ips;
+    }
+}
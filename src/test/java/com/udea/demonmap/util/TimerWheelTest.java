@@ -0,0 +1,112 @@
+package com.udea.demonmap.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vencimientos de la rueda con un reloj sintético: ticks de 10 ns y 8 ranuras,
+ * así una vuelta completa son 80 ns.
+ */
+class TimerWheelTest {
+
+    private static final long TICK = 10;
+    private static final int SLOTS = 8;
+
+    private final TimerWheel<String> wheel = new TimerWheel<>(SLOTS, TICK, 0);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void expiresOnTheTickOfItsDeadline() {
+        wheel.schedule("a", 25, 0);   // tick 3
+
+        wheel.advance(29, expired::add);
+        assertEquals(List.of(), expired);
+
+        wheel.advance(30, expired::add);
+        assertEquals(List.of("a"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void neverExpiresBeforeTheNextTick() {
+        wheel.advance(50, expired::add);
+        wheel.schedule("now", 0, 50);
+
+        wheel.advance(50, expired::add);
+        assertEquals(List.of(), expired);
+
+        wheel.advance(59, expired::add);
+        assertEquals(List.of(), expired);
+        wheel.advance(60, expired::add);
+        assertEquals(List.of("now"), expired);
+    }
+
+    @Test
+    void deadlineMoreThanOneRotationAwayWaitsForItsRotation() {
+        wheel.schedule("far", 2 * SLOTS * TICK + 15, 0);   // tick 18, ranura 2
+        wheel.schedule("near", 2 * TICK, 0);                // tick 2, misma ranura
+
+        // Las pasadas por la ranura en los ticks 2 y 10 solo entregan el cercano
+        wheel.advance(SLOTS * TICK + 2 * TICK, expired::add);
+        assertEquals(List.of("near"), expired);
+        assertEquals(1, wheel.size());
+
+        // Segunda vuelta: todavía falta una
+        wheel.advance(179, expired::add);
+        assertEquals(List.of("near"), expired);
+
+        wheel.advance(180, expired::add);
+        assertEquals(List.of("near", "far"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advancingInOneJumpDeliversEveryExpiredTimer() {
+        wheel.schedule("a", 10, 0);
+        wheel.schedule("b", 3 * SLOTS * TICK, 0);
+        wheel.schedule("c", 45, 0);
+
+        wheel.advance(10 * SLOTS * TICK, expired::add);
+        assertEquals(List.of("a", "c", "b"), expired);
+    }
+
+    @Test
+    void cancelledTimerIsNeverDeliveredAndLeavesTheWheel() {
+        TimerWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 30, 0);
+        wheel.schedule("kept", 30, 0);
+        cancelled.cancel();
+        // Sigue contado hasta que la rueda pasa por su ranura
+        assertEquals(2, wheel.size());
+
+        wheel.advance(30, expired::add);
+        assertEquals(List.of("kept"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledFarTimerIsRetiredOnTheFirstPass() {
+        wheel.schedule("far", 5 * SLOTS * TICK, 0).cancel();
+
+        wheel.advance(SLOTS * TICK, expired::add);
+        assertEquals(0, wheel.size());
+        wheel.advance(10 * SLOTS * TICK, expired::add);
+        assertEquals(List.of(), expired);
+    }
+
+    @Test
+    void reportsTimeUntilNextTickOnlyWhileTimersArePending() {
+        assertEquals(-1, wheel.nanosUntilNextTick(0));
+
+        wheel.schedule("a", 50, 3);
+        assertEquals(7, wheel.nanosUntilNextTick(3));
+        assertTrue(wheel.nanosUntilNextTick(100) >= 0);
+
+        wheel.advance(60, expired::add);
+        assertEquals(-1, wheel.nanosUntilNextTick(60));
+    }
+}